@@ -0,0 +1,106 @@
+package dms.bench;
+
+import dms.model.DVD;
+import dms.service.BulkInserter;
+import dms.service.DVDCollection;
+import dms.util.DBUtil;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.SplittableRandom;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * class: BenchData
+ * purpose: Creates the throwaway databases and CSV files the benchmarks run against.
+ *          Data is generated from a fixed seed, so every run measures the same rows.
+ */
+final class BenchData {
+
+    static final String[] GENRES = {"Drama", "Comedy", "Action", "Sci-Fi", "Horror", "Documentary", "Animation", "Thriller"};
+
+    private static final long SEED = 42;
+
+    private BenchData() {
+    }
+
+    /**
+     * method: dvd
+     * parameters: SplittableRandom random, int n
+     * return: DVD
+     * purpose: Builds the n-th generated DVD.
+     */
+    static DVD dvd(SplittableRandom random, int n) {
+        return new DVD(0, "Title " + n, "Director " + random.nextInt(5000),
+                1950 + random.nextInt(75), GENRES[random.nextInt(GENRES.length)],
+                random.nextInt(10) == 0 ? -1 : random.nextInt(101) / 10.0);
+    }
+
+    /**
+     * method: newDatabase
+     * parameters: none
+     * return: Path
+     * purpose: Returns the path of a new, empty database file in the temp directory.
+     */
+    static Path newDatabase() throws IOException {
+        Path file = Files.createTempFile("dvddms-bench-", ".db");
+        Files.delete(file);
+        return file;
+    }
+
+    /**
+     * method: populatedCollection
+     * parameters: Path dbFile, int rows
+     * return: DVDCollection
+     * purpose: Opens a collection on a new database and bulk-inserts {@code rows} generated DVDs.
+     */
+    static DVDCollection populatedCollection(Path dbFile, int rows) throws SQLException {
+        DVDCollection collection = new DVDCollection(dbFile.toString());
+        SplittableRandom random = new SplittableRandom(SEED);
+        try (BulkInserter inserter = collection.openBulkInsert(10_000)) {
+            for (int i = 1; i <= rows; i++) {
+                inserter.add(dvd(random, i));
+            }
+        }
+        return collection;
+    }
+
+    /**
+     * method: writeCsv
+     * parameters: int rows
+     * return: Path
+     * purpose: Writes a CSV file with {@code rows} generated DVDs in the importer's format.
+     *          Every hundredth title contains a quoted comma to exercise the RFC 4180 path.
+     */
+    static Path writeCsv(int rows) throws IOException {
+        Path file = Files.createTempFile("dvddms-bench-", ".csv");
+        SplittableRandom random = new SplittableRandom(SEED);
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            for (int i = 1; i <= rows; i++) {
+                DVD dvd = dvd(random, i);
+                String title = i % 100 == 0 ? "\"" + dvd.getTitle() + ", Part II\"" : dvd.getTitle();
+                out.write(i + "," + title + "," + dvd.getDirector() + "," + dvd.getReleaseYear()
+                        + "," + dvd.getGenre() + "," + dvd.getRating());
+                out.newLine();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * method: delete
+     * parameters: Path dbFile
+     * return: void
+     * purpose: Closes the database's connection pool and deletes its files.
+     */
+    static void delete(Path dbFile) throws IOException {
+        DBUtil.closePool(dbFile.toString());
+        Files.deleteIfExists(dbFile);
+        Files.deleteIfExists(Path.of(dbFile + "-journal"));
+        Files.deleteIfExists(Path.of(dbFile + "-wal"));
+        Files.deleteIfExists(Path.of(dbFile + "-shm"));
+    }
+}
@@ -0,0 +1,50 @@
+package dms.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * class: BenchmarkRunner
+ * purpose: Runs the JMH benchmarks of the {@code dvddms-bench} module and writes the
+ *          results as JSON to {@code bench-results/}, one file per run, so runs from
+ *          different releases can be compared (e.g. with JMH Visualizer or a diff of the
+ *          "primaryMetric" scores).
+ *
+ *          Usage: run this class from the dvddms-bench module, optionally passing a regular
+ *          expression that selects benchmarks (e.g. {@code "CSVImport"}) and an output file.
+ *          The JMH annotation processor must be enabled for the module (see the "JMH"
+ *          profile in .idea/compiler.xml).
+ */
+public class BenchmarkRunner {
+
+    /**
+     * method: main
+     * parameters: String[] args - optional benchmark regex, optional JSON output path
+     * return: void
+     * purpose: Runs the selected benchmarks and writes the JSON result file.
+     */
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = args.length > 0 ? args[0] : "dms\\.bench\\..*";
+        Path output = args.length > 1 ? Path.of(args[1]) : Path.of("bench-results",
+                "jmh-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        if (output.getParent() != null) Files.createDirectories(output.getParent());
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(output.toString())
+                .build();
+        new Runner(options).run();
+        System.out.println("Benchmark results written to " + output.toAbsolutePath());
+    }
+}
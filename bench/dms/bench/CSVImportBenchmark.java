@@ -0,0 +1,114 @@
+package dms.bench;
+
+import dms.service.DVDCollection;
+import dms.util.CSVImporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * class: CSVImportBenchmark
+ * purpose: Measures a complete {@link CSVImporter} import of generated files with 10k, 100k
+ *          and 1M rows into an empty database, and a re-import of the same file into a
+ *          database that already holds it (the nightly full-catalog feed case). Each
+ *          measured import is a single shot; divide the row count by the reported time for
+ *          rows per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CSVImportBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int rows;
+
+    private Path csvFile;
+    private Path dbFile;
+    private DVDCollection collection;
+
+    /**
+     * method: writeFile
+     * parameters: none
+     * return: void
+     * purpose: Generates the CSV file once per row count.
+     */
+    @Setup(Level.Trial)
+    public void writeFile() throws IOException {
+        csvFile = BenchData.writeCsv(rows);
+    }
+
+    /**
+     * method: deleteFile
+     * parameters: none
+     * return: void
+     * purpose: Deletes the generated CSV file.
+     */
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(csvFile);
+    }
+
+    /**
+     * method: openDatabase
+     * parameters: BenchmarkParams params
+     * return: void
+     * purpose: Creates an empty database before each import, outside the measured time.
+     *          For the re-import benchmark the file is imported once here as well.
+     */
+    @Setup(Level.Iteration)
+    public void openDatabase(BenchmarkParams params) throws IOException {
+        dbFile = BenchData.newDatabase();
+        collection = new DVDCollection(dbFile.toString());
+        if (params.getBenchmark().endsWith("reimportFromCSV")) {
+            CSVImporter.importFromCSV(csvFile.toString(), collection);
+        }
+    }
+
+    /**
+     * method: deleteDatabase
+     * parameters: none
+     * return: void
+     * purpose: Deletes the database after each import.
+     */
+    @TearDown(Level.Iteration)
+    public void deleteDatabase() throws IOException {
+        BenchData.delete(dbFile);
+    }
+
+    @Benchmark
+    public int importFromCSV() {
+        return CSVImporter.importFromCSV(csvFile.toString(), collection);
+    }
+
+    /**
+     * method: reimportFromCSV
+     * parameters: none
+     * return: int
+     * purpose: Imports the file into a database that already holds every row, so each row
+     *          takes the upsert path and nothing is written.
+     */
+    @Benchmark
+    public int reimportFromCSV() {
+        return CSVImporter.importFromCSV(csvFile.toString(), collection);
+    }
+}
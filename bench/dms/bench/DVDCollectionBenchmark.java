@@ -0,0 +1,113 @@
+package dms.bench;
+
+import dms.model.DVD;
+import dms.service.Columns;
+import dms.service.DVDCollection;
+import dms.service.DVDColumn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * class: DVDCollectionBenchmark
+ * purpose: Measures the read paths of {@link DVDCollection} against databases of several sizes:
+ *          findById for existing IDs (with and without the cache) and missing IDs, listAll,
+ *          and computeAverageRatingByGenre.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DVDCollectionBenchmark {
+
+    private static final Columns RATINGS = Columns.of(DVDColumn.RATING);
+
+    @Param({"1000", "10000", "100000"})
+    int size;
+
+    private Path dbFile;
+    private DVDCollection collection;
+    private DVDCollection cachedCollection;
+
+    /**
+     * method: setUp
+     * parameters: none
+     * return: void
+     * purpose: Creates and fills the database once per parameter value.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        dbFile = BenchData.newDatabase();
+        collection = BenchData.populatedCollection(dbFile, size);
+        cachedCollection = new DVDCollection(dbFile.toString());
+        cachedCollection.enableCache(size, Duration.ofHours(1));
+    }
+
+    /**
+     * method: tearDown
+     * parameters: none
+     * return: void
+     * purpose: Deletes the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchData.delete(dbFile);
+    }
+
+    @Benchmark
+    public Optional<DVD> findByIdHit() {
+        return collection.findById(ThreadLocalRandom.current().nextInt(1, size + 1));
+    }
+
+    @Benchmark
+    public Optional<DVD> findByIdMiss() {
+        return collection.findById(size + ThreadLocalRandom.current().nextInt(1, size + 1));
+    }
+
+    @Benchmark
+    public Optional<DVD> findByIdCacheHit() {
+        return cachedCollection.findById(ThreadLocalRandom.current().nextInt(1, size + 1));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<DVD> listAll() {
+        return collection.listAll();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public double scanRatings() {
+        double[] sum = new double[1];
+        collection.scan(RATINGS, row -> sum[0] += row.getRating());
+        return sum[0];
+    }
+
+    @Benchmark
+    public double computeAverageRatingByGenre() {
+        String[] genres = BenchData.GENRES;
+        return collection.computeAverageRatingByGenre(genres[ThreadLocalRandom.current().nextInt(genres.length)]);
+    }
+}
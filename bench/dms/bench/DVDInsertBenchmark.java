@@ -0,0 +1,68 @@
+package dms.bench;
+
+import dms.service.DVDCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * class: DVDInsertBenchmark
+ * purpose: Measures single-row {@link DVDCollection#addDVD} calls, each of which is its own
+ *          autocommit transaction. Every iteration starts from an empty database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DVDInsertBenchmark {
+
+    private final SplittableRandom random = new SplittableRandom(7);
+    private Path dbFile;
+    private DVDCollection collection;
+    private int next;
+
+    /**
+     * method: setUp
+     * parameters: none
+     * return: void
+     * purpose: Creates an empty database for the iteration.
+     */
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        dbFile = BenchData.newDatabase();
+        collection = new DVDCollection(dbFile.toString());
+    }
+
+    /**
+     * method: tearDown
+     * parameters: none
+     * return: void
+     * purpose: Deletes the iteration's database.
+     */
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        BenchData.delete(dbFile);
+    }
+
+    @Benchmark
+    public void addDVD() {
+        collection.addDVD(BenchData.dvd(random, ++next));
+    }
+}
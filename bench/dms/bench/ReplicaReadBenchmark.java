@@ -0,0 +1,109 @@
+package dms.bench;
+
+import dms.model.DVD;
+import dms.service.DVDCollection;
+import dms.service.DVDCollection.SortColumn;
+import dms.service.DVDStore;
+import dms.service.ReplicatedDVDCollection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * class: ReplicaReadBenchmark
+ * purpose: Compares the read latency of the on-disk {@link DVDCollection} with a
+ *          {@link ReplicatedDVDCollection} serving the same file from memory: findById,
+ *          a sorted page, count, full-text search and computeAverageRatingByGenre, each
+ *          from four threads as in a read-heavy server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class ReplicaReadBenchmark {
+
+    @Param({"10000", "100000"})
+    int size;
+
+    @Param({"disk", "replica"})
+    String storage;
+
+    private Path dbFile;
+    private DVDStore store;
+
+    /**
+     * method: setUp
+     * parameters: none
+     * return: void
+     * purpose: Creates and fills the database once per parameter combination and opens it
+     *          in the selected storage mode.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        dbFile = BenchData.newDatabase();
+        DVDCollection collection = BenchData.populatedCollection(dbFile, size);
+        store = storage.equals("replica") ? new ReplicatedDVDCollection(dbFile.toString()) : collection;
+    }
+
+    /**
+     * method: tearDown
+     * parameters: none
+     * return: void
+     * purpose: Discards the replica, if any, and deletes the database.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (store instanceof ReplicatedDVDCollection replicated) replicated.close();
+        BenchData.delete(dbFile);
+    }
+
+    @Benchmark
+    public Optional<DVD> findById() {
+        return store.findById(ThreadLocalRandom.current().nextInt(1, size + 1));
+    }
+
+    @Benchmark
+    public List<DVD> listPageByTitle() {
+        int offset = ThreadLocalRandom.current().nextInt(size / 200) * 200;
+        return store.listPage(SortColumn.TITLE, true, offset, 200);
+    }
+
+    @Benchmark
+    public int count() {
+        return store.count();
+    }
+
+    @Benchmark
+    public List<DVD> search() {
+        return store.search("director " + ThreadLocalRandom.current().nextInt(5000), 50);
+    }
+
+    @Benchmark
+    public double computeAverageRatingByGenre() {
+        String[] genres = BenchData.GENRES;
+        return store.computeAverageRatingByGenre(genres[ThreadLocalRandom.current().nextInt(genres.length)]);
+    }
+}
@@ -0,0 +1,42 @@
+package dms.bench;
+
+import dms.util.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * class: ValidatorBenchmark
+ * purpose: Measures {@link Validator} throughput over a fixed mix of valid and invalid values.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+
+    private final int[] years = {1894, 1895, 1950, 1999, 2024, 2999, -1, 2010};
+    private final double[] ratings = {-1, -0.5, 0.0, 5.5, 10.0, 10.1, 7.3, Double.NaN};
+    private int index;
+
+    @Benchmark
+    public boolean isValidYear() {
+        return Validator.isValidYear(years[index++ & 7]);
+    }
+
+    @Benchmark
+    public boolean isValidRating() {
+        return Validator.isValidRating(ratings[index++ & 7]);
+    }
+}
@@ -0,0 +1,185 @@
+package dms.service;
+
+import dms.model.DVD;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code AsyncDVDCollection} class is a non-blocking facade over a {@link DVDCollection}.
+ * Every method returns immediately with a {@link CompletableFuture} and runs the blocking
+ * call on its own virtual thread, so callers can fan out many requests without managing
+ * thread pools.
+ *
+ * <p>At most {@code maxConcurrency} calls reach the database at once; further calls wait
+ * on a semaphore (which only parks their virtual threads). The default limit is the size of
+ * the collection's connection pool, so waiting happens here rather than inside the pool.</p>
+ *
+ * <p>Like {@link DVDCollection}, database errors are reported on the console and produce
+ * the same default results (empty, {@code false} or 0.0), so futures complete normally.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ *     try (AsyncDVDCollection async = new AsyncDVDCollection(collection)) {
+ *         CompletableFuture&lt;Optional&lt;DVD&gt;&gt; a = async.findById(1);
+ *         CompletableFuture&lt;Double&gt; avg = async.computeAverageRatingByGenre("Drama");
+ *         System.out.println(a.join() + " " + avg.join());
+ *     }
+ * </pre>
+ */
+public class AsyncDVDCollection implements AutoCloseable {
+
+    private final DVDCollection collection;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Creates a facade that allows as many concurrent calls as the collection's pool has connections.
+     *
+     * @param collection the collection to call
+     */
+    public AsyncDVDCollection(DVDCollection collection) {
+        this(collection, collection.getPool().getMaxSize());
+    }
+
+    /**
+     * Creates a facade with an explicit concurrency limit.
+     *
+     * @param collection     the collection to call
+     * @param maxConcurrency the maximum number of calls running against the database at once
+     */
+    public AsyncDVDCollection(DVDCollection collection, int maxConcurrency) {
+        if (maxConcurrency < 1) throw new IllegalArgumentException("Concurrency must be at least 1.");
+        this.collection = collection;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    /**
+     * Adds a DVD asynchronously.
+     *
+     * @param dvd the DVD to add
+     * @return a future that completes once the DVD has been written
+     */
+    public CompletableFuture<Void> addDVD(DVD dvd) {
+        return submit(() -> {
+            collection.addDVD(dvd);
+            return null;
+        });
+    }
+
+    /**
+     * Looks up a DVD by ID asynchronously.
+     *
+     * @param id the DVD's ID
+     * @return a future with the DVD, or an empty {@link Optional} if it does not exist
+     */
+    public CompletableFuture<Optional<DVD>> findById(int id) {
+        return submit(() -> collection.findById(id));
+    }
+
+    /**
+     * Looks up many DVDs with one {@code IN (...)} query asynchronously.
+     *
+     * @param ids the IDs to look up
+     * @return a future with the DVDs that exist, ordered by ID
+     * @see DVDCollection#findAllById(Collection)
+     */
+    public CompletableFuture<List<DVD>> findAllById(Collection<Integer> ids) {
+        List<Integer> copy = List.copyOf(ids);
+        return submit(() -> collection.findAllById(copy));
+    }
+
+    /**
+     * Updates a DVD asynchronously.
+     *
+     * @param id         the ID of the DVD to update
+     * @param updatedDVD the new values
+     * @return a future with {@code true} if a DVD was updated
+     */
+    public CompletableFuture<Boolean> updateDVD(int id, DVD updatedDVD) {
+        return submit(() -> collection.updateDVD(id, updatedDVD));
+    }
+
+    /**
+     * Removes a DVD asynchronously.
+     *
+     * @param id the ID of the DVD to remove
+     * @return a future with {@code true} if a DVD was removed
+     */
+    public CompletableFuture<Boolean> removeDVDById(int id) {
+        return submit(() -> collection.removeDVDById(id));
+    }
+
+    /**
+     * Lists all DVDs asynchronously. For large tables, prefer {@link #page(int, int)}.
+     *
+     * @return a future with every DVD in the collection
+     */
+    public CompletableFuture<List<DVD>> listAll() {
+        return submit(collection::listAll);
+    }
+
+    /**
+     * Reads one page of DVDs asynchronously, using keyset pagination.
+     *
+     * @param afterId the ID after which the page starts (exclusive)
+     * @param limit   the maximum number of DVDs to return
+     * @return a future with up to {@code limit} DVDs ordered by ID
+     * @see DVDCollection#page(int, int)
+     */
+    public CompletableFuture<List<DVD>> page(int afterId, int limit) {
+        return submit(() -> collection.page(afterId, limit));
+    }
+
+    /**
+     * Computes a genre's average rating asynchronously.
+     *
+     * @param genre the genre
+     * @return a future with the average rating, or 0.0 if the genre has no rated DVDs
+     */
+    public CompletableFuture<Double> computeAverageRatingByGenre(String genre) {
+        return submit(() -> collection.computeAverageRatingByGenre(genre));
+    }
+
+    /**
+     * Returns the number of calls currently waiting for a database slot.
+     *
+     * @return the queue length
+     */
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Stops accepting calls. Calls already submitted still complete.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            try {
+                return call.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+}
@@ -0,0 +1,335 @@
+package dms.service;
+
+import dms.model.DVD;
+import dms.util.BloomFilter;
+import dms.util.ConnectionPool;
+import dms.util.PooledConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code BulkInserter} class writes large numbers of {@link DVD} records into the
+ * database with one prepared statement per batch. Rows are queued in memory, and every
+ * {@code commitSize} rows are written with {@code executeBatch} and committed in one
+ * explicit transaction instead of one autocommit per row.
+ *
+ * <p>The writer connection is borrowed for each batch and returned after its commit, so
+ * other writes can run between batches instead of waiting for the whole import.</p>
+ *
+ * <p>Instances are obtained from {@link DVDCollection#openBulkInsert(int)} and must be
+ * closed, which writes and commits any remaining rows. If a batch fails, only that
+ * uncommitted batch is rolled back; batches that were already committed stay in the
+ * database.</p>
+ *
+ * <p>A plain insert session never overwrites an existing DVD. A row whose natural key
+ * (title, director, release year) is already taken is reported on the console and skipped,
+ * and the rest of its batch is still written; {@link #getRowsSkipped()} counts such rows.</p>
+ *
+ * <p>A session opened with {@link DVDCollection#openBulkUpsert(int)} matches rows on their
+ * natural key (title, director, release year). It first reads every existing key into a
+ * {@link BloomFilter}. A row whose key the filter has never seen is certainly new and is
+ * batched as a plain insert; only the rest go through {@code INSERT ... ON CONFLICT DO
+ * UPDATE}, which updates the genre and rating of an existing DVD and leaves an identical
+ * one untouched. Inserts of a batch are written before its upserts, which is safe because a
+ * key is only ever inserted by its first occurrence. Another write between batches can add
+ * a key the filter has not seen; such a row fails its insert and is upserted instead.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ *     try (BulkInserter inserter = collection.openBulkInsert(1000)) {
+ *         for (DVD dvd : dvds) inserter.add(dvd);
+ *     }
+ * </pre>
+ */
+public class BulkInserter implements BulkWriter {
+
+    /** False-positive rate the key filter of an upsert session is sized for. */
+    static final double KEY_FILTER_FALSE_POSITIVE_RATE = 0.01;
+
+    /** Smallest number of keys the filter is sized for, leaving room for new rows. */
+    private static final int MIN_FILTER_KEYS = 10_000;
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM dvd";
+    private static final String MAX_ID_SQL = "SELECT COALESCE(MAX(id), 0) FROM dvd";
+    private static final String KEYS_SQL = "SELECT title, director, release_year FROM dvd";
+
+    private final DVDCollection collection;
+    private final ConnectionPool pool;
+    private final BloomFilter keys;
+    private final List<DVD> pendingInserts = new ArrayList<>();
+    private final List<DVD> pendingUpserts = new ArrayList<>();
+    private final Map<Integer, DVD> updated = new LinkedHashMap<>();
+    private final int commitSize;
+    private final long startNanos = System.nanoTime();
+    private int pending;
+    private int maxId;
+    private int rowsWritten;
+    private int rowsUnchanged;
+    private int rowsSkipped;
+    private boolean closed;
+
+    /**
+     * Creates a session. An upsert session loads the existing keys first.
+     *
+     * @param collection the collection being written to; notified after each commit
+     * @param pool       the pool to borrow the connection from for each batch
+     * @param commitSize the number of rows per transaction
+     * @param upsert     whether rows are matched on their natural key
+     * @throws SQLException if the existing keys cannot be read
+     */
+    BulkInserter(DVDCollection collection, ConnectionPool pool, int commitSize, boolean upsert) throws SQLException {
+        if (commitSize < 1) throw new IllegalArgumentException("Commit size must be at least 1.");
+        this.collection = collection;
+        this.pool = pool;
+        this.commitSize = commitSize;
+        if (upsert) {
+            try (PooledConnection conn = pool.borrow()) {
+                this.keys = loadKeys(conn);
+            }
+        } else {
+            this.keys = null;
+        }
+    }
+
+    /**
+     * Queues a {@link DVD} for insertion. The pending batch is written and committed once it
+     * reaches the configured commit size.
+     *
+     * @param dvd the DVD to insert; its ID is ignored and assigned by the database
+     * @throws SQLException if writing a full batch fails
+     */
+    @Override
+    public void add(DVD dvd) throws SQLException {
+        if (closed) throw new IllegalStateException("BulkInserter is closed.");
+        // add() reports whether any bit changed, i.e. whether the key is certainly new.
+        if (keys != null && !keys.add(naturalKey(dvd.getTitle(), dvd.getDirector(), dvd.getReleaseYear()))) {
+            pendingUpserts.add(dvd);
+        } else {
+            pendingInserts.add(dvd);
+        }
+        if (++pending >= commitSize) flush();
+    }
+
+    /**
+     * Borrows the writer connection, writes and commits all queued rows, and returns the
+     * connection.
+     *
+     * @throws SQLException if the batch cannot be written; the batch is rolled back
+     */
+    @Override
+    public void flush() throws SQLException {
+        if (pending == 0) return;
+        long start = System.nanoTime();
+        int batchRows = pending;
+        int unchanged = 0;
+        int skipped = 0;
+        try (PooledConnection conn = pool.borrow()) {
+            Connection raw = conn.getConnection();
+            PreparedStatement stmt = conn.prepare(DVDCollection.INSERT_SQL);
+            raw.setAutoCommit(false);
+            try {
+                // Other writes may have run since the last batch, so the IDs that tell
+                // upserted rows apart from updated ones are read again for each batch.
+                if (keys != null) maxId = queryMaxId(conn);
+                if (!pendingInserts.isEmpty()) {
+                    for (DVD dvd : pendingInserts) {
+                        DVDCollection.bind(stmt, dvd);
+                        stmt.addBatch();
+                    }
+                    try {
+                        stmt.executeBatch();
+                    } catch (SQLException e) {
+                        if (!DVDCollection.isDuplicateKey(e)) throw e;
+                        // The batch stops at the first taken key; redo it row by row to skip only those.
+                        stmt.clearBatch();
+                        raw.rollback();
+                        skipped = insertEach(stmt);
+                    }
+                    if (keys != null) maxId = Math.max(maxId, lastInsertId(conn));
+                }
+                for (DVD dvd : pendingUpserts) {
+                    if (!upsert(conn, dvd)) unchanged++;
+                }
+                raw.commit();
+                rowsWritten += pending - skipped;
+                rowsUnchanged += unchanged;
+                rowsSkipped += skipped;
+                collection.afterBulkWrite();
+                updated.forEach((id, dvd) -> collection.afterUpdate(id, dvd, true));
+            } catch (SQLException e) {
+                collection.getMetrics().error(DVDMetrics.Operation.BATCH_COMMIT);
+                stmt.clearBatch();
+                raw.rollback();
+                throw e;
+            } finally {
+                raw.setAutoCommit(true);
+            }
+        } finally {
+            pending = 0;
+            pendingInserts.clear();
+            pendingUpserts.clear();
+            updated.clear();
+            collection.getMetrics().record(DVDMetrics.Operation.BATCH_COMMIT, start, batchRows);
+        }
+    }
+
+    /**
+     * Returns the number of rows committed so far.
+     *
+     * @return committed row count
+     */
+    @Override
+    public int getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Returns the number of committed rows that matched an existing DVD with the same genre
+     * and rating and were left unchanged. Always 0 for a plain insert session.
+     *
+     * @return unchanged row count
+     */
+    @Override
+    public int getRowsUnchanged() {
+        return rowsUnchanged;
+    }
+
+    /**
+     * Returns the number of rows that were not written because a DVD with the same natural
+     * key already exists. Always 0 for an upsert session, which updates such DVDs instead.
+     *
+     * @return skipped row count
+     */
+    @Override
+    public int getRowsSkipped() {
+        return rowsSkipped;
+    }
+
+    /**
+     * Returns whether this session matches rows on their natural key.
+     *
+     * @return {@code true} for a session opened with {@link DVDCollection#openBulkUpsert(int)}
+     */
+    @Override
+    public boolean isUpsert() {
+        return keys != null;
+    }
+
+    /**
+     * Returns the insert throughput since this inserter was opened.
+     *
+     * @return committed rows per second
+     */
+    @Override
+    public double getRowsPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        return seconds <= 0 ? 0.0 : rowsWritten / seconds;
+    }
+
+    /**
+     * Writes and commits any remaining rows.
+     *
+     * @throws SQLException if the final batch cannot be written
+     */
+    @Override
+    public void close() throws SQLException {
+        if (closed) return;
+        closed = true;
+        flush();
+    }
+
+    /**
+     * Builds the key the Bloom filter stores for a DVD. Fields are joined with the unit
+     * separator; a key that collides anyway only sends a new row down the upsert path.
+     */
+    static String naturalKey(String title, String director, int releaseYear) {
+        return title + '\u001F' + director + '\u001F' + releaseYear;
+    }
+
+    /**
+     * Reads every existing natural key into a new Bloom filter sized for twice the current
+     * row count.
+     */
+    private BloomFilter loadKeys(PooledConnection conn) throws SQLException {
+        int rows;
+        try (ResultSet rs = conn.prepare(COUNT_SQL).executeQuery()) {
+            rows = rs.next() ? rs.getInt(1) : 0;
+        }
+        BloomFilter filter = new BloomFilter(Math.max(2L * rows, MIN_FILTER_KEYS), KEY_FILTER_FALSE_POSITIVE_RATE);
+        PreparedStatement keysStmt = conn.prepare(KEYS_SQL);
+        keysStmt.setFetchSize(DVDCollection.DEFAULT_FETCH_SIZE);
+        try (ResultSet rs = keysStmt.executeQuery()) {
+            while (rs.next()) {
+                filter.add(naturalKey(rs.getString(1), rs.getString(2), rs.getInt(3)));
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Runs the upsert for one DVD. A returned ID above every ID seen so far belongs to a new
+     * row (a Bloom filter false positive); any other returned ID is an updated row, whose
+     * observers are notified after the commit.
+     *
+     * @return {@code false} if an identical DVD already existed and nothing was written
+     */
+    private boolean upsert(PooledConnection conn, DVD dvd) throws SQLException {
+        PreparedStatement upsertStmt = conn.prepare(DVDCollection.UPSERT_SQL);
+        DVDCollection.bind(upsertStmt, dvd);
+        try (ResultSet rs = upsertStmt.executeQuery()) {
+            if (!rs.next()) return false;
+            int id = rs.getInt(1);
+            if (id > maxId) maxId = id;
+            else updated.put(id, dvd);
+            return true;
+        }
+    }
+
+    /**
+     * Inserts the pending rows one at a time. A row whose natural key is taken is upserted
+     * later in an upsert session, and skipped otherwise. A failed insert only undoes itself,
+     * so the rest of the transaction is kept.
+     *
+     * @return the number of rows skipped
+     */
+    private int insertEach(PreparedStatement stmt) throws SQLException {
+        int skipped = 0;
+        for (DVD dvd : pendingInserts) {
+            DVDCollection.bind(stmt, dvd);
+            try {
+                stmt.executeUpdate();
+            } catch (SQLException e) {
+                if (!DVDCollection.isDuplicateKey(e)) throw e;
+                if (keys != null) {
+                    pendingUpserts.add(dvd);
+                    continue;
+                }
+                System.out.println("Duplicate DVD skipped: " + dvd.getTitle() + " (" + dvd.getDirector()
+                        + ", " + dvd.getReleaseYear() + ")");
+                skipped++;
+            }
+        }
+        return skipped;
+    }
+
+    private static int queryMaxId(PooledConnection conn) throws SQLException {
+        try (ResultSet rs = conn.prepare(MAX_ID_SQL).executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private int lastInsertId(PooledConnection conn) throws SQLException {
+        try (ResultSet rs = conn.prepare(DVDCollection.LAST_INSERT_ID_SQL).executeQuery()) {
+            return rs.next() ? rs.getInt(1) : maxId;
+        }
+    }
+}
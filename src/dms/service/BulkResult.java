@@ -0,0 +1,165 @@
+package dms.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code BulkResult} class reports the outcome of a bulk write
+ * ({@link DVDCollection#addAll}, {@link DVDCollection#removeByIds} or
+ * {@link DVDCollection#updateAll}). Bulk writes are all-or-nothing: either every item was
+ * applied in one transaction, or the transaction was rolled back and nothing changed.
+ *
+ * <p>For each item, in input order, the result holds its ID (the generated ID for
+ * {@code addAll}) and whether a row was affected. A remove or update whose ID does not
+ * exist is not an error; it is committed with the other items and reported as not
+ * affected. A rolled-back result names the position of the item that failed, when it is
+ * known.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ *     BulkResult result = collection.addAll(dvds);
+ *     if (result.isCommitted()) System.out.println("New IDs: " + result.getIds());
+ *     else System.out.println("Nothing added, item " + result.getFailedIndex() + " failed: " + result.getError());
+ * </pre>
+ */
+public class BulkResult {
+
+    private final List<Integer> ids;
+    private final boolean[] affected;
+    private final String error;
+    private final int failedIndex;
+
+    private BulkResult(List<Integer> ids, boolean[] affected, String error, int failedIndex) {
+        this.ids = Collections.unmodifiableList(new ArrayList<>(ids));
+        this.affected = affected;
+        this.error = error;
+        this.failedIndex = failedIndex;
+    }
+
+    /**
+     * Creates the result of a committed bulk write.
+     *
+     * @param ids      the item IDs in input order
+     * @param affected whether each item changed a row
+     * @return the result
+     */
+    static BulkResult committed(List<Integer> ids, boolean[] affected) {
+        return new BulkResult(ids, affected, null, -1);
+    }
+
+    /**
+     * Creates the result of a rolled-back bulk write.
+     *
+     * @param ids   the item IDs in input order (empty for {@code addAll})
+     * @param error why the transaction failed
+     * @return the result, with no item affected
+     */
+    static BulkResult rolledBack(List<Integer> ids, String error) {
+        return rolledBack(ids, error, -1);
+    }
+
+    /**
+     * Creates the result of a bulk write that was rolled back because one item failed.
+     *
+     * @param ids         the item IDs in input order (empty for {@code addAll})
+     * @param error       why the transaction failed
+     * @param failedIndex the input position of the failing item, or -1 if unknown
+     * @return the result, with no item affected
+     */
+    static BulkResult rolledBack(List<Integer> ids, String error, int failedIndex) {
+        return new BulkResult(ids, new boolean[ids.size()], error, failedIndex);
+    }
+
+    /**
+     * Returns whether the transaction was committed.
+     *
+     * @return {@code true} if all items were applied; {@code false} if nothing changed
+     */
+    public boolean isCommitted() {
+        return error == null;
+    }
+
+    /**
+     * Returns why the transaction was rolled back.
+     *
+     * @return the database error message, or {@code null} if it was committed
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Returns the input position of the item whose write failed.
+     *
+     * @return the failing item's index, or -1 if the write was committed or the failure
+     *         was not caused by a single item
+     */
+    public int getFailedIndex() {
+        return failedIndex;
+    }
+
+    /**
+     * Returns the item IDs in input order: the generated IDs for {@code addAll},
+     * the requested IDs otherwise.
+     *
+     * @return an unmodifiable list of IDs
+     */
+    public List<Integer> getIds() {
+        return ids;
+    }
+
+    /**
+     * Returns the number of items.
+     *
+     * @return the item count
+     */
+    public int size() {
+        return affected.length;
+    }
+
+    /**
+     * Returns whether the item at an input position changed a row.
+     *
+     * @param index the item's position in the input
+     * @return {@code true} if the item was applied and a row changed
+     */
+    public boolean isAffected(int index) {
+        return affected[index];
+    }
+
+    /**
+     * Returns the number of items that changed a row.
+     *
+     * @return the affected item count; 0 if rolled back
+     */
+    public int getAffectedCount() {
+        int count = 0;
+        for (boolean a : affected) {
+            if (a) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the IDs of items that did not change a row, e.g. removes of IDs that do not exist.
+     *
+     * @return the IDs in input order
+     */
+    public List<Integer> getUnaffectedIds() {
+        List<Integer> unaffected = new ArrayList<>();
+        for (int i = 0; i < affected.length && i < ids.size(); i++) {
+            if (!affected[i]) unaffected.add(ids.get(i));
+        }
+        return unaffected;
+    }
+
+    @Override
+    public String toString() {
+        return isCommitted()
+                ? "BulkResult[committed, " + getAffectedCount() + "/" + size() + " affected]"
+                : "BulkResult[rolled back" + (failedIndex >= 0 ? " at item " + failedIndex : "") + ": " + error + "]";
+    }
+}
@@ -0,0 +1,76 @@
+package dms.service;
+
+import dms.model.DVD;
+
+import java.sql.SQLException;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code BulkWriter} interface is a session that writes many {@link DVD} records in
+ * large transactions, as opened by {@link DVDStore#openBulkInsert(int)} and
+ * {@link DVDStore#openBulkUpsert(int)}. It must be closed, which writes and commits any
+ * remaining rows.
+ */
+public interface BulkWriter extends AutoCloseable {
+
+    /**
+     * Queues a {@link DVD} for writing. Full batches are written and committed as they fill up.
+     *
+     * @param dvd the DVD to write; its ID is ignored
+     * @throws SQLException if writing a full batch fails
+     */
+    void add(DVD dvd) throws SQLException;
+
+    /**
+     * Writes and commits all queued rows.
+     *
+     * @throws SQLException if a batch cannot be written; that batch is rolled back
+     */
+    void flush() throws SQLException;
+
+    /**
+     * Returns the number of rows committed so far.
+     *
+     * @return committed row count
+     */
+    int getRowsWritten();
+
+    /**
+     * Returns the number of committed rows that matched an identical existing DVD and were
+     * left unchanged. Always 0 unless {@link #isUpsert()}.
+     *
+     * @return unchanged row count
+     */
+    int getRowsUnchanged();
+
+    /**
+     * Returns the number of rows that were skipped because a DVD with the same natural key
+     * already exists. Always 0 if {@link #isUpsert()}.
+     *
+     * @return skipped row count
+     */
+    int getRowsSkipped();
+
+    /**
+     * Returns whether rows are matched on their natural key (title, director, release year).
+     *
+     * @return {@code true} for an upsert session
+     */
+    boolean isUpsert();
+
+    /**
+     * Returns the write throughput since the session was opened.
+     *
+     * @return committed rows per second
+     */
+    double getRowsPerSecond();
+
+    /**
+     * Commits any remaining rows and ends the session.
+     *
+     * @throws SQLException if the final batch cannot be written
+     */
+    @Override
+    void close() throws SQLException;
+}
@@ -0,0 +1,197 @@
+package dms.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code ChangeFeed} class delivers the entries of the {@code dvd_changes} log to
+ * registered {@link DVDChangeListener}s, so views and caches can apply what changed instead
+ * of reloading the whole collection. Triggers write a log entry in the same transaction as
+ * every insert, update and delete of a DVD, so the log misses nothing and contains nothing
+ * that was rolled back.
+ *
+ * <p>A background thread reads the changes after the last one it delivered. It is woken
+ * right after every write made through the owning {@link DVDCollection}, and otherwise
+ * polls every {@code pollInterval}, which is how writes by other processes sharing the
+ * database file are picked up. Changes are delivered in sequence order in batches of at most
+ * {@link #BATCH_SIZE}. Before the listeners run, the collection's lookup cache drops the
+ * changed DVDs.</p>
+ *
+ * <p>The log keeps only its newest entries. If the feed falls so far behind that changes it
+ * had not delivered were trimmed, its listeners get a single {@link DVDChange.Type#TRIMMED}
+ * entry, must reload what they keep, and then receive the changes after it as usual.</p>
+ *
+ * <p>{@link #getLastSeq()} moves to the end of a batch before its listeners are called, and
+ * {@link #getDeliveredSeq()} once they have all returned; {@link #awaitDelivered(long, Duration)}
+ * waits for the latter.</p>
+ *
+ * <p>Instances are obtained from {@link DVDCollection#enableChangeFeed(Duration)} and start
+ * at the newest change at that moment: load the current state first, then apply the deltas.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ *     ChangeFeed feed = collection.enableChangeFeed(Duration.ofSeconds(2));
+ *     feed.addListener(changes -&gt; changes.forEach(System.out::println));
+ * </pre>
+ */
+public class ChangeFeed implements AutoCloseable {
+
+    /** Most changes read and delivered in one batch. */
+    static final int BATCH_SIZE = 500;
+
+    private final DVDCollection collection;
+    private final long pollIntervalNanos;
+    private final List<DVDChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final Thread poller;
+    private final Object deliveredLock = new Object();
+    private volatile long lastSeq;
+    private volatile long deliveredSeq;
+    private volatile boolean closed;
+
+    /**
+     * Creates the feed and starts its polling thread.
+     *
+     * @param collection   the collection whose change log is read
+     * @param pollInterval how often the log is checked for writes by other processes
+     * @param fromSeq      the sequence number of the last change not to deliver
+     */
+    ChangeFeed(DVDCollection collection, Duration pollInterval, long fromSeq) {
+        if (pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("Poll interval must be positive.");
+        }
+        this.collection = collection;
+        this.pollIntervalNanos = pollInterval.toNanos();
+        this.lastSeq = fromSeq;
+        this.deliveredSeq = fromSeq;
+        this.poller = new Thread(this::poll, "dvd-change-feed");
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    /**
+     * Registers a listener for all changes delivered from now on.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(DVDChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(DVDChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the sequence number of the last change read from the log. It is set before
+     * the listeners are called with the batch that contains it.
+     *
+     * @return the last read sequence number
+     */
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Returns the sequence number of the last change every listener has returned from.
+     *
+     * @return the last delivered sequence number
+     */
+    public long getDeliveredSeq() {
+        return deliveredSeq;
+    }
+
+    /**
+     * Waits until the listeners have returned from the change with a sequence number, and
+     * every change before it.
+     *
+     * @param seq     the sequence number to wait for
+     * @param timeout how long to wait at most
+     * @return {@code true} if it was delivered; {@code false} on timeout or if the feed is closed
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean awaitDelivered(long seq, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (deliveredLock) {
+            while (deliveredSeq < seq) {
+                long remaining = deadline - System.nanoTime();
+                if (closed || remaining <= 0) return false;
+                TimeUnit.NANOSECONDS.timedWait(deliveredLock, remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Asks the polling thread to read the log now instead of at its next poll.
+     */
+    void wakeUp() {
+        LockSupport.unpark(poller);
+    }
+
+    /**
+     * Stops the polling thread. Changes not delivered yet are not delivered.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        LockSupport.unpark(poller);
+        synchronized (deliveredLock) {
+            deliveredLock.notifyAll();
+        }
+        boolean interrupted = false;
+        while (poller.isAlive()) {
+            try {
+                poller.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Polling loop: delivers every batch of new changes, then sleeps until woken or until
+     * the poll interval has passed. A full batch means more may be waiting, so the log is
+     * read again straight away.
+     */
+    private void poll() {
+        while (!closed) {
+            List<DVDChange> changes = collection.changesSince(lastSeq, BATCH_SIZE);
+            if (!changes.isEmpty()) {
+                long seq = changes.get(changes.size() - 1).getSeq();
+                lastSeq = seq;
+                deliver(changes);
+                synchronized (deliveredLock) {
+                    deliveredSeq = seq;
+                    deliveredLock.notifyAll();
+                }
+                if (changes.size() == BATCH_SIZE) continue;
+            }
+            LockSupport.parkNanos(this, pollIntervalNanos);
+        }
+    }
+
+    private void deliver(List<DVDChange> changes) {
+        List<DVDChange> batch = List.copyOf(changes);
+        collection.changesRead(batch);
+        for (DVDChangeListener listener : listeners) {
+            try {
+                listener.dvdsChanged(batch);
+            } catch (RuntimeException e) {
+                // A failing listener must not stop delivery to the others or kill the poller.
+                System.out.println("Error notifying change listener: " + e.getMessage());
+            }
+        }
+    }
+}
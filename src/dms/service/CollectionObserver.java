@@ -0,0 +1,37 @@
+package dms.service;
+
+import dms.model.DVD;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code CollectionObserver} interface is implemented by in-memory structures that
+ * mirror part of the {@code dvd} table (such as {@link DVDAnalytics} and
+ * {@link TitleIndex}) and must be told about writes made through a {@link DVDCollection}.
+ *
+ * <p>Callbacks run synchronously on the writing thread after the change is committed,
+ * so implementations should only record or apply the change, not perform slow work.</p>
+ */
+interface CollectionObserver {
+
+    /**
+     * Called after one or more DVDs were inserted. New rows always have IDs larger than
+     * any existing row, so observers can load them with an {@code id > lastId} query.
+     */
+    void dvdsAdded();
+
+    /**
+     * Called after a DVD was updated.
+     *
+     * @param id  the updated DVD's ID
+     * @param dvd the new values
+     */
+    void dvdUpdated(int id, DVD dvd);
+
+    /**
+     * Called after a DVD was removed.
+     *
+     * @param id the removed DVD's ID
+     */
+    void dvdRemoved(int id);
+}
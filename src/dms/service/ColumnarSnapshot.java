@@ -0,0 +1,439 @@
+package dms.service;
+
+import dms.model.DVD;
+import dms.util.ConnectionPool;
+import dms.util.PooledConnection;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code ColumnarSnapshot} class is an in-memory, column-oriented copy of the
+ * analytic columns of the {@code dvd} table. Each column is a primitive array
+ * ({@code int[]} release years, {@code double[]} ratings) and genres and directors are
+ * dictionary-encoded into {@code int} codes, so aggregations scan compact arrays instead
+ * of objects.
+ *
+ * <p>Rows are kept in ID order. Because IDs are assigned by {@code AUTOINCREMENT}, new
+ * rows always have larger IDs than the rows already loaded, so a refresh only needs to
+ * fetch {@code id > lastId}. Updates are applied in place and removed rows are marked
+ * with a genre code of {@code -1}.</p>
+ *
+ * <p>Scans take a read lock for their duration; writes take the write lock.</p>
+ */
+class ColumnarSnapshot {
+
+    private static final String LOAD_SQL =
+            "SELECT id, release_year, rating, genre, director FROM dvd WHERE id > ? ORDER BY id";
+
+    /** Marks a removed row. */
+    static final int DELETED = -1;
+
+    /** Rows per leaf task is at least this many, so small tables are scanned in one task. */
+    private static final int MIN_LEAF_ROWS = 1 << 16;
+
+    /**
+     * Upper bound on the group slots allocated by the leaves of one scan, since every leaf
+     * holds its own accumulators for all groups. High-cardinality keys such as director
+     * get fewer, larger leaves instead of many leaves that are mostly empty arrays.
+     */
+    private static final int MAX_PARTIAL_CELLS = 1 << 18;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ForkJoinPool pool;
+
+    private int size;
+    private int lastId;
+    private volatile boolean stale = true;
+    private int[] ids = new int[1024];
+    private int[] years = new int[1024];
+    private double[] ratings = new double[1024];
+    private int[] genreCodes = new int[1024];
+    private int[] directorCodes = new int[1024];
+    private final Dictionary genres = new Dictionary();
+    private final Dictionary directors = new Dictionary();
+
+    ColumnarSnapshot(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Marks the snapshot as missing newly inserted rows; the next scan loads them first.
+     */
+    void markStale() {
+        stale = true;
+    }
+
+    /**
+     * Loads any rows added since the last refresh, if the snapshot is marked stale.
+     *
+     * @param connections the pool to read from
+     * @throws SQLException if the new rows cannot be read
+     */
+    void refreshIfStale(ConnectionPool connections) throws SQLException {
+        if (stale) refresh(connections);
+    }
+
+    /**
+     * Loads every row whose ID is greater than the largest ID already loaded.
+     *
+     * @param connections the pool to read from
+     * @throws SQLException if the new rows cannot be read
+     */
+    void refresh(ConnectionPool connections) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            stale = false;
+            try (PooledConnection conn = connections.borrow()) {
+                PreparedStatement stmt = conn.prepare(LOAD_SQL);
+                stmt.setInt(1, lastId);
+                stmt.setFetchSize(DVDCollection.DEFAULT_FETCH_SIZE);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        double rating = rs.getDouble(3);
+                        if (rs.wasNull()) rating = -1;
+                        append(rs.getInt(1), rs.getInt(2), rating, rs.getString(4), rs.getString(5));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            stale = true;
+            throw e;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Loads every row of a binary snapshot, replacing nothing: call on a new, empty instance.
+     * {@code NULL} ratings become -1, as in {@link #refresh}.
+     *
+     * @param source the snapshot to load, whose rows are in ID order
+     */
+    void load(DVDSnapshot source) {
+        lock.writeLock().lock();
+        try {
+            for (int row = 0; row < source.size(); row++) {
+                double rating = source.rating(row);
+                append(source.id(row), source.releaseYear(row), Double.isNaN(rating) ? -1 : rating,
+                        source.genre(row), source.director(row));
+            }
+            stale = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies an update to a loaded row. Rows not loaded yet are picked up by the next refresh.
+     *
+     * @param id  the updated DVD's ID
+     * @param dvd the new values
+     */
+    void update(int id, DVD dvd) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(id);
+            if (row < 0 || genreCodes[row] == DELETED) return;
+            years[row] = dvd.getReleaseYear();
+            ratings[row] = dvd.getRating();
+            genreCodes[row] = genres.encode(dvd.getGenre());
+            directorCodes[row] = directors.encode(dvd.getDirector());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks a loaded row as removed.
+     *
+     * @param id the removed DVD's ID
+     */
+    void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(id);
+            if (row >= 0) genreCodes[row] = DELETED;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of live rows.
+     *
+     * @return row count excluding removed rows
+     */
+    int liveRowCount() {
+        lock.readLock().lock();
+        try {
+            int live = 0;
+            for (int i = 0; i < size; i++) {
+                if (genreCodes[i] != DELETED) live++;
+            }
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Map<String, GroupStats> groupByGenre() {
+        lock.readLock().lock();
+        try {
+            int[] codes = genreCodes;
+            return toNamedGroups(scan(row -> codes[row], genres.size()), genres);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Map<String, GroupStats> groupByDirector() {
+        lock.readLock().lock();
+        try {
+            int[] codes = directorCodes;
+            return toNamedGroups(scan(row -> codes[row], directors.size()), directors);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Map<Integer, GroupStats> groupByReleaseYear() {
+        lock.readLock().lock();
+        try {
+            int[] range = yearRangeLocked();
+            Map<Integer, GroupStats> result = new HashMap<>();
+            if (range.length == 0) return result;
+            int minYear = range[0];
+            int[] y = years;
+            Partial partial = scan(row -> y[row] - minYear, range[1] - minYear + 1);
+            for (int key = 0; key < partial.count.length; key++) {
+                if (partial.count[key] > 0) result.put(minYear + key, partial.toStats(key));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    GroupStats statsForGenre(String genre) {
+        lock.readLock().lock();
+        try {
+            int code = genres.codeOf(genre);
+            if (code < 0) return new GroupStats(0, 0, 0.0, 0, 0);
+            int[] codes = genreCodes;
+            Partial partial = scan(row -> codes[row] == code ? 0 : -1, 1);
+            return partial.toStats(0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long[] ratingHistogram(int buckets) {
+        lock.readLock().lock();
+        try {
+            double[] r = ratings;
+            Partial partial = scan(row -> r[row] < 0 ? -1 : Math.min(buckets - 1, (int) (r[row] / 10.0 * buckets)),
+                    buckets);
+            return partial.count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int[] releaseYearRange() {
+        lock.readLock().lock();
+        try {
+            return yearRangeLocked();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    long countReleasedBetween(int fromYear, int toYear) {
+        lock.readLock().lock();
+        try {
+            int[] y = years;
+            return scan(row -> y[row] >= fromYear && y[row] <= toYear ? 0 : -1, 1).count[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] yearRangeLocked() {
+        Partial partial = scan(row -> 0, 1);
+        if (partial.count[0] == 0) return new int[0];
+        return new int[] {partial.minYear[0], partial.maxYear[0]};
+    }
+
+    /**
+     * Runs a parallel fork-join scan over all live rows, grouping them by the key the
+     * function returns (a value in {@code [0, cardinality)}, or negative to skip the row).
+     * The number of leaves shrinks as the cardinality grows, so that all leaves together
+     * allocate about {@link #MAX_PARTIAL_CELLS} group slots at most.
+     * Must be called with the read lock held.
+     */
+    private Partial scan(IntUnaryOperator keyOf, int cardinality) {
+        int leaves = Math.min(pool.getParallelism() * 4, Math.max(1, MAX_PARTIAL_CELLS / Math.max(1, cardinality)));
+        int leafRows = Math.max(MIN_LEAF_ROWS, (size + leaves - 1) / leaves);
+        return pool.invoke(new ScanTask(keyOf, cardinality, 0, size, leafRows));
+    }
+
+    private void append(int id, int year, double rating, String genre, String director) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            years = Arrays.copyOf(years, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            genreCodes = Arrays.copyOf(genreCodes, capacity);
+            directorCodes = Arrays.copyOf(directorCodes, capacity);
+        }
+        ids[size] = id;
+        years[size] = year;
+        ratings[size] = rating;
+        genreCodes[size] = genres.encode(genre);
+        directorCodes[size] = directors.encode(director);
+        size++;
+        lastId = id;
+    }
+
+    private int rowOf(int id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        return row >= 0 ? row : -1;
+    }
+
+    private static Map<String, GroupStats> toNamedGroups(Partial partial, Dictionary dictionary) {
+        Map<String, GroupStats> result = new HashMap<>();
+        for (int code = 0; code < partial.count.length; code++) {
+            if (partial.count[code] > 0) result.put(dictionary.decode(code), partial.toStats(code));
+        }
+        return result;
+    }
+
+    /**
+     * Per-group accumulators produced by one scan task and merged up the task tree.
+     */
+    private static class Partial {
+        final long[] count;
+        final long[] ratedCount;
+        final double[] ratingSum;
+        final int[] minYear;
+        final int[] maxYear;
+
+        Partial(int cardinality) {
+            count = new long[cardinality];
+            ratedCount = new long[cardinality];
+            ratingSum = new double[cardinality];
+            minYear = new int[cardinality];
+            maxYear = new int[cardinality];
+            Arrays.fill(minYear, Integer.MAX_VALUE);
+            Arrays.fill(maxYear, Integer.MIN_VALUE);
+        }
+
+        void merge(Partial other) {
+            for (int k = 0; k < count.length; k++) {
+                count[k] += other.count[k];
+                ratedCount[k] += other.ratedCount[k];
+                ratingSum[k] += other.ratingSum[k];
+                minYear[k] = Math.min(minYear[k], other.minYear[k]);
+                maxYear[k] = Math.max(maxYear[k], other.maxYear[k]);
+            }
+        }
+
+        GroupStats toStats(int key) {
+            if (count[key] == 0) return new GroupStats(0, 0, 0.0, 0, 0);
+            return new GroupStats(count[key], ratedCount[key], ratingSum[key], minYear[key], maxYear[key]);
+        }
+    }
+
+    /**
+     * Scans a row range, splitting it in half until it is small enough for one leaf.
+     */
+    private class ScanTask extends RecursiveTask<Partial> {
+        private final IntUnaryOperator keyOf;
+        private final int cardinality;
+        private final int from;
+        private final int to;
+        private final int leafRows;
+
+        ScanTask(IntUnaryOperator keyOf, int cardinality, int from, int to, int leafRows) {
+            this.keyOf = keyOf;
+            this.cardinality = cardinality;
+            this.from = from;
+            this.to = to;
+            this.leafRows = leafRows;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from > leafRows) {
+                int mid = (from + to) >>> 1;
+                ScanTask left = new ScanTask(keyOf, cardinality, from, mid, leafRows);
+                left.fork();
+                Partial right = new ScanTask(keyOf, cardinality, mid, to, leafRows).compute();
+                Partial result = left.join();
+                result.merge(right);
+                return result;
+            }
+            Partial partial = new Partial(cardinality);
+            int[] g = genreCodes;
+            int[] y = years;
+            double[] r = ratings;
+            for (int row = from; row < to; row++) {
+                if (g[row] == DELETED) continue;
+                int key = keyOf.applyAsInt(row);
+                if (key < 0) continue;
+                partial.count[key]++;
+                if (r[row] >= 0) {
+                    partial.ratedCount[key]++;
+                    partial.ratingSum[key] += r[row];
+                }
+                if (y[row] < partial.minYear[key]) partial.minYear[key] = y[row];
+                if (y[row] > partial.maxYear[key]) partial.maxYear[key] = y[row];
+            }
+            return partial;
+        }
+    }
+
+    /**
+     * Maps distinct strings to dense {@code int} codes and back.
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        int codeOf(String value) {
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
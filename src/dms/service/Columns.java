@@ -0,0 +1,94 @@
+package dms.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code Columns} class is a projection: the set of {@link DVDColumn}s a
+ * {@link DVDCollection#scan(Columns, DVDRowVisitor)} selects, in select-list order.
+ * Instances are immutable and can be kept in constants and reused across scans.
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ *     Columns genreAndRating = Columns.of(DVDColumn.GENRE, DVDColumn.RATING);
+ * </pre>
+ */
+public final class Columns {
+
+    /** Every column of the {@code dvd} table. */
+    public static final Columns ALL = of(DVDColumn.values());
+
+    private final DVDColumn[] selected;
+    private final int mask;
+    private final String selectList;
+
+    private Columns(DVDColumn[] selected, int mask) {
+        this.selected = selected;
+        this.mask = mask;
+        StringJoiner joiner = new StringJoiner(", ");
+        for (DVDColumn column : selected) {
+            joiner.add(column.getColumnName());
+        }
+        this.selectList = joiner.toString();
+    }
+
+    /**
+     * Creates a projection of the given columns. Repeated columns are selected once.
+     *
+     * @param columns the columns to select, at least one
+     * @return the projection
+     */
+    public static Columns of(DVDColumn... columns) {
+        if (columns.length == 0) throw new IllegalArgumentException("Select at least one column.");
+        List<DVDColumn> distinct = new ArrayList<>(columns.length);
+        int mask = 0;
+        for (DVDColumn column : columns) {
+            int bit = 1 << column.ordinal();
+            if ((mask & bit) != 0) continue;
+            mask |= bit;
+            distinct.add(column);
+        }
+        return new Columns(distinct.toArray(new DVDColumn[0]), mask);
+    }
+
+    /**
+     * Returns whether the projection selects a column.
+     *
+     * @param column the column
+     * @return {@code true} if it is selected
+     */
+    public boolean contains(DVDColumn column) {
+        return (mask & (1 << column.ordinal())) != 0;
+    }
+
+    /**
+     * Returns the number of selected columns.
+     *
+     * @return column count
+     */
+    public int size() {
+        return selected.length;
+    }
+
+    /**
+     * Returns the selected columns in select-list order; the array must not be modified.
+     */
+    DVDColumn[] selected() {
+        return selected;
+    }
+
+    /**
+     * Returns the comma-separated SQL column names, e.g. {@code "genre, rating"}.
+     */
+    String selectList() {
+        return selectList;
+    }
+
+    @Override
+    public String toString() {
+        return "Columns[" + selectList + "]";
+    }
+}
@@ -0,0 +1,204 @@
+package dms.service;
+
+import dms.model.DVD;
+import dms.util.ConnectionPool;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code DVDAnalytics} class answers aggregate questions about the whole collection
+ * (averages and counts by genre, director or release year, rating histograms and year
+ * ranges) from an in-memory {@link ColumnarSnapshot} instead of SQL scans.
+ * Each aggregation runs as a parallel fork-join scan over primitive arrays.
+ *
+ * <p>Instances are created by {@link DVDCollection#enableAnalytics()}. The snapshot is
+ * kept current by the collection's write methods: updates and removals are applied
+ * directly, and newly inserted rows are loaded incrementally before the next aggregation.
+ * Changes made by other programs are picked up by {@link #reload()}.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ *     DVDAnalytics analytics = collection.enableAnalytics();
+ *     analytics.statsByGenre().forEach((genre, stats) -&gt; System.out.println(genre + ": " + stats));
+ * </pre>
+ */
+public class DVDAnalytics implements CollectionObserver {
+
+    private final ConnectionPool connections;
+    private final ForkJoinPool pool;
+    private volatile ColumnarSnapshot snapshot;
+
+    /**
+     * Creates the analytics engine and loads the initial snapshot.
+     *
+     * @param connections the pool to load rows from
+     * @param pool        the fork-join pool that runs the scans
+     * @throws SQLException if the initial load fails
+     */
+    DVDAnalytics(ConnectionPool connections, ForkJoinPool pool) throws SQLException {
+        this.connections = connections;
+        this.pool = pool;
+        this.snapshot = new ColumnarSnapshot(pool);
+        snapshot.refresh(connections);
+    }
+
+    /**
+     * Creates the analytics engine with the contents of a binary snapshot, without querying
+     * the database. The caller must make sure the database holds exactly those rows.
+     *
+     * @param connections the pool to load later rows from
+     * @param pool        the fork-join pool that runs the scans
+     * @param source      the binary snapshot
+     */
+    DVDAnalytics(ConnectionPool connections, ForkJoinPool pool, DVDSnapshot source) {
+        this.connections = connections;
+        this.pool = pool;
+        load(source);
+    }
+
+    /**
+     * Returns DVD count, average rating and year range for every genre.
+     *
+     * @return aggregates keyed by genre
+     */
+    public Map<String, GroupStats> statsByGenre() {
+        ColumnarSnapshot s = current();
+        return s == null ? Collections.emptyMap() : s.groupByGenre();
+    }
+
+    /**
+     * Returns DVD count, average rating and year range for every director.
+     *
+     * @return aggregates keyed by director
+     */
+    public Map<String, GroupStats> statsByDirector() {
+        ColumnarSnapshot s = current();
+        return s == null ? Collections.emptyMap() : s.groupByDirector();
+    }
+
+    /**
+     * Returns DVD count and average rating for every release year.
+     *
+     * @return aggregates keyed by release year
+     */
+    public Map<Integer, GroupStats> statsByReleaseYear() {
+        ColumnarSnapshot s = current();
+        return s == null ? Collections.emptyMap() : s.groupByReleaseYear();
+    }
+
+    /**
+     * Returns the aggregates for a single genre.
+     *
+     * @param genre the genre to aggregate
+     * @return the genre's aggregates; a count of zero if the genre does not exist
+     */
+    public GroupStats statsForGenre(String genre) {
+        ColumnarSnapshot s = current();
+        return s == null ? new GroupStats(0, 0, 0.0, 0, 0) : s.statsForGenre(genre);
+    }
+
+    /**
+     * Counts known ratings in equal-width buckets over the range 0 to 10.
+     * Unknown ratings ({@code -1}) are not counted.
+     *
+     * @param buckets the number of buckets
+     * @return the count per bucket; bucket {@code i} covers {@code [i, i+1) * 10 / buckets}
+     */
+    public long[] ratingHistogram(int buckets) {
+        if (buckets < 1) throw new IllegalArgumentException("Bucket count must be at least 1.");
+        ColumnarSnapshot s = current();
+        return s == null ? new long[buckets] : s.ratingHistogram(buckets);
+    }
+
+    /**
+     * Returns the earliest and latest release year in the collection.
+     *
+     * @return {@code {min, max}}, or an empty array if the collection is empty
+     */
+    public int[] releaseYearRange() {
+        ColumnarSnapshot s = current();
+        return s == null ? new int[0] : s.releaseYearRange();
+    }
+
+    /**
+     * Counts the DVDs released within a range of years.
+     *
+     * @param fromYear first year, inclusive
+     * @param toYear   last year, inclusive
+     * @return the number of DVDs released in the range
+     */
+    public long countReleasedBetween(int fromYear, int toYear) {
+        ColumnarSnapshot s = current();
+        return s == null ? 0 : s.countReleasedBetween(fromYear, toYear);
+    }
+
+    /**
+     * Returns the number of DVDs in the snapshot.
+     *
+     * @return live row count
+     */
+    public int size() {
+        ColumnarSnapshot s = current();
+        return s == null ? 0 : s.liveRowCount();
+    }
+
+    /**
+     * Discards the snapshot and loads it again from the database, e.g. after another
+     * program changed the database file.
+     */
+    public void reload() {
+        try {
+            ColumnarSnapshot fresh = new ColumnarSnapshot(pool);
+            fresh.refresh(connections);
+            snapshot = fresh;
+        } catch (SQLException e) {
+            System.out.println("Error loading analytics snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the snapshot with the contents of a binary snapshot, without querying the
+     * database. The caller must make sure the database holds exactly those rows.
+     *
+     * @param source the binary snapshot
+     */
+    void load(DVDSnapshot source) {
+        ColumnarSnapshot fresh = new ColumnarSnapshot(pool);
+        fresh.load(source);
+        snapshot = fresh;
+    }
+
+    @Override
+    public void dvdsAdded() {
+        snapshot.markStale();
+    }
+
+    @Override
+    public void dvdUpdated(int id, DVD dvd) {
+        snapshot.update(id, dvd);
+    }
+
+    @Override
+    public void dvdRemoved(int id) {
+        snapshot.remove(id);
+    }
+
+    /**
+     * Returns the snapshot after loading any pending inserts, or {@code null} if that fails.
+     */
+    private ColumnarSnapshot current() {
+        ColumnarSnapshot s = snapshot;
+        try {
+            s.refreshIfStale(connections);
+            return s;
+        } catch (SQLException e) {
+            System.out.println("Error refreshing analytics snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package dms.service;
+
+import dms.model.DVD;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code DVDCache} class is a bounded, thread-safe, least-recently-used cache of
+ * {@link DVD} records keyed by ID. {@link DVDCollection#findById(int)} reads through it
+ * when caching is enabled, and every write path of the collection invalidates the
+ * affected entries.
+ *
+ * <p>Entries can also expire after a time-to-live. The cache stores and returns copies,
+ * so callers may modify the DVDs they get back (as the update screens do) without
+ * affecting cached data.</p>
+ *
+ * <p>Hit, miss and eviction counts are kept for monitoring.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ *     collection.enableCache(1000, Duration.ofMinutes(10));
+ *     collection.findById(42);   // miss, loaded from the database
+ *     collection.findById(42);   // hit, no JDBC round-trip
+ *     System.out.println(collection.getCache());
+ * </pre>
+ */
+public class DVDCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<Integer, Entry> entries;
+
+    /**
+     * Incremented by every invalidation. A value loaded from the database is only cached
+     * if no invalidation happened while it was being loaded, so a concurrent update can
+     * never be overwritten by the older row it replaced.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates a cache holding at most {@code maxSize} DVDs.
+     *
+     * @param maxSize the maximum number of cached DVDs
+     * @param ttl     how long an entry stays valid, or {@code null} / zero for no expiry
+     */
+    public DVDCache(int maxSize, Duration ttl) {
+        if (maxSize < 1) throw new IllegalArgumentException("Cache size must be at least 1.");
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+        this.entries = new LinkedHashMap<>(Math.min(maxSize, 1024) * 4 / 3 + 1, 0.75f, true);
+    }
+
+    /**
+     * Looks up a DVD by ID and counts the hit or miss.
+     *
+     * @param id the DVD ID
+     * @return a copy of the cached DVD, or empty if it is not cached or has expired
+     */
+    public Optional<DVD> get(int id) {
+        synchronized (entries) {
+            Entry entry = entries.get(id);
+            if (entry != null && ttlNanos > 0 && System.nanoTime() - entry.loadedAt > ttlNanos) {
+                entries.remove(id);
+                evictions.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+            hits.increment();
+            return Optional.of(copy(entry.dvd));
+        }
+    }
+
+    /**
+     * Returns a stamp to pass to {@link #put(DVD, long)} for a value about to be loaded.
+     *
+     * @return the current invalidation stamp
+     */
+    long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Caches a DVD that was loaded from the database, unless an invalidation happened
+     * since {@code stamp} was taken. Evicts the least recently used entry when full.
+     *
+     * @param dvd   the DVD to cache
+     * @param stamp the value of {@link #stamp()} taken before loading
+     */
+    void put(DVD dvd, long stamp) {
+        synchronized (entries) {
+            if (invalidations.get() != stamp) return;
+            entries.put(dvd.getId(), new Entry(copy(dvd), System.nanoTime()));
+            if (entries.size() > maxSize) {
+                Iterator<Map.Entry<Integer, Entry>> eldest = entries.entrySet().iterator();
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes one DVD from the cache.
+     *
+     * @param id the DVD ID
+     */
+    public void invalidate(int id) {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.remove(id);
+        }
+    }
+
+    /**
+     * Removes every DVD from the cache.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the number of cached DVDs.
+     *
+     * @return current entry count
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns how many lookups were answered from the cache.
+     *
+     * @return hit count
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns how many lookups had to go to the database.
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns how many entries were dropped because the cache was full or they expired.
+     *
+     * @return eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Returns a one-line summary of the cache size and counters.
+     *
+     * @return a formatted statistics string
+     */
+    @Override
+    public String toString() {
+        long h = getHitCount();
+        long m = getMissCount();
+        double hitRate = h + m == 0 ? 0.0 : 100.0 * h / (h + m);
+        return String.format("DVDCache size=%d/%d hits=%d misses=%d evictions=%d hitRate=%.1f%%",
+                size(), maxSize, h, m, getEvictionCount(), hitRate);
+    }
+
+    private static DVD copy(DVD dvd) {
+        return new DVD(dvd.getId(), dvd.getTitle(), dvd.getDirector(),
+                dvd.getReleaseYear(), dvd.getGenre(), dvd.getRating());
+    }
+
+    private static class Entry {
+        final DVD dvd;
+        final long loadedAt;
+
+        Entry(DVD dvd, long loadedAt) {
+            this.dvd = dvd;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package dms.service;
+
+import dms.model.DVD;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code DVDChange} class is one entry of the {@code dvd_changes} log: a DVD that was
+ * added, updated or removed, with the sequence number the database assigned to the change.
+ * Sequence numbers grow with every committed write, so a reader that remembers the last
+ * one it saw can ask {@link DVDCollection#changesSince(long, int)} for exactly what it missed.
+ *
+ * <p>Old entries are trimmed from the log. A reader that asks for changes from before the
+ * trimmed point gets a single {@link Type#TRIMMED} entry instead, and must reload everything
+ * it keeps before following the log from that entry's sequence number.</p>
+ *
+ * <p>The log stores only which DVD changed. {@link #getDvd()} holds the DVD's values as
+ * they were when the change was read, which may already include later updates; it is
+ * {@code null} for removals and for DVDs removed since.</p>
+ */
+public final class DVDChange {
+
+    /**
+     * What happened to the DVD.
+     */
+    public enum Type {
+        ADDED('I'),
+        UPDATED('U'),
+        REMOVED('D'),
+        /**
+         * Changes the reader had not seen were trimmed from the log, so any DVD may have
+         * changed. Never stored in the log; its DVD ID is 0.
+         */
+        TRIMMED('T');
+
+        private final char code;
+
+        Type(char code) {
+            this.code = code;
+        }
+
+        /**
+         * Returns the type stored in the {@code op} column as the given code.
+         *
+         * @param code {@code I}, {@code U} or {@code D}
+         * @return the matching type
+         */
+        static Type fromCode(String code) {
+            for (Type type : values()) {
+                if (code.length() == 1 && type.code == code.charAt(0)) return type;
+            }
+            throw new IllegalArgumentException("Unknown change type: " + code);
+        }
+    }
+
+    private final long seq;
+    private final Type type;
+    private final int dvdId;
+    private final DVD dvd;
+
+    /**
+     * Creates a change entry.
+     *
+     * @param seq   the change's sequence number
+     * @param type  what happened to the DVD
+     * @param dvdId the changed DVD's ID
+     * @param dvd   the DVD's current values, or {@code null} if it no longer exists
+     */
+    DVDChange(long seq, Type type, int dvdId, DVD dvd) {
+        this.seq = seq;
+        this.type = type;
+        this.dvdId = dvdId;
+        this.dvd = dvd;
+    }
+
+    /**
+     * Returns the sequence number of this change.
+     *
+     * @return a number larger than that of every earlier change
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Returns what happened to the DVD.
+     *
+     * @return the change type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the ID of the changed DVD.
+     *
+     * @return the DVD ID
+     */
+    public int getDvdId() {
+        return dvdId;
+    }
+
+    /**
+     * Returns the DVD's values when the change was read.
+     *
+     * @return the DVD, or {@code null} if it has been removed
+     */
+    public DVD getDvd() {
+        return dvd;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + seq + " " + type + " " + dvdId;
+    }
+}
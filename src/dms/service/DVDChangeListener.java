@@ -0,0 +1,26 @@
+package dms.service;
+
+import java.util.List;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code DVDChangeListener} interface receives the changes a {@link ChangeFeed} reads
+ * from the {@code dvd_changes} log, whether they were made through this program or by
+ * another process sharing the database file.
+ *
+ * <p>Calls come from the feed's background thread, in sequence order, one batch at a time.
+ * Listeners that update a user interface must hand the changes over to its own thread.
+ * A {@link DVDChange.Type#TRIMMED} entry means changes were lost from the log, and the
+ * listener must reload everything it keeps.</p>
+ */
+@FunctionalInterface
+public interface DVDChangeListener {
+
+    /**
+     * Called with the next changes, in the order they were committed.
+     *
+     * @param changes one or more changes, never empty
+     */
+    void dvdsChanged(List<DVDChange> changes);
+}
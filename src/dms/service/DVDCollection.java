@@ -1,11 +1,34 @@
 package dms.service;
 
 import dms.model.DVD;
+import dms.service.DVDMetrics.Operation;
+import dms.util.ConnectionPool;
+import dms.util.DBUtil;
+import dms.util.PooledConnection;
+import org.sqlite.SQLiteErrorCode;
+import org.sqlite.SQLiteException;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Irene Duett, CEN 3024c, 11/12/2025
@@ -17,6 +40,27 @@ import java.util.Optional;
  * and the database, handling all SQL operations. It also provides a method to compute
  * the average rating for DVDs filtered by genre.</p>
  *
+ * <p>Connections come from the shared {@link ConnectionPool}s for the database, and each
+ * SQL statement is prepared once per pooled connection and reused afterwards. Queries run
+ * on the read-only pool ({@link DBUtil#getPool(String)}); every write runs on the
+ * single connection of the writer pool ({@link DBUtil#getWriterPool(String)}).</p>
+ *
+ * <p><b>Thread safety.</b> A {@code DVDCollection} may be shared by any number of threads.
+ * The database runs in WAL mode, so:</p>
+ * <ul>
+ *     <li>Reads never wait for writes. Each query sees the database as of the last commit
+ *     before it started, including while a long import is running.</li>
+ *     <li>Writes are serialized: a write waits (up to the pool's borrow timeout) while
+ *     another write or a batch of a bulk insert or import holds the writer connection, and
+ *     then runs on its own, so writers no longer fail with {@code SQLITE_BUSY}.</li>
+ *     <li>A write is visible to reads that start after the call returns. The cache,
+ *     analytics and title index are updated after the commit, so they may briefly lag
+ *     a concurrent read of the database.</li>
+ *     <li>Streams hold a connection until closed and must stay on the thread that opened
+ *     them. A {@link BulkInserter} holds the writer connection only while it writes a batch,
+ *     but is not thread-safe.</li>
+ * </ul>
+ *
  * <p><b>Usage Example:</b></p>
  * <pre>
  *     DVDCollection collection = new DVDCollection("C:/path/to/dvds.db");
@@ -24,95 +68,792 @@ import java.util.Optional;
  *     List&lt;DVD&gt; allDvds = collection.listAll();
  * </pre>
  */
-public class DVDCollection {
+public class DVDCollection implements DVDStore {
+
+    /** Rows fetched per round-trip by {@link #stream()}. */
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    /** Poll interval of the change feed started by {@link #addChangeListener(DVDChangeListener)}. */
+    public static final Duration DEFAULT_CHANGE_POLL_INTERVAL = Duration.ofSeconds(2);
+
+    /** Maximum number of IDs bound to one {@code IN (...)} query by {@link #findAllById}. */
+    static final int MAX_IN_LIST = 512;
+
+    /**
+     * The columns {@link #listPage(SortColumn, boolean, int, int)} can sort by.
+     * Only these expressions are ever placed in the {@code ORDER BY} clause.
+     */
+    public enum SortColumn {
+        ID("id"),
+        TITLE("title COLLATE NOCASE"),
+        DIRECTOR("director"),
+        RELEASE_YEAR("release_year"),
+        GENRE("genre"),
+        RATING("rating");
+
+        private final String expression;
+
+        SortColumn(String expression) {
+            this.expression = expression;
+        }
+    }
+
+    static final String INSERT_SQL =
+            "INSERT INTO dvd (title, director, release_year, genre, rating) VALUES (?, ?, ?, ?, ?)";
+    /**
+     * Inserts a DVD or, if one with the same title, director and release year exists, updates
+     * its genre and rating. Returns the row's ID only if a row was inserted or actually changed.
+     */
+    static final String UPSERT_SQL = INSERT_SQL +
+            " ON CONFLICT (title, director, release_year) DO UPDATE SET genre = excluded.genre, rating = excluded.rating" +
+            " WHERE genre IS NOT excluded.genre OR rating IS NOT excluded.rating RETURNING id";
+    private static final String NATURAL_KEY_INDEX_SQL =
+            "SELECT 1 FROM sqlite_master WHERE type = 'index' AND name = 'idx_dvd_natural_key'";
+    /** The columns {@link #mapRow} reads, in the positions it reads them from. */
+    private static final String DVD_COLUMNS = "id, title, director, release_year, genre, rating";
+    private static final String SELECT_ALL_SQL = "SELECT " + DVD_COLUMNS + " FROM dvd";
+    private static final String SELECT_ORDERED_SQL = "SELECT " + DVD_COLUMNS + " FROM dvd ORDER BY id";
+    private static final String SELECT_PAGE_SQL = "SELECT " + DVD_COLUMNS + " FROM dvd WHERE id > ? ORDER BY id LIMIT ?";
+    static final String LAST_INSERT_ID_SQL = "SELECT last_insert_rowid()";
+    private static final String MAX_ID_SQL = "SELECT COALESCE(MAX(id), 0) FROM dvd";
+    private static final String COUNT_ABOVE_ID_SQL = "SELECT COUNT(*) FROM dvd WHERE id > ?";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM dvd";
+    private static final String COUNT_AND_MAX_ID_SQL = "SELECT COUNT(*), COALESCE(MAX(id), 0) FROM dvd";
+    private static final String SELECT_BY_ID_SQL = "SELECT " + DVD_COLUMNS + " FROM dvd WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM dvd WHERE id = ?";
+    private static final String DELETE_ALL_SQL = "DELETE FROM dvd";
+    private static final String RESTORE_SQL =
+            "INSERT INTO dvd (id, title, director, release_year, genre, rating) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final int RESTORE_BATCH_SIZE = 1000;
+    private static final String SEARCH_SQL =
+            "SELECT d.id, d.title, d.director, d.release_year, d.genre, d.rating FROM dvd_fts JOIN dvd d ON d.id = dvd_fts.rowid " +
+                    "WHERE dvd_fts MATCH ? ORDER BY bm25(dvd_fts, 2.0, 1.0) LIMIT ?";
+    private static final String GENRE_STATS_SQL =
+            "SELECT rating_sum, rating_count FROM genre_stats WHERE genre = ?";
+    private static final String UPDATE_SQL =
+            "UPDATE dvd SET title=?, director=?, release_year=?, genre=?, rating=? WHERE id=?";
+    /** Reads log entries after a sequence number, with the changed DVD's current values first. */
+    private static final String CHANGES_SQL =
+            "SELECT d.id, d.title, d.director, d.release_year, d.genre, d.rating, c.seq, c.op, c.dvd_id " +
+                    "FROM dvd_changes c LEFT JOIN dvd d ON d.id = c.dvd_id WHERE c.seq > ? ORDER BY c.seq LIMIT ?";
+    private static final String TRIMMED_THROUGH_SQL =
+            "SELECT CAST(value AS INTEGER) FROM metadata WHERE key = '" + SchemaMigrator.CHANGES_TRIMMED_KEY + "'";
+    /** The newest logged sequence number, which is the trimmed one if the whole log was trimmed. */
+    static final String LATEST_CHANGE_SQL =
+            "SELECT MAX(COALESCE((SELECT MAX(seq) FROM dvd_changes), 0), COALESCE((" + TRIMMED_THROUGH_SQL + "), 0))";
+    private static final String TRIM_CHANGES_SQL = "DELETE FROM dvd_changes WHERE seq <= ?";
+    private static final String PUT_METADATA_SQL = "INSERT OR IGNORE INTO metadata (key, value) VALUES (?, ?)";
+    private static final String GET_METADATA_SQL = "SELECT value FROM metadata WHERE key = ?";
 
     private final String dbUrl;
+    private final ConnectionPool pool;
+    private final ConnectionPool writerPool;
+    private final DVDMetrics metrics;
+    private volatile DVDCache cache;
+    private volatile DVDAnalytics analytics;
+    private volatile TitleIndex titleIndex;
+    private volatile WriteBehindQueue writeBehind;
+    private volatile ChangeFeed changeFeed;
+    private volatile String schemaError;
+    private final List<CollectionObserver> observers = new CopyOnWriteArrayList<>();
 
     /**
      * Constructs a new {@code DVDCollection} object linked to the specified SQLite database.
-     * Automatically ensures that the {@code dvd} table exists by invoking
-     * {@link #createTableIfNotExists()}.
+     * Automatically ensures that the {@code dvd} table, its indexes and the per-genre
+     * rating statistics exist by invoking {@link #migrateSchema()}.
      *
-     * @param dbUrl the full database connection URL (e.g., "jdbc:sqlite:C:/path/to/dvds.db")
+     * @param dbUrl the full database connection URL (e.g., "jdbc:sqlite:C:/path/to/dvds.db");
+     *              a plain file path is also accepted
      */
     public DVDCollection(String dbUrl) {
-        this.dbUrl = dbUrl;
-        createTableIfNotExists();
+        this.dbUrl = DBUtil.toJdbcUrl(dbUrl);
+        this.pool = DBUtil.getPool(this.dbUrl);
+        this.writerPool = DBUtil.getWriterPool(this.dbUrl);
+        this.metrics = DVDMetrics.forDatabase(this.dbUrl);
+        migrateSchema();
+    }
+
+    /**
+     * Returns the read-only connection pool this collection runs its queries on,
+     * e.g. to inspect pool size and wait-time metrics.
+     *
+     * @return the shared read pool for this collection's database
+     */
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Returns the single-connection pool this collection runs all of its writes on.
+     *
+     * @return the shared writer pool for this collection's database
+     */
+    public ConnectionPool getWriterPool() {
+        return writerPool;
+    }
+
+    /**
+     * Returns the read pool and, unless it is the same pool, the writer pool.
+     *
+     * @return this collection's connection pools
+     */
+    @Override
+    public List<ConnectionPool> getPools() {
+        return pool == writerPool ? List.of(pool) : List.of(pool, writerPool);
+    }
+
+    /**
+     * Returns the latency, throughput, error and row counters of this collection's
+     * database, which are also published over JMX.
+     *
+     * @return the metrics shared by all collections on this database
+     */
+    @Override
+    public DVDMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Enables a read-through LRU cache in front of {@link #findById(int)}.
+     * Updates, removals and imports through this collection invalidate it.
+     * Replaces any cache that was enabled before.
+     *
+     * @param maxSize the maximum number of cached DVDs
+     * @param ttl     how long a cached DVD stays valid, or {@code null} for no expiry
+     */
+    @Override
+    public void enableCache(int maxSize, Duration ttl) {
+        cache = new DVDCache(maxSize, ttl);
+    }
+
+    /**
+     * Disables the {@link #findById(int)} cache.
+     */
+    public void disableCache() {
+        cache = null;
+    }
+
+    /**
+     * Returns the active cache, e.g. to read its hit, miss and eviction counters.
+     *
+     * @return the cache, or {@code null} if caching is disabled
+     */
+    public DVDCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Enables the in-memory columnar analytics engine and loads its snapshot of the
+     * {@code dvd} table. Writes through this collection keep the snapshot current.
+     * Returns the existing engine if analytics are already enabled.
+     *
+     * @return the analytics engine, or {@code null} if the snapshot could not be loaded
+     */
+    public synchronized DVDAnalytics enableAnalytics() {
+        if (analytics == null) {
+            try {
+                analytics = new DVDAnalytics(pool, ForkJoinPool.commonPool());
+                observers.add(analytics);
+            } catch (SQLException e) {
+                System.out.println("Error loading analytics snapshot: " + e.getMessage());
+            }
+        }
+        return analytics;
+    }
+
+    /**
+     * Enables the analytics engine like {@link #enableAnalytics()}, but for a fast cold
+     * start loads it from a snapshot file written by {@link #saveSnapshot(Path)} instead of
+     * querying the table, if the file holds as many DVDs as the table and the same largest
+     * ID. Otherwise, e.g. if the file is missing, the table is read as usual.
+     *
+     * <p>The check cannot see updates that kept the row count and largest ID, so the
+     * snapshot should be saved again after changes, e.g. when the program exits.</p>
+     *
+     * @param snapshotFile the snapshot file
+     * @return the analytics engine, or {@code null} if it could not be loaded
+     */
+    public synchronized DVDAnalytics enableAnalytics(Path snapshotFile) {
+        if (analytics != null) return analytics;
+        DVDSnapshot snapshot = readSnapshot(snapshotFile);
+        if (snapshot == null) return enableAnalytics();
+        // The writer connection keeps writes out until the engine observes them.
+        try (PooledConnection conn = writerPool.borrow()) {
+            if (!matchesTable(conn, snapshot, snapshotFile)) return enableAnalytics();
+            analytics = new DVDAnalytics(pool, ForkJoinPool.commonPool(), snapshot);
+            observers.add(analytics);
+        } catch (SQLException e) {
+            System.out.println("Error loading analytics snapshot: " + e.getMessage());
+        }
+        return analytics;
+    }
+
+    /**
+     * Returns the analytics engine enabled by {@link #enableAnalytics()}.
+     *
+     * @return the analytics engine, or {@code null} if analytics are disabled
+     */
+    public DVDAnalytics getAnalytics() {
+        return analytics;
     }
 
     /**
-     * Ensures that the {@code dvd} table exists in the connected SQLite database.
-     * If the table does not exist, it is created automatically.
+     * Enables the in-memory title/director typeahead index. The index is built from the
+     * collection on a background thread; until {@link TitleIndex#isReady()} returns
+     * {@code true}, searches return no results. Writes through this collection keep it
+     * current. Returns the existing index if it is already enabled.
      *
-     * @throws SQLException if there is an error executing the SQL statement
+     * @return the typeahead index
      */
-    private void createTableIfNotExists() {
-        String sql = "CREATE TABLE IF NOT EXISTS dvd (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                "title TEXT NOT NULL," +
-                "director TEXT," +
-                "release_year INTEGER," +
-                "genre TEXT," +
-                "rating REAL" +
-                ")";
-        try (Connection conn = DriverManager.getConnection(dbUrl);
-             Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
+    @Override
+    public synchronized TitleIndex enableTitleIndex() {
+        if (titleIndex == null) {
+            titleIndex = new TitleIndex(this);
+            observers.add(titleIndex);
+            titleIndex.buildInBackground();
+        }
+        return titleIndex;
+    }
+
+    /**
+     * Enables the typeahead index like {@link #enableTitleIndex()}, but for a fast cold
+     * start builds it from a snapshot file written by {@link #saveSnapshot(Path)} instead of
+     * reading the table, if the file holds as many DVDs as the table and the same largest
+     * ID. Otherwise, e.g. if the file is missing, the table is read as usual.
+     *
+     * <p>The check cannot see updates that kept the row count and largest ID, so the
+     * snapshot should be saved again after changes, e.g. when the program exits.</p>
+     *
+     * @param snapshotFile the snapshot file
+     * @return the typeahead index
+     */
+    @Override
+    public synchronized TitleIndex enableTitleIndex(Path snapshotFile) {
+        if (titleIndex != null) return titleIndex;
+        DVDSnapshot snapshot = readSnapshot(snapshotFile);
+        if (snapshot == null) return enableTitleIndex();
+        // The writer connection keeps writes out until the index observes them.
+        try (PooledConnection conn = writerPool.borrow()) {
+            if (!matchesTable(conn, snapshot, snapshotFile)) return enableTitleIndex();
+            titleIndex = new TitleIndex(this);
+            observers.add(titleIndex);
+            titleIndex.buildInBackground(snapshot);
         } catch (SQLException e) {
-            System.out.println("Error creating table: " + e.getMessage());
+            System.out.println("Error reading title index snapshot: " + e.getMessage());
+            return enableTitleIndex();
+        }
+        return titleIndex;
+    }
+
+    /**
+     * Returns the typeahead index enabled by {@link #enableTitleIndex()}.
+     *
+     * @return the index, or {@code null} if it is disabled
+     */
+    @Override
+    public TitleIndex getTitleIndex() {
+        return titleIndex;
+    }
+
+    /**
+     * Enables write-behind mode: from now on {@link #addDVD}, {@link #updateDVD} and
+     * {@link #removeDVDById} go through a {@link WriteBehindQueue}, whose single writer
+     * thread commits concurrent writes in groups. The methods still block until their write
+     * has committed; callers that want futures can use the returned queue directly.
+     * Replaces (and drains) any queue that was enabled before.
+     *
+     * @param maxBatchSize the most writes committed in one transaction
+     * @param maxLatency   the longest a write waits for its group to fill up
+     * @return the queue
+     */
+    public synchronized WriteBehindQueue enableWriteBehind(int maxBatchSize, Duration maxLatency) {
+        WriteBehindQueue previous = writeBehind;
+        writeBehind = new WriteBehindQueue(this, writerPool, maxBatchSize, maxLatency);
+        if (previous != null) previous.close();
+        return writeBehind;
+    }
+
+    /**
+     * Commits any queued writes and returns to writing each call in its own transaction.
+     */
+    public synchronized void disableWriteBehind() {
+        WriteBehindQueue previous = writeBehind;
+        writeBehind = null;
+        if (previous != null) previous.close();
+    }
+
+    /**
+     * Returns the queue enabled by {@link #enableWriteBehind(int, Duration)}.
+     *
+     * @return the queue, or {@code null} if write-behind mode is off
+     */
+    public WriteBehindQueue getWriteBehind() {
+        return writeBehind;
+    }
+
+    /**
+     * Starts a {@link ChangeFeed} that delivers every change logged in {@code dvd_changes}
+     * from now on to its listeners: changes made through this collection right after they
+     * commit, and changes made by other processes within {@code pollInterval}. Replaces (and
+     * stops) any feed that was enabled before.
+     *
+     * @param pollInterval how often the log is checked for writes by other processes
+     * @return the feed, to register listeners on
+     */
+    public synchronized ChangeFeed enableChangeFeed(Duration pollInterval) {
+        ChangeFeed previous = changeFeed;
+        changeFeed = new ChangeFeed(this, pollInterval, getLatestChangeSeq());
+        if (previous != null) previous.close();
+        return changeFeed;
+    }
+
+    /**
+     * Stops the change feed; its listeners receive no further changes.
+     */
+    public synchronized void disableChangeFeed() {
+        ChangeFeed previous = changeFeed;
+        changeFeed = null;
+        if (previous != null) previous.close();
+    }
+
+    /**
+     * Registers a listener on the change feed, first enabling the feed with the
+     * {@link #DEFAULT_CHANGE_POLL_INTERVAL} if it is not running.
+     *
+     * @param listener the listener to add
+     */
+    @Override
+    public synchronized void addChangeListener(DVDChangeListener listener) {
+        ChangeFeed feed = changeFeed != null ? changeFeed : enableChangeFeed(DEFAULT_CHANGE_POLL_INTERVAL);
+        feed.addListener(listener);
+    }
+
+    /**
+     * Removes a listener from the change feed, if the feed is running.
+     *
+     * @param listener the listener to remove
+     */
+    @Override
+    public void removeChangeListener(DVDChangeListener listener) {
+        ChangeFeed feed = changeFeed;
+        if (feed != null) feed.removeListener(listener);
+    }
+
+    /**
+     * Returns the feed enabled by {@link #enableChangeFeed(Duration)}.
+     *
+     * @return the feed, or {@code null} if it is disabled
+     */
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+
+    /**
+     * Brings the database schema up to date by running the {@link SchemaMigrator}:
+     * the {@code dvd} table, the per-genre rating statistics and the secondary indexes
+     * are created or upgraded as needed. A failure is printed and kept for
+     * {@link #getSchemaError()}, so the user interfaces can show it.
+     */
+    private void migrateSchema() {
+        try {
+            new SchemaMigrator(writerPool).migrate();
+            schemaError = null;
+        } catch (SQLException e) {
+            schemaError = e.getMessage();
+            System.out.println("Error upgrading the database schema: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns why the schema could not be fully upgraded when this collection was opened,
+     * e.g. because duplicate DVDs keep the natural key from being added.
+     *
+     * @return the error message, or {@code null} if the schema is up to date
+     */
+    @Override
+    public String getSchemaError() {
+        return schemaError;
+    }
+
+    /**
+     * Checks whether the unique natural key index exists, which upserts depend on.
+     *
+     * @return {@code true} if the index exists
+     * @throws SQLException if the schema cannot be read
+     */
+    private boolean hasNaturalKey() throws SQLException {
+        try (PooledConnection conn = pool.borrow();
+             ResultSet rs = conn.prepare(NATURAL_KEY_INDEX_SQL).executeQuery()) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * Recomputes the {@code genre_stats} table from scratch. The triggers keep it correct
+     * during normal operation; use this to recover after the table was damaged or edited
+     * by hand, or to clear rounding drift that running sums accumulate over many updates.
+     *
+     * @return {@code true} if the statistics were rebuilt; {@code false} otherwise
+     */
+    @Override
+    public boolean rebuildGenreStats() {
+        long start = System.nanoTime();
+        try (PooledConnection conn = writerPool.borrow()) {
+            rebuildGenreStats(conn);
+            return true;
+        } catch (SQLException e) {
+            metrics.error(Operation.REBUILD_GENRE_STATS);
+            System.out.println("Error rebuilding genre statistics: " + e.getMessage());
+            return false;
+        } finally {
+            metrics.record(Operation.REBUILD_GENRE_STATS, start, 0);
+        }
+    }
+
+    private static void rebuildGenreStats(PooledConnection conn) throws SQLException {
+        Connection raw = conn.getConnection();
+        raw.setAutoCommit(false);
+        try (Statement stmt = raw.createStatement()) {
+            for (String sql : SchemaMigrator.REBUILD_GENRE_STATS) {
+                stmt.executeUpdate(sql);
+            }
+            raw.commit();
+        } catch (SQLException e) {
+            raw.rollback();
+            throw e;
+        } finally {
+            raw.setAutoCommit(true);
         }
     }
 
     /**
      * Adds a new {@link DVD} record to the database.
      *
+     * <p>Title, director and release year form a unique key. If another DVD already has the
+     * same values, nothing is added and a "DVD already exists" message is printed; use
+     * {@link #updateDVD(int, DVD)} or {@link #openBulkUpsert(int)} to change that DVD.</p>
+     *
      * @param dvd the {@link DVD} object to add
      * @throws SQLException if a database access error occurs during insertion
      */
+    @Override
     public void addDVD(DVD dvd) {
-        String sql = "INSERT INTO dvd (title, director, release_year, genre, rating) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = DriverManager.getConnection(dbUrl);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, dvd.getTitle());
-            stmt.setString(2, dvd.getDirector());
-            stmt.setInt(3, dvd.getReleaseYear());
-            stmt.setString(4, dvd.getGenre());
-            stmt.setDouble(5, dvd.getRating());
-            stmt.executeUpdate();
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            awaitQueued(queue.add(dvd), Operation.ADD, "adding DVD");
+            return;
+        }
+        long start = System.nanoTime();
+        int rows = 0;
+        try (PooledConnection conn = writerPool.borrow()) {
+            PreparedStatement stmt = conn.prepare(INSERT_SQL);
+            bind(stmt, dvd);
+            rows = stmt.executeUpdate();
+            afterAdd();
         } catch (SQLException e) {
-            System.out.println("Error adding DVD: " + e.getMessage());
+            metrics.error(Operation.ADD);
+            if (isDuplicateKey(e)) {
+                System.out.println("DVD already exists: " + dvd.getTitle() + " (" + dvd.getDirector()
+                        + ", " + dvd.getReleaseYear() + ")");
+            } else {
+                System.out.println("Error adding DVD: " + e.getMessage());
+            }
+        } finally {
+            metrics.record(Operation.ADD, start, rows);
         }
     }
 
+    /**
+     * Opens a bulk insert session that reuses one connection and one prepared statement
+     * and commits every {@code commitSize} rows in a single transaction.
+     * Use this instead of repeated {@link #addDVD(DVD)} calls for large imports. Rows whose
+     * natural key already exists are skipped and reported, not written.
+     *
+     * @param commitSize the number of rows written per transaction
+     * @return a {@link BulkInserter} that must be closed when done
+     * @throws SQLException if no connection can be obtained
+     */
+    @Override
+    public BulkInserter openBulkInsert(int commitSize) throws SQLException {
+        return new BulkInserter(this, writerPool, commitSize, false);
+    }
+
+    /**
+     * Opens a bulk session like {@link #openBulkInsert(int)} that matches rows on their natural
+     * key (title, director and release year) instead of always inserting: a DVD whose key
+     * already exists updates that row's genre and rating, so loading the same data twice does
+     * not create duplicates. The session loads the existing keys into a Bloom filter first,
+     * and rows the filter proves new take the plain insert path.
+     *
+     * <p>Matching needs the unique natural key index. If an old database still holds
+     * duplicate DVDs, the index is missing and this fails with the migration's message,
+     * which lists the duplicates to merge.</p>
+     *
+     * @param commitSize the number of rows written per transaction
+     * @return a {@link BulkInserter} that must be closed when done
+     * @throws SQLException if the natural key index is missing, no connection can be
+     *                      obtained or the keys cannot be read
+     */
+    @Override
+    public BulkInserter openBulkUpsert(int commitSize) throws SQLException {
+        if (!hasNaturalKey()) {
+            throw new SQLException("DVDs cannot be matched on title, director and release year because "
+                    + "the database has no unique key on them. "
+                    + (schemaError != null ? schemaError : "Restart the program to upgrade the database."));
+        }
+        return new BulkInserter(this, writerPool, commitSize, true);
+    }
+
     /**
      * Retrieves all {@link DVD} records from the database.
      *
      * @return a list containing all DVDs currently stored in the database
      * @throws SQLException if a database access error occurs while retrieving data
      */
+    @Override
     public List<DVD> listAll() {
+        long start = System.nanoTime();
         List<DVD> dvds = new ArrayList<>();
-        String sql = "SELECT * FROM dvd";
-        try (Connection conn = DriverManager.getConnection(dbUrl);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (PooledConnection conn = pool.borrow();
+             ResultSet rs = conn.prepare(SELECT_ALL_SQL).executeQuery()) {
             while (rs.next()) {
-                DVD dvd = new DVD(
-                        rs.getInt("id"),
-                        rs.getString("title"),
-                        rs.getString("director"),
-                        rs.getInt("release_year"),
-                        rs.getString("genre"),
-                        rs.getDouble("rating")
-                );
-                dvds.add(dvd);
+                dvds.add(mapRow(rs));
             }
         } catch (SQLException e) {
+            metrics.error(Operation.LIST_ALL);
             System.out.println("Error listing DVDs: " + e.getMessage());
         }
+        metrics.record(Operation.LIST_ALL, start, dvds.size());
+        return dvds;
+    }
+
+    /**
+     * Returns all {@link DVD} records as a lazily fetched stream, using the
+     * {@link #DEFAULT_FETCH_SIZE}.
+     *
+     * @return a stream of DVDs ordered by ID; must be closed after use
+     * @see #stream(int)
+     */
+    @Override
+    public Stream<DVD> stream() {
+        return stream(DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Returns all {@link DVD} records as a lazily fetched stream ordered by ID.
+     * Rows are read from the database only as the stream is consumed, so the whole
+     * table is never held in memory. The stream keeps a pooled connection open until it
+     * is closed or fully consumed, so use it in a try-with-resources block.
+     * A private in-memory database has only one connection, so while the stream is open,
+     * other calls from the same thread fail at once (printing an error) instead of waiting.
+     *
+     * <p><b>Usage Example:</b></p>
+     * <pre>
+     *     try (Stream&lt;DVD&gt; dvds = collection.stream(1000)) {
+     *         dvds.forEach(System.out::println);
+     *     }
+     * </pre>
+     *
+     * @param fetchSize the number of rows to fetch per round-trip
+     * @return a stream of DVDs; must be closed after use
+     */
+    public Stream<DVD> stream(int fetchSize) {
+        long start = System.nanoTime();
+        PooledConnection conn = null;
+        try {
+            conn = pool.borrow();
+            PreparedStatement stmt = conn.prepare(SELECT_ORDERED_SQL);
+            stmt.setFetchSize(fetchSize);
+            ResultSetSpliterator spliterator = new ResultSetSpliterator(conn, stmt.executeQuery(), metrics, start);
+            return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+        } catch (SQLException e) {
+            if (conn != null) conn.close();
+            metrics.error(Operation.STREAM);
+            metrics.record(Operation.STREAM, start, 0);
+            System.out.println("Error listing DVDs: " + e.getMessage());
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Reads only the selected columns of every DVD, in ID order, and passes each row to the
+     * visitor without building {@link DVD} objects. Use this for full-table reports and
+     * exports; the visitor gets one reused {@link DVDRow}, so the scan creates no per-row
+     * garbage apart from the strings of selected text columns.
+     *
+     * <p>The connection is held until the scan ends, so the visitor should not block for long.
+     * An exception thrown by the visitor stops the scan and is passed on to the caller.</p>
+     *
+     * @param columns the columns to read
+     * @param visitor called once per row
+     * @return the number of rows visited, or -1 if the scan failed
+     */
+    public long scan(Columns columns, DVDRowVisitor visitor) {
+        long start = System.nanoTime();
+        long rows = 0;
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement stmt = conn.prepare("SELECT " + columns.selectList() + " FROM dvd ORDER BY id");
+            stmt.setFetchSize(DEFAULT_FETCH_SIZE);
+            DVDRow row = new DVDRow(columns);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    row.read(rs);
+                    visitor.visit(row);
+                    rows++;
+                }
+            }
+            return rows;
+        } catch (SQLException e) {
+            metrics.error(Operation.SCAN);
+            System.out.println("Error scanning DVDs: " + e.getMessage());
+            return -1;
+        } finally {
+            metrics.record(Operation.SCAN, start, rows);
+        }
+    }
+
+    /**
+     * Retrieves one page of {@link DVD} records using keyset pagination: the DVDs with
+     * the smallest IDs greater than {@code afterId}. Pass {@code 0} for the first page and
+     * the ID of the last DVD on the previous page for each following page. Unlike an
+     * {@code OFFSET}, the cost of a page does not grow with its position.
+     *
+     * @param afterId the ID after which the page starts (exclusive)
+     * @param limit   the maximum number of DVDs to return
+     * @return up to {@code limit} DVDs ordered by ID; empty after the last page
+     */
+    public List<DVD> page(int afterId, int limit) {
+        long start = System.nanoTime();
+        List<DVD> dvds = new ArrayList<>(Math.min(limit, 1024));
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement stmt = conn.prepare(SELECT_PAGE_SQL);
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    dvds.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.PAGE);
+            System.out.println("Error listing DVDs: " + e.getMessage());
+        }
+        metrics.record(Operation.PAGE, start, dvds.size());
+        return dvds;
+    }
+
+    /**
+     * Retrieves one page of {@link DVD} records sorted by a column, for views that jump to
+     * arbitrary positions (such as a scrolled table). Ties are broken by ID, so pages never
+     * overlap or skip rows while the table is unchanged. Sorting is done by the database,
+     * using the column's index where one exists.
+     *
+     * <p>Prefer {@link #page(int, int)} for reading the table front to back; an
+     * {@code OFFSET} has to step over the rows before it.</p>
+     *
+     * @param sortColumn the column to sort by
+     * @param ascending  {@code true} for ascending order, {@code false} for descending
+     * @param offset     the number of rows to skip
+     * @param limit      the maximum number of DVDs to return
+     * @return up to {@code limit} DVDs; empty past the end of the table
+     */
+    @Override
+    public List<DVD> listPage(SortColumn sortColumn, boolean ascending, int offset, int limit) {
+        long start = System.nanoTime();
+        String direction = ascending ? " ASC" : " DESC";
+        String sql = "SELECT " + DVD_COLUMNS + " FROM dvd ORDER BY " + sortColumn.expression + direction
+                + (sortColumn == SortColumn.ID ? "" : ", id" + direction) + " LIMIT ? OFFSET ?";
+        List<DVD> dvds = new ArrayList<>(Math.min(limit, 1024));
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement stmt = conn.prepare(sql);
+            stmt.setInt(1, limit);
+            stmt.setInt(2, offset);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    dvds.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.LIST_PAGE);
+            System.out.println("Error listing DVDs: " + e.getMessage());
+        }
+        // The OFFSET rows are stepped over too.
+        metrics.record(Operation.LIST_PAGE, start, (long) offset + dvds.size());
+        return dvds;
+    }
+
+    /**
+     * Returns the number of DVDs in the database.
+     *
+     * @return the row count, or 0 if it cannot be read
+     */
+    @Override
+    public int count() {
+        long start = System.nanoTime();
+        int count = 0;
+        try (PooledConnection conn = pool.borrow();
+             ResultSet rs = conn.prepare(COUNT_SQL).executeQuery()) {
+            if (rs.next()) count = rs.getInt(1);
+        } catch (SQLException e) {
+            metrics.error(Operation.COUNT);
+            System.out.println("Error counting DVDs: " + e.getMessage());
+        }
+        metrics.record(Operation.COUNT, start, count);
+        return count;
+    }
+
+    /**
+     * Searches DVD titles and directors using the FTS5 full-text index.
+     * Every word of the query must match the start of a word in the title or director
+     * (so "matr wach" finds "The Matrix" by "Wachowski"); case and accents are ignored.
+     * Results are ranked by bm25 relevance, with title matches weighted above director
+     * matches.
+     *
+     * @param query the words to search for
+     * @param limit the maximum number of results
+     * @return matching DVDs, best match first; empty if nothing matches
+     */
+    @Override
+    public List<DVD> search(String query, int limit) {
+        long start = System.nanoTime();
+        List<DVD> dvds = new ArrayList<>();
+        String match = toFtsQuery(query);
+        if (match.isEmpty()) return dvds;
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement stmt = conn.prepare(SEARCH_SQL);
+            stmt.setString(1, match);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    dvds.add(mapRow(rs));
+                }
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.SEARCH);
+            System.out.println("Error searching DVDs: " + e.getMessage());
+        }
+        metrics.record(Operation.SEARCH, start, dvds.size());
         return dvds;
     }
 
+    /**
+     * Turns free text into an FTS5 query of quoted prefix terms, so user input can never
+     * be interpreted as FTS5 syntax (operators, column filters or unbalanced quotes).
+     *
+     * @param query the user's search text
+     * @return the FTS5 MATCH expression, or an empty string if the text has no words
+     */
+    static String toFtsQuery(String query) {
+        StringBuilder match = new StringBuilder();
+        if (query == null) return "";
+        for (String word : query.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+            if (match.length() > 0) match.append(' ');
+            match.append('"').append(word).append("\"*");
+        }
+        return match.toString();
+    }
+
     /**
      * Finds a {@link DVD} in the database by its unique ID.
      *
@@ -120,27 +861,89 @@ public class DVDCollection {
      * @return an {@link Optional} containing the found {@link DVD}, or empty if not found
      * @throws SQLException if a database access error occurs while retrieving data
      */
+    @Override
     public Optional<DVD> findById(int id) {
-        String sql = "SELECT * FROM dvd WHERE id = ?";
-        try (Connection conn = DriverManager.getConnection(dbUrl);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        long start = System.nanoTime();
+        DVDCache cache = this.cache;
+        long stamp = 0;
+        if (cache != null) {
+            Optional<DVD> cached = cache.get(id);
+            if (cached.isPresent()) {
+                metrics.record(Operation.FIND_BY_ID, start, 0);
+                return cached;
+            }
+            stamp = cache.stamp();
+        }
+        Optional<DVD> found = Optional.empty();
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement stmt = conn.prepare(SELECT_BY_ID_SQL);
             stmt.setInt(1, id);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                DVD dvd = new DVD(
-                        rs.getInt("id"),
-                        rs.getString("title"),
-                        rs.getString("director"),
-                        rs.getInt("release_year"),
-                        rs.getString("genre"),
-                        rs.getDouble("rating")
-                );
-                return Optional.of(dvd);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    DVD dvd = mapRow(rs);
+                    if (cache != null) cache.put(dvd, stamp);
+                    found = Optional.of(dvd);
+                }
             }
         } catch (SQLException e) {
+            metrics.error(Operation.FIND_BY_ID);
             System.out.println("Error finding DVD: " + e.getMessage());
         }
-        return Optional.empty();
+        metrics.record(Operation.FIND_BY_ID, start, found.isPresent() ? 1 : 0);
+        return found;
+    }
+
+    /**
+     * Finds the {@link DVD}s with the given IDs in one {@code IN (...)} query instead of one
+     * query per ID (larger requests are split into queries of {@link #MAX_IN_LIST} IDs).
+     * Cached DVDs are served from the cache and only the misses are queried.
+     *
+     * <p>The number of placeholders is rounded up to a power of two, padding with a repeated
+     * ID, so only a handful of distinct statements are ever prepared and cached.</p>
+     *
+     * @param ids the IDs to look up; duplicates are ignored
+     * @return the DVDs that exist, ordered by ID; IDs that do not exist are left out
+     */
+    public List<DVD> findAllById(Collection<Integer> ids) {
+        long start = System.nanoTime();
+        DVDCache cache = this.cache;
+        long stamp = cache != null ? cache.stamp() : 0;
+        TreeMap<Integer, DVD> found = new TreeMap<>();
+        List<Integer> missing = new ArrayList<>(ids.size());
+        for (int id : new LinkedHashSet<>(ids)) {
+            Optional<DVD> cached = cache != null ? cache.get(id) : Optional.empty();
+            if (cached.isPresent()) found.put(id, cached.get());
+            else missing.add(id);
+        }
+        if (missing.isEmpty()) {
+            metrics.record(Operation.FIND_ALL_BY_ID, start, 0);
+            return new ArrayList<>(found.values());
+        }
+        int hits = found.size();
+
+        try (PooledConnection conn = pool.borrow()) {
+            for (int from = 0; from < missing.size(); from += MAX_IN_LIST) {
+                List<Integer> chunk = missing.subList(from, Math.min(from + MAX_IN_LIST, missing.size()));
+                int placeholders = Integer.highestOneBit(chunk.size() * 2 - 1);
+                PreparedStatement stmt = conn.prepare(
+                        "SELECT " + DVD_COLUMNS + " FROM dvd WHERE id IN (" + "?,".repeat(placeholders - 1) + "?)");
+                for (int i = 0; i < placeholders; i++) {
+                    stmt.setInt(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        DVD dvd = mapRow(rs);
+                        found.put(dvd.getId(), dvd);
+                        if (cache != null) cache.put(dvd, stamp);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.FIND_ALL_BY_ID);
+            System.out.println("Error finding DVDs: " + e.getMessage());
+        }
+        metrics.record(Operation.FIND_ALL_BY_ID, start, found.size() - hits);
+        return new ArrayList<>(found.values());
     }
 
     /**
@@ -150,16 +953,22 @@ public class DVDCollection {
      * @return {@code true} if the DVD was successfully deleted; {@code false} otherwise
      * @throws SQLException if a database access error occurs during deletion
      */
+    @Override
     public boolean removeDVDById(int id) {
-        String sql = "DELETE FROM dvd WHERE id = ?";
-        try (Connection conn = DriverManager.getConnection(dbUrl);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            int rows = stmt.executeUpdate();
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) return Boolean.TRUE.equals(awaitQueued(queue.remove(id), Operation.REMOVE, "removing DVD"));
+        long start = System.nanoTime();
+        int rows = 0;
+        try (PooledConnection conn = writerPool.borrow()) {
+            rows = delete(conn, id);
+            afterRemove(id, rows > 0);
             return rows > 0;
         } catch (SQLException e) {
+            metrics.error(Operation.REMOVE);
             System.out.println("Error removing DVD: " + e.getMessage());
             return false;
+        } finally {
+            metrics.record(Operation.REMOVE, start, rows);
         }
     }
 
@@ -167,21 +976,49 @@ public class DVDCollection {
      * Computes the average rating of all {@link DVD} records in a specified genre.
      * Only DVDs with non-negative ratings are included in the calculation.
      *
+     * <p>The answer comes from the running sum and count kept in {@code genre_stats},
+     * so it takes constant time instead of scanning the genre's DVDs.</p>
+     *
      * @param genre the genre to filter DVDs by
      * @return the average rating for the given genre, or 0.0 if none are found
      * @throws SQLException if a database access error occurs during computation
      */
+    @Override
     public double computeAverageRatingByGenre(String genre) {
-        String sql = "SELECT AVG(rating) AS avg_rating FROM dvd WHERE genre = ? AND rating >= 0";
-        try (Connection conn = DriverManager.getConnection(dbUrl);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, genre);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) return rs.getDouble("avg_rating");
+        long start = System.nanoTime();
+        double average = 0.0;
+        int rows = 0;
+        try {
+            double[] totals = genreRatingTotals(genre);
+            if (totals != null) {
+                rows = 1;
+                if (totals[1] > 0) average = totals[0] / totals[1];
+            }
         } catch (SQLException e) {
+            metrics.error(Operation.AVERAGE_BY_GENRE);
             System.out.println("Error computing average: " + e.getMessage());
         }
-        return 0.0;
+        metrics.record(Operation.AVERAGE_BY_GENRE, start, rows);
+        return average;
+    }
+
+    /**
+     * Reads a genre's running rating sum and count from {@code genre_stats}. Totals rather
+     * than an average, so that {@link ShardedDVDCollection} can combine shards exactly.
+     *
+     * @param genre the genre
+     * @return the rating sum and count, or {@code null} if the genre has no statistics row
+     * @throws SQLException if the statistics cannot be read
+     */
+    double[] genreRatingTotals(String genre) throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement stmt = conn.prepare(GENRE_STATS_SQL);
+            stmt.setString(1, genre);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) return null;
+                return new double[]{rs.getDouble("rating_sum"), rs.getLong("rating_count")};
+            }
+        }
     }
 
     /**
@@ -192,21 +1029,679 @@ public class DVDCollection {
      * @return {@code true} if the update was successful; {@code false} otherwise
      * @throws SQLException if a database access error occurs during update
      */
+    @Override
     public boolean updateDVD(int id, DVD updatedDVD) {
-        String sql = "UPDATE dvd SET title=?, director=?, release_year=?, genre=?, rating=? WHERE id=?";
-        try (Connection conn = DriverManager.getConnection(dbUrl);
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, updatedDVD.getTitle());
-            stmt.setString(2, updatedDVD.getDirector());
-            stmt.setInt(3, updatedDVD.getReleaseYear());
-            stmt.setString(4, updatedDVD.getGenre());
-            stmt.setDouble(5, updatedDVD.getRating());
-            stmt.setInt(6, id);
-            int rows = stmt.executeUpdate();
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            return Boolean.TRUE.equals(awaitQueued(queue.update(id, updatedDVD), Operation.UPDATE, "updating DVD"));
+        }
+        long start = System.nanoTime();
+        int rows = 0;
+        try (PooledConnection conn = writerPool.borrow()) {
+            rows = update(conn, id, updatedDVD);
+            afterUpdate(id, updatedDVD, rows > 0);
             return rows > 0;
         } catch (SQLException e) {
+            metrics.error(Operation.UPDATE);
             System.out.println("Error updating DVD: " + e.getMessage());
             return false;
+        } finally {
+            metrics.record(Operation.UPDATE, start, rows);
+        }
+    }
+
+    /**
+     * Inserts many DVDs in one transaction and returns their generated IDs.
+     * Either all DVDs are inserted or, if any insert fails, none are; the result then
+     * names the position of the DVD that failed, e.g. one whose natural key already exists.
+     *
+     * @param dvds the DVDs to insert; their IDs are ignored
+     * @return the generated IDs in input order, or a rolled-back result with the error
+     */
+    public BulkResult addAll(Collection<DVD> dvds) {
+        long start = System.nanoTime();
+        List<DVD> items = new ArrayList<>(dvds);
+        int rows = 0;
+        int failedIndex = -1;
+        try (PooledConnection conn = writerPool.borrow()) {
+            Connection raw = conn.getConnection();
+            raw.setAutoCommit(false);
+            int maxIdBefore = 0;
+            try {
+                try (ResultSet rs = conn.prepare(MAX_ID_SQL).executeQuery()) {
+                    if (rs.next()) maxIdBefore = rs.getInt(1);
+                }
+                PreparedStatement stmt = conn.prepare(INSERT_SQL);
+                for (DVD dvd : items) {
+                    bind(stmt, dvd);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                int lastId = 0;
+                try (ResultSet rs = conn.prepare(LAST_INSERT_ID_SQL).executeQuery()) {
+                    if (rs.next()) lastId = rs.getInt(1);
+                }
+                raw.commit();
+                rows = items.size();
+
+                // The transaction holds the write lock from its first insert, and AUTOINCREMENT
+                // hands out max(id) + 1, so the batch received consecutive IDs ending at lastId.
+                List<Integer> ids = new ArrayList<>(items.size());
+                boolean[] affected = new boolean[items.size()];
+                for (int i = 0; i < items.size(); i++) {
+                    ids.add(lastId - items.size() + 1 + i);
+                    affected[i] = true;
+                }
+                if (!items.isEmpty()) afterAdd();
+                return BulkResult.committed(ids, affected);
+            } catch (SQLException e) {
+                failedIndex = failedBatchIndex(conn, e, maxIdBefore, items.size());
+                raw.rollback();
+                throw e;
+            } finally {
+                raw.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.ADD_ALL);
+            if (failedIndex >= 0) {
+                DVD failed = items.get(failedIndex);
+                System.out.println("Error adding DVDs: DVD " + (failedIndex + 1) + " of " + items.size()
+                        + " (" + failed.getTitle() + ") failed: " + e.getMessage());
+            } else {
+                System.out.println("Error adding DVDs: " + e.getMessage());
+            }
+            return BulkResult.rolledBack(List.of(), e.getMessage(), failedIndex);
+        } finally {
+            metrics.record(Operation.ADD_ALL, start, rows);
+        }
+    }
+
+    /**
+     * Works out which insert of a failed {@link #addAll} batch failed, before it is rolled
+     * back. Uses the update counts of a {@link BatchUpdateException} when the driver reports
+     * them; SQLite's driver does not, so otherwise the rows the batch inserted above the
+     * previous largest ID are counted, which is the number of inserts that succeeded.
+     *
+     * @return the input position of the failing DVD, or -1 if no insert failed
+     */
+    private static int failedBatchIndex(PooledConnection conn, SQLException e, int maxIdBefore, int size) {
+        int succeeded;
+        if (e instanceof BatchUpdateException batch && batch.getUpdateCounts() != null) {
+            int[] counts = batch.getUpdateCounts();
+            succeeded = counts.length;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == Statement.EXECUTE_FAILED) {
+                    succeeded = i;
+                    break;
+                }
+            }
+        } else {
+            try {
+                PreparedStatement stmt = conn.prepare(COUNT_ABOVE_ID_SQL);
+                stmt.setInt(1, maxIdBefore);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    succeeded = rs.next() ? rs.getInt(1) : -1;
+                }
+            } catch (SQLException countError) {
+                e.addSuppressed(countError);
+                return -1;
+            }
+        }
+        return succeeded >= 0 && succeeded < size ? succeeded : -1;
+    }
+
+    /**
+     * Updates many DVDs in one transaction. Either all updates are applied or, if any
+     * fails, none are. IDs that do not exist are reported as not affected.
+     *
+     * @param updates the new values, keyed by the ID of the DVD to update
+     * @return which updates changed a row, in the map's iteration order
+     */
+    public BulkResult updateAll(Map<Integer, DVD> updates) {
+        long start = System.nanoTime();
+        List<Integer> ids = new ArrayList<>(updates.keySet());
+        int rows = 0;
+        try (PooledConnection conn = writerPool.borrow()) {
+            Connection raw = conn.getConnection();
+            raw.setAutoCommit(false);
+            try {
+                PreparedStatement stmt = conn.prepare(UPDATE_SQL);
+                for (Map.Entry<Integer, DVD> update : updates.entrySet()) {
+                    bind(stmt, update.getValue());
+                    stmt.setInt(6, update.getKey());
+                    stmt.addBatch();
+                }
+                boolean[] affected = toAffected(stmt.executeBatch());
+                raw.commit();
+
+                for (int i = 0; i < ids.size(); i++) {
+                    int id = ids.get(i);
+                    afterUpdate(id, updates.get(id), affected[i]);
+                    if (affected[i]) rows++;
+                }
+                return BulkResult.committed(ids, affected);
+            } catch (SQLException e) {
+                raw.rollback();
+                throw e;
+            } finally {
+                raw.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.UPDATE_ALL);
+            System.out.println("Error updating DVDs: " + e.getMessage());
+            return BulkResult.rolledBack(ids, e.getMessage());
+        } finally {
+            metrics.record(Operation.UPDATE_ALL, start, rows);
+        }
+    }
+
+    /**
+     * Removes many DVDs in one transaction. Either all removals are applied or, if any
+     * fails, none are. IDs that do not exist are reported as not affected.
+     *
+     * @param ids the IDs of the DVDs to remove
+     * @return which IDs removed a row, in input order
+     */
+    public BulkResult removeByIds(int... ids) {
+        long start = System.nanoTime();
+        List<Integer> idList = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            idList.add(id);
+        }
+        int rows = 0;
+        try (PooledConnection conn = writerPool.borrow()) {
+            Connection raw = conn.getConnection();
+            raw.setAutoCommit(false);
+            try {
+                PreparedStatement stmt = conn.prepare(DELETE_SQL);
+                for (int id : ids) {
+                    stmt.setInt(1, id);
+                    stmt.addBatch();
+                }
+                boolean[] affected = toAffected(stmt.executeBatch());
+                raw.commit();
+
+                for (int i = 0; i < ids.length; i++) {
+                    afterRemove(ids[i], affected[i]);
+                    if (affected[i]) rows++;
+                }
+                return BulkResult.committed(idList, affected);
+            } catch (SQLException e) {
+                raw.rollback();
+                throw e;
+            } finally {
+                raw.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.REMOVE_BY_IDS);
+            System.out.println("Error removing DVDs: " + e.getMessage());
+            return BulkResult.rolledBack(idList, e.getMessage());
+        } finally {
+            metrics.record(Operation.REMOVE_BY_IDS, start, rows);
+        }
+    }
+
+    /**
+     * Saves the whole collection to a binary {@link DVDSnapshot} file, e.g. as a backup.
+     * The snapshot is read in one query, so it reflects a single point in time even while
+     * other threads are writing.
+     *
+     * @param file the snapshot file; replaced only once the new snapshot is complete
+     * @return {@code true} if the snapshot was written; {@code false} otherwise
+     */
+    @Override
+    public boolean saveSnapshot(Path file) {
+        long start = System.nanoTime();
+        int rows = 0;
+        try {
+            DVDSnapshot snapshot = DVDSnapshot.capture(pool);
+            snapshot.writeTo(file);
+            rows = snapshot.size();
+            return true;
+        } catch (SQLException | IOException e) {
+            metrics.error(Operation.SAVE_SNAPSHOT);
+            System.out.println("Error saving snapshot: " + e.getMessage());
+            return false;
+        } finally {
+            metrics.record(Operation.SAVE_SNAPSHOT, start, rows);
+        }
+    }
+
+    /**
+     * Replaces the contents of the collection with a binary {@link DVDSnapshot}, keeping the
+     * snapshot's IDs. The table is cleared and refilled in a single transaction, so readers
+     * see either the old contents or the restored ones. The cache is cleared, and analytics
+     * and the title index, if enabled, are loaded straight from the snapshot instead of
+     * re-reading the table.
+     *
+     * @param file the snapshot file
+     * @return {@code true} if the collection was restored; {@code false} if the file is
+     *         invalid or the restore failed, in which case nothing changed
+     */
+    @Override
+    public boolean restoreSnapshot(Path file) {
+        long start = System.nanoTime();
+        int rows = 0;
+        try {
+            DVDSnapshot snapshot = DVDSnapshot.readFrom(file);
+            try (PooledConnection conn = writerPool.borrow()) {
+                Connection raw = conn.getConnection();
+                raw.setAutoCommit(false);
+                try {
+                    conn.prepare(DELETE_ALL_SQL).executeUpdate();
+                    PreparedStatement stmt = conn.prepare(RESTORE_SQL);
+                    for (int row = 0; row < snapshot.size(); row++) {
+                        snapshot.bind(stmt, row);
+                        stmt.addBatch();
+                        if ((row + 1) % RESTORE_BATCH_SIZE == 0) stmt.executeBatch();
+                    }
+                    stmt.executeBatch();
+                    raw.commit();
+                } catch (SQLException e) {
+                    raw.rollback();
+                    throw e;
+                } finally {
+                    raw.setAutoCommit(true);
+                }
+                rows = snapshot.size();
+
+                // Still holding the only writer connection, so no other write can land
+                // between the commit and replacing the in-memory structures.
+                DVDCache cache = this.cache;
+                if (cache != null) cache.invalidateAll();
+                DVDAnalytics analytics = this.analytics;
+                if (analytics != null) analytics.load(snapshot);
+                TitleIndex titleIndex = this.titleIndex;
+                if (titleIndex != null) titleIndex.load(snapshot);
+                wakeChangeFeed();
+            }
+            return true;
+        } catch (SQLException | IOException e) {
+            metrics.error(Operation.RESTORE_SNAPSHOT);
+            System.out.println("Error restoring snapshot: " + e.getMessage());
+            return false;
+        } finally {
+            metrics.record(Operation.RESTORE_SNAPSHOT, start, rows);
+        }
+    }
+
+    /**
+     * Returns the changes logged after a sequence number, oldest first. A reader that keeps
+     * the sequence number of the last change it applied can call this repeatedly to follow
+     * every add, update and removal, including those made by other processes.
+     *
+     * <p>The log keeps only its newest entries. If some changes after {@code seq} have been
+     * trimmed, the result is a single {@link DVDChange.Type#TRIMMED} entry: the reader must
+     * reload everything it keeps, then continue from that entry's sequence number.</p>
+     *
+     * @param seq   the sequence number of the last change already seen; 0 for the whole log
+     * @param limit the maximum number of changes to return
+     * @return up to {@code limit} changes, or an empty list if there are none or they cannot be read
+     */
+    public List<DVDChange> changesSince(long seq, int limit) {
+        long start = System.nanoTime();
+        List<DVDChange> changes = new ArrayList<>();
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement stmt = conn.prepare(CHANGES_SQL);
+            stmt.setLong(1, seq);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    // IDs start at 1, so 0 means the LEFT JOIN found no DVD.
+                    DVD dvd = rs.getInt(1) == 0 ? null : mapRow(rs);
+                    changes.add(new DVDChange(rs.getLong(7), DVDChange.Type.fromCode(rs.getString(8)),
+                            rs.getInt(9), dvd));
+                }
+            }
+            // Checked after the read: the trimmed point only moves forward, so if it is not
+            // past seq now, nothing the read needed had been trimmed.
+            if (seq < queryLong(conn, TRIMMED_THROUGH_SQL)) {
+                changes.clear();
+                changes.add(new DVDChange(queryLong(conn, LATEST_CHANGE_SQL), DVDChange.Type.TRIMMED, 0, null));
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.CHANGES_SINCE);
+            System.out.println("Error reading changes: " + e.getMessage());
+        }
+        metrics.record(Operation.CHANGES_SINCE, start, changes.size());
+        return changes;
+    }
+
+    /**
+     * Returns the sequence number of the newest logged change. Read it together with the
+     * current state, then follow the log from there with {@link #changesSince(long, int)}.
+     *
+     * @return the newest sequence number, or 0 if nothing was logged or it cannot be read
+     */
+    public long getLatestChangeSeq() {
+        try (PooledConnection conn = pool.borrow()) {
+            return queryLong(conn, LATEST_CHANGE_SQL);
+        } catch (SQLException e) {
+            System.out.println("Error reading changes: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Deletes logged changes up to and including a sequence number. The log already trims
+     * itself to its newest {@value SchemaMigrator#RETAINED_CHANGES} entries as changes are
+     * logged; this trims further, e.g. once every reader has applied the changes. Readers
+     * further behind get a {@link DVDChange.Type#TRIMMED} entry from
+     * {@link #changesSince(long, int)} and reload.
+     *
+     * @param throughSeq the newest sequence number to delete
+     * @return the number of log entries deleted, or 0 on error
+     */
+    public int trimChanges(long throughSeq) {
+        long start = System.nanoTime();
+        int rows = 0;
+        try (PooledConnection conn = writerPool.borrow()) {
+            Connection raw = conn.getConnection();
+            raw.setAutoCommit(false);
+            try {
+                PreparedStatement stmt = conn.prepare(TRIM_CHANGES_SQL);
+                stmt.setLong(1, throughSeq);
+                rows = stmt.executeUpdate();
+                PreparedStatement mark = conn.prepare(SchemaMigrator.MARK_TRIMMED_SQL);
+                mark.setLong(1, throughSeq);
+                mark.executeUpdate();
+                raw.commit();
+            } catch (SQLException e) {
+                rows = 0;
+                raw.rollback();
+                throw e;
+            } finally {
+                raw.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.TRIM_CHANGES);
+            System.out.println("Error trimming changes: " + e.getMessage());
+        } finally {
+            metrics.record(Operation.TRIM_CHANGES, start, rows);
+        }
+        return rows;
+    }
+
+    /**
+     * Waits for a write queued in write-behind mode and records it like a direct call.
+     *
+     * @return the write's result, or {@code null} if it failed
+     */
+    private <T> T awaitQueued(CompletableFuture<T> write, Operation operation, String action) {
+        long start = System.nanoTime();
+        int rows = 0;
+        try {
+            T result = write.join();
+            if (!Boolean.FALSE.equals(result)) rows = 1;
+            return result;
+        } catch (CompletionException e) {
+            metrics.error(operation);
+            System.out.println("Error " + action + ": " + e.getCause().getMessage());
+            return null;
+        } finally {
+            metrics.record(operation, start, rows);
+        }
+    }
+
+    /**
+     * Inserts a DVD on the given connection, inside the caller's transaction.
+     *
+     * @return the generated ID
+     */
+    int insert(PooledConnection conn, DVD dvd) throws SQLException {
+        PreparedStatement stmt = conn.prepare(INSERT_SQL);
+        bind(stmt, dvd);
+        stmt.executeUpdate();
+        try (ResultSet rs = conn.prepare(LAST_INSERT_ID_SQL).executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Updates a DVD on the given connection, inside the caller's transaction.
+     *
+     * @return the number of rows changed
+     */
+    int update(PooledConnection conn, int id, DVD dvd) throws SQLException {
+        PreparedStatement stmt = conn.prepare(UPDATE_SQL);
+        bind(stmt, dvd);
+        stmt.setInt(6, id);
+        return stmt.executeUpdate();
+    }
+
+    /**
+     * Deletes a DVD on the given connection, inside the caller's transaction.
+     *
+     * @return the number of rows deleted
+     */
+    int delete(PooledConnection conn, int id) throws SQLException {
+        PreparedStatement stmt = conn.prepare(DELETE_SQL);
+        stmt.setInt(1, id);
+        return stmt.executeUpdate();
+    }
+
+    /**
+     * Notifies observers once an insert has committed.
+     */
+    void afterAdd() {
+        observers.forEach(CollectionObserver::dvdsAdded);
+        wakeChangeFeed();
+    }
+
+    /**
+     * Invalidates the cached DVD and notifies observers once an update has committed.
+     */
+    void afterUpdate(int id, DVD dvd, boolean affected) {
+        invalidate(id);
+        if (affected) {
+            observers.forEach(o -> o.dvdUpdated(id, dvd));
+            wakeChangeFeed();
+        }
+    }
+
+    /**
+     * Invalidates the cached DVD and notifies observers once a removal has committed.
+     */
+    void afterRemove(int id, boolean affected) {
+        invalidate(id);
+        if (affected) {
+            observers.forEach(o -> o.dvdRemoved(id));
+            wakeChangeFeed();
+        }
+    }
+
+    private static boolean[] toAffected(int[] updateCounts) {
+        boolean[] affected = new boolean[updateCounts.length];
+        for (int i = 0; i < updateCounts.length; i++) {
+            affected[i] = updateCounts[i] > 0;
+        }
+        return affected;
+    }
+
+    /**
+     * Binds a DVD's fields to parameters 1 to 5 of an insert or update statement.
+     */
+    static void bind(PreparedStatement stmt, DVD dvd) throws SQLException {
+        stmt.setString(1, dvd.getTitle());
+        stmt.setString(2, dvd.getDirector());
+        stmt.setInt(3, dvd.getReleaseYear());
+        stmt.setString(4, dvd.getGenre());
+        stmt.setDouble(5, dvd.getRating());
+    }
+
+    /**
+     * Stores a setting in the file's {@code metadata} table unless it already has a value,
+     * and returns the stored value.
+     *
+     * @param key   the setting's name
+     * @param value the value to store if the setting has none
+     * @return the value in the file after the call
+     * @throws SQLException if the table cannot be written or read
+     */
+    String putMetadataIfAbsent(String key, String value) throws SQLException {
+        try (PooledConnection conn = writerPool.borrow()) {
+            PreparedStatement put = conn.prepare(PUT_METADATA_SQL);
+            put.setString(1, key);
+            put.setString(2, value);
+            put.executeUpdate();
+            PreparedStatement get = conn.prepare(GET_METADATA_SQL);
+            get.setString(1, key);
+            try (ResultSet rs = get.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    /**
+     * Returns whether a write failed because another DVD already has the same title, director
+     * and release year.
+     */
+    static boolean isDuplicateKey(SQLException e) {
+        return e instanceof SQLiteException sqlite
+                && sqlite.getResultCode() == SQLiteErrorCode.SQLITE_CONSTRAINT_UNIQUE;
+    }
+
+    /**
+     * Called by {@link BulkInserter} after it commits a batch.
+     */
+    void afterBulkWrite() {
+        DVDCache cache = this.cache;
+        if (cache != null) cache.invalidateAll();
+        observers.forEach(CollectionObserver::dvdsAdded);
+        wakeChangeFeed();
+    }
+
+    /**
+     * Called by the {@link ChangeFeed} with each batch of changes before its listeners run,
+     * so lookups stop returning DVDs that another process changed.
+     */
+    void changesRead(List<DVDChange> changes) {
+        DVDCache cache = this.cache;
+        if (cache == null) return;
+        for (DVDChange change : changes) {
+            if (change.getType() == DVDChange.Type.TRIMMED) {
+                cache.invalidateAll();
+                return;
+            }
+            cache.invalidate(change.getDvdId());
+        }
+    }
+
+    private void wakeChangeFeed() {
+        ChangeFeed feed = changeFeed;
+        if (feed != null) feed.wakeUp();
+    }
+
+    /**
+     * Reads a snapshot file for a cold start.
+     *
+     * @return the snapshot, or {@code null} if the file is missing or cannot be read
+     */
+    private static DVDSnapshot readSnapshot(Path file) {
+        if (!Files.exists(file)) return null;
+        try {
+            return DVDSnapshot.readFrom(file);
+        } catch (IOException e) {
+            System.out.println("Error reading snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether a snapshot has as many DVDs as the table and the same largest ID.
+     */
+    private static boolean matchesTable(PooledConnection conn, DVDSnapshot snapshot, Path file) throws SQLException {
+        try (ResultSet rs = conn.prepare(COUNT_AND_MAX_ID_SQL).executeQuery()) {
+            rs.next();
+            int rows = rs.getInt(1);
+            int maxId = rs.getInt(2);
+            int snapshotMaxId = snapshot.size() == 0 ? 0 : snapshot.id(snapshot.size() - 1);
+            if (rows == snapshot.size() && maxId == snapshotMaxId) return true;
+            System.out.println("Snapshot " + file + " is out of date (" + snapshot.size() + " DVDs up to ID "
+                    + snapshotMaxId + ", database has " + rows + " up to ID " + maxId + "); reading the database.");
+            return false;
+        }
+    }
+
+    private static long queryLong(PooledConnection conn, String sql) throws SQLException {
+        try (ResultSet rs = conn.prepare(sql).executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private void invalidate(int id) {
+        DVDCache cache = this.cache;
+        if (cache != null) cache.invalidate(id);
+    }
+
+    /**
+     * Builds a {@link DVD} from the current row of a result set. Columns are read by
+     * position, which skips the driver's name lookup for every value.
+     *
+     * @param rs a result set positioned on a row selected with {@link #DVD_COLUMNS}
+     * @return the mapped DVD
+     * @throws SQLException if a column cannot be read
+     */
+    private static DVD mapRow(ResultSet rs) throws SQLException {
+        return new DVD(
+                rs.getInt(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getInt(4),
+                rs.getString(5),
+                rs.getDouble(6)
+        );
+    }
+
+    /**
+     * Feeds rows of an open result set to a stream one at a time and releases the
+     * result set and its pooled connection when closed or exhausted.
+     */
+    private static class ResultSetSpliterator extends Spliterators.AbstractSpliterator<DVD> {
+
+        private final PooledConnection conn;
+        private final ResultSet rs;
+        private final DVDMetrics metrics;
+        private final long startNanos;
+        private long rows;
+        private boolean closed;
+
+        ResultSetSpliterator(PooledConnection conn, ResultSet rs, DVDMetrics metrics, long startNanos) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.conn = conn;
+            this.rs = rs;
+            this.metrics = metrics;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super DVD> action) {
+            if (closed) return false;
+            try {
+                if (rs.next()) {
+                    rows++;
+                    action.accept(mapRow(rs));
+                    return true;
+                }
+            } catch (SQLException e) {
+                metrics.error(Operation.STREAM);
+                System.out.println("Error listing DVDs: " + e.getMessage());
+            }
+            close();
+            return false;
+        }
+
+        void close() {
+            if (closed) return;
+            closed = true;
+            try {
+                rs.close();
+            } catch (SQLException ignored) {
+                // the connection is returned to the pool either way
+            }
+            conn.close();
+            // Covers the whole stream, including the time the consumer spent on each row.
+            metrics.record(Operation.STREAM, startNanos, rows);
         }
     }
 }
@@ -0,0 +1,31 @@
+package dms.service;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code DVDColumn} enum names the columns of the {@code dvd} table, for choosing
+ * which of them a {@link DVDCollection#scan(Columns, DVDRowVisitor)} reads.
+ */
+public enum DVDColumn {
+    ID("id"),
+    TITLE("title"),
+    DIRECTOR("director"),
+    RELEASE_YEAR("release_year"),
+    GENRE("genre"),
+    RATING("rating");
+
+    private final String columnName;
+
+    DVDColumn(String columnName) {
+        this.columnName = columnName;
+    }
+
+    /**
+     * Returns the column's name in the {@code dvd} table.
+     *
+     * @return the SQL column name
+     */
+    public String getColumnName() {
+        return columnName;
+    }
+}
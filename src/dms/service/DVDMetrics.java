@@ -0,0 +1,193 @@
+package dms.service;
+
+import dms.util.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code DVDMetrics} class records, per {@link Operation}, a latency histogram, an error
+ * counter and the number of rows read or written. There is one instance per database,
+ * shared by every {@link DVDCollection} on it and registered as a JMX MXBean.
+ *
+ * <p>Recording allocates nothing: counters live in preallocated arrays indexed by the
+ * operation's ordinal and are updated with atomic increments, so instrumentation can stay
+ * on in production. The cost per call is two {@code System.nanoTime()} reads and a few
+ * atomic adds.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ *     long start = System.nanoTime();
+ *     ...
+ *     metrics.record(DVDMetrics.Operation.FIND_BY_ID, start, rows);
+ * </pre>
+ */
+public class DVDMetrics implements DVDMetricsMXBean {
+
+    /**
+     * The instrumented operations.
+     */
+    public enum Operation {
+        ADD("addDVD"),
+        FIND_BY_ID("findById"),
+        FIND_ALL_BY_ID("findAllById"),
+        LIST_ALL("listAll"),
+        STREAM("stream"),
+        SCAN("scan"),
+        PAGE("page"),
+        LIST_PAGE("listPage"),
+        COUNT("count"),
+        SEARCH("search"),
+        CHANGES_SINCE("changesSince"),
+        UPDATE("updateDVD"),
+        REMOVE("removeDVDById"),
+        ADD_ALL("addAll"),
+        UPDATE_ALL("updateAll"),
+        REMOVE_BY_IDS("removeByIds"),
+        AVERAGE_BY_GENRE("computeAverageRatingByGenre"),
+        REBUILD_GENRE_STATS("rebuildGenreStats"),
+        TRIM_CHANGES("trimChanges"),
+        BATCH_COMMIT("bulkInsert.flush"),
+        GROUP_COMMIT("writeBehind.commit"),
+        REPLICA_SYNC("replica.sync"),
+        REPLICA_VERIFY("replica.verify"),
+        CSV_IMPORT("csvImport"),
+        SAVE_SNAPSHOT("saveSnapshot"),
+        RESTORE_SNAPSHOT("restoreSnapshot");
+
+        private final String displayName;
+
+        Operation(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final Map<String, DVDMetrics> REGISTRY = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private final AtomicLongArray errors = new AtomicLongArray(OPERATIONS.length);
+    private final AtomicLongArray rows = new AtomicLongArray(OPERATIONS.length);
+    private volatile long startNanos = System.nanoTime();
+
+    /**
+     * Creates an unregistered set of metrics.
+     */
+    DVDMetrics() {
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Returns the metrics for a database, creating them and registering them with the
+     * platform MBean server on first use.
+     *
+     * @param dbUrl the database's JDBC URL
+     * @return the shared metrics
+     */
+    static DVDMetrics forDatabase(String dbUrl) {
+        return REGISTRY.computeIfAbsent(dbUrl, url -> {
+            DVDMetrics metrics = new DVDMetrics();
+            try {
+                ObjectName name = new ObjectName("dms:type=DVDMetrics,database=" + ObjectName.quote(url));
+                ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+            } catch (JMException e) {
+                System.out.println("Error registering metrics MBean: " + e.getMessage());
+            }
+            return metrics;
+        });
+    }
+
+    /**
+     * Records one completed call.
+     *
+     * @param operation  the operation
+     * @param startNanos the {@code System.nanoTime()} value taken when the call started
+     * @param rowCount   the rows the call read or wrote
+     */
+    public void record(Operation operation, long startNanos, long rowCount) {
+        int i = operation.ordinal();
+        latencies[i].record(System.nanoTime() - startNanos);
+        if (rowCount > 0) rows.addAndGet(i, rowCount);
+    }
+
+    /**
+     * Counts one failed call. The call should still be passed to {@link #record}.
+     *
+     * @param operation the operation
+     */
+    public void error(Operation operation) {
+        errors.incrementAndGet(operation.ordinal());
+    }
+
+    /**
+     * Returns the statistics of one operation.
+     *
+     * @param operation the operation
+     * @return a snapshot of its counters
+     */
+    public OperationSnapshot snapshot(Operation operation) {
+        int i = operation.ordinal();
+        LatencyHistogram histogram = latencies[i];
+        long count = histogram.getCount();
+        double seconds = Math.max((System.nanoTime() - startNanos) / 1e9, 1e-9);
+        return new OperationSnapshot(operation.toString(), count, errors.get(i), rows.get(i), count / seconds,
+                histogram.getMeanNanos() / 1000.0,
+                histogram.getPercentileNanos(50) / 1000.0,
+                histogram.getPercentileNanos(99) / 1000.0,
+                histogram.getPercentileNanos(99.9) / 1000.0,
+                histogram.getMaxNanos() / 1000.0);
+    }
+
+    @Override
+    public List<OperationSnapshot> getOperations() {
+        List<OperationSnapshot> snapshots = new ArrayList<>();
+        for (Operation operation : OPERATIONS) {
+            if (latencies[operation.ordinal()].getCount() > 0) snapshots.add(snapshot(operation));
+        }
+        return snapshots;
+    }
+
+    @Override
+    public long getUptimeSeconds() {
+        return (System.nanoTime() - startNanos) / 1_000_000_000L;
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-28s %9s %6s %11s %9s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "rows", "ops/s", "mean(us)", "p50(us)", "p99(us)", "p999(us)", "max(us)"));
+        for (OperationSnapshot s : getOperations()) {
+            sb.append(String.format("%-28s %9d %6d %11d %9.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                    s.getOperation(), s.getCount(), s.getErrors(), s.getRowsScanned(), s.getThroughputPerSecond(),
+                    s.getMeanMicros(), s.getP50Micros(), s.getP99Micros(), s.getP999Micros(), s.getMaxMicros()));
+        }
+        sb.append("Measured over ").append(getUptimeSeconds()).append(" s.");
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            latencies[i].reset();
+            errors.set(i, 0);
+            rows.set(i, 0);
+        }
+        startNanos = System.nanoTime();
+    }
+}
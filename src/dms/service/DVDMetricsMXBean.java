@@ -0,0 +1,40 @@
+package dms.service;
+
+import java.util.List;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code DVDMetricsMXBean} interface is the JMX view of a {@link DVDMetrics}.
+ * Each database's metrics are registered under
+ * {@code dms:type=DVDMetrics,database=<jdbc url>} and can be browsed with JConsole or
+ * VisualVM; {@link #getOperations()} appears as a table with one row per operation.
+ */
+public interface DVDMetricsMXBean {
+
+    /**
+     * Returns the current statistics of every operation that has been called.
+     *
+     * @return one snapshot per operation
+     */
+    List<OperationSnapshot> getOperations();
+
+    /**
+     * Returns the seconds since the metrics were created or last reset.
+     *
+     * @return the measurement window in seconds
+     */
+    long getUptimeSeconds();
+
+    /**
+     * Formats all operations as a text table.
+     *
+     * @return the table
+     */
+    String dump();
+
+    /**
+     * Clears all counters and histograms.
+     */
+    void reset();
+}
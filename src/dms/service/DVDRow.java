@@ -0,0 +1,164 @@
+package dms.service;
+
+import dms.model.DVD;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code DVDRow} class is a reusable view of the current row of a
+ * {@link DVDCollection#scan(Columns, DVDRowVisitor)}. One instance is filled in place for
+ * every row, using positional column access and primitive fields, so a scan creates no
+ * per-row objects apart from the strings of the text columns it selects.
+ *
+ * <p>Only the columns of the scan's {@link Columns} projection can be read; asking for
+ * another column throws {@link IllegalStateException}. A {@code NULL} reads as 0 or
+ * {@code null}; use {@link #isNull(DVDColumn)} to tell it apart from a stored 0.</p>
+ */
+public final class DVDRow {
+
+    private final Columns columns;
+    private final DVDColumn[] selected;
+    private int id;
+    private String title;
+    private String director;
+    private int releaseYear;
+    private String genre;
+    private double rating;
+    private int nulls;
+
+    /**
+     * Creates a row view for a projection.
+     *
+     * @param columns the columns the scan selects, in select-list order
+     */
+    DVDRow(Columns columns) {
+        this.columns = columns;
+        this.selected = columns.selected();
+    }
+
+    /**
+     * Copies the selected columns of the result set's current row into this view.
+     *
+     * @param rs a result set whose select list matches the projection
+     * @throws SQLException if a column cannot be read
+     */
+    void read(ResultSet rs) throws SQLException {
+        int rowNulls = 0;
+        for (int i = 0; i < selected.length; i++) {
+            int position = i + 1;
+            DVDColumn column = selected[i];
+            switch (column) {
+                case ID -> id = rs.getInt(position);
+                case TITLE -> title = rs.getString(position);
+                case DIRECTOR -> director = rs.getString(position);
+                case RELEASE_YEAR -> releaseYear = rs.getInt(position);
+                case GENRE -> genre = rs.getString(position);
+                case RATING -> rating = rs.getDouble(position);
+            }
+            if (rs.wasNull()) rowNulls |= 1 << column.ordinal();
+        }
+        nulls = rowNulls;
+    }
+
+    /**
+     * Returns the projection this row was read with.
+     *
+     * @return the selected columns
+     */
+    public Columns getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns whether a selected column is {@code NULL} in the current row.
+     *
+     * @param column the column
+     * @return {@code true} if the value is {@code NULL}
+     */
+    public boolean isNull(DVDColumn column) {
+        check(column);
+        return (nulls & (1 << column.ordinal())) != 0;
+    }
+
+    /**
+     * Returns the current row's ID.
+     *
+     * @return the DVD ID
+     */
+    public int getId() {
+        check(DVDColumn.ID);
+        return id;
+    }
+
+    /**
+     * Returns the current row's title.
+     *
+     * @return the title
+     */
+    public String getTitle() {
+        check(DVDColumn.TITLE);
+        return title;
+    }
+
+    /**
+     * Returns the current row's director.
+     *
+     * @return the director
+     */
+    public String getDirector() {
+        check(DVDColumn.DIRECTOR);
+        return director;
+    }
+
+    /**
+     * Returns the current row's release year.
+     *
+     * @return the release year, or 0 if {@code NULL}
+     */
+    public int getReleaseYear() {
+        check(DVDColumn.RELEASE_YEAR);
+        return releaseYear;
+    }
+
+    /**
+     * Returns the current row's genre.
+     *
+     * @return the genre
+     */
+    public String getGenre() {
+        check(DVDColumn.GENRE);
+        return genre;
+    }
+
+    /**
+     * Returns the current row's rating.
+     *
+     * @return the rating, or 0.0 if {@code NULL}
+     */
+    public double getRating() {
+        check(DVDColumn.RATING);
+        return rating;
+    }
+
+    /**
+     * Copies the current row into a new {@link DVD}; columns that were not selected are 0 or {@code null}.
+     *
+     * @return a new DVD
+     */
+    public DVD toDVD() {
+        return new DVD(
+                columns.contains(DVDColumn.ID) ? id : 0,
+                columns.contains(DVDColumn.TITLE) ? title : null,
+                columns.contains(DVDColumn.DIRECTOR) ? director : null,
+                columns.contains(DVDColumn.RELEASE_YEAR) ? releaseYear : 0,
+                columns.contains(DVDColumn.GENRE) ? genre : null,
+                columns.contains(DVDColumn.RATING) ? rating : 0.0);
+    }
+
+    private void check(DVDColumn column) {
+        if (!columns.contains(column)) throw new IllegalStateException("Column not selected: " + column);
+    }
+}
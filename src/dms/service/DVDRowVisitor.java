@@ -0,0 +1,28 @@
+package dms.service;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code DVDRowVisitor} interface receives the rows of a
+ * {@link DVDCollection#scan(Columns, DVDRowVisitor)} one at a time.
+ *
+ * <p>The same {@link DVDRow} instance is passed for every row and overwritten before the
+ * next call, so a visitor must copy out any values it wants to keep rather than keeping
+ * the row itself.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ *     double[] total = new double[1];
+ *     collection.scan(Columns.of(DVDColumn.RATING), row -&gt; total[0] += row.getRating());
+ * </pre>
+ */
+@FunctionalInterface
+public interface DVDRowVisitor {
+
+    /**
+     * Called once per row, in ID order.
+     *
+     * @param row the current row; valid only during this call
+     */
+    void visit(DVDRow row);
+}
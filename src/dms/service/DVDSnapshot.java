@@ -0,0 +1,390 @@
+package dms.service;
+
+import dms.model.DVD;
+import dms.util.ConnectionPool;
+import dms.util.PooledConnection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code DVDSnapshot} class is a point-in-time copy of the {@code dvd} table in a
+ * compact, versioned binary file, used for backups, restores and fast cold starts
+ * (see {@link DVDCollection#saveSnapshot(Path)} and {@link DVDCollection#restoreSnapshot(Path)}).
+ *
+ * <p>The file is little-endian and laid out column by column:</p>
+ * <pre>
+ *     header (32 bytes)  magic "DVDS", version, row count, string count,
+ *                        payload length, CRC32 of the payload, string bytes
+ *     string table       int offsets[stringCount + 1], then the UTF-8 bytes of every
+ *                        distinct title, director and genre, padded to 4 bytes
+ *     int columns        id, title, director, genre (string numbers, -1 for NULL),
+ *                        release year (Integer.MIN_VALUE for NULL); padded to 8 bytes
+ *     double column      rating (NaN for NULL)
+ * </pre>
+ *
+ * <p>Files are written through a {@link FileChannel} to a temporary file that replaces the
+ * target only once it is complete, and read through a memory mapping. Reading checks the
+ * magic, version, length and checksum, so a truncated or damaged file is rejected instead
+ * of restoring partial data.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ *     collection.saveSnapshot(Path.of("backup/dvds.snap"));
+ *     ...
+ *     collection.restoreSnapshot(Path.of("backup/dvds.snap"));
+ * </pre>
+ */
+public class DVDSnapshot {
+
+    /** The current file format version. */
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = {'D', 'V', 'D', 'S'};
+    private static final int HEADER_BYTES = 32;
+    private static final int NULL_STRING = -1;
+    private static final int NULL_YEAR = Integer.MIN_VALUE;
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    private static final String CAPTURE_SQL =
+            "SELECT id, title, director, release_year, genre, rating FROM dvd ORDER BY id";
+
+    private final int size;
+    private final int[] ids;
+    private final int[] titles;
+    private final int[] directors;
+    private final int[] genres;
+    private final int[] years;
+    private final double[] ratings;
+    private final String[] strings;
+
+    private DVDSnapshot(int size, int[] ids, int[] titles, int[] directors, int[] genres, int[] years,
+                        double[] ratings, String[] strings) {
+        this.size = size;
+        this.ids = ids;
+        this.titles = titles;
+        this.directors = directors;
+        this.genres = genres;
+        this.years = years;
+        this.ratings = ratings;
+        this.strings = strings;
+    }
+
+    /**
+     * Copies the {@code dvd} table in one query, so the copy is a consistent view as of a
+     * single commit.
+     *
+     * @param pool the pool to read from
+     * @return the snapshot
+     * @throws SQLException if the table cannot be read
+     */
+    static DVDSnapshot capture(ConnectionPool pool) throws SQLException {
+        int capacity = 1024;
+        int size = 0;
+        int[] ids = new int[capacity];
+        int[] titles = new int[capacity];
+        int[] directors = new int[capacity];
+        int[] genres = new int[capacity];
+        int[] years = new int[capacity];
+        double[] ratings = new double[capacity];
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+
+        try (PooledConnection conn = pool.borrow()) {
+            PreparedStatement stmt = conn.prepare(CAPTURE_SQL);
+            stmt.setFetchSize(DVDCollection.DEFAULT_FETCH_SIZE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (size == capacity) {
+                        capacity *= 2;
+                        ids = Arrays.copyOf(ids, capacity);
+                        titles = Arrays.copyOf(titles, capacity);
+                        directors = Arrays.copyOf(directors, capacity);
+                        genres = Arrays.copyOf(genres, capacity);
+                        years = Arrays.copyOf(years, capacity);
+                        ratings = Arrays.copyOf(ratings, capacity);
+                    }
+                    ids[size] = rs.getInt(1);
+                    titles[size] = encode(rs.getString(2), codes, strings);
+                    directors[size] = encode(rs.getString(3), codes, strings);
+                    int year = rs.getInt(4);
+                    years[size] = rs.wasNull() ? NULL_YEAR : year;
+                    genres[size] = encode(rs.getString(5), codes, strings);
+                    double rating = rs.getDouble(6);
+                    ratings[size] = rs.wasNull() ? Double.NaN : rating;
+                    size++;
+                }
+            }
+        }
+        return new DVDSnapshot(size, ids, titles, directors, genres, years, ratings, strings.toArray(new String[0]));
+    }
+
+    /**
+     * Writes the snapshot to a file, replacing it only once the new file is complete and
+     * flushed to disk.
+     *
+     * @param file the snapshot file
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                CRC32 crc = new CRC32();
+                channel.position(HEADER_BYTES);
+
+                byte[][] encoded = new byte[strings.length][];
+                int[] offsets = new int[strings.length + 1];
+                for (int i = 0; i < strings.length; i++) {
+                    encoded[i] = strings[i].getBytes(StandardCharsets.UTF_8);
+                    offsets[i + 1] = offsets[i] + encoded[i].length;
+                }
+                int stringBytes = offsets[strings.length];
+
+                writeInts(channel, buffer, crc, offsets, offsets.length);
+                for (byte[] bytes : encoded) {
+                    writeBytes(channel, buffer, crc, bytes);
+                }
+                writeBytes(channel, buffer, crc, new byte[padding(stringBytes, 4)]);
+                for (int[] column : new int[][] {ids, titles, directors, genres, years}) {
+                    writeInts(channel, buffer, crc, column, size);
+                }
+                if ((channel.position() + buffer.position()) % 8 != 0) writeBytes(channel, buffer, crc, new byte[4]);
+                writeDoubles(channel, buffer, crc, ratings, size);
+                flush(channel, buffer, crc);
+                long payloadBytes = channel.position() - HEADER_BYTES;
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                header.put(MAGIC).putInt(VERSION).putInt(size).putInt(strings.length)
+                        .putLong(payloadBytes).putInt((int) crc.getValue()).putInt(stringBytes).flip();
+                while (header.hasRemaining()) {
+                    channel.write(header, header.position());
+                }
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Reads and validates a snapshot file.
+     *
+     * @param file the snapshot file
+     * @return the snapshot
+     * @throws IOException if the file cannot be read, is not a snapshot, has an unsupported
+     *                     version, or fails its checksum
+     */
+    public static DVDSnapshot readFrom(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileBytes = channel.size();
+            if (fileBytes < HEADER_BYTES) throw new IOException("Not a DVD snapshot: " + file);
+            if (fileBytes > Integer.MAX_VALUE) throw new IOException("Snapshot too large: " + file);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileBytes);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+
+            byte[] magic = new byte[MAGIC.length];
+            map.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException("Not a DVD snapshot: " + file);
+            int version = map.getInt();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            int size = map.getInt();
+            int stringCount = map.getInt();
+            long payloadBytes = map.getLong();
+            int checksum = map.getInt();
+            int stringBytes = map.getInt();
+            if (size < 0 || stringCount < 0 || stringBytes < 0 || payloadBytes != fileBytes - HEADER_BYTES) {
+                throw new IOException("Snapshot is truncated or damaged: " + file);
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(map.slice(HEADER_BYTES, (int) payloadBytes));
+            if ((int) crc.getValue() != checksum) throw new IOException("Snapshot checksum mismatch: " + file);
+
+            try {
+                int[] offsets = readInts(map, stringCount + 1);
+                byte[] bytes = new byte[stringBytes];
+                map.get(bytes);
+                map.position(map.position() + padding(stringBytes, 4));
+                String[] strings = new String[stringCount];
+                for (int i = 0; i < stringCount; i++) {
+                    strings[i] = new String(bytes, offsets[i], offsets[i + 1] - offsets[i], StandardCharsets.UTF_8);
+                }
+                int[] ids = readInts(map, size);
+                int[] titles = readInts(map, size);
+                int[] directors = readInts(map, size);
+                int[] genres = readInts(map, size);
+                int[] years = readInts(map, size);
+                map.position(map.position() + padding(map.position(), 8));
+                double[] ratings = new double[size];
+                map.asDoubleBuffer().get(ratings);
+                return new DVDSnapshot(size, ids, titles, directors, genres, years, ratings, strings);
+            } catch (RuntimeException e) {
+                // Sizes in the header that do not fit the payload.
+                throw new IOException("Snapshot is truncated or damaged: " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of DVDs in the snapshot.
+     *
+     * @return row count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of distinct strings stored for titles, directors and genres.
+     *
+     * @return string table size
+     */
+    public int getStringCount() {
+        return strings.length;
+    }
+
+    /**
+     * Returns one DVD, with {@code NULL} year and rating read as 0 like {@link DVDCollection} does.
+     *
+     * @param row the row number, in ID order
+     * @return a new {@link DVD}
+     */
+    public DVD get(int row) {
+        return new DVD(ids[row], title(row), director(row), years[row] == NULL_YEAR ? 0 : years[row],
+                genre(row), Double.isNaN(ratings[row]) ? 0.0 : ratings[row]);
+    }
+
+    int id(int row) {
+        return ids[row];
+    }
+
+    String title(int row) {
+        return string(titles[row]);
+    }
+
+    String director(int row) {
+        return string(directors[row]);
+    }
+
+    String genre(int row) {
+        return string(genres[row]);
+    }
+
+    /**
+     * Returns the release year, or 0 if it is {@code NULL}.
+     */
+    int releaseYear(int row) {
+        return years[row] == NULL_YEAR ? 0 : years[row];
+    }
+
+    /**
+     * Returns the rating, or {@code NaN} if it is {@code NULL}.
+     */
+    double rating(int row) {
+        return ratings[row];
+    }
+
+    /**
+     * Binds a row to an insert of (id, title, director, release_year, genre, rating),
+     * keeping {@code NULL}s.
+     */
+    void bind(PreparedStatement stmt, int row) throws SQLException {
+        stmt.setInt(1, ids[row]);
+        stmt.setString(2, title(row));
+        stmt.setString(3, director(row));
+        if (years[row] == NULL_YEAR) stmt.setNull(4, Types.INTEGER);
+        else stmt.setInt(4, years[row]);
+        stmt.setString(5, genre(row));
+        if (Double.isNaN(ratings[row])) stmt.setNull(6, Types.REAL);
+        else stmt.setDouble(6, ratings[row]);
+    }
+
+    private String string(int code) {
+        return code == NULL_STRING ? null : strings[code];
+    }
+
+    private static int encode(String value, Map<String, Integer> codes, List<String> strings) {
+        if (value == null) return NULL_STRING;
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = strings.size();
+            codes.put(value, code);
+            strings.add(value);
+        }
+        return code;
+    }
+
+    private static int padding(long position, int alignment) {
+        return (int) ((alignment - position % alignment) % alignment);
+    }
+
+    private static int[] readInts(ByteBuffer map, int count) {
+        int[] values = new int[count];
+        map.asIntBuffer().get(values);
+        map.position(map.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, CRC32 crc, int[] values, int count)
+            throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (buffer.remaining() < Integer.BYTES) flush(channel, buffer, crc);
+            buffer.putInt(values[i]);
+        }
+    }
+
+    private static void writeDoubles(FileChannel channel, ByteBuffer buffer, CRC32 crc, double[] values, int count)
+            throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (buffer.remaining() < Double.BYTES) flush(channel, buffer, crc);
+            buffer.putDouble(values[i]);
+        }
+    }
+
+    private static void writeBytes(FileChannel channel, ByteBuffer buffer, CRC32 crc, byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) flush(channel, buffer, crc);
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    /**
+     * Adds the buffered bytes to the checksum, writes them and clears the buffer.
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
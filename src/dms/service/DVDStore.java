@@ -0,0 +1,236 @@
+package dms.service;
+
+import dms.model.DVD;
+import dms.service.DVDCollection.SortColumn;
+import dms.util.ConnectionPool;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code DVDStore} interface is the public API the user interfaces and the CSV importer
+ * program against. It is implemented by {@link DVDCollection}, which keeps all DVDs in one
+ * SQLite file, by {@link ShardedDVDCollection}, which spreads them over several files, and
+ * by {@link ReplicatedDVDCollection}, which serves reads from an in-memory copy of a file.
+ *
+ * <p>Like {@link DVDCollection}, implementations report database errors on the console
+ * and return a default result (empty, {@code false} or 0) instead of throwing.</p>
+ */
+public interface DVDStore {
+
+    /**
+     * Opens the DVDs stored at a path: a single {@link DVDCollection} for one shard, or a
+     * {@link ShardedDVDCollection} spread over {@code shardCount} files next to it. A single
+     * file is served from an in-memory {@link ReplicatedDVDCollection} when the
+     * {@code dms.replica} system property is {@code true}.
+     *
+     * @param dbPath     the database path or JDBC URL
+     * @param shardCount the number of database files
+     * @return the store
+     */
+    static DVDStore open(String dbPath, int shardCount) {
+        if (shardCount != 1) return new ShardedDVDCollection(dbPath, shardCount);
+        return ReplicatedDVDCollection.ENABLED ? new ReplicatedDVDCollection(dbPath) : new DVDCollection(dbPath);
+    }
+
+    /**
+     * Adds a new {@link DVD}; its ID is ignored and assigned by the store. Nothing is added if
+     * a DVD with the same title, director and release year already exists.
+     *
+     * @param dvd the DVD to add
+     */
+    void addDVD(DVD dvd);
+
+    /**
+     * Looks up a DVD by ID.
+     *
+     * @param id the DVD ID
+     * @return the DVD, or empty if there is none
+     */
+    Optional<DVD> findById(int id);
+
+    /**
+     * Returns every DVD.
+     *
+     * @return all DVDs
+     */
+    List<DVD> listAll();
+
+    /**
+     * Streams every DVD without loading them all at once. The stream holds database
+     * connections and must be closed.
+     *
+     * @return a lazily fetched stream of all DVDs
+     */
+    Stream<DVD> stream();
+
+    /**
+     * Returns one page of DVDs in the given order.
+     *
+     * @param sortColumn the column to sort by
+     * @param ascending  whether to sort in ascending order
+     * @param offset     the number of rows to skip
+     * @param limit      the maximum number of rows to return
+     * @return the page's DVDs
+     */
+    List<DVD> listPage(SortColumn sortColumn, boolean ascending, int offset, int limit);
+
+    /**
+     * Returns the number of DVDs.
+     *
+     * @return the DVD count
+     */
+    int count();
+
+    /**
+     * Searches titles and directors with the full-text index.
+     *
+     * @param query the words to search for
+     * @param limit the maximum number of results
+     * @return matching DVDs, best match first
+     */
+    List<DVD> search(String query, int limit);
+
+    /**
+     * Updates an existing DVD.
+     *
+     * @param id         the ID of the DVD to update
+     * @param updatedDVD the new values
+     * @return {@code true} if the DVD existed and was updated
+     */
+    boolean updateDVD(int id, DVD updatedDVD);
+
+    /**
+     * Removes a DVD.
+     *
+     * @param id the ID of the DVD to remove
+     * @return {@code true} if the DVD existed and was removed
+     */
+    boolean removeDVDById(int id);
+
+    /**
+     * Computes the average known rating of a genre.
+     *
+     * @param genre the genre
+     * @return the average rating, or 0.0 if the genre has no rated DVDs
+     */
+    double computeAverageRatingByGenre(String genre);
+
+    /**
+     * Recomputes the per-genre rating statistics from the DVDs.
+     *
+     * @return {@code true} if the statistics were rebuilt
+     */
+    boolean rebuildGenreStats();
+
+    /**
+     * Returns the latency, throughput and error counters of this store's operations.
+     *
+     * @return the metrics
+     */
+    DVDMetrics getMetrics();
+
+    /**
+     * Returns why the database schema could not be fully upgraded when the store was
+     * opened, e.g. because duplicate DVDs keep the natural key from being added.
+     *
+     * @return the error message, or {@code null} if the schema is up to date
+     */
+    String getSchemaError();
+
+    /**
+     * Returns every connection pool the store uses, e.g. to print their statistics.
+     *
+     * @return the pools
+     */
+    List<ConnectionPool> getPools();
+
+    /**
+     * Enables a read-through cache in front of {@link #findById(int)}.
+     *
+     * @param maxSize the maximum number of cached DVDs
+     * @param ttl     how long a cached DVD stays valid, or {@code null} for no expiry
+     */
+    void enableCache(int maxSize, Duration ttl);
+
+    /**
+     * Enables the in-memory typeahead index, if the store has one.
+     *
+     * @return the index, or {@code null} if this store does not support one
+     */
+    TitleIndex enableTitleIndex();
+
+    /**
+     * Enables the in-memory typeahead index, if the store has one, building it from a
+     * snapshot file instead of the database when the file is current.
+     *
+     * @param snapshotFile a snapshot written by {@link #saveSnapshot(Path)}
+     * @return the index, or {@code null} if this store does not support one
+     */
+    TitleIndex enableTitleIndex(Path snapshotFile);
+
+    /**
+     * Returns the typeahead index enabled by {@link #enableTitleIndex()}.
+     *
+     * @return the index, or {@code null} if it is disabled or not supported
+     */
+    TitleIndex getTitleIndex();
+
+    /**
+     * Registers a listener for DVD changes, including those made by other processes,
+     * starting the change feed if needed. Sequence numbers of the delivered changes are
+     * ordered per database file.
+     *
+     * @param listener the listener to add
+     */
+    void addChangeListener(DVDChangeListener listener);
+
+    /**
+     * Unregisters a change listener.
+     *
+     * @param listener the listener to remove
+     */
+    void removeChangeListener(DVDChangeListener listener);
+
+    /**
+     * Opens a bulk session that only inserts; rows whose natural key already exists are
+     * skipped and reported.
+     *
+     * @param commitSize the number of rows written per transaction
+     * @return a session that must be closed when done
+     * @throws SQLException if the session cannot be opened
+     */
+    BulkWriter openBulkInsert(int commitSize) throws SQLException;
+
+    /**
+     * Opens a bulk session that matches rows on their natural key (title, director,
+     * release year), updating existing DVDs instead of adding duplicates.
+     *
+     * @param commitSize the number of rows written per transaction
+     * @return a session that must be closed when done
+     * @throws SQLException if the session cannot be opened
+     */
+    BulkWriter openBulkUpsert(int commitSize) throws SQLException;
+
+    /**
+     * Saves all DVDs to binary snapshot files for backup or a fast restore.
+     *
+     * @param file the snapshot file
+     * @return {@code true} if the snapshot was written
+     */
+    boolean saveSnapshot(Path file);
+
+    /**
+     * Replaces all DVDs with the contents of a snapshot written by {@link #saveSnapshot(Path)}.
+     *
+     * @param file the snapshot file
+     * @return {@code true} if the snapshot was restored
+     */
+    boolean restoreSnapshot(Path file);
+}
@@ -0,0 +1,93 @@
+package dms.service;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code GroupStats} class holds the aggregates computed by {@link DVDAnalytics}
+ * for one group of DVDs (e.g. one genre, director or release year).
+ *
+ * <p>Unknown ratings ({@code -1}) are counted in {@link #getCount()} but are excluded
+ * from the rating average, matching
+ * {@link DVDCollection#computeAverageRatingByGenre(String)}.</p>
+ */
+public class GroupStats {
+
+    private final long count;
+    private final long ratedCount;
+    private final double ratingSum;
+    private final int minYear;
+    private final int maxYear;
+
+    /**
+     * Creates a group result.
+     *
+     * @param count      number of DVDs in the group
+     * @param ratedCount number of DVDs with a known rating
+     * @param ratingSum  sum of the known ratings
+     * @param minYear    earliest release year in the group
+     * @param maxYear    latest release year in the group
+     */
+    GroupStats(long count, long ratedCount, double ratingSum, int minYear, int maxYear) {
+        this.count = count;
+        this.ratedCount = ratedCount;
+        this.ratingSum = ratingSum;
+        this.minYear = minYear;
+        this.maxYear = maxYear;
+    }
+
+    /**
+     * Returns the number of DVDs in the group.
+     *
+     * @return DVD count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the number of DVDs in the group that have a known rating.
+     *
+     * @return rated DVD count
+     */
+    public long getRatedCount() {
+        return ratedCount;
+    }
+
+    /**
+     * Returns the average of the known ratings in the group.
+     *
+     * @return the average rating, or 0.0 if no DVD in the group is rated
+     */
+    public double getAverageRating() {
+        return ratedCount == 0 ? 0.0 : ratingSum / ratedCount;
+    }
+
+    /**
+     * Returns the earliest release year in the group.
+     *
+     * @return minimum release year
+     */
+    public int getMinYear() {
+        return minYear;
+    }
+
+    /**
+     * Returns the latest release year in the group.
+     *
+     * @return maximum release year
+     */
+    public int getMaxYear() {
+        return maxYear;
+    }
+
+    /**
+     * Returns a string representation of the group aggregates.
+     *
+     * @return a formatted string with count, average rating and year range
+     */
+    @Override
+    public String toString() {
+        return String.format("count=%d avgRating=%.2f (rated=%d) years=%d-%d",
+                count, getAverageRating(), ratedCount, minYear, maxYear);
+    }
+}
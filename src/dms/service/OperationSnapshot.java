@@ -0,0 +1,86 @@
+package dms.service;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code OperationSnapshot} class holds the statistics of one {@link DVDMetrics.Operation}
+ * at the moment it was taken. Latencies are in microseconds; percentiles come from a
+ * {@link dms.util.LatencyHistogram} and are accurate to about 12.5%.
+ */
+public class OperationSnapshot {
+
+    private final String operation;
+    private final long count;
+    private final long errors;
+    private final long rowsScanned;
+    private final double throughputPerSecond;
+    private final double meanMicros;
+    private final double p50Micros;
+    private final double p99Micros;
+    private final double p999Micros;
+    private final double maxMicros;
+
+    OperationSnapshot(String operation, long count, long errors, long rowsScanned, double throughputPerSecond,
+                      double meanMicros, double p50Micros, double p99Micros, double p999Micros, double maxMicros) {
+        this.operation = operation;
+        this.count = count;
+        this.errors = errors;
+        this.rowsScanned = rowsScanned;
+        this.throughputPerSecond = throughputPerSecond;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    /** @return the operation's name, e.g. {@code findById} */
+    public String getOperation() {
+        return operation;
+    }
+
+    /** @return the number of completed calls, including failed ones */
+    public long getCount() {
+        return count;
+    }
+
+    /** @return the number of calls that failed with a database error */
+    public long getErrors() {
+        return errors;
+    }
+
+    /** @return the total number of rows read or written by the calls */
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    /** @return calls per second over the measurement window */
+    public double getThroughputPerSecond() {
+        return throughputPerSecond;
+    }
+
+    /** @return the mean latency */
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    /** @return the median latency */
+    public double getP50Micros() {
+        return p50Micros;
+    }
+
+    /** @return the 99th percentile latency */
+    public double getP99Micros() {
+        return p99Micros;
+    }
+
+    /** @return the 99.9th percentile latency */
+    public double getP999Micros() {
+        return p999Micros;
+    }
+
+    /** @return the largest latency */
+    public double getMaxMicros() {
+        return maxMicros;
+    }
+}
@@ -0,0 +1,785 @@
+package dms.service;
+
+import dms.model.DVD;
+import dms.service.DVDCollection.SortColumn;
+import dms.service.DVDMetrics.Operation;
+import dms.util.ConnectionPool;
+import dms.util.DBUtil;
+import dms.util.PooledConnection;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code ReplicatedDVDCollection} class keeps a copy of a database file in memory and
+ * serves reads from it, for workloads that read far more than they write. At startup the
+ * file is copied into a shared-cache in-memory database with SQLite's online backup API;
+ * lookups, listings, counts, searches and averages then run against that copy without
+ * touching the disk.
+ *
+ * <p>Writes go to the file through a regular {@link DVDCollection}, which stays the source
+ * of truth. Each write is logged in {@code dvd_changes}, and before a write call returns,
+ * the replica applies every change logged since it last caught up, so a caller always
+ * reads its own writes. A background thread also catches up every {@code syncInterval},
+ * which picks up writes by other processes, and every {@code verifyInterval} compares the
+ * replica with the file row by row, reloading it if they differ.</p>
+ *
+ * <p>The replica does not keep its own change log or the natural-key index: the file
+ * enforces uniqueness, and changes are applied one row at a time, so two DVDs that swapped
+ * keys may briefly share one in the replica. {@link #stream()} reads the file, because a
+ * stream may stay open indefinitely and would hold off catching up.</p>
+ *
+ * <p>Change listeners are called after the replica has applied the changes, so a listener
+ * that reloads a view sees the new values.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ *     ReplicatedDVDCollection collection = new ReplicatedDVDCollection("db/dvds.db");
+ *     collection.findById(42);   // served from memory
+ * </pre>
+ */
+public final class ReplicatedDVDCollection implements DVDStore, AutoCloseable {
+
+    /**
+     * Whether {@link DVDStore#open(String, int)} opens single-file databases with a replica;
+     * set with the {@code dms.replica} system property.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("dms.replica");
+
+    /** Default time between checks for writes made by other processes. */
+    public static final Duration DEFAULT_SYNC_INTERVAL = DVDCollection.DEFAULT_CHANGE_POLL_INTERVAL;
+
+    /** Default time between comparisons of the replica with the file. */
+    public static final Duration DEFAULT_VERIFY_INTERVAL = Duration.ofMinutes(5);
+
+    private static final AtomicInteger REPLICA_COUNTER = new AtomicInteger();
+    private static final String[] REPLICA_SETUP_SQL = {
+            "DROP INDEX IF EXISTS idx_dvd_natural_key",
+            "DROP TRIGGER IF EXISTS dvd_changes_insert",
+            "DROP TRIGGER IF EXISTS dvd_changes_update",
+            "DROP TRIGGER IF EXISTS dvd_changes_delete",
+            "DROP TRIGGER IF EXISTS dvd_changes_trim",
+    };
+    private static final String CLEAR_CHANGES_SQL = "DELETE FROM dvd_changes";
+    private static final String APPLY_SQL =
+            "INSERT INTO dvd (id, title, director, release_year, genre, rating) VALUES (?, ?, ?, ?, ?, ?) " +
+                    "ON CONFLICT (id) DO UPDATE SET title = excluded.title, director = excluded.director, " +
+                    "release_year = excluded.release_year, genre = excluded.genre, rating = excluded.rating";
+    private static final String DELETE_SQL = "DELETE FROM dvd WHERE id = ?";
+
+    private final String diskFile;
+    private final String replicaUrl;
+    private final DVDCollection disk;
+    private final DVDCollection replica;
+    private final ConnectionPool replicaWriter;
+    private final DVDMetrics metrics;
+    private final List<DVDChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final ReentrantReadWriteLock replicaLock = new ReentrantReadWriteLock();
+    private final long syncIntervalNanos;
+    private final long verifyIntervalNanos;
+    private final Thread syncer;
+    private long appliedSeq;
+    private volatile boolean closed;
+
+    /**
+     * Opens the database file and loads its replica, using the default sync and verify
+     * intervals.
+     *
+     * @param dbPath the database file path or JDBC URL; must name a file
+     */
+    public ReplicatedDVDCollection(String dbPath) {
+        this(dbPath, DEFAULT_SYNC_INTERVAL, DEFAULT_VERIFY_INTERVAL);
+    }
+
+    /**
+     * Opens the database file, loads its replica and starts the background thread that
+     * keeps the replica current.
+     *
+     * @param dbPath         the database file path or JDBC URL; must name a file
+     * @param syncInterval   how often writes by other processes are picked up
+     * @param verifyInterval how often the replica is compared with the file
+     * @throws IllegalStateException if the replica cannot be loaded
+     */
+    public ReplicatedDVDCollection(String dbPath, Duration syncInterval, Duration verifyInterval) {
+        if (syncInterval.isNegative() || syncInterval.isZero()
+                || verifyInterval.isNegative() || verifyInterval.isZero()) {
+            throw new IllegalArgumentException("Sync and verify intervals must be positive.");
+        }
+        String dbUrl = DBUtil.toJdbcUrl(dbPath);
+        if (dbUrl.contains(":memory:") || dbUrl.contains("mode=memory")) {
+            throw new IllegalArgumentException("A replicated collection needs a database file.");
+        }
+        this.diskFile = dbUrl.substring("jdbc:sqlite:".length());
+        this.disk = new DVDCollection(dbUrl);
+        this.replicaUrl = "jdbc:sqlite:file:dvd-replica-" + REPLICA_COUNTER.incrementAndGet()
+                + "?mode=memory&cache=shared";
+        this.replicaWriter = DBUtil.getWriterPool(replicaUrl);
+        try {
+            load();
+        } catch (SQLException e) {
+            DBUtil.closePool(replicaUrl);
+            throw new IllegalStateException("Error loading replica of " + diskFile + ": " + e.getMessage(), e);
+        }
+        // The copied schema is current, so this collection's migration check finds nothing to do.
+        this.replica = new DVDCollection(replicaUrl);
+        this.metrics = DVDMetrics.forDatabase(dbUrl + "#replica");
+        this.syncIntervalNanos = syncInterval.toNanos();
+        this.verifyIntervalNanos = verifyInterval.toNanos();
+        this.syncer = new Thread(this::syncPeriodically, "dvd-replica-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+    }
+
+    /**
+     * Returns the collection on the database file, which all writes go through.
+     *
+     * @return the on-disk collection
+     */
+    public DVDCollection getDisk() {
+        return disk;
+    }
+
+    /**
+     * Returns the collection on the in-memory replica. Writes must not be made through it.
+     *
+     * @return the in-memory collection
+     */
+    public DVDCollection getReplica() {
+        return replica;
+    }
+
+    /**
+     * Returns the sequence number of the last change in the file's log that the replica
+     * has applied.
+     *
+     * @return the applied sequence number
+     */
+    public long getAppliedSeq() {
+        syncLock.lock();
+        try {
+            return appliedSeq;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the timings of the calls made on this collection, including catching up and
+     * verifying the replica; the file and the replica also record their own.
+     *
+     * @return the metrics of the replicated collection
+     */
+    @Override
+    public DVDMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the schema error of the database file; the replica is a copy of its schema.
+     *
+     * @return the error message, or {@code null} if the schema is up to date
+     */
+    @Override
+    public String getSchemaError() {
+        return disk.getSchemaError();
+    }
+
+    /**
+     * Returns the file's read and writer pools, followed by the replica's.
+     *
+     * @return the connection pools
+     */
+    @Override
+    public List<ConnectionPool> getPools() {
+        List<ConnectionPool> pools = new ArrayList<>(disk.getPools());
+        pools.addAll(replica.getPools());
+        return pools;
+    }
+
+    /**
+     * Enables a lookup cache in front of the replica. Changes are dropped from it as the
+     * replica applies them.
+     *
+     * @param maxSize the maximum number of cached DVDs
+     * @param ttl     how long a cached DVD stays valid, or {@code null} for no expiry
+     */
+    @Override
+    public void enableCache(int maxSize, Duration ttl) {
+        replica.enableCache(maxSize, ttl);
+    }
+
+    /**
+     * Enables the title index of the file's collection, which writes through this collection
+     * keep current.
+     *
+     * @return the index
+     */
+    @Override
+    public TitleIndex enableTitleIndex() {
+        return disk.enableTitleIndex();
+    }
+
+    /**
+     * Enables the title index of the file's collection, built from a snapshot file when it
+     * is current.
+     *
+     * @param snapshotFile a snapshot written by {@link #saveSnapshot(Path)}
+     * @return the index
+     */
+    @Override
+    public TitleIndex enableTitleIndex(Path snapshotFile) {
+        return disk.enableTitleIndex(snapshotFile);
+    }
+
+    /**
+     * Returns the title index enabled by {@link #enableTitleIndex()}.
+     *
+     * @return the index, or {@code null} if it is disabled
+     */
+    @Override
+    public TitleIndex getTitleIndex() {
+        return disk.getTitleIndex();
+    }
+
+    /**
+     * Registers a listener that receives each batch of changes once the replica has applied it.
+     *
+     * @param listener the listener to add
+     */
+    @Override
+    public void addChangeListener(DVDChangeListener listener) {
+        if (!listeners.contains(listener)) listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a change listener.
+     *
+     * @param listener the listener to remove
+     */
+    @Override
+    public void removeChangeListener(DVDChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Adds a DVD to the file and then to the replica.
+     *
+     * @param dvd the DVD to add; its ID is ignored
+     */
+    @Override
+    public void addDVD(DVD dvd) {
+        long start = System.nanoTime();
+        disk.addDVD(dvd);
+        sync();
+        metrics.record(Operation.ADD, start, 1);
+    }
+
+    /**
+     * Looks up a DVD in the replica.
+     *
+     * @param id the DVD ID
+     * @return the DVD, or empty if there is none
+     */
+    @Override
+    public Optional<DVD> findById(int id) {
+        long start = System.nanoTime();
+        Optional<DVD> dvd = read(() -> replica.findById(id));
+        metrics.record(Operation.FIND_BY_ID, start, dvd.isPresent() ? 1 : 0);
+        return dvd;
+    }
+
+    /**
+     * Returns every DVD from the replica.
+     *
+     * @return all DVDs ordered by ID
+     */
+    @Override
+    public List<DVD> listAll() {
+        long start = System.nanoTime();
+        List<DVD> dvds = read(replica::listAll);
+        metrics.record(Operation.LIST_ALL, start, dvds.size());
+        return dvds;
+    }
+
+    /**
+     * Streams every DVD from the file; see the class description.
+     *
+     * @return a lazily fetched stream of DVDs ordered by ID that must be closed
+     */
+    @Override
+    public Stream<DVD> stream() {
+        return disk.stream();
+    }
+
+    /**
+     * Returns one page of DVDs from the replica.
+     *
+     * @param sortColumn the column to sort by
+     * @param ascending  {@code true} for ascending order, {@code false} for descending
+     * @param offset     the number of rows to skip
+     * @param limit      the maximum number of DVDs to return
+     * @return up to {@code limit} DVDs; empty past the end of the table
+     */
+    @Override
+    public List<DVD> listPage(SortColumn sortColumn, boolean ascending, int offset, int limit) {
+        long start = System.nanoTime();
+        List<DVD> dvds = read(() -> replica.listPage(sortColumn, ascending, offset, limit));
+        metrics.record(Operation.LIST_PAGE, start, (long) offset + dvds.size());
+        return dvds;
+    }
+
+    /**
+     * Counts the DVDs in the replica.
+     *
+     * @return the row count, or 0 if it cannot be read
+     */
+    @Override
+    public int count() {
+        long start = System.nanoTime();
+        int count = read(replica::count);
+        metrics.record(Operation.COUNT, start, count);
+        return count;
+    }
+
+    /**
+     * Searches the replica's full-text index.
+     *
+     * @param query the words to search for
+     * @param limit the maximum number of results
+     * @return matching DVDs, best match first; empty if nothing matches
+     */
+    @Override
+    public List<DVD> search(String query, int limit) {
+        long start = System.nanoTime();
+        List<DVD> dvds = read(() -> replica.search(query, limit));
+        metrics.record(Operation.SEARCH, start, dvds.size());
+        return dvds;
+    }
+
+    /**
+     * Updates a DVD in the file and then in the replica.
+     *
+     * @param id         the ID of the DVD to update
+     * @param updatedDVD the new values
+     * @return {@code true} if the DVD existed and was updated
+     */
+    @Override
+    public boolean updateDVD(int id, DVD updatedDVD) {
+        long start = System.nanoTime();
+        boolean updated = disk.updateDVD(id, updatedDVD);
+        if (updated) sync();
+        metrics.record(Operation.UPDATE, start, updated ? 1 : 0);
+        return updated;
+    }
+
+    /**
+     * Removes a DVD from the file and then from the replica.
+     *
+     * @param id the ID of the DVD to remove
+     * @return {@code true} if the DVD existed and was removed
+     */
+    @Override
+    public boolean removeDVDById(int id) {
+        long start = System.nanoTime();
+        boolean removed = disk.removeDVDById(id);
+        if (removed) sync();
+        metrics.record(Operation.REMOVE, start, removed ? 1 : 0);
+        return removed;
+    }
+
+    /**
+     * Computes a genre's average rating from the replica's genre statistics.
+     *
+     * @param genre the genre to filter DVDs by
+     * @return the average rating for the given genre, or 0.0 if none are found
+     */
+    @Override
+    public double computeAverageRatingByGenre(String genre) {
+        long start = System.nanoTime();
+        double average = read(() -> replica.computeAverageRatingByGenre(genre));
+        metrics.record(Operation.AVERAGE_BY_GENRE, start, 1);
+        return average;
+    }
+
+    /**
+     * Rebuilds the genre statistics of the file and of the replica. They are not part of
+     * the change log, so both are recomputed from their own DVDs.
+     *
+     * @return {@code true} if both were rebuilt
+     */
+    @Override
+    public boolean rebuildGenreStats() {
+        long start = System.nanoTime();
+        boolean rebuilt = disk.rebuildGenreStats();
+        syncLock.lock();
+        try {
+            replicaLock.writeLock().lock();
+            try {
+                rebuilt &= replica.rebuildGenreStats();
+            } finally {
+                replicaLock.writeLock().unlock();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+        metrics.record(Operation.REBUILD_GENRE_STATS, start, 0);
+        return rebuilt;
+    }
+
+    /**
+     * Opens a bulk insert session on the file. The replica catches up after every
+     * committed batch.
+     *
+     * @param commitSize the number of rows written per transaction
+     * @return a session that must be closed when done
+     * @throws SQLException if the session cannot be opened
+     */
+    @Override
+    public BulkWriter openBulkInsert(int commitSize) throws SQLException {
+        return new SyncingBulkWriter(disk.openBulkInsert(commitSize));
+    }
+
+    /**
+     * Opens a bulk upsert session on the file. The replica catches up after every
+     * committed batch.
+     *
+     * @param commitSize the number of rows written per transaction
+     * @return a session that must be closed when done
+     * @throws SQLException if the session cannot be opened or the keys cannot be read
+     */
+    @Override
+    public BulkWriter openBulkUpsert(int commitSize) throws SQLException {
+        return new SyncingBulkWriter(disk.openBulkUpsert(commitSize));
+    }
+
+    /**
+     * Saves a snapshot of the replica.
+     *
+     * @param file the snapshot file
+     * @return {@code true} if the snapshot was written
+     */
+    @Override
+    public boolean saveSnapshot(Path file) {
+        return read(() -> replica.saveSnapshot(file));
+    }
+
+    /**
+     * Restores the file from a snapshot; the replica then applies the logged removals and
+     * inserts like any other changes.
+     *
+     * @param file the snapshot file
+     * @return {@code true} if the file was restored
+     */
+    @Override
+    public boolean restoreSnapshot(Path file) {
+        boolean restored = disk.restoreSnapshot(file);
+        if (restored) sync();
+        return restored;
+    }
+
+    /**
+     * Applies every change logged in the file since the replica last caught up, then passes
+     * the changes to the listeners. Called after every write through this collection and
+     * periodically for writes by other processes. If the file's log was trimmed past the
+     * replica's last change, the replica is loaded again and the listeners get the
+     * {@link DVDChange.Type#TRIMMED} entry.
+     *
+     * @return the number of changes applied
+     */
+    public int sync() {
+        long start = System.nanoTime();
+        int applied = 0;
+        syncLock.lock();
+        try {
+            List<DVDChange> changes;
+            do {
+                changes = disk.changesSince(appliedSeq, ChangeFeed.BATCH_SIZE);
+                if (changes.isEmpty()) break;
+                if (changes.get(0).getType() == DVDChange.Type.TRIMMED) {
+                    // Changes the replica needs are gone from the log, so copy the file again.
+                    load();
+                } else {
+                    apply(changes);
+                    appliedSeq = changes.get(changes.size() - 1).getSeq();
+                }
+                applied += changes.size();
+                notifyListeners(changes);
+            } while (changes.size() == ChangeFeed.BATCH_SIZE);
+        } catch (SQLException e) {
+            metrics.error(Operation.REPLICA_SYNC);
+            System.out.println("Error syncing replica: " + e.getMessage());
+        } finally {
+            syncLock.unlock();
+            metrics.record(Operation.REPLICA_SYNC, start, applied);
+        }
+        return applied;
+    }
+
+    /**
+     * Catches up, then compares every DVD in the replica with the file. If they differ, the
+     * replica is reloaded from the file. A write that lands during the comparison makes it
+     * inconclusive, and the replica is then trusted until the next check.
+     *
+     * @return {@code false} if the replica differed from the file and was reloaded
+     */
+    public boolean verify() {
+        long start = System.nanoTime();
+        boolean consistent = true;
+        long rows = 0;
+        syncLock.lock();
+        try {
+            sync();
+            long seq = appliedSeq;
+            rows = compareWithDisk();
+            if (rows < 0 && disk.getLatestChangeSeq() == seq) {
+                consistent = false;
+                metrics.error(Operation.REPLICA_VERIFY);
+                System.out.println("Replica of " + diskFile + " is out of sync; reloading it.");
+                load();
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.REPLICA_VERIFY);
+            System.out.println("Error reloading replica: " + e.getMessage());
+        } finally {
+            syncLock.unlock();
+            metrics.record(Operation.REPLICA_VERIFY, start, Math.max(rows, 0));
+        }
+        return consistent;
+    }
+
+    /**
+     * Stops the background thread and discards the replica. The file's pools stay open for
+     * other collections on it.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        LockSupport.unpark(syncer);
+        boolean interrupted = false;
+        while (syncer.isAlive()) {
+            try {
+                syncer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+        DBUtil.closePool(replicaUrl);
+    }
+
+    /**
+     * Background loop: catches up every sync interval and verifies every verify interval.
+     */
+    private void syncPeriodically() {
+        long lastVerify = System.nanoTime();
+        while (!closed) {
+            LockSupport.parkNanos(this, syncIntervalNanos);
+            if (closed) break;
+            sync();
+            if (System.nanoTime() - lastVerify >= verifyIntervalNanos) {
+                verify();
+                lastVerify = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Copies the file into the replica with the online backup API, which reads a consistent
+     * state of the file while it is being written. The copied log tells which change the
+     * copy includes; the log and the triggers that fill it are then removed from the replica.
+     */
+    private void load() throws SQLException {
+        replicaLock.writeLock().lock();
+        try (PooledConnection conn = replicaWriter.borrow();
+             Statement stmt = conn.getConnection().createStatement()) {
+            stmt.execute("restore from \"" + diskFile + "\"");
+            for (String sql : REPLICA_SETUP_SQL) {
+                stmt.execute(sql);
+            }
+            try (ResultSet rs = stmt.executeQuery(DVDCollection.LATEST_CHANGE_SQL)) {
+                appliedSeq = rs.next() ? rs.getLong(1) : 0;
+            }
+            stmt.executeUpdate(CLEAR_CHANGES_SQL);
+            DVDCache cache = replica == null ? null : replica.getCache();
+            if (cache != null) cache.invalidateAll();
+        } finally {
+            replicaLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes a batch of changes to the replica in one transaction: the DVD's values as read
+     * from the file, or a removal if it no longer exists there.
+     */
+    private void apply(List<DVDChange> changes) throws SQLException {
+        replicaLock.writeLock().lock();
+        try (PooledConnection conn = replicaWriter.borrow()) {
+            Connection raw = conn.getConnection();
+            raw.setAutoCommit(false);
+            try {
+                PreparedStatement upsert = conn.prepare(APPLY_SQL);
+                PreparedStatement delete = conn.prepare(DELETE_SQL);
+                for (DVDChange change : changes) {
+                    DVD dvd = change.getDvd();
+                    if (dvd == null) {
+                        delete.setInt(1, change.getDvdId());
+                        delete.executeUpdate();
+                    } else {
+                        upsert.setInt(1, dvd.getId());
+                        upsert.setString(2, dvd.getTitle());
+                        upsert.setString(3, dvd.getDirector());
+                        upsert.setInt(4, dvd.getReleaseYear());
+                        upsert.setString(5, dvd.getGenre());
+                        upsert.setDouble(6, dvd.getRating());
+                        upsert.executeUpdate();
+                    }
+                }
+                raw.commit();
+            } catch (SQLException e) {
+                raw.rollback();
+                throw e;
+            } finally {
+                raw.setAutoCommit(true);
+            }
+            replica.changesRead(changes);
+        } finally {
+            replicaLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the file and the replica side by side in ID order.
+     *
+     * @return the number of DVDs compared, or -1 at the first difference
+     */
+    private long compareWithDisk() {
+        long rows = 0;
+        try (Stream<DVD> expected = disk.stream(); Stream<DVD> actual = replica.stream()) {
+            Iterator<DVD> e = expected.iterator();
+            Iterator<DVD> a = actual.iterator();
+            while (e.hasNext() && a.hasNext()) {
+                if (!sameValues(e.next(), a.next())) return -1;
+                rows++;
+            }
+            return e.hasNext() || a.hasNext() ? -1 : rows;
+        }
+    }
+
+    private static boolean sameValues(DVD a, DVD b) {
+        return a.getId() == b.getId()
+                && Objects.equals(a.getTitle(), b.getTitle())
+                && Objects.equals(a.getDirector(), b.getDirector())
+                && a.getReleaseYear() == b.getReleaseYear()
+                && Objects.equals(a.getGenre(), b.getGenre())
+                && Double.compare(a.getRating(), b.getRating()) == 0;
+    }
+
+    private void notifyListeners(List<DVDChange> changes) {
+        List<DVDChange> batch = List.copyOf(changes);
+        for (DVDChangeListener listener : listeners) {
+            try {
+                listener.dvdsChanged(batch);
+            } catch (RuntimeException e) {
+                // A failing listener must not stop delivery to the others or the sync.
+                System.out.println("Error notifying change listener: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Runs a query on the replica while no changes are being applied to it. The replica is
+     * a shared-cache database, where a reader and a writer would otherwise fail with
+     * {@code SQLITE_LOCKED} instead of waiting for each other.
+     */
+    private <T> T read(Supplier<T> query) {
+        replicaLock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            replicaLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A bulk session on the file that has the replica catch up whenever it commits.
+     */
+    private final class SyncingBulkWriter implements BulkWriter {
+
+        private final BulkWriter writer;
+
+        SyncingBulkWriter(BulkWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void add(DVD dvd) throws SQLException {
+            int committed = writer.getRowsWritten();
+            writer.add(dvd);
+            if (writer.getRowsWritten() != committed) sync();
+        }
+
+        @Override
+        public void flush() throws SQLException {
+            try {
+                writer.flush();
+            } finally {
+                sync();
+            }
+        }
+
+        @Override
+        public int getRowsWritten() {
+            return writer.getRowsWritten();
+        }
+
+        @Override
+        public int getRowsUnchanged() {
+            return writer.getRowsUnchanged();
+        }
+
+        @Override
+        public int getRowsSkipped() {
+            return writer.getRowsSkipped();
+        }
+
+        @Override
+        public boolean isUpsert() {
+            return writer.isUpsert();
+        }
+
+        @Override
+        public double getRowsPerSecond() {
+            return writer.getRowsPerSecond();
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                writer.close();
+            } finally {
+                sync();
+            }
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package dms.service;
+
+import dms.util.ConnectionPool;
+import dms.util.PooledConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code SchemaMigrator} class brings a database up to the current schema by applying
+ * an ordered list of versioned migrations. The versions already applied are recorded in
+ * the {@code schema_version} table, so each migration runs exactly once per database.
+ *
+ * <p>Each migration runs in its own transaction together with the insert of its version
+ * row. If two programs start at the same time, the second one fails to insert the
+ * version row, rolls back and skips the migration. All statements are written so that
+ * databases created before migrations existed (which already have the {@code dvd} table
+ * and possibly {@code genre_stats}) upgrade safely.</p>
+ *
+ * <p>When migrations are applied, the {@code EXPLAIN QUERY PLAN} output of the core
+ * queries is logged before and after, so the effect of new indexes is visible.</p>
+ *
+ * <p>A migration can start with a {@link Precondition} that checks the existing data. The
+ * natural key migration uses one to stop, and list the duplicate DVDs, rather than delete
+ * rows. A migration whose precondition fails is skipped, the later migrations are still
+ * applied, and {@link #migrate()} then reports the skipped one; it runs on the next start
+ * once the data has been fixed. A migration with a precondition must therefore not be
+ * needed by any later one.</p>
+ *
+ * <p>To change the schema, append a new {@link Migration} to {@link #MIGRATIONS};
+ * never edit one that has been released.</p>
+ */
+public class SchemaMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    /** Trigger body that removes the old row's rating from its genre's running totals. */
+    static final String GENRE_STATS_SUBTRACT_OLD =
+            "UPDATE genre_stats SET rating_sum = rating_sum - OLD.rating, rating_count = rating_count - 1 " +
+                    "WHERE genre = OLD.genre AND OLD.rating >= 0;";
+
+    /** Trigger body that adds the new row's rating to its genre's running totals. */
+    static final String GENRE_STATS_ADD_NEW =
+            "INSERT INTO genre_stats (genre, rating_sum, rating_count) " +
+                    "SELECT NEW.genre, NEW.rating, 1 WHERE NEW.rating >= 0 AND NEW.genre IS NOT NULL " +
+                    "ON CONFLICT(genre) DO UPDATE SET rating_sum = rating_sum + excluded.rating_sum, " +
+                    "rating_count = rating_count + 1;";
+
+    /** Trigger body that indexes the new row's title and director. */
+    static final String FTS_ADD_NEW =
+            "INSERT INTO dvd_fts (rowid, title, director) VALUES (NEW.id, NEW.title, NEW.director);";
+
+    /** Trigger body that removes the old row's title and director from the index. */
+    static final String FTS_REMOVE_OLD =
+            "INSERT INTO dvd_fts (dvd_fts, rowid, title, director) VALUES ('delete', OLD.id, OLD.title, OLD.director);";
+
+    /** Statements that recompute {@code genre_stats} from the {@code dvd} table. */
+    static final String[] REBUILD_GENRE_STATS = {
+            "DELETE FROM genre_stats",
+            "INSERT INTO genre_stats (genre, rating_sum, rating_count) " +
+                    "SELECT genre, SUM(rating), COUNT(*) FROM dvd " +
+                    "WHERE rating >= 0 AND genre IS NOT NULL GROUP BY genre"
+    };
+
+    /** Number of newest entries kept in {@code dvd_changes} when older ones are trimmed. */
+    static final int RETAINED_CHANGES = 10_000;
+
+    /** The log is trimmed whenever an entry's sequence number is a multiple of this. */
+    static final int TRIM_CHANGES_EVERY = 1_000;
+
+    /** Key of the {@code metadata} row that holds the newest trimmed sequence number. */
+    static final String CHANGES_TRIMMED_KEY = "changes_trimmed_through";
+
+    /** Records that the log was trimmed through {@code ?1}, unless it already was further. */
+    static final String MARK_TRIMMED_SQL =
+            "INSERT INTO metadata (key, value) VALUES ('" + CHANGES_TRIMMED_KEY + "', ?1) " +
+                    "ON CONFLICT (key) DO UPDATE SET value = MAX(CAST(value AS INTEGER), CAST(excluded.value AS INTEGER))";
+
+    /** All migrations, in the order they are applied. */
+    static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Create dvd table",
+                    "CREATE TABLE IF NOT EXISTS dvd (" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT," +
+                            "title TEXT NOT NULL," +
+                            "director TEXT," +
+                            "release_year INTEGER," +
+                            "genre TEXT," +
+                            "rating REAL" +
+                            ")"),
+            new Migration(2, "Create genre_stats with maintenance triggers",
+                    "CREATE TABLE IF NOT EXISTS genre_stats (" +
+                            "genre TEXT PRIMARY KEY," +
+                            "rating_sum REAL NOT NULL DEFAULT 0," +
+                            "rating_count INTEGER NOT NULL DEFAULT 0" +
+                            ")",
+                    "CREATE TRIGGER IF NOT EXISTS dvd_genre_stats_insert AFTER INSERT ON dvd BEGIN " +
+                            GENRE_STATS_ADD_NEW + " END",
+                    "CREATE TRIGGER IF NOT EXISTS dvd_genre_stats_delete AFTER DELETE ON dvd BEGIN " +
+                            GENRE_STATS_SUBTRACT_OLD + " END",
+                    "CREATE TRIGGER IF NOT EXISTS dvd_genre_stats_update AFTER UPDATE OF genre, rating ON dvd BEGIN " +
+                            GENRE_STATS_SUBTRACT_OLD + " " + GENRE_STATS_ADD_NEW + " END",
+                    REBUILD_GENRE_STATS[0],
+                    REBUILD_GENRE_STATS[1]),
+            new Migration(3, "Add secondary indexes for genre, director, year and title lookups",
+                    // Also serves plain "genre = ?" lookups through its leading column.
+                    "CREATE INDEX IF NOT EXISTS idx_dvd_genre_rating ON dvd (genre, rating)",
+                    "CREATE INDEX IF NOT EXISTS idx_dvd_director ON dvd (director)",
+                    "CREATE INDEX IF NOT EXISTS idx_dvd_release_year ON dvd (release_year)",
+                    "CREATE INDEX IF NOT EXISTS idx_dvd_title_nocase ON dvd (title COLLATE NOCASE)",
+                    "ANALYZE"),
+            new Migration(4, "Add FTS5 full-text index over title and director",
+                    // External-content table: the text lives only in dvd, the index in dvd_fts.
+                    "CREATE VIRTUAL TABLE IF NOT EXISTS dvd_fts USING fts5(" +
+                            "title, director, content='dvd', content_rowid='id', " +
+                            "tokenize='unicode61 remove_diacritics 2', prefix='2 3')",
+                    "CREATE TRIGGER IF NOT EXISTS dvd_fts_insert AFTER INSERT ON dvd BEGIN " +
+                            FTS_ADD_NEW + " END",
+                    "CREATE TRIGGER IF NOT EXISTS dvd_fts_delete AFTER DELETE ON dvd BEGIN " +
+                            FTS_REMOVE_OLD + " END",
+                    "CREATE TRIGGER IF NOT EXISTS dvd_fts_update AFTER UPDATE OF title, director ON dvd BEGIN " +
+                            FTS_REMOVE_OLD + " " + FTS_ADD_NEW + " END",
+                    "INSERT INTO dvd_fts (dvd_fts) VALUES ('rebuild')"),
+            new Migration(5, "Add unique natural key on title, director and release year",
+                    // Earlier imports could store the same DVD twice; those copies must be
+                    // merged by hand, so the migration refuses to run while any exist.
+                    SchemaMigrator::checkNoDuplicateKeys,
+                    "CREATE UNIQUE INDEX IF NOT EXISTS idx_dvd_natural_key ON dvd (title, director, release_year)"),
+            new Migration(6, "Add dvd_changes change log with maintenance triggers",
+                    // AUTOINCREMENT so sequence numbers are never reused, even after old changes are trimmed.
+                    "CREATE TABLE IF NOT EXISTS dvd_changes (" +
+                            "seq INTEGER PRIMARY KEY AUTOINCREMENT," +
+                            "dvd_id INTEGER NOT NULL," +
+                            "op TEXT NOT NULL CHECK (op IN ('I', 'U', 'D'))," +
+                            "changed_at TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP" +
+                            ")",
+                    "CREATE TRIGGER IF NOT EXISTS dvd_changes_insert AFTER INSERT ON dvd BEGIN " +
+                            "INSERT INTO dvd_changes (dvd_id, op) VALUES (NEW.id, 'I'); END",
+                    "CREATE TRIGGER IF NOT EXISTS dvd_changes_update AFTER UPDATE ON dvd BEGIN " +
+                            "INSERT INTO dvd_changes (dvd_id, op) VALUES (NEW.id, 'U'); END",
+                    "CREATE TRIGGER IF NOT EXISTS dvd_changes_delete AFTER DELETE ON dvd BEGIN " +
+                            "INSERT INTO dvd_changes (dvd_id, op) VALUES (OLD.id, 'D'); END"),
+            new Migration(7, "Add metadata table for settings stored with the file",
+                    // Holds e.g. the shard layout a file was created with.
+                    "CREATE TABLE IF NOT EXISTS metadata (" +
+                            "key TEXT PRIMARY KEY," +
+                            "value TEXT NOT NULL" +
+                            ")"),
+            new Migration(8, "Trim dvd_changes to its newest entries",
+                    // Runs in the transaction of the write that logged NEW, so every process
+                    // trims the log and a reader never sees a partial trim.
+                    "CREATE TRIGGER IF NOT EXISTS dvd_changes_trim AFTER INSERT ON dvd_changes " +
+                            "WHEN NEW.seq % " + TRIM_CHANGES_EVERY + " = 0 AND NEW.seq > " + RETAINED_CHANGES + " BEGIN " +
+                            "DELETE FROM dvd_changes WHERE seq <= NEW.seq - " + RETAINED_CHANGES + "; " +
+                            MARK_TRIMMED_SQL.replace("?1", "NEW.seq - " + RETAINED_CHANGES) + "; END")
+    );
+
+    /**
+     * Finds DVDs that share a natural key. Rows with a NULL key column are left out, as the
+     * unique index never matches them.
+     */
+    private static final String DUPLICATE_KEYS_SQL =
+            "SELECT title, director, release_year, GROUP_CONCAT(id, ', ') FROM dvd " +
+                    "WHERE title IS NOT NULL AND director IS NOT NULL AND release_year IS NOT NULL " +
+                    "GROUP BY title, director, release_year HAVING COUNT(*) > 1 ORDER BY MIN(id)";
+
+    /** Most duplicate keys listed in the error of a failed natural key migration. */
+    private static final int MAX_DUPLICATES_REPORTED = 10;
+
+    /** Queries whose plans are logged around a migration run. */
+    private static final String[] CORE_QUERIES = {
+            "SELECT * FROM dvd WHERE id = ?",
+            "SELECT AVG(rating) FROM dvd WHERE genre = ? AND rating >= 0",
+            "SELECT * FROM dvd WHERE director = ?",
+            "SELECT * FROM dvd WHERE release_year BETWEEN ? AND ?",
+            "SELECT * FROM dvd WHERE title = ? COLLATE NOCASE"
+    };
+
+    private final ConnectionPool pool;
+
+    /**
+     * Creates a migrator for the database behind the pool.
+     *
+     * @param pool the pool to borrow a connection from
+     */
+    public SchemaMigrator(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Applies every migration that has not been applied to this database yet, in order.
+     *
+     * @return the number of migrations applied by this call
+     * @throws SQLException if a migration fails; it is rolled back and later ones are not run,
+     *                      unless it failed its precondition, in which case the later ones are
+     *                      applied first and the exception names the skipped migration
+     */
+    public int migrate() throws SQLException {
+        try (PooledConnection conn = pool.borrow()) {
+            Connection raw = conn.getConnection();
+            try (Statement stmt = raw.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                        "version INTEGER PRIMARY KEY," +
+                        "description TEXT NOT NULL," +
+                        "applied_at TEXT NOT NULL DEFAULT CURRENT_TIMESTAMP" +
+                        ")");
+            }
+
+            Set<Integer> done = appliedVersions(raw);
+            if (MIGRATIONS.stream().allMatch(m -> done.contains(m.version))) return 0;
+
+            Map<String, List<String>> before = explainCoreQueries(raw);
+            int applied = 0;
+            List<String> skipped = new ArrayList<>();
+            for (Migration migration : MIGRATIONS) {
+                if (done.contains(migration.version)) continue;
+                try {
+                    if (apply(raw, migration)) applied++;
+                } catch (PreconditionFailedException e) {
+                    skipped.add(e.getMessage());
+                }
+            }
+            if (applied > 0) logPlans(before, explainCoreQueries(raw));
+            if (!skipped.isEmpty()) throw new SQLException(String.join(" ", skipped));
+            return applied;
+        }
+    }
+
+    /**
+     * Returns the versions of the migrations applied to the database. These need not be
+     * contiguous, as a migration whose precondition failed is skipped until it succeeds.
+     *
+     * @param conn an open connection
+     * @return the applied versions; empty for a database without migrations
+     * @throws SQLException if the version table cannot be read
+     */
+    static Set<Integer> appliedVersions(Connection conn) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM schema_version")) {
+            while (rs.next()) {
+                versions.add(rs.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    private static boolean apply(Connection conn, Migration migration) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            // Claiming the version first takes the write lock; a concurrent migrator that
+            // got there first makes this insert fail, and the migration is skipped.
+            try (PreparedStatement claim = conn.prepareStatement(
+                    "INSERT OR IGNORE INTO schema_version (version, description) VALUES (?, ?)")) {
+                claim.setInt(1, migration.version);
+                claim.setString(2, migration.description);
+                if (claim.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
+            }
+            if (migration.precondition != null) {
+                try {
+                    migration.precondition.check(conn);
+                } catch (SQLException e) {
+                    throw new PreconditionFailedException(e);
+                }
+            }
+            try (Statement stmt = conn.createStatement()) {
+                for (String sql : migration.statements) {
+                    stmt.execute(sql);
+                }
+            }
+            conn.commit();
+            log.info("Applied schema migration {}: {}", migration.version, migration.description);
+            return true;
+        } catch (SQLException e) {
+            conn.rollback();
+            String message = "Schema migration " + migration.version + " (" + migration.description
+                    + ") failed: " + e.getMessage();
+            if (e instanceof PreconditionFailedException) {
+                throw new PreconditionFailedException(message, e.getCause());
+            }
+            throw new SQLException(message, e);
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Fails if any natural key is used by more than one DVD, so that the unique index is
+     * never created by deleting data. Every duplicate group is logged; the exception lists
+     * the first few, with the IDs of their rows.
+     */
+    private static void checkNoDuplicateKeys(Connection conn) throws SQLException {
+        List<String> duplicates = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(DUPLICATE_KEYS_SQL)) {
+            while (rs.next()) {
+                String key = "'" + rs.getString(1) + "' (" + rs.getString(2) + ", " + rs.getInt(3)
+                        + ") IDs " + rs.getString(4);
+                log.error("Duplicate DVD blocks the natural key migration: {}", key);
+                duplicates.add(key);
+            }
+        }
+        if (duplicates.isEmpty()) return;
+
+        String listed = String.join("; ", duplicates.subList(0, Math.min(duplicates.size(), MAX_DUPLICATES_REPORTED)));
+        if (duplicates.size() > MAX_DUPLICATES_REPORTED) {
+            listed += "; and " + (duplicates.size() - MAX_DUPLICATES_REPORTED) + " more";
+        }
+        throw new SQLException(duplicates.size() + " DVDs share a title, director and release year with "
+                + "another DVD: " + listed + ". Remove or merge the duplicates, then start the program again.");
+    }
+
+    private static Map<String, List<String>> explainCoreQueries(Connection conn) {
+        Map<String, List<String>> plans = new LinkedHashMap<>();
+        for (String sql : CORE_QUERIES) {
+            List<String> plan = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN QUERY PLAN " + sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString("detail"));
+                }
+            } catch (SQLException e) {
+                plan.add("(unavailable: " + e.getMessage() + ")");
+            }
+            plans.put(sql, plan);
+        }
+        return plans;
+    }
+
+    private static void logPlans(Map<String, List<String>> before, Map<String, List<String>> after) {
+        if (!log.isInfoEnabled()) return;
+        for (String sql : CORE_QUERIES) {
+            log.info("Query plan for [{}] before: {} after: {}", sql, before.get(sql), after.get(sql));
+        }
+    }
+
+    /**
+     * A check run inside a migration's transaction before its statements. Throwing rolls
+     * the migration back and skips it; the later migrations still run.
+     */
+    @FunctionalInterface
+    interface Precondition {
+        void check(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Thrown when a migration is skipped because its precondition failed.
+     */
+    private static class PreconditionFailedException extends SQLException {
+        PreconditionFailedException(Throwable cause) {
+            super(cause.getMessage(), cause);
+        }
+
+        PreconditionFailedException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * One schema change: a version number, a description, an optional precondition and
+     * the statements to run.
+     */
+    static class Migration {
+        final int version;
+        final String description;
+        final Precondition precondition;
+        final String[] statements;
+
+        Migration(int version, String description, String... statements) {
+            this(version, description, null, statements);
+        }
+
+        Migration(int version, String description, Precondition precondition, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.precondition = precondition;
+            this.statements = statements;
+        }
+    }
+}
@@ -0,0 +1,895 @@
+package dms.service;
+
+import dms.model.DVD;
+import dms.service.DVDCollection.SortColumn;
+import dms.service.DVDMetrics.Operation;
+import dms.util.ConnectionPool;
+import dms.util.DBUtil;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code ShardedDVDCollection} class spreads DVDs over several SQLite files, each
+ * managed by its own {@link DVDCollection} with its own writer connection, so writes to
+ * different shards never wait for each other. It implements the same {@link DVDStore} API,
+ * so the user interfaces work unchanged.
+ *
+ * <p>A new DVD goes to the shard chosen by hashing its natural key (title, director and
+ * release year). Every copy of a key therefore lands in the same file, where the unique
+ * index keeps it from being added twice. Each shard numbers its rows itself, and the IDs
+ * handed out encode the shard: {@code globalId = localId * shardCount + shard}. A lookup,
+ * update or removal by ID goes straight to one shard.</p>
+ *
+ * <p>Each shard file records its shard number and the shard count in its {@code metadata}
+ * table when it is first opened, and refuses to be opened with a different layout later,
+ * since that would route IDs to the wrong files.</p>
+ *
+ * <p>Queries that span the collection ({@link #listAll()}, {@link #listPage}, {@link #count()},
+ * {@link #search(String, int)} and the genre average) run on all shards in parallel and
+ * merge the results. Search results are interleaved by rank, because full-text scores are
+ * not comparable between files.</p>
+ *
+ * <p>Limitations: an update that would move a DVD to another shard, by changing its natural
+ * key, is refused, since its ID would change; remove the DVD and add it again instead.
+ * Restoring a snapshot is atomic per shard only, and there is no in-memory title index, so
+ * {@link #enableTitleIndex()} returns {@code null}.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ *     DVDStore store = DVDStore.open("db/dvds.db", 4);  // db/dvds-shard0.db ... dvds-shard3.db
+ * </pre>
+ */
+public class ShardedDVDCollection implements DVDStore {
+
+    /**
+     * Most rows a page is merged from beyond the page itself. A page further than this past
+     * the nearest known position is reached in steps of this many rows.
+     */
+    static final int MAX_SEEK_ROWS = 10_000;
+
+    /** Most page positions remembered per sort order. */
+    private static final int MAX_CURSORS = 64;
+
+    private static final String SHARD_INDEX_KEY = "shard_index";
+    private static final String SHARD_COUNT_KEY = "shard_count";
+
+    private final DVDCollection[] shards;
+    private final DVDMetrics metrics;
+    private final int seekRows;
+    private final Map<DVDChangeListener, DVDChangeListener[]> changeListeners = new ConcurrentHashMap<>();
+    private final Map<String, PageCursors> cursors = new ConcurrentHashMap<>();
+
+    /**
+     * A call made on one shard by {@link #scatter(ShardCall)}.
+     */
+    @FunctionalInterface
+    private interface ShardCall<T> {
+        T call(int shard) throws SQLException;
+    }
+
+    /**
+     * Opens, and creates if needed, the shard files of a sharded collection. Shard
+     * {@code i} of {@code db/dvds.db} is {@code db/dvds-shardi.db}. The number of shards is
+     * part of every ID, so it is stored in each file and cannot change later.
+     *
+     * @param dbPath     the base database path or JDBC URL; must name a file
+     * @param shardCount the number of shard files
+     * @throws IllegalStateException if a shard file was created with a different shard
+     *                               count or as a different shard, or its layout cannot be read
+     */
+    public ShardedDVDCollection(String dbPath, int shardCount) {
+        this(dbPath, shardCount, MAX_SEEK_ROWS);
+    }
+
+    /**
+     * Opens a sharded collection that merges pages in steps of {@code seekRows} rows.
+     */
+    ShardedDVDCollection(String dbPath, int shardCount, int seekRows) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be at least 1.");
+        }
+        if (dbPath.contains(":memory:")) {
+            throw new IllegalArgumentException("A sharded collection needs database files.");
+        }
+        this.shards = new DVDCollection[shardCount];
+        this.seekRows = seekRows;
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new DVDCollection(shardPath(dbPath, i));
+            checkLayout(i, shardPath(dbPath, i));
+        }
+        this.metrics = DVDMetrics.forDatabase(DBUtil.toJdbcUrl(dbPath) + "#shards=" + shardCount);
+    }
+
+    /**
+     * Returns the path of one shard's file: the base path with {@code -shard} and the shard
+     * number inserted before its extension.
+     *
+     * @param dbPath the base database path or JDBC URL
+     * @param shard  the shard number
+     * @return the shard's path or URL
+     */
+    public static String shardPath(String dbPath, int shard) {
+        int slash = Math.max(dbPath.lastIndexOf('/'), dbPath.lastIndexOf('\\'));
+        int dot = dbPath.lastIndexOf('.');
+        if (dot <= slash + 1) return dbPath + "-shard" + shard;
+        return dbPath.substring(0, dot) + "-shard" + shard + dbPath.substring(dot);
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return the shard count
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Returns one shard's collection, e.g. to inspect its metrics. IDs read from it are
+     * local to the shard.
+     *
+     * @param shard the shard number
+     * @return the shard's collection
+     */
+    public DVDCollection getShard(int shard) {
+        return shards[shard];
+    }
+
+    /**
+     * Returns the timings of the calls made on this collection as a whole; each shard
+     * also records its own in {@link DVDCollection#getMetrics()}.
+     *
+     * @return the metrics of the sharded collection
+     */
+    @Override
+    public DVDMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the schema errors of the shards that have one, each with its shard number.
+     *
+     * @return the errors, or {@code null} if every shard's schema is up to date
+     */
+    @Override
+    public String getSchemaError() {
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            String error = shards[i].getSchemaError();
+            if (error != null) errors.add("Shard " + i + ": " + error);
+        }
+        return errors.isEmpty() ? null : String.join("\n", errors);
+    }
+
+    /**
+     * Returns the read and writer pools of every shard.
+     *
+     * @return all shards' connection pools
+     */
+    @Override
+    public List<ConnectionPool> getPools() {
+        List<ConnectionPool> pools = new ArrayList<>();
+        for (DVDCollection shard : shards) {
+            pools.addAll(shard.getPools());
+        }
+        return pools;
+    }
+
+    /**
+     * Enables a lookup cache on every shard, sharing {@code maxSize} between them.
+     *
+     * @param maxSize the maximum number of cached DVDs in total
+     * @param ttl     how long a cached DVD stays valid, or {@code null} for no expiry
+     */
+    @Override
+    public void enableCache(int maxSize, Duration ttl) {
+        int perShard = (maxSize + shards.length - 1) / shards.length;
+        for (DVDCollection shard : shards) {
+            shard.enableCache(perShard, ttl);
+        }
+    }
+
+    /**
+     * Not supported: the title index lives in one collection's memory and is not merged
+     * across shards. Use {@link #search(String, int)} instead.
+     *
+     * @return {@code null}
+     */
+    @Override
+    public TitleIndex enableTitleIndex() {
+        return null;
+    }
+
+    /**
+     * Not supported; see {@link #enableTitleIndex()}.
+     *
+     * @param snapshotFile ignored
+     * @return {@code null}
+     */
+    @Override
+    public TitleIndex enableTitleIndex(Path snapshotFile) {
+        return null;
+    }
+
+    /**
+     * Not supported; see {@link #enableTitleIndex()}.
+     *
+     * @return {@code null}
+     */
+    @Override
+    public TitleIndex getTitleIndex() {
+        return null;
+    }
+
+    /**
+     * Registers a listener with every shard's change feed. Changes carry global IDs, but
+     * each shard delivers its own batches from its own thread and numbers them with its
+     * own sequence, so listeners must be thread-safe.
+     *
+     * @param listener the listener to add
+     */
+    @Override
+    public synchronized void addChangeListener(DVDChangeListener listener) {
+        if (changeListeners.containsKey(listener)) return;
+        DVDChangeListener[] perShard = new DVDChangeListener[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            int shard = i;
+            perShard[i] = changes -> listener.dvdsChanged(changes.stream()
+                    .map(change -> toGlobal(change, shard))
+                    .toList());
+            shards[i].addChangeListener(perShard[i]);
+        }
+        changeListeners.put(listener, perShard);
+    }
+
+    /**
+     * Unregisters a change listener from every shard.
+     *
+     * @param listener the listener to remove
+     */
+    @Override
+    public synchronized void removeChangeListener(DVDChangeListener listener) {
+        DVDChangeListener[] perShard = changeListeners.remove(listener);
+        if (perShard == null) return;
+        for (int i = 0; i < shards.length; i++) {
+            shards[i].removeChangeListener(perShard[i]);
+        }
+    }
+
+    /**
+     * Adds a new DVD to the shard its natural key hashes to.
+     *
+     * @param dvd the DVD to add; its ID is ignored
+     */
+    @Override
+    public void addDVD(DVD dvd) {
+        long start = System.nanoTime();
+        shards[shardFor(dvd)].addDVD(dvd);
+        metrics.record(Operation.ADD, start, 1);
+    }
+
+    /**
+     * Looks up a DVD in the shard encoded in its ID.
+     *
+     * @param id the global DVD ID
+     * @return the DVD with its global ID, or empty if there is none
+     */
+    @Override
+    public Optional<DVD> findById(int id) {
+        long start = System.nanoTime();
+        Optional<DVD> dvd = Optional.empty();
+        if (id > 0) {
+            int shard = id % shards.length;
+            dvd = shards[shard].findById(id / shards.length).map(found -> toGlobal(found, shard));
+        }
+        metrics.record(Operation.FIND_BY_ID, start, dvd.isPresent() ? 1 : 0);
+        return dvd;
+    }
+
+    /**
+     * Reads every shard in parallel and returns all DVDs ordered by global ID.
+     *
+     * @return all DVDs, or those of the shards that could be read
+     */
+    @Override
+    public List<DVD> listAll() {
+        long start = System.nanoTime();
+        List<DVD> dvds = new ArrayList<>();
+        try {
+            for (List<DVD> part : scatter(shard -> toGlobal(shards[shard].listAll(), shard))) {
+                dvds.addAll(part);
+            }
+            dvds.sort(Comparator.comparingInt(DVD::getId));
+        } catch (SQLException e) {
+            metrics.error(Operation.LIST_ALL);
+            System.out.println("Error listing DVDs: " + e.getMessage());
+        }
+        metrics.record(Operation.LIST_ALL, start, dvds.size());
+        return dvds;
+    }
+
+    /**
+     * Streams the shards one after another. Only the shard being read holds a connection,
+     * and DVDs come in shard order rather than ID order.
+     *
+     * @return a lazily fetched stream of all DVDs that must be closed
+     */
+    @Override
+    public Stream<DVD> stream() {
+        return IntStream.range(0, shards.length).boxed()
+                .flatMap(shard -> shards[shard].stream().map(dvd -> toGlobal(dvd, shard)));
+    }
+
+    /**
+     * Returns one page in the given order, which is exactly the {@code ORDER BY} of
+     * {@link DVDCollection#listPage(SortColumn, boolean, int, int)} applied to the whole
+     * collection.
+     *
+     * <p>Pages are merged from a known position: how many rows of each shard come before a
+     * given row of the merged order. The end of every page served is remembered, so the next
+     * page asks each shard for only {@code limit} rows from its own offset, as a single
+     * database would. A page far past every known position is reached by merging forward in
+     * steps of at most {@link #MAX_SEEK_ROWS} rows, remembering each step, so memory stays
+     * bounded and later pages nearby are cheap. Any write to a shard, through this object or
+     * not, changes its latest change sequence and discards the remembered positions.</p>
+     *
+     * @param sortColumn the column to sort by
+     * @param ascending  {@code true} for ascending order, {@code false} for descending
+     * @param offset     the number of rows to skip
+     * @param limit      the maximum number of DVDs to return
+     * @return up to {@code limit} DVDs; empty past the end of the collection
+     */
+    @Override
+    public List<DVD> listPage(SortColumn sortColumn, boolean ascending, int offset, int limit) {
+        long start = System.nanoTime();
+        List<DVD> page = new ArrayList<>(Math.min(limit, 1024));
+        long merged = 0;
+        try {
+            // Read before the rows, so a write during the call only makes the positions stale.
+            List<Long> changeSeqs = scatter(shard -> shards[shard].getLatestChangeSeq());
+            Comparator<DVD> order = ascending ? sqlOrder(sortColumn) : sqlOrder(sortColumn).reversed();
+            PageCursors known = cursorsFor(sortColumn, ascending, changeSeqs);
+            Map.Entry<Integer, int[]> from = known.floor(offset);
+            int position = from.getKey();
+            int[] shardOffsets = from.getValue();
+
+            while (offset - position > seekRows) {
+                int step = merge(sortColumn, ascending, order, shardOffsets, seekRows, 0, null);
+                merged += step;
+                if (step < seekRows) break;
+                position += step;
+                known.put(position, shardOffsets);
+            }
+            if (offset - position <= seekRows) {
+                int skip = offset - position;
+                int read = merge(sortColumn, ascending, order, shardOffsets, skip, limit, page);
+                merged += read;
+                if (read == skip + limit) known.put(position + read, shardOffsets);
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.LIST_PAGE);
+            System.out.println("Error listing DVDs: " + e.getMessage());
+        }
+        metrics.record(Operation.LIST_PAGE, start, merged);
+        return page;
+    }
+
+    /**
+     * Counts the DVDs of all shards in parallel.
+     *
+     * @return the total row count, or 0 if it cannot be read
+     */
+    @Override
+    public int count() {
+        long start = System.nanoTime();
+        int count = 0;
+        try {
+            for (int part : scatter(shard -> shards[shard].count())) {
+                count += part;
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.COUNT);
+            System.out.println("Error counting DVDs: " + e.getMessage());
+        }
+        metrics.record(Operation.COUNT, start, count);
+        return count;
+    }
+
+    /**
+     * Searches all shards in parallel. Each shard ranks its own matches; the results are
+     * interleaved, taking each shard's best remaining match in turn, because bm25 scores
+     * depend on the statistics of the file they come from.
+     *
+     * @param query the words to search for
+     * @param limit the maximum number of results
+     * @return matching DVDs, better matches first; empty if nothing matches
+     */
+    @Override
+    public List<DVD> search(String query, int limit) {
+        long start = System.nanoTime();
+        List<DVD> dvds = new ArrayList<>();
+        try {
+            List<List<DVD>> parts = scatter(shard -> toGlobal(shards[shard].search(query, limit), shard));
+            for (int rank = 0; dvds.size() < limit; rank++) {
+                boolean more = false;
+                for (List<DVD> part : parts) {
+                    if (rank < part.size() && dvds.size() < limit) {
+                        dvds.add(part.get(rank));
+                        more = true;
+                    }
+                }
+                if (!more) break;
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.SEARCH);
+            System.out.println("Error searching DVDs: " + e.getMessage());
+        }
+        metrics.record(Operation.SEARCH, start, dvds.size());
+        return dvds;
+    }
+
+    /**
+     * Updates a DVD in the shard encoded in its ID. New values whose natural key belongs to
+     * another shard are refused, so that every copy of a key stays in one file.
+     *
+     * @param id         the global ID of the DVD to update
+     * @param updatedDVD the new values
+     * @return {@code true} if the DVD existed and was updated; {@code false} if it does not
+     *         exist or the new values belong to another shard
+     */
+    @Override
+    public boolean updateDVD(int id, DVD updatedDVD) {
+        long start = System.nanoTime();
+        if (id > 0 && shardFor(updatedDVD) != id % shards.length) {
+            metrics.error(Operation.UPDATE);
+            metrics.record(Operation.UPDATE, start, 0);
+            System.out.println("Error updating DVD: the new title, director or release year would move DVD "
+                    + id + " to another shard. Remove it and add it again instead.");
+            return false;
+        }
+        boolean updated = id > 0 && shards[id % shards.length].updateDVD(id / shards.length, updatedDVD);
+        metrics.record(Operation.UPDATE, start, updated ? 1 : 0);
+        return updated;
+    }
+
+    /**
+     * Removes a DVD from the shard encoded in its ID.
+     *
+     * @param id the global ID of the DVD to remove
+     * @return {@code true} if the DVD existed and was removed
+     */
+    @Override
+    public boolean removeDVDById(int id) {
+        long start = System.nanoTime();
+        boolean removed = id > 0 && shards[id % shards.length].removeDVDById(id / shards.length);
+        metrics.record(Operation.REMOVE, start, removed ? 1 : 0);
+        return removed;
+    }
+
+    /**
+     * Computes a genre's average rating from the running rating sums and counts of all
+     * shards, read in parallel, so the result equals that of a single collection.
+     *
+     * @param genre the genre to filter DVDs by
+     * @return the average rating for the given genre, or 0.0 if none are found
+     */
+    @Override
+    public double computeAverageRatingByGenre(String genre) {
+        long start = System.nanoTime();
+        double sum = 0;
+        double count = 0;
+        int rows = 0;
+        try {
+            for (double[] totals : scatter(shard -> shards[shard].genreRatingTotals(genre))) {
+                if (totals == null) continue;
+                sum += totals[0];
+                count += totals[1];
+                rows++;
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.AVERAGE_BY_GENRE);
+            System.out.println("Error computing average: " + e.getMessage());
+        }
+        metrics.record(Operation.AVERAGE_BY_GENRE, start, rows);
+        return count > 0 ? sum / count : 0.0;
+    }
+
+    /**
+     * Rebuilds the genre statistics of every shard in parallel.
+     *
+     * @return {@code true} if every shard's statistics were rebuilt
+     */
+    @Override
+    public boolean rebuildGenreStats() {
+        long start = System.nanoTime();
+        boolean rebuilt = true;
+        try {
+            for (boolean part : scatter(shard -> shards[shard].rebuildGenreStats())) {
+                rebuilt &= part;
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.REBUILD_GENRE_STATS);
+            System.out.println("Error rebuilding genre statistics: " + e.getMessage());
+            rebuilt = false;
+        }
+        metrics.record(Operation.REBUILD_GENRE_STATS, start, 0);
+        return rebuilt;
+    }
+
+    /**
+     * Opens a bulk insert session on every shard and routes each row by its natural key.
+     *
+     * @param commitSize the number of rows written per transaction on each shard
+     * @return a session that must be closed when done
+     * @throws SQLException if a shard's session cannot be opened
+     */
+    @Override
+    public BulkWriter openBulkInsert(int commitSize) throws SQLException {
+        return new ShardedBulkWriter(commitSize, false);
+    }
+
+    /**
+     * Opens a bulk upsert session on every shard and routes each row by its natural key,
+     * which is also the shard that holds any existing copy of it.
+     *
+     * @param commitSize the number of rows written per transaction on each shard
+     * @return a session that must be closed when done
+     * @throws SQLException if a shard's session cannot be opened
+     */
+    @Override
+    public BulkWriter openBulkUpsert(int commitSize) throws SQLException {
+        return new ShardedBulkWriter(commitSize, true);
+    }
+
+    /**
+     * Saves each shard to its own snapshot file, named like the shard files.
+     *
+     * @param file the base snapshot file
+     * @return {@code true} if every shard's snapshot was written
+     */
+    @Override
+    public boolean saveSnapshot(Path file) {
+        long start = System.nanoTime();
+        boolean saved = true;
+        try {
+            for (boolean part : scatter(shard -> shards[shard].saveSnapshot(snapshotPath(file, shard)))) {
+                saved &= part;
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.SAVE_SNAPSHOT);
+            System.out.println("Error saving snapshot: " + e.getMessage());
+            saved = false;
+        }
+        metrics.record(Operation.SAVE_SNAPSHOT, start, 0);
+        return saved;
+    }
+
+    /**
+     * Restores each shard from the snapshot file written for it by {@link #saveSnapshot(Path)}.
+     * Each shard is restored atomically, but a shard whose file is invalid keeps its
+     * contents while the others are restored.
+     *
+     * @param file the base snapshot file
+     * @return {@code true} if every shard was restored
+     */
+    @Override
+    public boolean restoreSnapshot(Path file) {
+        long start = System.nanoTime();
+        boolean restored = true;
+        try {
+            for (boolean part : scatter(shard -> shards[shard].restoreSnapshot(snapshotPath(file, shard)))) {
+                restored &= part;
+            }
+        } catch (SQLException e) {
+            metrics.error(Operation.RESTORE_SNAPSHOT);
+            System.out.println("Error restoring snapshot: " + e.getMessage());
+            restored = false;
+        }
+        metrics.record(Operation.RESTORE_SNAPSHOT, start, 0);
+        return restored;
+    }
+
+    /**
+     * Runs a call on every shard, each on its own virtual thread, and waits for all of them.
+     *
+     * @param call the call to run
+     * @return the results, indexed by shard
+     * @throws SQLException the first shard failure
+     */
+    private <T> List<T> scatter(ShardCall<T> call) throws SQLException {
+        if (shards.length == 1) return Collections.singletonList(call.call(0));
+        List<Future<T>> futures = new ArrayList<>(shards.length);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < shards.length; i++) {
+                int shard = i;
+                futures.add(executor.submit(() -> call.call(shard)));
+            }
+        }
+        // Closing the executor waited for every call, so get() does not block.
+        List<T> results = new ArrayList<>(shards.length);
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof SQLException sqlException) throw sqlException;
+                if (e.getCause() instanceof RuntimeException runtimeException) throw runtimeException;
+                throw new SQLException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while querying shards", e);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Records this shard's place in the layout in its file on first use, and fails if the
+     * file already records a different one.
+     */
+    private void checkLayout(int shard, String path) {
+        try {
+            String count = shards[shard].putMetadataIfAbsent(SHARD_COUNT_KEY, String.valueOf(shards.length));
+            String index = shards[shard].putMetadataIfAbsent(SHARD_INDEX_KEY, String.valueOf(shard));
+            if (!String.valueOf(shards.length).equals(count) || !String.valueOf(shard).equals(index)) {
+                throw new IllegalStateException(path + " is shard " + index + " of " + count
+                        + " shards and cannot be opened as shard " + shard + " of " + shards.length + ".");
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot read the shard layout of " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns the remembered page positions of a sort order, discarding them first if any
+     * shard has changed since they were recorded.
+     */
+    private PageCursors cursorsFor(SortColumn sortColumn, boolean ascending, List<Long> changeSeqs) {
+        String key = sortColumn + (ascending ? " ASC" : " DESC");
+        return cursors.compute(key, (k, known) ->
+                known != null && known.changeSeqs.equals(changeSeqs) ? known : new PageCursors(changeSeqs, shards.length));
+    }
+
+    /**
+     * Merges the shards forward from their offsets: steps over {@code skip} rows of the merged
+     * order, then adds up to {@code take} rows to {@code out}. Each shard is asked for at most
+     * {@code skip + take} rows. The offsets are advanced past every row read.
+     *
+     * @return the number of rows stepped over and taken; less than {@code skip + take} at the end
+     */
+    private int merge(SortColumn sortColumn, boolean ascending, Comparator<DVD> order, int[] shardOffsets,
+                      int skip, int take, List<DVD> out) throws SQLException {
+        int wanted = skip + take;
+        List<List<DVD>> parts = scatter(shard -> toGlobal(
+                shards[shard].listPage(sortColumn, ascending, shardOffsets[shard], wanted), shard));
+        int[] next = new int[parts.size()];
+        int read = 0;
+        while (read < wanted) {
+            int best = -1;
+            for (int shard = 0; shard < parts.size(); shard++) {
+                if (next[shard] < parts.get(shard).size() && (best < 0
+                        || order.compare(parts.get(shard).get(next[shard]), parts.get(best).get(next[best])) < 0)) {
+                    best = shard;
+                }
+            }
+            if (best < 0) break;
+            DVD dvd = parts.get(best).get(next[best]++);
+            if (read++ >= skip) out.add(dvd);
+        }
+        for (int shard = 0; shard < shardOffsets.length; shard++) {
+            shardOffsets[shard] += next[shard];
+        }
+        return read;
+    }
+
+    /**
+     * Returns the shard a DVD's natural key is stored in.
+     */
+    int shardFor(DVD dvd) {
+        String key = BulkInserter.naturalKey(dvd.getTitle(), dvd.getDirector(), dvd.getReleaseYear());
+        return Math.floorMod(key.hashCode(), shards.length);
+    }
+
+    private int toGlobal(int localId, int shard) {
+        return Math.addExact(Math.multiplyExact(localId, shards.length), shard);
+    }
+
+    private DVD toGlobal(DVD dvd, int shard) {
+        return new DVD(toGlobal(dvd.getId(), shard), dvd.getTitle(), dvd.getDirector(),
+                dvd.getReleaseYear(), dvd.getGenre(), dvd.getRating());
+    }
+
+    private List<DVD> toGlobal(List<DVD> dvds, int shard) {
+        List<DVD> global = new ArrayList<>(dvds.size());
+        for (DVD dvd : dvds) {
+            global.add(toGlobal(dvd, shard));
+        }
+        return global;
+    }
+
+    private DVDChange toGlobal(DVDChange change, int shard) {
+        if (change.getType() == DVDChange.Type.TRIMMED) return change;
+        DVD dvd = change.getDvd();
+        return new DVDChange(change.getSeq(), change.getType(), toGlobal(change.getDvdId(), shard),
+                dvd == null ? null : toGlobal(dvd, shard));
+    }
+
+    private static Path snapshotPath(Path file, int shard) {
+        return file.resolveSibling(shardPath(file.getFileName().toString(), shard));
+    }
+
+    /**
+     * Returns the ascending order SQLite uses for a sort column, with ties broken by ID.
+     * {@code NULL} sorts first, and titles compare with {@code NOCASE}, which folds ASCII
+     * letters only.
+     */
+    private static Comparator<DVD> sqlOrder(SortColumn sortColumn) {
+        Comparator<DVD> order = switch (sortColumn) {
+            case ID -> Comparator.comparingInt(DVD::getId);
+            case TITLE -> Comparator.comparing(DVD::getTitle,
+                    Comparator.nullsFirst(ShardedDVDCollection::compareNoCase));
+            case DIRECTOR -> Comparator.comparing(DVD::getDirector, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case RELEASE_YEAR -> Comparator.comparingInt(DVD::getReleaseYear);
+            case GENRE -> Comparator.comparing(DVD::getGenre, Comparator.nullsFirst(Comparator.naturalOrder()));
+            case RATING -> Comparator.comparingDouble(DVD::getRating);
+        };
+        return sortColumn == SortColumn.ID ? order : order.thenComparingInt(DVD::getId);
+    }
+
+    private static int compareNoCase(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x >= 'A' && x <= 'Z') x += 'a' - 'A';
+            if (y >= 'A' && y <= 'Z') y += 'a' - 'A';
+            if (x != y) return x - y;
+        }
+        return a.length() - b.length();
+    }
+
+    /**
+     * The known positions in one sort order, valid while every shard's latest change
+     * sequence is still {@code changeSeqs}. A position maps a row number of the merged order
+     * to the number of rows of each shard before it.
+     */
+    private static final class PageCursors {
+        final List<Long> changeSeqs;
+        private final TreeMap<Integer, int[]> positions = new TreeMap<>();
+
+        PageCursors(List<Long> changeSeqs, int shardCount) {
+            this.changeSeqs = changeSeqs;
+            positions.put(0, new int[shardCount]);
+        }
+
+        /**
+         * Returns a copy of the nearest position at or before a row number.
+         */
+        synchronized Map.Entry<Integer, int[]> floor(int row) {
+            Map.Entry<Integer, int[]> entry = positions.floorEntry(row);
+            return Map.entry(entry.getKey(), entry.getValue().clone());
+        }
+
+        /**
+         * Remembers a position. When full, the shallowest one after the start is dropped,
+         * as it is the cheapest to merge to again.
+         */
+        synchronized void put(int row, int[] shardOffsets) {
+            positions.put(row, shardOffsets.clone());
+            if (positions.size() > MAX_CURSORS) positions.remove(positions.higherKey(0));
+        }
+    }
+
+    /**
+     * A bulk session made of one {@link BulkInserter} per shard. Each row goes to the shard
+     * its natural key hashes to, and flushing writes the shards in parallel.
+     */
+    private final class ShardedBulkWriter implements BulkWriter {
+
+        private final BulkInserter[] inserters;
+        private final boolean upsert;
+        private final long startNanos = System.nanoTime();
+
+        ShardedBulkWriter(int commitSize, boolean upsert) throws SQLException {
+            this.upsert = upsert;
+            this.inserters = new BulkInserter[shards.length];
+            try {
+                for (int i = 0; i < shards.length; i++) {
+                    inserters[i] = upsert ? shards[i].openBulkUpsert(commitSize) : shards[i].openBulkInsert(commitSize);
+                }
+            } catch (SQLException e) {
+                for (BulkInserter inserter : inserters) {
+                    if (inserter == null) break;
+                    try {
+                        inserter.close();
+                    } catch (SQLException closeError) {
+                        e.addSuppressed(closeError);
+                    }
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public void add(DVD dvd) throws SQLException {
+            inserters[shardFor(dvd)].add(dvd);
+        }
+
+        @Override
+        public void flush() throws SQLException {
+            scatter(shard -> {
+                inserters[shard].flush();
+                return null;
+            });
+        }
+
+        @Override
+        public int getRowsWritten() {
+            int rows = 0;
+            for (BulkInserter inserter : inserters) {
+                rows += inserter.getRowsWritten();
+            }
+            return rows;
+        }
+
+        @Override
+        public int getRowsUnchanged() {
+            int rows = 0;
+            for (BulkInserter inserter : inserters) {
+                rows += inserter.getRowsUnchanged();
+            }
+            return rows;
+        }
+
+        @Override
+        public int getRowsSkipped() {
+            int rows = 0;
+            for (BulkInserter inserter : inserters) {
+                rows += inserter.getRowsSkipped();
+            }
+            return rows;
+        }
+
+        @Override
+        public boolean isUpsert() {
+            return upsert;
+        }
+
+        @Override
+        public double getRowsPerSecond() {
+            double seconds = (System.nanoTime() - startNanos) / 1e9;
+            return seconds > 0 ? getRowsWritten() / seconds : 0;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            SQLException failure = null;
+            for (BulkInserter inserter : inserters) {
+                try {
+                    inserter.close();
+                } catch (SQLException e) {
+                    if (failure == null) failure = e;
+                    else failure.addSuppressed(e);
+                }
+            }
+            if (failure != null) throw failure;
+        }
+    }
+}
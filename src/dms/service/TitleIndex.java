@@ -0,0 +1,567 @@
+package dms.service;
+
+import dms.model.DVD;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code TitleIndex} class is an in-memory typeahead index over DVD titles and
+ * directors, fast enough to filter results on every keystroke without touching the
+ * database.
+ *
+ * <p>Each DVD version is stored in a numbered slot. Posting lists are growable
+ * {@code int[]} arrays of slot numbers, kept sorted because slots are only ever appended:</p>
+ * <ul>
+ *   <li>every three-character sequence (trigram) of the normalized text maps to the slots
+ *       containing it, which answers substring queries of three or more characters;</li>
+ *   <li>the first one and two characters of every word map to the slots containing such a
+ *       word, which answers very short queries as word prefixes.</li>
+ * </ul>
+ * <p>Multi-word queries intersect the posting lists of all words, and candidates are
+ * verified against the stored text. Text is lower-cased and stripped of accents.
+ * An updated DVD moves to a new slot and its old slot is marked dead, so posting lists
+ * are not rewritten on every change. Once dead slots outnumber live ones (and there are at
+ * least {@link #MIN_DEAD_SLOTS_TO_COMPACT}), the index is compacted: the live entries are
+ * indexed again into fresh slots and posting lists.</p>
+ *
+ * <p>The index is built from the collection in the background and kept current through
+ * the collection's write methods ({@link CollectionObserver}). Updates and removals are
+ * applied as they happen; new rows are read from the database by a catch-up task on the
+ * same background thread, which also runs compactions. Searches never touch the database
+ * and are answered from the current contents, so a DVD added a moment ago shows up once
+ * the catch-up has loaded it.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ *     TitleIndex index = collection.enableTitleIndex();
+ *     List&lt;DVD&gt; matches = index.search("matr", 20);
+ * </pre>
+ */
+public class TitleIndex implements CollectionObserver {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /** Separates title from director so no trigram spans both. */
+    private static final char FIELD_SEPARATOR = '\u0001';
+
+    /** Rows loaded per page when catching up with inserts. */
+    private static final int CATCH_UP_PAGE_SIZE = 1000;
+
+    /** Fewest dead slots worth compacting, so small indexes are not rebuilt over and over. */
+    static final int MIN_DEAD_SLOTS_TO_COMPACT = 1024;
+
+    private static final int INITIAL_SLOTS = 1024;
+
+    private final DVDCollection collection;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CompletableFuture<TitleIndex> ready = new CompletableFuture<>();
+    private final ExecutorService background = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "title-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean catchUpScheduled = new AtomicBoolean();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+
+    private DVD[] slotDvds = new DVD[INITIAL_SLOTS];
+    private String[] slotTexts = new String[INITIAL_SLOTS];
+    private int slotCount;
+    private final BitSet deadSlots = new BitSet();
+    private int deadCount;
+    private final Map<Integer, Integer> slotOfId = new HashMap<>();
+    private final Map<Long, Postings> trigrams = new HashMap<>();
+    private final Map<Long, Postings> wordPrefixes = new HashMap<>();
+    private int lastId;
+
+    /**
+     * Updates (new values) and removals ({@code null}) of DVDs above {@code lastId} that
+     * arrived before the catch-up loaded them; applied when it does.
+     */
+    private final Map<Integer, DVD> changedAhead = new HashMap<>();
+
+    /** Changes that arrive while the initial build runs, replayed when it finishes. */
+    private final List<Runnable> pendingDuringBuild = new ArrayList<>();
+    private boolean building = true;
+
+    /**
+     * Creates an empty index for the collection. Call {@link #buildInBackground()} to fill it.
+     *
+     * @param collection the collection to index
+     */
+    TitleIndex(DVDCollection collection) {
+        this.collection = collection;
+    }
+
+    /**
+     * Starts building the index from all DVDs on the background thread.
+     */
+    void buildInBackground() {
+        background.execute(() -> build(null));
+    }
+
+    /**
+     * Starts building the index on the background thread from a binary snapshot instead of
+     * the database. The caller must make sure the database holds exactly those rows.
+     *
+     * @param source the binary snapshot
+     */
+    void buildInBackground(DVDSnapshot source) {
+        background.execute(() -> build(source));
+    }
+
+    /**
+     * Returns whether the initial build has finished.
+     *
+     * @return {@code true} once searches reflect the whole collection
+     */
+    public boolean isReady() {
+        return ready.isDone();
+    }
+
+    /**
+     * Returns a future that completes with this index once the initial build has finished.
+     *
+     * @return the readiness future
+     */
+    public CompletableFuture<TitleIndex> whenReady() {
+        return ready;
+    }
+
+    /**
+     * Finds DVDs whose title or director contains every word of the query.
+     * Words of three or more characters match anywhere; shorter words match the start
+     * of a word. Case and accents are ignored.
+     *
+     * @param query the typed text
+     * @param limit the maximum number of results
+     * @return matching DVDs in the order they were indexed; empty if the index is not ready
+     */
+    public List<DVD> search(String query, int limit) {
+        List<DVD> results = new ArrayList<>();
+        String[] terms = terms(query);
+        if (terms.length == 0 || limit <= 0 || !isReady()) return results;
+
+        lock.readLock().lock();
+        try {
+            int[] candidates = null;
+            int candidateCount = 0;
+            for (String term : terms) {
+                Postings[] lists = postingsFor(term);
+                if (lists == null) return results;
+                for (Postings list : lists) {
+                    if (candidates == null) {
+                        candidates = Arrays.copyOf(list.slots, list.size);
+                        candidateCount = list.size;
+                    } else {
+                        candidateCount = intersect(candidates, candidateCount, list);
+                    }
+                    if (candidateCount == 0) return results;
+                }
+            }
+
+            for (int i = 0; i < candidateCount && results.size() < limit; i++) {
+                int slot = candidates[i];
+                if (!deadSlots.get(slot) && matchesAll(slotTexts[slot], terms)) {
+                    results.add(copy(slotDvds[slot]));
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of DVDs in the index.
+     *
+     * @return live entry count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotOfId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of slots held by updated or removed DVDs, reclaimed by the next
+     * compaction.
+     *
+     * @return dead slot count
+     */
+    public int deadSlotCount() {
+        lock.readLock().lock();
+        try {
+            return deadCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits until the catch-ups and compactions scheduled so far have finished. Used by tests.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    void awaitBackgroundTasks() throws InterruptedException {
+        try {
+            background.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Replaces the index contents with the DVDs of a binary snapshot, without querying the
+     * database. The caller must make sure the database holds exactly those rows. If the
+     * initial build is still running, the load is applied when it finishes.
+     *
+     * @param source the binary snapshot
+     */
+    void load(DVDSnapshot source) {
+        if (deferIfBuilding(() -> load(source))) return;
+        lock.writeLock().lock();
+        try {
+            clear(source.size());
+            lastId = 0;
+            changedAhead.clear();
+            for (int row = 0; row < source.size(); row++) {
+                addSlot(source.get(row));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void dvdsAdded() {
+        if (!catchUpScheduled.getAndSet(true)) background.execute(this::catchUp);
+    }
+
+    @Override
+    public void dvdUpdated(int id, DVD dvd) {
+        DVD values = new DVD(id, dvd.getTitle(), dvd.getDirector(), dvd.getReleaseYear(),
+                dvd.getGenre(), dvd.getRating());
+        if (deferIfBuilding(() -> dvdUpdated(id, values))) return;
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotOfId.get(id);
+            if (slot == null) {
+                if (id > lastId) changedAhead.put(id, values);
+                return;
+            }
+            addSlot(values);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scheduleCompactionIfNeeded();
+    }
+
+    @Override
+    public void dvdRemoved(int id) {
+        if (deferIfBuilding(() -> dvdRemoved(id))) return;
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotOfId.remove(id);
+            if (slot != null) markDead(slot);
+            else if (id > lastId) changedAhead.put(id, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        scheduleCompactionIfNeeded();
+    }
+
+    private void build(DVDSnapshot source) {
+        if (source != null) {
+            lock.writeLock().lock();
+            try {
+                for (int row = 0; row < source.size(); row++) {
+                    addSlot(source.get(row));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } else {
+            try (Stream<DVD> dvds = collection.stream()) {
+                lock.writeLock().lock();
+                try {
+                    dvds.forEach(this::addSlot);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } catch (RuntimeException e) {
+                System.out.println("Error building title index: " + e.getMessage());
+            }
+        }
+        List<Runnable> pending;
+        synchronized (pendingDuringBuild) {
+            building = false;
+            pending = new ArrayList<>(pendingDuringBuild);
+            pendingDuringBuild.clear();
+        }
+        pending.forEach(Runnable::run);
+        // Rows added while the build streamed the table may have been missed.
+        catchUp();
+        ready.complete(this);
+    }
+
+    private boolean deferIfBuilding(Runnable change) {
+        synchronized (pendingDuringBuild) {
+            if (building) pendingDuringBuild.add(change);
+            return building;
+        }
+    }
+
+    /**
+     * Loads DVDs inserted since the index last caught up. Pages are read from the database
+     * without holding the lock, so searches keep running; each page is then added under the
+     * write lock, with any update or removal that overtook it applied instead. Runs on the
+     * background thread.
+     */
+    private void catchUp() {
+        catchUpScheduled.set(false);
+        try {
+            int after;
+            lock.readLock().lock();
+            try {
+                after = lastId;
+            } finally {
+                lock.readLock().unlock();
+            }
+            List<DVD> page;
+            while (!(page = collection.page(after, CATCH_UP_PAGE_SIZE)).isEmpty()) {
+                lock.writeLock().lock();
+                try {
+                    for (DVD dvd : page) {
+                        int id = dvd.getId();
+                        if (id <= lastId) continue;
+                        if (!changedAhead.containsKey(id)) {
+                            addSlot(dvd);
+                        } else {
+                            DVD changed = changedAhead.remove(id);
+                            if (changed != null) addSlot(changed);
+                            else lastId = id;
+                        }
+                    }
+                    changedAhead.keySet().removeIf(id -> id <= lastId);
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                after = page.get(page.size() - 1).getId();
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Error updating title index: " + e.getMessage());
+        }
+    }
+
+    private void scheduleCompactionIfNeeded() {
+        if (needsCompaction() && !compactionScheduled.getAndSet(true)) background.execute(this::compact);
+    }
+
+    private boolean needsCompaction() {
+        lock.readLock().lock();
+        try {
+            return deadCount >= MIN_DEAD_SLOTS_TO_COMPACT && deadCount > slotOfId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the live entries again into fresh slots and posting lists, in their current
+     * order, dropping the dead slots. Runs on the background thread; it works in memory only.
+     */
+    private void compact() {
+        compactionScheduled.set(false);
+        lock.writeLock().lock();
+        try {
+            if (deadCount == 0) return;
+            DVD[] live = new DVD[slotOfId.size()];
+            int count = 0;
+            for (int slot = deadSlots.nextClearBit(0); slot < slotCount; slot = deadSlots.nextClearBit(slot + 1)) {
+                live[count++] = slotDvds[slot];
+            }
+            int keptLastId = lastId;
+            clear(count);
+            for (int i = 0; i < count; i++) {
+                addSlot(live[i]);
+            }
+            lastId = keptLastId;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Empties the slots and posting lists, making room for {@code expected} entries. Must be
+     * called with the write lock held.
+     */
+    private void clear(int expected) {
+        slotDvds = new DVD[Math.max(INITIAL_SLOTS, expected)];
+        slotTexts = new String[slotDvds.length];
+        slotCount = 0;
+        deadSlots.clear();
+        deadCount = 0;
+        slotOfId.clear();
+        trigrams.clear();
+        wordPrefixes.clear();
+    }
+
+    /**
+     * Marks a slot as no longer holding a live entry. Must be called with the write lock held.
+     */
+    private void markDead(int slot) {
+        if (!deadSlots.get(slot)) {
+            deadSlots.set(slot);
+            deadCount++;
+        }
+    }
+
+    /**
+     * Indexes one DVD in a new slot. Must be called with the write lock held.
+     */
+    private void addSlot(DVD dvd) {
+        if (slotCount == slotDvds.length) {
+            slotDvds = Arrays.copyOf(slotDvds, slotCount * 2);
+            slotTexts = Arrays.copyOf(slotTexts, slotCount * 2);
+        }
+        int slot = slotCount++;
+        String text = normalize(dvd.getTitle()) + FIELD_SEPARATOR + normalize(dvd.getDirector());
+        slotDvds[slot] = dvd;
+        slotTexts[slot] = text;
+        Integer previous = slotOfId.put(dvd.getId(), slot);
+        if (previous != null) markDead(previous);
+        lastId = Math.max(lastId, dvd.getId());
+
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.computeIfAbsent(pack(text, i, 3), k -> new Postings()).add(slot);
+        }
+        for (String word : NON_WORD.split(text)) {
+            if (word.isEmpty()) continue;
+            wordPrefixes.computeIfAbsent(pack(word, 0, 1), k -> new Postings()).add(slot);
+            if (word.length() >= 2) {
+                wordPrefixes.computeIfAbsent(pack(word, 0, 2), k -> new Postings()).add(slot);
+            }
+        }
+    }
+
+    /**
+     * Returns the posting lists that every match of a term must appear in,
+     * or {@code null} if the term cannot match anything.
+     */
+    private Postings[] postingsFor(String term) {
+        if (term.length() < 3) {
+            Postings list = wordPrefixes.get(pack(term, 0, term.length()));
+            return list == null ? null : new Postings[] {list};
+        }
+        Postings[] lists = new Postings[term.length() - 2];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = trigrams.get(pack(term, i, 3));
+            if (lists[i] == null) return null;
+        }
+        // Intersect the shortest lists first so the candidate set shrinks quickly.
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+        return lists;
+    }
+
+    private static boolean matchesAll(String text, String[] terms) {
+        for (String term : terms) {
+            if (term.length() >= 3) {
+                if (!text.contains(term)) return false;
+            } else if (!hasWordStartingWith(text, term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasWordStartingWith(String text, String prefix) {
+        int from = 0;
+        while ((from = text.indexOf(prefix, from)) >= 0) {
+            if (from == 0 || !Character.isLetterOrDigit(text.charAt(from - 1))) return true;
+            from++;
+        }
+        return false;
+    }
+
+    /**
+     * Keeps the slots of {@code candidates} that also occur in {@code list}; both are sorted.
+     *
+     * @return the new candidate count
+     */
+    private static int intersect(int[] candidates, int count, Postings list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < list.size; i++) {
+            int slot = candidates[i];
+            while (j < list.size && list.slots[j] < slot) j++;
+            if (j < list.size && list.slots[j] == slot) candidates[kept++] = slot;
+        }
+        return kept;
+    }
+
+    private static String[] terms(String query) {
+        if (query == null) return new String[0];
+        return Arrays.stream(NON_WORD.split(normalize(query)))
+                .filter(term -> !term.isEmpty())
+                .toArray(String[]::new);
+    }
+
+    private static String normalize(String text) {
+        if (text == null) return "";
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Packs up to three UTF-16 characters into a key; the length goes in the top bits so
+     * keys of different lengths never collide.
+     */
+    private static long pack(String text, int from, int length) {
+        long key = length;
+        for (int i = 0; i < length; i++) {
+            key = (key << 16) | text.charAt(from + i);
+        }
+        return key;
+    }
+
+    private static DVD copy(DVD dvd) {
+        return new DVD(dvd.getId(), dvd.getTitle(), dvd.getDirector(),
+                dvd.getReleaseYear(), dvd.getGenre(), dvd.getRating());
+    }
+
+    /**
+     * A growable, sorted list of slot numbers.
+     */
+    private static class Postings {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            // A slot is added in one go, so a repeated trigram is always the last entry.
+            if (size > 0 && slots[size - 1] == slot) return;
+            if (size == slots.length) slots = Arrays.copyOf(slots, size * 2);
+            slots[size++] = slot;
+        }
+    }
+}
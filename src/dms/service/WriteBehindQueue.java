@@ -0,0 +1,294 @@
+package dms.service;
+
+import dms.model.DVD;
+import dms.util.ConnectionPool;
+import dms.util.PooledConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code WriteBehindQueue} class funnels writes from many threads through a single
+ * writer thread that commits them in groups. Callers put adds, updates and removals on a
+ * lock-free queue and get a {@link CompletableFuture} back; the writer takes up to
+ * {@code maxBatchSize} queued writes, runs them in one transaction and completes their
+ * futures once that transaction has committed.
+ *
+ * <p>A group is committed as soon as it is full, or when its oldest write has waited
+ * {@code maxLatency}. With one caller this adds at most {@code maxLatency} to each write;
+ * with many, one commit (and one sync to disk) is shared by a whole group, so throughput
+ * rises with the number of writers instead of collapsing as they fight over the database
+ * lock.</p>
+ *
+ * <p>Each write in a group succeeds or fails on its own: a write that violates a
+ * constraint fails only its own future. If the commit itself fails, the whole group is
+ * rolled back and every future in it fails with the error.</p>
+ *
+ * <p>Futures are completed on the writer thread. Use the {@code ...Async} methods of
+ * {@link CompletableFuture} for slow follow-up work so the writer is not held up.</p>
+ *
+ * <p>Instances are obtained from {@link DVDCollection#enableWriteBehind(int, Duration)}.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ *     WriteBehindQueue queue = collection.enableWriteBehind(256, Duration.ofMillis(2));
+ *     CompletableFuture&lt;Integer&gt; id = queue.add(dvd);
+ *     System.out.println("Added with ID " + id.join());
+ * </pre>
+ */
+public class WriteBehindQueue implements AutoCloseable {
+
+    private final DVDCollection collection;
+    private final ConnectionPool pool;
+    private final int maxBatchSize;
+    private final long maxLatencyNanos;
+    private final ConcurrentLinkedQueue<PendingWrite<?>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * Creates the queue and starts its writer thread.
+     *
+     * @param collection   the collection to write to; notified after each commit
+     * @param pool         the pool the writer borrows a connection from for each group
+     * @param maxBatchSize the most writes committed in one transaction
+     * @param maxLatency   the longest a write waits for its group to fill up
+     */
+    WriteBehindQueue(DVDCollection collection, ConnectionPool pool, int maxBatchSize, Duration maxLatency) {
+        if (maxBatchSize < 1) throw new IllegalArgumentException("Batch size must be at least 1.");
+        if (maxLatency.isNegative()) throw new IllegalArgumentException("Latency must not be negative.");
+        this.collection = collection;
+        this.pool = pool;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyNanos = maxLatency.toNanos();
+        this.writer = new Thread(this::drain, "dvd-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a DVD for insertion.
+     *
+     * @param dvd the DVD to add; its ID is ignored
+     * @return a future completed with the generated ID once the insert has committed
+     */
+    public CompletableFuture<Integer> add(DVD dvd) {
+        return submit(new PendingWrite<Integer>() {
+            @Override
+            Integer execute(PooledConnection conn) throws SQLException {
+                return collection.insert(conn, dvd);
+            }
+
+            @Override
+            void committed(Integer id) {
+                collection.afterAdd();
+            }
+        });
+    }
+
+    /**
+     * Queues an update of an existing DVD.
+     *
+     * @param id  the ID of the DVD to update
+     * @param dvd the new values
+     * @return a future completed once the update has committed, with {@code true} if the DVD existed
+     */
+    public CompletableFuture<Boolean> update(int id, DVD dvd) {
+        return submit(new PendingWrite<Boolean>() {
+            @Override
+            Boolean execute(PooledConnection conn) throws SQLException {
+                return collection.update(conn, id, dvd) > 0;
+            }
+
+            @Override
+            void committed(Boolean affected) {
+                collection.afterUpdate(id, dvd, affected);
+            }
+        });
+    }
+
+    /**
+     * Queues the removal of a DVD.
+     *
+     * @param id the ID of the DVD to remove
+     * @return a future completed once the removal has committed, with {@code true} if the DVD existed
+     */
+    public CompletableFuture<Boolean> remove(int id) {
+        return submit(new PendingWrite<Boolean>() {
+            @Override
+            Boolean execute(PooledConnection conn) throws SQLException {
+                return collection.delete(conn, id) > 0;
+            }
+
+            @Override
+            void committed(Boolean affected) {
+                collection.afterRemove(id, affected);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of writes queued or being committed.
+     *
+     * @return the number of incomplete writes
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Stops accepting writes, commits everything already queued and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        LockSupport.unpark(writer);
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        // Writes queued after the writer's last look are failed rather than left hanging.
+        PendingWrite<?> write;
+        while ((write = queue.poll()) != null) {
+            fail(write, new IllegalStateException("Write-behind queue is closed."));
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private <T> CompletableFuture<T> submit(PendingWrite<T> write) {
+        if (closed) return CompletableFuture.failedFuture(new IllegalStateException("Write-behind queue is closed."));
+        pending.incrementAndGet();
+        write.enqueuedNanos = System.nanoTime();
+        queue.offer(write);
+        // close() may have finished its final drain between the check above and the offer.
+        if (closed && queue.remove(write)) {
+            fail(write, new IllegalStateException("Write-behind queue is closed."));
+        } else {
+            LockSupport.unpark(writer);
+        }
+        return write.future;
+    }
+
+    /**
+     * Writer thread: waits for a first write, gathers more until the group is full or the
+     * first write's latency budget is spent, commits the group and repeats.
+     */
+    private void drain() {
+        List<PendingWrite<?>> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            PendingWrite<?> first = queue.poll();
+            if (first == null) {
+                if (closed) return;
+                LockSupport.park(this);
+                continue;
+            }
+            batch.add(first);
+            long deadline = first.enqueuedNanos + maxLatencyNanos;
+            while (batch.size() < maxBatchSize) {
+                PendingWrite<?> next = queue.poll();
+                if (next != null) {
+                    batch.add(next);
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || closed) break;
+                LockSupport.parkNanos(this, remaining);
+            }
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<PendingWrite<?>> batch) {
+        long start = System.nanoTime();
+        DVDMetrics metrics = collection.getMetrics();
+        try (PooledConnection conn = pool.borrow()) {
+            Connection raw = conn.getConnection();
+            raw.setAutoCommit(false);
+            try {
+                for (PendingWrite<?> write : batch) {
+                    write.apply(conn);
+                }
+                raw.commit();
+            } catch (SQLException e) {
+                raw.rollback();
+                throw e;
+            } finally {
+                raw.setAutoCommit(true);
+            }
+        } catch (SQLException | RuntimeException e) {
+            metrics.error(DVDMetrics.Operation.GROUP_COMMIT);
+            System.out.println("Error committing queued writes: " + e.getMessage());
+            for (PendingWrite<?> write : batch) {
+                fail(write, e);
+            }
+            return;
+        } finally {
+            metrics.record(DVDMetrics.Operation.GROUP_COMMIT, start, batch.size());
+        }
+        for (PendingWrite<?> write : batch) {
+            pending.decrementAndGet();
+            write.finish();
+        }
+    }
+
+    private void fail(PendingWrite<?> write, Throwable error) {
+        pending.decrementAndGet();
+        write.future.completeExceptionally(error);
+    }
+
+    /**
+     * One queued write: the statement to run inside the group's transaction and what to do
+     * once that transaction has committed.
+     */
+    private abstract static class PendingWrite<T> {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        long enqueuedNanos;
+        private T result;
+        private SQLException failure;
+
+        abstract T execute(PooledConnection conn) throws SQLException;
+
+        abstract void committed(T result);
+
+        /**
+         * Runs the statement. A failing statement is undone by SQLite on its own, so its
+         * error is kept for this write and the rest of the group carries on.
+         */
+        void apply(PooledConnection conn) {
+            try {
+                result = execute(conn);
+            } catch (SQLException e) {
+                failure = e;
+            }
+        }
+
+        void finish() {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+                return;
+            }
+            try {
+                committed(result);
+            } catch (RuntimeException e) {
+                System.out.println("Error notifying observers: " + e.getMessage());
+            }
+            future.complete(result);
+        }
+    }
+}
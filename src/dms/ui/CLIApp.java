@@ -1,34 +1,66 @@
 package dms.ui;
 
 import dms.model.DVD;
-import dms.service.DVDCollection;
+import dms.service.DVDStore;
 import dms.util.CSVImporter;
 import dms.util.Validator;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
+import java.util.stream.Stream;
 
 /**
  * Irene Duett, CEN 3024c, 11/12/2025
  * class: CLIApp
  * purpose: Provides a command-line interface (CLI) for managing DVDs in the database.
- *          Allows users to add, list, update, remove, and import DVD records.
+ *          Allows users to add, list, search, update, remove, and import DVD records.
  */
 public class CLIApp {
 
     // Path to the SQLite database
-    private final DVDCollection dvdCollection = new DVDCollection("jdbc:sqlite:C:/Users/irene/IdeaProjects/dvddms/db/dvds.db");
+    private static final String DB_URL = "jdbc:sqlite:C:/Users/irene/IdeaProjects/dvddms/db/dvds.db";
+
+    private final DVDStore dvdCollection;
     private final Scanner scanner = new Scanner(System.in);
 
+    // Maximum number of results shown for a search
+    private static final int SEARCH_LIMIT = 50;
+
+    /**
+     * method: CLIApp (constructor)
+     * parameters: none
+     * purpose: Opens the database as a single file.
+     */
+    public CLIApp() {
+        this(1);
+    }
+
+    /**
+     * method: CLIApp (constructor)
+     * parameters: int shardCount
+     * purpose: Opens the database spread over the given number of shard files and enables
+     *          the lookup cache so repeated lookups of the same DVD (e.g. while updating it)
+     *          are served without a database round-trip.
+     */
+    public CLIApp(int shardCount) {
+        dvdCollection = DVDStore.open(DB_URL, shardCount);
+        dvdCollection.enableCache(1000, Duration.ofMinutes(10));
+    }
+
     /**
      * method: main
      * parameters: String[] args
      * return: void
      * purpose: Entry point of the application; creates an instance of CLIApp and starts it.
+     *          An optional first argument gives the number of shard files (default 1).
+     *          With -Ddms.replica=true a single file is read from an in-memory replica.
      */
     public static void main(String[] args) {
-        CLIApp app = new CLIApp();
+        CLIApp app = new CLIApp(args.length > 0 ? Integer.parseInt(args[0]) : 1);
         app.run();
     }
 
@@ -37,8 +69,12 @@ public class CLIApp {
      * parameters: none
      * return: void
      * purpose: Displays the main menu and handles user input for different operations.
+     *          A database whose schema could not be upgraded is reported first.
      */
     private void run() {
+        if (dvdCollection.getSchemaError() != null) {
+            System.out.println("Warning: the database could not be fully upgraded. " + dvdCollection.getSchemaError());
+        }
         while (true) {
             System.out.println("\n--- DVD Management System ---");
             System.out.println("1. Add DVD");
@@ -47,7 +83,12 @@ public class CLIApp {
             System.out.println("4. Remove DVD");
             System.out.println("5. Compute Average Rating by Genre");
             System.out.println("6. Import DVDs from CSV File");
-            System.out.println("7. Exit");
+            System.out.println("7. Search DVDs");
+            System.out.println("8. Rebuild Genre Statistics");
+            System.out.println("9. Show Performance Metrics");
+            System.out.println("10. Save Snapshot");
+            System.out.println("11. Restore Snapshot");
+            System.out.println("12. Exit");
             System.out.print("Enter your choice: ");
 
             String choice = scanner.nextLine();
@@ -58,7 +99,12 @@ public class CLIApp {
                 case "4": removeDVD(); break;
                 case "5": computeAverage(); break;
                 case "6": importCSV(); break;
-                case "7": System.out.println("Exiting..."); return;
+                case "7": searchDVDs(); break;
+                case "8": rebuildGenreStats(); break;
+                case "9": showMetrics(); break;
+                case "10": saveSnapshot(); break;
+                case "11": restoreSnapshot(); break;
+                case "12": System.out.println("Exiting..."); return;
                 default: System.out.println("Invalid choice. Please try again.");
             }
         }
@@ -98,11 +144,29 @@ public class CLIApp {
      * parameters: none
      * return: void
      * purpose: Retrieves and displays all DVDs in the database.
+     *          Rows are streamed and printed as they are fetched.
      */
     private void listDVDs() {
-        List<DVD> dvds = dvdCollection.listAll();
-        if (dvds.isEmpty()) System.out.println("No DVDs in collection.");
-        else dvds.forEach(System.out::println);
+        try (Stream<DVD> dvds = dvdCollection.stream()) {
+            Iterator<DVD> it = dvds.iterator();
+            if (!it.hasNext()) System.out.println("No DVDs in collection.");
+            while (it.hasNext()) System.out.println(it.next());
+        }
+    }
+
+    /**
+     * method: searchDVDs
+     * parameters: none
+     * return: void
+     * purpose: Prompts for search words and displays the DVDs whose title or director match,
+     *          best match first.
+     */
+    private void searchDVDs() {
+        System.out.print("Search title/director: ");
+        String query = scanner.nextLine();
+        List<DVD> results = dvdCollection.search(query, SEARCH_LIMIT);
+        if (results.isEmpty()) System.out.println("No matching DVDs found.");
+        else results.forEach(System.out::println);
     }
 
     /**
@@ -180,18 +244,70 @@ public class CLIApp {
         System.out.println("Average rating for genre '" + genre + "': " + avg);
     }
 
+    /**
+     * method: rebuildGenreStats
+     * parameters: none
+     * return: void
+     * purpose: Recomputes the per-genre rating statistics used for average ratings.
+     */
+    private void rebuildGenreStats() {
+        boolean rebuilt = dvdCollection.rebuildGenreStats();
+        System.out.println(rebuilt ? "Genre statistics rebuilt successfully!" : "Rebuild failed.");
+    }
+
+    /**
+     * method: showMetrics
+     * parameters: none
+     * return: void
+     * purpose: Prints call counts, errors, rows and latency percentiles for every database
+     *          operation, followed by the read and writer connection pools' statistics.
+     */
+    private void showMetrics() {
+        System.out.println(dvdCollection.getMetrics().dump());
+        dvdCollection.getPools().forEach(System.out::println);
+    }
+
+    /**
+     * method: saveSnapshot
+     * parameters: none
+     * return: void
+     * purpose: Saves all DVDs to a binary snapshot file for backup or a fast restore.
+     */
+    private void saveSnapshot() {
+        System.out.print("Enter snapshot file path (example: C:\\Users\\YourName\\dvds.snap): ");
+        String filePath = scanner.nextLine();
+        boolean saved = dvdCollection.saveSnapshot(Path.of(filePath));
+        System.out.println(saved ? "Snapshot saved successfully!" : "Snapshot failed.");
+    }
+
+    /**
+     * method: restoreSnapshot
+     * parameters: none
+     * return: void
+     * purpose: Replaces all DVDs with the contents of a binary snapshot file.
+     */
+    private void restoreSnapshot() {
+        System.out.print("Enter snapshot file path: ");
+        String filePath = scanner.nextLine();
+        System.out.print("This replaces every DVD in the database. Continue? (y/n): ");
+        if (!scanner.nextLine().trim().equalsIgnoreCase("y")) return;
+        boolean restored = dvdCollection.restoreSnapshot(Path.of(filePath));
+        System.out.println(restored ? "Snapshot restored successfully!" : "Restore failed.");
+    }
+
     /**
      * method: importCSV
      * parameters: none
      * return: void
-     * purpose: Imports DVD records from a CSV file into the database.
+     * purpose: Imports DVD records from a CSV file into the database. DVDs that are already
+     *          in the database are updated rather than added again.
      */
     private void importCSV() {
         try {
             System.out.print("Enter full CSV file path (example: C:\\Users\\YourName\\movies.csv): ");
             String filePath = scanner.nextLine();
             int count = CSVImporter.importFromCSV(filePath, dvdCollection);
-            System.out.println(count + " DVDs imported successfully!");
+            System.out.println(count + " DVDs added or updated.");
         } catch (Exception e) {
             System.out.println("CSV import failed: " + e.getMessage());
         }
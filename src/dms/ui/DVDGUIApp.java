@@ -1,31 +1,61 @@
 package dms.ui;
 
 import dms.model.DVD;
-import dms.service.DVDCollection;
+import dms.service.DVDChangeListener;
+import dms.service.DVDStore;
+import dms.service.TitleIndex;
 import dms.util.CSVImporter;
+import dms.util.ImportMonitor;
 import dms.util.Validator;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 
 /**
  * Irene Duett, CEN 3024c, 11/12/2025
  * class: DVDGUIApp
  * purpose: GUI for interacting with the DVD Collection.
- *          Allows users to add, list, update, remove, and import DVD records.
+ *          Allows users to add, list, search, update, remove, and import DVD records.
+ *          Database work runs in the background through a {@link TaskRunner}.
  */
 public class DVDGUIApp {
 
-    private final DVDCollection collection;
+    /** Maximum number of results shown for a search. */
+    private static final int SEARCH_LIMIT = 100;
+
+    /** Maximum number of results shown while typing in the quick search. */
+    private static final int QUICK_SEARCH_LIMIT = 50;
+
+    /**
+     * Snapshot file the quick search index is loaded from at startup and saved to on exit;
+     * set with the {@code dms.snapshot} system property.
+     */
+    private static final String STARTUP_SNAPSHOT = System.getProperty("dms.snapshot");
+
+    private final DVDStore collection;
     private final JFrame frame = new JFrame("DVD Management System");
+    private final TaskRunner tasks = new TaskRunner(frame);
 
     /**
      * method: main
      * parameters: String[] args
      * return: void
      * purpose: Entry point of the GUI application. Prompts the user for a database path and launches the GUI.
+     *          An optional first argument gives the number of shard files (default 1).
+     *          With -Ddms.replica=true a single file is read from an in-memory replica.
+     *          With -Ddms.snapshot=<file> the quick search index starts from that snapshot.
      */
     public static void main(String[] args) {
         String dbPath = JOptionPane.showInputDialog("Enter path to your SQLite database:");
@@ -33,31 +63,53 @@ public class DVDGUIApp {
             JOptionPane.showMessageDialog(null, "No database path provided. Exiting.");
             return;
         }
-        SwingUtilities.invokeLater(() -> new DVDGUIApp(dbPath).createAndShowGUI());
+        // Opening the database may run schema migrations, so do it before handing over to the EDT.
+        DVDGUIApp app = new DVDGUIApp(dbPath, args.length > 0 ? Integer.parseInt(args[0]) : 1);
+        SwingUtilities.invokeLater(app::createAndShowGUI);
     }
 
     /**
-     * Constructor initializes DVDCollection with the user-provided database path.
+     * Constructor opens the DVD store with the user-provided database path,
+     * enables its lookup cache and starts building the quick search index.
      *
      * @param dbPath path to the SQLite database file
      */
     public DVDGUIApp(String dbPath) {
-        collection = new DVDCollection(dbPath);
+        this(dbPath, 1);
+    }
+
+    /**
+     * Constructor opens the DVD store spread over the given number of shard files next to
+     * the user-provided database path, enables its lookup cache and starts building the
+     * quick search index where the store supports one, from the startup snapshot if one
+     * is configured and still matches the database.
+     *
+     * @param dbPath     path to the SQLite database file
+     * @param shardCount number of shard files
+     */
+    public DVDGUIApp(String dbPath, int shardCount) {
+        collection = DVDStore.open(dbPath, shardCount);
+        collection.enableCache(1000, Duration.ofMinutes(10));
+        if (STARTUP_SNAPSHOT != null) collection.enableTitleIndex(Path.of(STARTUP_SNAPSHOT));
+        else collection.enableTitleIndex();
     }
 
     /**
      * method: createAndShowGUI
      * parameters: none
      * return: void
-     * purpose: Builds the GUI layout, buttons, and their action listeners.
+     * purpose: Builds the GUI layout, buttons, and their action listeners, and warns if the
+     *          database schema could not be fully upgraded.
      */
     private void createAndShowGUI() {
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setSize(500, 450);
-        frame.setLayout(new GridLayout(8, 1, 5, 5));
+        frame.setSize(500, 500);
+        frame.setLayout(new GridLayout(10, 1, 5, 5));
 
         JButton addBtn = new JButton("Add DVD");
         JButton listBtn = new JButton("List DVDs");
+        JButton quickSearchBtn = new JButton("Quick Search");
+        JButton searchBtn = new JButton("Search DVDs");
         JButton updateBtn = new JButton("Update DVD");
         JButton removeBtn = new JButton("Remove DVD");
         JButton avgBtn = new JButton("Compute Average Rating by Genre");
@@ -66,6 +118,8 @@ public class DVDGUIApp {
 
         frame.add(addBtn);
         frame.add(listBtn);
+        frame.add(quickSearchBtn);
+        frame.add(searchBtn);
         frame.add(updateBtn);
         frame.add(removeBtn);
         frame.add(avgBtn);
@@ -75,14 +129,40 @@ public class DVDGUIApp {
         // Button actions
         addBtn.addActionListener(this::addDVD);
         listBtn.addActionListener(this::listDVDs);
+        quickSearchBtn.addActionListener(this::quickSearch);
+        searchBtn.addActionListener(this::searchDVDs);
         updateBtn.addActionListener(this::updateDVD);
         removeBtn.addActionListener(this::removeDVD);
         avgBtn.addActionListener(this::computeAverage);
         csvBtn.addActionListener(this::importCSV);
-        exitBtn.addActionListener(e -> frame.dispose());
+        exitBtn.addActionListener(e -> {
+            saveStartupSnapshot();
+            frame.dispose();
+        });
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent we) {
+                saveStartupSnapshot();
+            }
+        });
 
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
+        if (collection.getSchemaError() != null) {
+            JOptionPane.showMessageDialog(frame, "The database could not be fully upgraded.\n"
+                    + collection.getSchemaError(), "Database Upgrade", JOptionPane.WARNING_MESSAGE);
+        }
+    }
+
+    /**
+     * method: saveStartupSnapshot
+     * parameters: none
+     * return: void
+     * purpose: Saves the collection to the startup snapshot, if one is configured, so the
+     *          next start can load the quick search index from it.
+     */
+    private void saveStartupSnapshot() {
+        if (STARTUP_SNAPSHOT != null) collection.saveSnapshot(Path.of(STARTUP_SNAPSHOT));
     }
 
     /**
@@ -102,8 +182,10 @@ public class DVDGUIApp {
             if (!Validator.isValidRating(rating)) throw new NumberFormatException("Invalid rating.");
 
             DVD dvd = new DVD(0, title, director, year, genre, rating);
-            collection.addDVD(dvd);
-            JOptionPane.showMessageDialog(frame, "DVD added successfully!");
+            tasks.run("Adding DVD", ctx -> {
+                collection.addDVD(dvd);
+                return null;
+            }, done -> JOptionPane.showMessageDialog(frame, "DVD added successfully!"));
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(frame, "Error: " + ex.getMessage());
         }
@@ -113,21 +195,164 @@ public class DVDGUIApp {
      * method: listDVDs
      * parameters: ActionEvent e
      * return: void
-     * purpose: Displays all DVDs currently in the collection in a scrollable dialog.
+     * purpose: Displays the DVDs in a table that loads rows page by page as it is scrolled,
+     *          so opening it takes the same time for any collection size.
+     *          Clicking a column header sorts by that column; clicking it again reverses the order.
      */
     private void listDVDs(ActionEvent e) {
-        List<DVD> dvds = collection.listAll();
-        if (dvds.isEmpty()) {
+        tasks.run("Counting DVDs", ctx -> new DVDTableModel(collection), this::showTable);
+    }
+
+    /**
+     * method: showTable
+     * parameters: DVDTableModel model
+     * return: void
+     * purpose: Opens the list dialog for a model whose row count has been read.
+     *          While it is open, changes to the collection (including those made by other
+     *          programs) are applied to the table. Closing the dialog stops any page loads
+     *          still running.
+     */
+    private void showTable(DVDTableModel model) {
+        if (model.getRowCount() == 0) {
             JOptionPane.showMessageDialog(frame, "No DVDs in collection.");
-        } else {
-            StringBuilder sb = new StringBuilder();
-            dvds.forEach(d -> sb.append(d).append("\n"));
-            JTextArea textArea = new JTextArea(sb.toString());
-            textArea.setEditable(false);
-            JScrollPane scrollPane = new JScrollPane(textArea);
-            scrollPane.setPreferredSize(new Dimension(450, 300));
-            JOptionPane.showMessageDialog(frame, scrollPane, "DVD List", JOptionPane.INFORMATION_MESSAGE);
+            return;
         }
+
+        JTable table = new JTable(model);
+        table.setFillsViewportHeight(true);
+        table.getTableHeader().setReorderingAllowed(false);
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent me) {
+                int column = table.columnAtPoint(me.getPoint());
+                if (column < 0) return;
+                model.sortBy(table.convertColumnIndexToModel(column));
+                // The sort arrow is part of the column names, which the header caches.
+                for (int i = 0; i < table.getColumnCount(); i++) {
+                    table.getColumnModel().getColumn(i)
+                            .setHeaderValue(model.getColumnName(table.convertColumnIndexToModel(i)));
+                }
+                table.getTableHeader().repaint();
+            }
+        });
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setPreferredSize(new Dimension(650, 400));
+
+        JDialog dialog = new JOptionPane(scrollPane, JOptionPane.PLAIN_MESSAGE)
+                .createDialog(frame, "DVD List (" + model.getRowCount() + " DVDs)");
+        dialog.setModal(false);
+        dialog.setResizable(true);
+        DVDChangeListener listener = changes -> SwingUtilities.invokeLater(() -> model.applyChanges(changes));
+        collection.addChangeListener(listener);
+        dialog.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentHidden(ComponentEvent ce) {
+                collection.removeChangeListener(listener);
+                model.close();
+            }
+        });
+        dialog.setVisible(true);
+    }
+
+    /**
+     * method: quickSearch
+     * parameters: ActionEvent e
+     * return: void
+     * purpose: Opens a search field that filters DVDs by title or director on every keystroke,
+     *          using the in-memory title index instead of the database. Stores without a
+     *          title index fall back to the regular search.
+     */
+    private void quickSearch(ActionEvent e) {
+        TitleIndex index = collection.getTitleIndex();
+        if (index == null) {
+            searchDVDs(e);
+            return;
+        }
+        JTextField field = new JTextField();
+        DefaultListModel<DVD> results = new DefaultListModel<>();
+        JList<DVD> list = new JList<>(results);
+        JLabel status = new JLabel(" ");
+
+        Runnable refresh = () -> {
+            results.clear();
+            if (!index.isReady()) {
+                status.setText("Loading index...");
+                return;
+            }
+            List<DVD> matches = index.search(field.getText(), QUICK_SEARCH_LIMIT);
+            results.addAll(matches);
+            status.setText(field.getText().isBlank() ? "Type to search "
+                    + index.size() + " DVDs." : matches.size() + " match(es).");
+        };
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent de) {
+                refresh.run();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent de) {
+                refresh.run();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent de) {
+                refresh.run();
+            }
+        });
+        index.whenReady().thenRun(() -> SwingUtilities.invokeLater(refresh));
+        refresh.run();
+
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.add(field, BorderLayout.NORTH);
+        JScrollPane scrollPane = new JScrollPane(list);
+        scrollPane.setPreferredSize(new Dimension(450, 300));
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(status, BorderLayout.SOUTH);
+
+        JDialog dialog = new JOptionPane(panel, JOptionPane.PLAIN_MESSAGE)
+                .createDialog(frame, "Quick Search");
+        dialog.setModal(false);
+        dialog.addWindowFocusListener(new WindowAdapter() {
+            @Override
+            public void windowGainedFocus(WindowEvent we) {
+                field.requestFocusInWindow();
+            }
+        });
+        dialog.setVisible(true);
+    }
+
+    /**
+     * method: searchDVDs
+     * parameters: ActionEvent e
+     * return: void
+     * purpose: Prompts for search words and shows the DVDs whose title or director match,
+     *          best match first.
+     */
+    private void searchDVDs(ActionEvent e) {
+        String query = JOptionPane.showInputDialog(frame, "Search title/director:");
+        if (query == null || query.isBlank()) return;
+        tasks.run("Searching", ctx -> collection.search(query, SEARCH_LIMIT), this::showSearchResults);
+    }
+
+    /**
+     * method: showSearchResults
+     * parameters: List of DVD results
+     * return: void
+     * purpose: Shows the results of a search, one DVD per line, or a message if there are none.
+     */
+    private void showSearchResults(List<DVD> results) {
+        if (results.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "No matching DVDs found.");
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        results.forEach(d -> sb.append(d).append("\n"));
+        JTextArea textArea = new JTextArea(sb.toString());
+        textArea.setEditable(false);
+        JScrollPane scrollPane = new JScrollPane(textArea);
+        scrollPane.setPreferredSize(new Dimension(450, 300));
+        JOptionPane.showMessageDialog(frame, scrollPane, "Search Results", JOptionPane.INFORMATION_MESSAGE);
     }
 
     /**
@@ -135,43 +360,53 @@ public class DVDGUIApp {
      * parameters: ActionEvent e
      * return: void
      * purpose: Updates an existing DVD by prompting the user for new details.
+     *          The DVD is looked up and saved in the background; the prompts run on the EDT.
      */
     private void updateDVD(ActionEvent e) {
+        int id;
         try {
-            int id = Integer.parseInt(JOptionPane.showInputDialog(frame, "Enter DVD ID to update:"));
-            DVD dvd = collection.findById(id).orElse(null);
-            if (dvd == null) {
+            id = Integer.parseInt(JOptionPane.showInputDialog(frame, "Enter DVD ID to update:"));
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(frame, "Error: Please enter a valid ID.");
+            return;
+        }
+        tasks.run("Loading DVD", ctx -> collection.findById(id), found -> {
+            if (found.isEmpty()) {
                 JOptionPane.showMessageDialog(frame, "DVD not found.");
                 return;
             }
+            DVD dvd = found.get();
+            try {
+                String title = JOptionPane.showInputDialog(frame, "New Title (" + dvd.getTitle() + "):");
+                if (!title.isEmpty()) dvd.setTitle(title);
 
-            String title = JOptionPane.showInputDialog(frame, "New Title (" + dvd.getTitle() + "):");
-            if (!title.isEmpty()) dvd.setTitle(title);
-
-            String director = JOptionPane.showInputDialog(frame, "New Director (" + dvd.getDirector() + "):");
-            if (!director.isEmpty()) dvd.setDirector(director);
+                String director = JOptionPane.showInputDialog(frame, "New Director (" + dvd.getDirector() + "):");
+                if (!director.isEmpty()) dvd.setDirector(director);
 
-            String yearStr = JOptionPane.showInputDialog(frame, "New Release Year (" + dvd.getReleaseYear() + "):");
-            if (!yearStr.isEmpty()) {
-                int year = Integer.parseInt(yearStr);
-                if (!Validator.isValidYear(year)) throw new NumberFormatException("Invalid year.");
-                dvd.setReleaseYear(year);
-            }
+                String yearStr = JOptionPane.showInputDialog(frame, "New Release Year (" + dvd.getReleaseYear() + "):");
+                if (!yearStr.isEmpty()) {
+                    int year = Integer.parseInt(yearStr);
+                    if (!Validator.isValidYear(year)) throw new NumberFormatException("Invalid year.");
+                    dvd.setReleaseYear(year);
+                }
 
-            String genre = JOptionPane.showInputDialog(frame, "New Genre (" + dvd.getGenre() + "):");
-            if (!genre.isEmpty()) dvd.setGenre(genre);
+                String genre = JOptionPane.showInputDialog(frame, "New Genre (" + dvd.getGenre() + "):");
+                if (!genre.isEmpty()) dvd.setGenre(genre);
 
-            String ratingStr = JOptionPane.showInputDialog(frame, "New Rating (" + dvd.getRating() + "):");
-            if (!ratingStr.isEmpty()) {
-                double rating = Double.parseDouble(ratingStr);
-                if (!Validator.isValidRating(rating)) throw new NumberFormatException("Invalid rating.");
-                dvd.setRating(rating);
+                String ratingStr = JOptionPane.showInputDialog(frame, "New Rating (" + dvd.getRating() + "):");
+                if (!ratingStr.isEmpty()) {
+                    double rating = Double.parseDouble(ratingStr);
+                    if (!Validator.isValidRating(rating)) throw new NumberFormatException("Invalid rating.");
+                    dvd.setRating(rating);
+                }
+            } catch (NumberFormatException ex) {
+                JOptionPane.showMessageDialog(frame, "Error: " + ex.getMessage());
+                return;
             }
 
-            JOptionPane.showMessageDialog(frame, "DVD updated successfully!");
-        } catch (NumberFormatException ex) {
-            JOptionPane.showMessageDialog(frame, "Error: " + ex.getMessage());
-        }
+            tasks.run("Saving DVD", ctx -> collection.updateDVD(id, dvd), updated ->
+                    JOptionPane.showMessageDialog(frame, updated ? "DVD updated successfully!" : "Failed to update DVD."));
+        });
     }
 
     /**
@@ -183,8 +418,8 @@ public class DVDGUIApp {
     private void removeDVD(ActionEvent e) {
         try {
             int id = Integer.parseInt(JOptionPane.showInputDialog(frame, "Enter DVD ID to remove:"));
-            boolean removed = collection.removeDVDById(id);
-            JOptionPane.showMessageDialog(frame, removed ? "DVD removed successfully!" : "DVD not found.");
+            tasks.run("Removing DVD", ctx -> collection.removeDVDById(id), removed ->
+                    JOptionPane.showMessageDialog(frame, removed ? "DVD removed successfully!" : "DVD not found."));
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(frame, "Error: Please enter a valid ID.");
         }
@@ -198,8 +433,9 @@ public class DVDGUIApp {
      */
     private void computeAverage(ActionEvent e) {
         String genre = JOptionPane.showInputDialog(frame, "Enter genre to compute average rating:");
-        double avg = collection.computeAverageRatingByGenre(genre);
-        JOptionPane.showMessageDialog(frame, "Average rating for genre '" + genre + "': " + avg);
+        if (genre == null) return;
+        tasks.run("Computing average", ctx -> collection.computeAverageRatingByGenre(genre), avg ->
+                JOptionPane.showMessageDialog(frame, "Average rating for genre '" + genre + "': " + avg));
     }
 
     /**
@@ -207,6 +443,8 @@ public class DVDGUIApp {
      * parameters: ActionEvent e
      * return: void
      * purpose: Allows the user to select a CSV file and import DVD records into the database.
+     *          The import runs in the background and shows rows imported and rows per second;
+     *          cancelling keeps the rows imported so far.
      */
     private void importCSV(ActionEvent e) {
         JFileChooser fileChooser = new JFileChooser();
@@ -214,8 +452,18 @@ public class DVDGUIApp {
 
         if (result == JFileChooser.APPROVE_OPTION) {
             String path = fileChooser.getSelectedFile().getAbsolutePath();
-            int count = CSVImporter.importFromCSV(path, collection);
-            JOptionPane.showMessageDialog(frame, count + " DVDs imported successfully!");
+            tasks.run("Importing CSV", ctx -> CSVImporter.importFromCSV(path, collection,
+                    CSVImporter.DEFAULT_COMMIT_SIZE, new ImportMonitor() {
+                        @Override
+                        public void progress(int rowsImported, double rowsPerSecond) {
+                            ctx.progress(String.format("Committed %,d rows (%,.0f rows/sec)", rowsImported, rowsPerSecond));
+                        }
+
+                        @Override
+                        public boolean isCancelled() {
+                            return ctx.isCancelled();
+                        }
+                    }), count -> JOptionPane.showMessageDialog(frame, count + " DVDs added or updated."));
         }
     }
 }
@@ -0,0 +1,283 @@
+package dms.ui;
+
+import dms.model.DVD;
+import dms.service.DVDChange;
+import dms.service.DVDCollection.SortColumn;
+import dms.service.DVDStore;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * class: DVDTableModel
+ * purpose: Table model that shows the whole DVD collection without loading it.
+ *          Rows are fetched from the database one page at a time as the table scrolls
+ *          to them, and only the most recently used pages are kept in memory.
+ *          Sorting is done by the database, so changing the sort just drops the pages.
+ *          Changes from the collection's change feed are applied with {@link #applyChanges}.
+ */
+public class DVDTableModel extends AbstractTableModel {
+
+    /** Number of rows fetched per page. */
+    static final int PAGE_SIZE = 200;
+
+    /** Maximum number of pages kept in memory. */
+    static final int MAX_PAGES = 25;
+
+    private static final String[] COLUMN_NAMES = {"ID", "Title", "Director", "Year", "Genre", "Rating"};
+    private static final SortColumn[] SORT_COLUMNS = {
+            SortColumn.ID, SortColumn.TITLE, SortColumn.DIRECTOR,
+            SortColumn.RELEASE_YEAR, SortColumn.GENRE, SortColumn.RATING
+    };
+
+    private final DVDStore collection;
+    private final Map<Integer, List<DVD>> pages = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<DVD>> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+    private final Set<Integer> loading = new HashSet<>();
+    private int rowCount;
+    private int sortColumn;
+    private boolean ascending = true;
+    private int generation;
+    private boolean counting;
+    private boolean countAgain;
+    private boolean closed;
+
+    /**
+     * method: DVDTableModel
+     * parameters: DVDStore collection
+     * return: none
+     * purpose: Creates a model sorted by ID. Only the row count is read here;
+     *          rows are loaded when the table first asks for them.
+     */
+    public DVDTableModel(DVDStore collection) {
+        this.collection = collection;
+        this.rowCount = collection.count();
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        if (column != sortColumn) return COLUMN_NAMES[column];
+        return COLUMN_NAMES[column] + (ascending ? " ▲" : " ▼");
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return switch (column) {
+            case 0, 3 -> Integer.class;
+            case 5 -> Double.class;
+            default -> String.class;
+        };
+    }
+
+    /**
+     * method: getValueAt
+     * parameters: int row, int column
+     * return: Object
+     * purpose: Returns a cell from the cached page holding the row. If the page is not
+     *          in memory, starts loading it and returns null; the row is repainted
+     *          once the page arrives.
+     */
+    @Override
+    public Object getValueAt(int row, int column) {
+        int pageNumber = row / PAGE_SIZE;
+        List<DVD> page = pages.get(pageNumber);
+        if (page == null) {
+            loadPage(pageNumber);
+            return null;
+        }
+        int index = row % PAGE_SIZE;
+        if (index >= page.size()) return null;
+        DVD dvd = page.get(index);
+        return switch (column) {
+            case 0 -> dvd.getId();
+            case 1 -> dvd.getTitle();
+            case 2 -> dvd.getDirector();
+            case 3 -> dvd.getReleaseYear();
+            case 4 -> dvd.getGenre();
+            default -> dvd.getRating();
+        };
+    }
+
+    /**
+     * method: sortBy
+     * parameters: int column
+     * return: void
+     * purpose: Sorts the table by a column. Choosing the current sort column again
+     *          reverses the direction. Cached pages are dropped and reloaded in the new order.
+     *          The column names change with the sort, so the view must refresh its header.
+     */
+    public void sortBy(int column) {
+        if (column < 0 || column >= SORT_COLUMNS.length) return;
+        ascending = column != sortColumn || !ascending;
+        sortColumn = column;
+        dropPages();
+        fireTableDataChanged();
+    }
+
+    /**
+     * method: reload
+     * parameters: none
+     * return: void
+     * purpose: Drops all cached pages and re-reads the row count in the background, e.g.
+     *          after DVDs were added. The table is told about the new contents once the count
+     *          arrives. Reloads requested while a count is running share one more count after it.
+     *          Must be called on the event dispatch thread.
+     */
+    public void reload() {
+        if (closed) return;
+        dropPages();
+        countRows();
+    }
+
+    /**
+     * method: applyChanges
+     * parameters: List of DVDChange changes
+     * return: void
+     * purpose: Applies changes delivered by the collection's change feed. Updated DVDs are
+     *          replaced in the cached pages and only their rows are repainted; they keep
+     *          their position until the next reload. Added or removed DVDs shift every row
+     *          after them, so those changes reload the model, as does a trimmed change log.
+     *          Must be called on the event dispatch thread.
+     */
+    public void applyChanges(List<DVDChange> changes) {
+        if (closed) return;
+        Map<Integer, DVD> updated = new HashMap<>();
+        for (DVDChange change : changes) {
+            if (change.getType() != DVDChange.Type.UPDATED) {
+                reload();
+                return;
+            }
+            if (change.getDvd() != null) updated.put(change.getDvdId(), change.getDvd());
+        }
+        for (Map.Entry<Integer, List<DVD>> entry : pages.entrySet()) {
+            List<DVD> page = entry.getValue();
+            for (int i = 0; i < page.size(); i++) {
+                DVD dvd = updated.get(page.get(i).getId());
+                if (dvd == null) continue;
+                page.set(i, dvd);
+                int row = entry.getKey() * PAGE_SIZE + i;
+                fireTableRowsUpdated(row, row);
+            }
+        }
+    }
+
+    /**
+     * method: close
+     * parameters: none
+     * return: void
+     * purpose: Stops loading pages and releases the cached rows once the table is no longer shown.
+     */
+    public void close() {
+        closed = true;
+        dropPages();
+    }
+
+    /**
+     * method: dropPages
+     * parameters: none
+     * return: void
+     * purpose: Forgets the cached pages and discards the pages still being fetched.
+     */
+    private void dropPages() {
+        generation++;
+        pages.clear();
+        loading.clear();
+    }
+
+    /**
+     * method: countRows
+     * parameters: none
+     * return: void
+     * purpose: Reads the row count in the background, then sets it and repaints the table.
+     *          If a count is already running, it is followed by one more instead, since it
+     *          may have started before the latest change.
+     */
+    private void countRows() {
+        if (counting) {
+            countAgain = true;
+            return;
+        }
+        counting = true;
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return collection.count();
+            }
+
+            @Override
+            protected void done() {
+                counting = false;
+                if (closed) return;
+                if (countAgain) {
+                    countAgain = false;
+                    countRows();
+                    return;
+                }
+                try {
+                    rowCount = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    System.out.println("Error counting DVDs: " + e.getMessage());
+                    return;
+                }
+                fireTableDataChanged();
+            }
+        }.execute();
+    }
+
+    /**
+     * method: loadPage
+     * parameters: int pageNumber
+     * return: void
+     * purpose: Fetches a page in the background unless it is already being fetched.
+     *          Pages that arrive after the sort changed or the model was closed are discarded.
+     */
+    private void loadPage(int pageNumber) {
+        if (closed || !loading.add(pageNumber)) return;
+        int requestGeneration = generation;
+        SortColumn column = SORT_COLUMNS[sortColumn];
+        boolean asc = ascending;
+        new SwingWorker<List<DVD>, Void>() {
+            @Override
+            protected List<DVD> doInBackground() {
+                return collection.listPage(column, asc, pageNumber * PAGE_SIZE, PAGE_SIZE);
+            }
+
+            @Override
+            protected void done() {
+                if (requestGeneration != generation) return;
+                loading.remove(pageNumber);
+                try {
+                    pages.put(pageNumber, get());
+                } catch (InterruptedException | ExecutionException e) {
+                    System.out.println("Error loading DVDs: " + e.getMessage());
+                    return;
+                }
+                int first = pageNumber * PAGE_SIZE;
+                int last = Math.min(first + PAGE_SIZE, rowCount) - 1;
+                if (first <= last) fireTableRowsUpdated(first, last);
+            }
+        }.execute();
+    }
+}
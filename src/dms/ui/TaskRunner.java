@@ -0,0 +1,165 @@
+package dms.ui;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * class: TaskRunner
+ * purpose: Runs database work for the GUI off the Event Dispatch Thread.
+ *          Each task runs on its own virtual thread; its result is handed back to a
+ *          callback on the EDT. Tasks that take longer than {@link #DIALOG_DELAY_MILLIS}
+ *          show a progress dialog with a status line and a Cancel button.
+ */
+public class TaskRunner {
+
+    /** How long a task may run before its progress dialog appears. */
+    static final int DIALOG_DELAY_MILLIS = 300;
+
+    private final JFrame owner;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * interface: Task
+     * purpose: Work to run in the background. It may report progress and should stop
+     *          early once {@link TaskContext#isCancelled()} returns true.
+     *
+     * @param <T> the result type
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        T call(TaskContext context) throws Exception;
+    }
+
+    /**
+     * interface: TaskContext
+     * purpose: Lets a running task report progress and check whether it was cancelled.
+     *          Both methods may be called from the task's thread.
+     */
+    public interface TaskContext {
+        void progress(String message);
+
+        boolean isCancelled();
+    }
+
+    /**
+     * method: TaskRunner
+     * parameters: JFrame owner
+     * return: none
+     * purpose: Creates a runner whose dialogs are shown over the given window.
+     */
+    public TaskRunner(JFrame owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * method: run
+     * parameters: String title, Task work, Consumer onSuccess
+     * return: void
+     * purpose: Runs the work on a virtual thread and passes its result to {@code onSuccess}
+     *          on the EDT. Errors are shown in a message dialog. Cancelling only sets the
+     *          flag the task polls (interrupting would close file channels mid-read), so a
+     *          cancelled task still delivers whatever partial result it returns.
+     *          Must be called on the EDT.
+     */
+    public <T> void run(String title, Task<T> work, Consumer<T> onSuccess) {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicReference<String> pendingStatus = new AtomicReference<>();
+        ProgressDialog dialog = new ProgressDialog(title);
+
+        TaskContext context = new TaskContext() {
+            @Override
+            public void progress(String message) {
+                // Only the newest message matters; skip the repaint if one is already queued.
+                if (pendingStatus.getAndSet(message) == null) {
+                    SwingUtilities.invokeLater(() -> dialog.setStatus(pendingStatus.getAndSet(null)));
+                }
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled.get();
+            }
+        };
+
+        Timer showTimer = new Timer(DIALOG_DELAY_MILLIS, e -> dialog.setVisible(true));
+        showTimer.setRepeats(false);
+        dialog.onCancel(() -> {
+            cancelled.set(true);
+            dialog.setStatus("Cancelling...");
+        });
+
+        executor.execute(() -> {
+            T result = null;
+            Exception failure = null;
+            try {
+                result = work.call(context);
+            } catch (Exception e) {
+                failure = e;
+            }
+            T finalResult = result;
+            Exception finalFailure = failure;
+            SwingUtilities.invokeLater(() -> {
+                showTimer.stop();
+                dialog.dispose();
+                if (finalFailure != null) {
+                    JOptionPane.showMessageDialog(owner, "Error: " + finalFailure.getMessage());
+                } else {
+                    onSuccess.accept(finalResult);
+                }
+            });
+        });
+        showTimer.start();
+    }
+
+    /**
+     * class: ProgressDialog
+     * purpose: Non-modal dialog with a status line, an indeterminate progress bar and a
+     *          Cancel button. Closing the window also cancels the task.
+     */
+    private class ProgressDialog extends JDialog {
+        private final JLabel status;
+        private final JButton cancelBtn = new JButton("Cancel");
+
+        ProgressDialog(String title) {
+            super(owner, title, false);
+            status = new JLabel(title + "...");
+            JProgressBar bar = new JProgressBar();
+            bar.setIndeterminate(true);
+
+            JPanel panel = new JPanel(new BorderLayout(5, 5));
+            panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+            panel.add(status, BorderLayout.NORTH);
+            panel.add(bar, BorderLayout.CENTER);
+            panel.add(cancelBtn, BorderLayout.SOUTH);
+            setContentPane(panel);
+            setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
+            setSize(350, 130);
+            setLocationRelativeTo(owner);
+        }
+
+        void setStatus(String message) {
+            if (message != null) status.setText(message);
+        }
+
+        void onCancel(Runnable action) {
+            cancelBtn.addActionListener(e -> {
+                cancelBtn.setEnabled(false);
+                action.run();
+            });
+            addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosing(WindowEvent e) {
+                    if (cancelBtn.isEnabled()) cancelBtn.doClick();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package dms.util;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * class: BloomFilter
+ * purpose: Compact probabilistic set of strings. {@link #mightContain(CharSequence)} never
+ *          returns {@code false} for a string that was added, and returns {@code true} for
+ *          a string that was not added with about the false-positive rate the filter was
+ *          sized for. The bits live in one {@code long[]}; each string is hashed with two seeds
+ *          and the probe positions are derived from the two hashes by double hashing.
+ *          Not thread-safe.
+ */
+public class BloomFilter {
+
+    private static final long SEED_1 = 0x9E3779B97F4A7C15L;
+    private static final long SEED_2 = 0xC2B2AE3D27D4EB4FL;
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private long insertions;
+
+    /**
+     * method: BloomFilter (constructor)
+     * parameters: long expectedInsertions, double falsePositiveRate
+     * purpose: Creates a filter sized so that after {@code expectedInsertions} strings the
+     *          false-positive rate is about {@code falsePositiveRate}. Adding more strings
+     *          than expected still works, but the rate rises.
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1.");
+        }
+        long n = Math.max(expectedInsertions, 1);
+        // Optimal size m = -n ln p / (ln 2)^2 and hash count k = m/n ln 2.
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long words = Math.max((m + 63) >>> 6, 1);
+        if (words > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Bloom filter too large.");
+        this.bits = new long[(int) words];
+        this.bitCount = words << 6;
+        this.hashCount = (int) Math.max(1, Math.min(30, Math.round((double) bitCount / n * Math.log(2))));
+    }
+
+    /**
+     * method: add
+     * parameters: CharSequence key
+     * return: boolean
+     * purpose: Adds a string to the filter. Returns {@code true} if any bit changed, i.e. the
+     *          string was definitely not in the filter before.
+     */
+    public boolean add(CharSequence key) {
+        long h1 = hash(key, SEED_1);
+        long h2 = hash(key, SEED_2) | 1;
+        boolean changed = false;
+        long combined = h1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Long.remainderUnsigned(combined, bitCount);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                changed = true;
+            }
+            combined += h2;
+        }
+        if (changed) insertions++;
+        return changed;
+    }
+
+    /**
+     * method: mightContain
+     * parameters: CharSequence key
+     * return: boolean
+     * purpose: Returns {@code false} if the string was definitely never added, and
+     *          {@code true} if it probably was.
+     */
+    public boolean mightContain(CharSequence key) {
+        long h1 = hash(key, SEED_1);
+        long h2 = hash(key, SEED_2) | 1;
+        long combined = h1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Long.remainderUnsigned(combined, bitCount);
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) return false;
+            combined += h2;
+        }
+        return true;
+    }
+
+    /**
+     * method: getBitCount
+     * parameters: none
+     * return: long
+     * purpose: Returns the number of bits in the filter.
+     */
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * method: getHashCount
+     * parameters: none
+     * return: int
+     * purpose: Returns the number of bit positions probed per string.
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * method: getInsertions
+     * parameters: none
+     * return: long
+     * purpose: Returns the number of {@link #add(CharSequence)} calls that changed the filter.
+     */
+    public long getInsertions() {
+        return insertions;
+    }
+
+    /**
+     * method: getExpectedFalsePositiveRate
+     * parameters: none
+     * return: double
+     * purpose: Estimates the current false-positive rate from the number of insertions,
+     *          as (1 - e^(-kn/m))^k.
+     */
+    public double getExpectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * insertions / bitCount), hashCount);
+    }
+
+    /**
+     * method: hash
+     * parameters: CharSequence key, long seed
+     * return: long
+     * purpose: Hashes the characters of a string to 64 bits with a multiply-xorshift mix,
+     *          finished with the MurmurHash3 64-bit finalizer.
+     */
+    private static long hash(CharSequence key, long seed) {
+        long h = seed ^ key.length();
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001B3L;
+            h ^= h >>> 29;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,81 +1,229 @@
 package dms.util;
 
 import dms.model.DVD;
-import dms.service.DVDCollection;
+import dms.service.BulkWriter;
+import dms.service.DVDMetrics;
+import dms.service.DVDStore;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
 
 /**
  * Irene Duett, CEN 3024c, 11/12/2025
  *
  * The {@code CSVImporter} class provides functionality to import DVD data from
- * a CSV (Comma-Separated Values) file into the system’s {@link DVDCollection}.
+ * a CSV (Comma-Separated Values) file into the system’s {@link DVDStore}.
  *
  * <p>Each line in the CSV file is expected to represent a single DVD record
  * with six attributes in the following order:
  * <b>ID, Title, Director, Release Year, Genre, Rating</b>.</p>
  *
  * <p>Invalid or improperly formatted lines are skipped automatically, and an
- * informational message is displayed in the console for transparency.</p>
+ * informational message is displayed in the console for transparency.
+ * Fields follow RFC 4180, so titles containing commas can be quoted
+ * (e.g. {@code "Crouching Tiger, Hidden Dragon"}).</p>
+ *
+ * <p>The file is memory-mapped and parsed in parallel by a {@link ParallelCSVReader};
+ * the parsed rows are then written by a single thread in file order.</p>
+ *
+ * <p>Rows are written through a {@link BulkWriter}, which reuses one prepared statement
+ * per database file and commits every {@link #DEFAULT_COMMIT_SIZE} rows in a single
+ * transaction, holding the writer connection only while it writes each batch.</p>
+ *
+ * <p>By default the import is idempotent: rows are matched on their natural key (title,
+ * director, release year), so a DVD that is already in the database has its genre and
+ * rating updated instead of being added again, and re-running the same file adds nothing.
+ * The ID column of the file is not used. {@link Mode#INSERT} skips the matching for files
+ * known to contain only new DVDs; a row that turns out to duplicate an existing DVD is
+ * reported and skipped, and the rest of the file is still imported.</p>
  *
  * <p><b>Usage Example:</b></p>
  * <pre>
  *     DVDCollection collection = new DVDCollection("db/dvds.db");
  *     int importedCount = CSVImporter.importFromCSV("data/dvds.csv", collection);
- *     System.out.println(importedCount + " DVDs successfully imported.");
+ *     System.out.println(importedCount + " DVDs added or updated.");
  * </pre>
  */
 public class CSVImporter {
 
+    /** Number of rows written per transaction when no commit size is given. */
+    public static final int DEFAULT_COMMIT_SIZE = 1000;
+
     /**
-     * Imports DVD data from a CSV file into the specified {@link DVDCollection}.
+     * How imported rows are written.
+     */
+    public enum Mode {
+        /** Every row is inserted; a row whose natural key already exists is reported and skipped. */
+        INSERT,
+        /** Rows are matched on their natural key; existing DVDs are updated, not duplicated. */
+        UPSERT
+    }
+
+    /**
+     * Imports DVD data from a CSV file into the specified {@link DVDStore}
+     * using the {@link #DEFAULT_COMMIT_SIZE}.
+     *
+     * @param filePath   the full path to the CSV file to be imported
+     * @param collection the {@link DVDStore} where the DVDs will be stored
+     * @return the number of DVDs added or updated; rows that matched an identical DVD are not counted
+     */
+    public static int importFromCSV(String filePath, DVDStore collection) {
+        return importFromCSV(filePath, collection, DEFAULT_COMMIT_SIZE);
+    }
+
+    /**
+     * Imports DVD data from a CSV file into the specified {@link DVDStore}.
      * <p>
-     * The method reads each line, splits it by commas, validates the data,
-     * constructs a {@link DVD} object, and adds it to the collection.
-     * Lines that are missing fields or contain invalid data are skipped.
+     * The file is split into record-aligned chunks that are parsed and validated in
+     * parallel; each valid record becomes a {@link DVD} object. The calling thread then
+     * adds the DVDs to the collection in file order. Lines that are missing fields or
+     * contain invalid data are skipped. Valid rows are batched and committed every
+     * {@code commitSize} rows.
      * </p>
      *
      * @param filePath   the full path to the CSV file to be imported
-     * @param collection the {@link DVDCollection} where the DVDs will be stored
-     * @return the number of DVDs successfully added to the collection
+     * @param collection the {@link DVDStore} where the DVDs will be stored
+     * @param commitSize the number of rows written per transaction
+     * @return the number of DVDs added or updated; rows that matched an identical DVD are not counted
      */
-    public static int importFromCSV(String filePath, DVDCollection collection) {
-        int count = 0;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
+    public static int importFromCSV(String filePath, DVDStore collection, int commitSize) {
+        return importFromCSV(filePath, collection, commitSize, ImportMonitor.NONE);
+    }
 
-            while ((line = reader.readLine()) != null) {
-                String[] values = line.split(",");
+    /**
+     * Imports DVD data from a CSV file like {@link #importFromCSV(String, DVDStore, int)},
+     * reporting progress to a monitor after every committed batch. If the monitor cancels
+     * the import, reading stops and the rows read so far are committed.
+     *
+     * @param filePath   the full path to the CSV file to be imported
+     * @param collection the {@link DVDStore} where the DVDs will be stored
+     * @param commitSize the number of rows written per transaction
+     * @param monitor    receives progress and may cancel the import
+     * @return the number of DVDs added or updated; rows that matched an identical DVD are not counted
+     */
+    public static int importFromCSV(String filePath, DVDStore collection, int commitSize,
+                                    ImportMonitor monitor) {
+        return importFromCSV(filePath, collection, commitSize, monitor, Mode.UPSERT);
+    }
 
-                if (values.length != 6) {
-                    System.out.println("Invalid line skipped: " + line);
-                    continue;
-                }
+    /**
+     * Imports DVD data from a CSV file like
+     * {@link #importFromCSV(String, DVDStore, int, ImportMonitor)}, writing the rows in
+     * the given mode.
+     *
+     * @param filePath   the full path to the CSV file to be imported
+     * @param collection the {@link DVDStore} where the DVDs will be stored
+     * @param commitSize the number of rows written per transaction
+     * @param monitor    receives progress and may cancel the import
+     * @param mode       whether rows are always inserted or matched on their natural key
+     * @return the number of DVDs added or updated; rows that matched an identical DVD, or
+     *         that were skipped as duplicates in {@link Mode#INSERT}, are not counted
+     */
+    public static int importFromCSV(String filePath, DVDStore collection, int commitSize,
+                                    ImportMonitor monitor, Mode mode) {
+        int count = 0;
+        DVDMetrics metrics = collection.getMetrics();
+        long start = System.nanoTime();
 
+        try (BulkWriter inserter = mode == Mode.UPSERT
+                ? collection.openBulkUpsert(commitSize)
+                : collection.openBulkInsert(commitSize)) {
+            try {
                 try {
-                    int id = Integer.parseInt(values[0].trim());
-                    String title = values[1].trim();
-                    String director = values[2].trim();
-                    int year = Integer.parseInt(values[3].trim());
-                    String genre = values[4].trim();
-                    double rating = Double.parseDouble(values[5].trim());
-
-                    DVD dvd = new DVD(id, title, director, year, genre, rating);
-                    collection.addDVD(dvd);
-                    count++;
-
-                } catch (Exception e) {
-                    System.out.println("Invalid data, skipped line: " + line);
+                    new ParallelCSVReader(Path.of(filePath)).read(CSVImporter::parseChunk, chunk -> {
+                        chunk.skipped.forEach(System.out::println);
+                        for (DVD dvd : chunk.dvds) {
+                            if (monitor.isCancelled()) throw new CancellationException();
+                            int committed = inserter.getRowsWritten();
+                            inserter.add(dvd);
+                            if (inserter.getRowsWritten() != committed) {
+                                monitor.progress(inserter.getRowsWritten(), inserter.getRowsPerSecond());
+                            }
+                        }
+                    });
+                } catch (CancellationException e) {
+                    System.out.println("Import cancelled.");
                 }
+                inserter.flush();
+            } catch (SQLException e) {
+                // Batches committed before the failure stay in the database.
+                metrics.error(DVDMetrics.Operation.CSV_IMPORT);
+                System.out.println("Error importing DVDs: " + e.getMessage());
             }
 
-        } catch (IOException e) {
+            // Rows that matched an identical DVD are committed but change nothing.
+            count = inserter.getRowsWritten() - inserter.getRowsUnchanged();
+            if (inserter.isUpsert()) {
+                System.out.printf("Added or updated %d DVDs, %d already up to date (%.0f rows/sec).%n",
+                        count, inserter.getRowsUnchanged(), inserter.getRowsPerSecond());
+            } else if (inserter.getRowsSkipped() > 0) {
+                System.out.printf("Imported %d DVDs, %d duplicates skipped (%.0f rows/sec).%n",
+                        count, inserter.getRowsSkipped(), inserter.getRowsPerSecond());
+            } else {
+                System.out.printf("Imported %d DVDs (%.0f rows/sec).%n", count, inserter.getRowsPerSecond());
+            }
+
+        } catch (NoSuchFileException e) {
+            metrics.error(DVDMetrics.Operation.CSV_IMPORT);
             System.out.println("Error reading file. Make sure the file path is correct.");
+        } catch (IOException e) {
+            metrics.error(DVDMetrics.Operation.CSV_IMPORT);
+            System.out.println("Error reading file: " + e.getMessage());
+        } catch (SQLException e) {
+            metrics.error(DVDMetrics.Operation.CSV_IMPORT);
+            System.out.println("Error importing DVDs: " + e.getMessage());
         }
 
+        metrics.record(DVDMetrics.Operation.CSV_IMPORT, start, count);
         return count;
     }
+
+    /**
+     * Converts the records of one chunk into DVDs. Runs on a parser thread.
+     *
+     * @param records the parsed CSV records of a chunk
+     * @return the valid DVDs and the skip messages for invalid lines
+     */
+    private static ParsedChunk parseChunk(List<CSVRecord> records) {
+        ParsedChunk chunk = new ParsedChunk(records.size());
+
+        for (CSVRecord record : records) {
+            if (record.size() != 6) {
+                chunk.skipped.add("Invalid line skipped: " + record.rawLine());
+                continue;
+            }
+
+            try {
+                int id = Integer.parseInt(record.get(0).trim());
+                String title = record.get(1).trim();
+                String director = record.get(2).trim();
+                int year = Integer.parseInt(record.get(3).trim());
+                String genre = record.get(4).trim();
+                double rating = Double.parseDouble(record.get(5).trim());
+
+                chunk.dvds.add(new DVD(id, title, director, year, genre, rating));
+
+            } catch (NumberFormatException e) {
+                chunk.skipped.add("Invalid data, skipped line: " + record.rawLine());
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * The result of parsing one chunk: valid DVDs plus messages for skipped lines.
+     */
+    private static class ParsedChunk {
+        final List<DVD> dvds;
+        final List<String> skipped = new ArrayList<>();
+
+        ParsedChunk(int expectedRows) {
+            dvds = new ArrayList<>(expectedRows);
+        }
+    }
 }
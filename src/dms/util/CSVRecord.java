@@ -0,0 +1,64 @@
+package dms.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * class: CSVRecord
+ * purpose: Holds the fields of one parsed CSV record together with the location of the
+ *          original record text, which is only decoded when it is needed (e.g. to report
+ *          a skipped line).
+ */
+public class CSVRecord {
+
+    private final String[] fields;
+    private final ByteBuffer source;
+    private final int start;
+    private final int end;
+
+    CSVRecord(String[] fields, ByteBuffer source, int start, int end) {
+        this.fields = fields;
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * method: size
+     * return: int
+     * purpose: Returns the number of fields in the record.
+     */
+    public int size() {
+        return fields.length;
+    }
+
+    /**
+     * method: get
+     * parameters: int index
+     * return: String
+     * purpose: Returns the unquoted value of the field at the given position.
+     *
+     * @param index zero-based field index
+     * @return the field value
+     */
+    public String get(int index) {
+        return fields[index];
+    }
+
+    /**
+     * method: rawLine
+     * return: String
+     * purpose: Returns the record exactly as it appeared in the file, without the line terminator.
+     */
+    public String rawLine() {
+        byte[] bytes = new byte[end - start];
+        source.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return rawLine();
+    }
+}
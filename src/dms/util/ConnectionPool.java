@@ -0,0 +1,422 @@
+package dms.util;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * class: ConnectionPool
+ * purpose: Keeps a bounded set of long-lived SQLite connections open so callers do not
+ *          pay for opening the database file and re-parsing SQL on every operation.
+ *          Each pooled connection carries its own prepared-statement cache
+ *          (see {@link PooledConnection}). Idle connections are health-checked before
+ *          they are handed out again, and the pool records wait-time and size metrics.
+ *          A pool is either writable, in which case its connections put the database in
+ *          WAL mode, or read-only, in which case its connections refuse to write
+ *          ({@code PRAGMA query_only}).
+ *          A single-connection pool (every writer pool, and the only pool of a private
+ *          in-memory database) refuses a borrow from the thread already holding its
+ *          connection, which would otherwise wait for itself until the borrow times out.
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ *     ConnectionPool pool = DBUtil.getPool("jdbc:sqlite:db/dvds.db");
+ *     try (PooledConnection conn = pool.borrow()) {
+ *         PreparedStatement stmt = conn.prepare("SELECT * FROM dvd WHERE id = ?");
+ *         ...
+ *     }
+ * </pre>
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /** How long a caller waits for a free connection before giving up. */
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 30_000;
+
+    /** Idle connections older than this are validated before being reused. */
+    private static final long VALIDATION_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    /** SQLite waits this long on a locked database instead of failing with SQLITE_BUSY. */
+    private static final int BUSY_TIMEOUT_MILLIS = 5_000;
+
+    private final String dbUrl;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final boolean readOnly;
+    private final Semaphore permits;
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger openCount = new AtomicInteger();
+    private volatile boolean closed;
+    private volatile SlowQueryLog slowQueryLog;
+    /** Thread holding the connection of a single-connection pool, or {@code null}. */
+    private volatile Thread soleHolder;
+
+    // Metrics
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder healthCheckFailures = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    /**
+     * method: ConnectionPool (constructor)
+     * parameters: String dbUrl, int maxSize
+     * purpose: Creates a pool for the given JDBC URL that holds at most {@code maxSize}
+     *          connections. Connections are opened lazily on first demand.
+     *          A private in-memory database only exists inside a single connection,
+     *          so such pools are always limited to one connection.
+     *
+     * @param dbUrl   the JDBC URL (e.g., "jdbc:sqlite:C:/path/to/dvds.db")
+     * @param maxSize the maximum number of open connections
+     */
+    public ConnectionPool(String dbUrl, int maxSize) {
+        this(dbUrl, maxSize, DEFAULT_MAX_WAIT_MILLIS);
+    }
+
+    /**
+     * method: ConnectionPool (constructor)
+     * parameters: String dbUrl, int maxSize, long maxWaitMillis
+     * purpose: Creates a pool with an explicit borrow timeout.
+     *
+     * @param dbUrl         the JDBC URL
+     * @param maxSize       the maximum number of open connections
+     * @param maxWaitMillis how long {@link #borrow()} waits for a free connection
+     */
+    public ConnectionPool(String dbUrl, int maxSize, long maxWaitMillis) {
+        this(dbUrl, maxSize, maxWaitMillis, false);
+    }
+
+    /**
+     * method: ConnectionPool (constructor)
+     * parameters: String dbUrl, int maxSize, long maxWaitMillis, boolean readOnly
+     * purpose: Creates a writable or read-only pool with an explicit borrow timeout.
+     *
+     * @param dbUrl         the JDBC URL
+     * @param maxSize       the maximum number of open connections
+     * @param maxWaitMillis how long {@link #borrow()} waits for a free connection
+     * @param readOnly      whether statements that modify the database are rejected
+     */
+    public ConnectionPool(String dbUrl, int maxSize, long maxWaitMillis, boolean readOnly) {
+        if (maxSize < 1) throw new IllegalArgumentException("Pool size must be at least 1.");
+        this.dbUrl = dbUrl;
+        this.maxSize = isPrivateMemoryDatabase(dbUrl) ? 1 : maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.readOnly = readOnly;
+        this.permits = new Semaphore(this.maxSize, true);
+    }
+
+    /**
+     * method: borrow
+     * parameters: none
+     * return: PooledConnection
+     * purpose: Hands out an idle connection, or opens a new one if the pool has not reached
+     *          its maximum size. Blocks while all connections are in use.
+     *          The caller must close the returned connection to give it back to the pool.
+     *          In a single-connection pool, a thread that already holds the connection
+     *          (e.g. through an open stream) gets an error at once instead of waiting.
+     *
+     * @return a connection that is exclusively owned by the caller until closed
+     * @throws SQLException if no connection becomes available in time or one cannot be opened,
+     *                      or the calling thread already holds the pool's only connection
+     */
+    public PooledConnection borrow() throws SQLException {
+        if (closed) throw new SQLException("Connection pool for " + dbUrl + " is closed.");
+        if (maxSize == 1 && soleHolder == Thread.currentThread()) {
+            throw new SQLException("This thread already holds the only connection to " + dbUrl +
+                    "; close it (e.g. finish or close an open stream) before the next database call.");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a database connection to " + dbUrl);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection conn;
+            while ((conn = idle.pollFirst()) != null) {
+                if (isHealthy(conn)) {
+                    return handOut(conn);
+                }
+                healthCheckFailures.increment();
+                discard(conn);
+            }
+            return handOut(open());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection handOut(PooledConnection conn) {
+        conn.markInUse();
+        if (maxSize == 1) soleHolder = Thread.currentThread();
+        return conn;
+    }
+
+    /**
+     * method: release
+     * parameters: PooledConnection conn
+     * return: void
+     * purpose: Returns a connection to the pool. Any transaction the caller left open is
+     *          rolled back, and connections that have been closed underneath us are discarded.
+     */
+    void release(PooledConnection conn) {
+        try {
+            Connection raw = conn.getConnection();
+            if (closed || raw.isClosed()) {
+                discard(conn);
+            } else {
+                if (!raw.getAutoCommit()) {
+                    raw.rollback();
+                    raw.setAutoCommit(true);
+                }
+                conn.markIdle();
+                // LIFO keeps the most recently used (warmest) connections in circulation.
+                idle.offerFirst(conn);
+            }
+        } catch (SQLException e) {
+            discard(conn);
+        } finally {
+            soleHolder = null;
+            permits.release();
+        }
+    }
+
+    /**
+     * method: close
+     * parameters: none
+     * return: void
+     * purpose: Closes all idle connections and prevents further borrowing.
+     *          Connections still in use are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        PooledConnection conn;
+        while ((conn = idle.pollFirst()) != null) {
+            discard(conn);
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection raw = DriverManager.getConnection(dbUrl);
+        try (Statement stmt = raw.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+            if (readOnly) {
+                stmt.execute("PRAGMA query_only = ON");
+            } else {
+                // WAL lets readers keep reading the last committed state while a write is in
+                // progress. The mode is stored in the database file, so readers pick it up too.
+                stmt.execute("PRAGMA journal_mode = WAL");
+            }
+        } catch (SQLException e) {
+            raw.close();
+            throw e;
+        }
+        openCount.incrementAndGet();
+        createdCount.increment();
+        return new PooledConnection(this, raw);
+    }
+
+    private boolean isHealthy(PooledConnection conn) {
+        try {
+            if (conn.getConnection().isClosed()) return false;
+            if (System.nanoTime() - conn.getLastUsedNanos() < VALIDATION_INTERVAL_NANOS) return true;
+            return conn.getConnection().isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection conn) {
+        openCount.decrementAndGet();
+        conn.closeQuietly();
+    }
+
+    private void recordWait(long waitNanos) {
+        borrowCount.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    void recordStatementCacheHit() {
+        statementCacheHits.increment();
+    }
+
+    void recordStatementCacheMiss() {
+        statementCacheMisses.increment();
+    }
+
+    static boolean isPrivateMemoryDatabase(String dbUrl) {
+        boolean memory = dbUrl.contains(":memory:") || dbUrl.contains("mode=memory");
+        return memory && !dbUrl.contains("cache=shared");
+    }
+
+    /**
+     * method: setSlowQueryLog
+     * parameters: SlowQueryLog slowQueryLog
+     * return: void
+     * purpose: Logs statements prepared through this pool that exceed the log's threshold,
+     *          or stops logging when {@code null}. Applies to statements prepared from now on.
+     */
+    public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * method: getSlowQueryLog
+     * return: SlowQueryLog
+     * purpose: Returns the active slow-query log, or {@code null} if slow queries are not logged.
+     */
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+    /**
+     * method: getDbUrl
+     * return: String
+     * purpose: Returns the JDBC URL this pool connects to.
+     */
+    public String getDbUrl() {
+        return dbUrl;
+    }
+
+    /**
+     * method: getMaxSize
+     * return: int
+     * purpose: Returns the maximum number of connections the pool will open.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * method: isReadOnly
+     * return: boolean
+     * purpose: Returns whether this pool's connections reject statements that modify the database.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * method: getPoolSize
+     * return: int
+     * purpose: Returns the number of connections currently open (idle plus in use).
+     */
+    public int getPoolSize() {
+        return openCount.get();
+    }
+
+    /**
+     * method: getIdleCount
+     * return: int
+     * purpose: Returns the number of open connections waiting to be borrowed.
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * method: getActiveCount
+     * return: int
+     * purpose: Returns the number of connections currently borrowed.
+     */
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    /**
+     * method: getBorrowCount
+     * return: long
+     * purpose: Returns how many times a connection has been handed out.
+     */
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    /**
+     * method: getCreatedCount
+     * return: long
+     * purpose: Returns how many physical connections have been opened over the pool's lifetime.
+     */
+    public long getCreatedCount() {
+        return createdCount.sum();
+    }
+
+    /**
+     * method: getHealthCheckFailures
+     * return: long
+     * purpose: Returns how many idle connections failed validation and were replaced.
+     */
+    public long getHealthCheckFailures() {
+        return healthCheckFailures.sum();
+    }
+
+    /**
+     * method: getAverageWaitMillis
+     * return: double
+     * purpose: Returns the mean time callers spent waiting in {@link #borrow()}.
+     */
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.sum();
+        return borrows == 0 ? 0.0 : totalWaitNanos.sum() / (double) borrows / 1_000_000.0;
+    }
+
+    /**
+     * method: getMaxWaitMillis
+     * return: double
+     * purpose: Returns the longest time a caller has waited in {@link #borrow()}.
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * method: getStatementCacheHits
+     * return: long
+     * purpose: Returns how many {@link PooledConnection#prepare(String)} calls reused a cached statement.
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+
+    /**
+     * method: getStatementCacheMisses
+     * return: long
+     * purpose: Returns how many {@link PooledConnection#prepare(String)} calls had to parse new SQL.
+     */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+
+    /**
+     * Returns a one-line summary of the pool's size and wait-time metrics.
+     *
+     * @return a formatted metrics string
+     */
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool[%s%s] size=%d/%d active=%d idle=%d borrows=%d created=%d "
+                        + "avgWait=%.3fms maxWait=%.3fms healthCheckFailures=%d stmtCacheHits=%d stmtCacheMisses=%d",
+                dbUrl, readOnly ? ", read-only" : "", getPoolSize(), maxSize, getActiveCount(), getIdleCount(), getBorrowCount(),
+                getCreatedCount(), getAverageWaitMillis(), getMaxWaitMillis(), getHealthCheckFailures(),
+                getStatementCacheHits(), getStatementCacheMisses());
+    }
+}
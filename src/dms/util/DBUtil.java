@@ -3,28 +3,128 @@ package dms.util;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Irene Duett, CEN 3024c, 11/12/2025
  * class: DBUtil
  * purpose: Provides a utility method to obtain a connection to a SQLite database.
  *          Simplifies connecting to the database from anywhere in the application.
+ *          Also manages two shared {@link ConnectionPool}s per database, so every part
+ *          of the application reuses the same long-lived connections: a read-only pool
+ *          for queries and a single-connection pool through which all writes go.
  */
 public class DBUtil {
 
+    /** Default maximum read pool size; override with the {@code dms.pool.size} system property. */
+    public static final int DEFAULT_POOL_SIZE = Integer.getInteger("dms.pool.size", 4);
+
+    /**
+     * Slow-query threshold in milliseconds for new pools, from the {@code dms.slowQueryMillis}
+     * system property; negative (the default) disables slow-query logging.
+     */
+    public static final long SLOW_QUERY_MILLIS = Long.getLong("dms.slowQueryMillis", -1);
+
+    private static final String JDBC_PREFIX = "jdbc:sqlite:";
+    private static final Map<String, ConnectionPool> POOLS = new ConcurrentHashMap<>();
+    private static final Map<String, ConnectionPool> WRITER_POOLS = new ConcurrentHashMap<>();
+
     /**
      * method: getConnection
      * parameters: String dbPath - full path to SQLite database
      * return: Connection
      * purpose: Connects to the SQLite database at the specified path.
      *          Throws SQLException if the connection fails.
+     *          The connection is not pooled; prefer {@link #getPool(String)} for repeated access.
      *
      * @param dbPath Full path to the SQLite database file
      * @return Connection object to the SQLite database
      * @throws SQLException if the connection cannot be established
      */
     public static Connection getConnection(String dbPath) throws SQLException {
-        String url = "jdbc:sqlite:" + dbPath;
-        return DriverManager.getConnection(url);
+        return DriverManager.getConnection(toJdbcUrl(dbPath));
+    }
+
+    /**
+     * method: getPool
+     * parameters: String dbPathOrUrl - database file path or full JDBC URL
+     * return: ConnectionPool
+     * purpose: Returns the shared read-only connection pool for the database, creating it on
+     *          first use. Use {@link #getWriterPool(String)} for statements that modify data.
+     *          A private in-memory database exists only inside one connection, so for such
+     *          URLs this returns the writer pool. New pools log slow queries if
+     *          {@link #SLOW_QUERY_MILLIS} is set.
+     *
+     * @param dbPathOrUrl a file path (e.g., "C:/path/to/dvds.db") or JDBC URL
+     * @return the read pool serving that database
+     */
+    public static ConnectionPool getPool(String dbPathOrUrl) {
+        String jdbcUrl = toJdbcUrl(dbPathOrUrl);
+        if (ConnectionPool.isPrivateMemoryDatabase(jdbcUrl)) return getWriterPool(jdbcUrl);
+        return POOLS.computeIfAbsent(jdbcUrl, url ->
+                withSlowQueryLog(new ConnectionPool(url, DEFAULT_POOL_SIZE, ConnectionPool.DEFAULT_MAX_WAIT_MILLIS, true)));
+    }
+
+    /**
+     * method: getWriterPool
+     * parameters: String dbPathOrUrl - database file path or full JDBC URL
+     * return: ConnectionPool
+     * purpose: Returns the shared writer pool for the database, creating it on first use.
+     *          It holds a single connection, so writes are serialized here instead of
+     *          contending for SQLite's write lock, and it puts the database in WAL mode.
+     *
+     * @param dbPathOrUrl a file path or JDBC URL
+     * @return the writer pool serving that database
+     */
+    public static ConnectionPool getWriterPool(String dbPathOrUrl) {
+        return WRITER_POOLS.computeIfAbsent(toJdbcUrl(dbPathOrUrl), url -> withSlowQueryLog(new ConnectionPool(url, 1)));
+    }
+
+    private static ConnectionPool withSlowQueryLog(ConnectionPool pool) {
+        if (SLOW_QUERY_MILLIS >= 0) pool.setSlowQueryLog(new SlowQueryLog(Duration.ofMillis(SLOW_QUERY_MILLIS)));
+        return pool;
+    }
+
+    /**
+     * method: closePool
+     * parameters: String dbPathOrUrl - database file path or full JDBC URL
+     * return: void
+     * purpose: Closes and forgets the shared read and writer pools for the database, if they exist.
+     *
+     * @param dbPathOrUrl a file path or JDBC URL
+     */
+    public static void closePool(String dbPathOrUrl) {
+        ConnectionPool pool = POOLS.remove(toJdbcUrl(dbPathOrUrl));
+        if (pool != null) pool.close();
+        ConnectionPool writerPool = WRITER_POOLS.remove(toJdbcUrl(dbPathOrUrl));
+        if (writerPool != null) writerPool.close();
+    }
+
+    /**
+     * method: closeAllPools
+     * parameters: none
+     * return: void
+     * purpose: Closes every shared pool, e.g. when the application exits.
+     */
+    public static void closeAllPools() {
+        POOLS.values().forEach(ConnectionPool::close);
+        POOLS.clear();
+        WRITER_POOLS.values().forEach(ConnectionPool::close);
+        WRITER_POOLS.clear();
+    }
+
+    /**
+     * method: toJdbcUrl
+     * parameters: String dbPathOrUrl
+     * return: String
+     * purpose: Accepts either a plain file path or a full JDBC URL and returns the JDBC URL.
+     *
+     * @param dbPathOrUrl a file path or JDBC URL
+     * @return a "jdbc:sqlite:" URL
+     */
+    public static String toJdbcUrl(String dbPathOrUrl) {
+        return dbPathOrUrl.startsWith("jdbc:") ? dbPathOrUrl : JDBC_PREFIX + dbPathOrUrl;
     }
 }
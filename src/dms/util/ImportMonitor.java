@@ -0,0 +1,37 @@
+package dms.util;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * interface: ImportMonitor
+ * purpose: Receives progress reports from a running {@link CSVImporter} import and
+ *          lets the caller cancel it. Methods are called on the importing thread.
+ */
+public interface ImportMonitor {
+
+    /** A monitor that ignores progress and never cancels. */
+    ImportMonitor NONE = (rowsImported, rowsPerSecond) -> { };
+
+    /**
+     * method: progress
+     * parameters: int rowsImported, double rowsPerSecond
+     * return: void
+     * purpose: Called after each committed batch.
+     *
+     * @param rowsImported  the number of rows committed so far
+     * @param rowsPerSecond the average insert rate since the import started
+     */
+    void progress(int rowsImported, double rowsPerSecond);
+
+    /**
+     * method: isCancelled
+     * parameters: none
+     * return: boolean
+     * purpose: Polled for every row; returning true stops the import.
+     *          Rows read before the cancellation are still committed.
+     *
+     * @return true to stop the import
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
@@ -0,0 +1,145 @@
+package dms.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * class: LatencyHistogram
+ * purpose: Lock-free, allocation-free histogram of latencies in nanoseconds.
+ *          Each power of two is split into {@link #SUB_BUCKETS} linear buckets, so reported
+ *          percentiles are within about 12.5% of the true value, from 1 ns up to about
+ *          18 minutes (longer values land in the last bucket). Recording is a few bit
+ *          operations and one atomic increment; percentiles are computed when read.
+ */
+public class LatencyHistogram {
+
+    /** Linear buckets per power of two; a power of two itself. */
+    static final int SUB_BUCKETS = 8;
+
+    private static final int SUB_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * method: record
+     * parameters: long nanos
+     * return: void
+     * purpose: Adds one measurement. Negative values are counted as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        buckets.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        totalNanos.addAndGet(value);
+        long max;
+        while (value > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, value)) {
+            // retry until this value is recorded or a larger one wins
+        }
+    }
+
+    /**
+     * method: getCount
+     * parameters: none
+     * return: long
+     * purpose: Returns the number of recorded measurements.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * method: getMeanNanos
+     * parameters: none
+     * return: double
+     * purpose: Returns the exact mean of all measurements, or 0 if there are none.
+     */
+    public double getMeanNanos() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) totalNanos.get() / n;
+    }
+
+    /**
+     * method: getMaxNanos
+     * parameters: none
+     * return: long
+     * purpose: Returns the exact largest measurement, or 0 if there are none.
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * method: getPercentileNanos
+     * parameters: double percentile
+     * return: long
+     * purpose: Returns the value below which the given percentage of measurements fall
+     *          (e.g. 99.9), as the upper bound of the bucket that contains it, capped at the max.
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(total * Math.min(Math.max(percentile, 0), 100) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= Math.max(rank, 1)) return Math.min(upperBoundOf(i), maxNanos.get());
+        }
+        return maxNanos.get();
+    }
+
+    /**
+     * method: reset
+     * parameters: none
+     * return: void
+     * purpose: Clears all measurements. Measurements recorded concurrently may be lost.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    /**
+     * method: bucketOf
+     * parameters: long value
+     * return: int
+     * purpose: Maps a value to its bucket: values below {@link #SUB_BUCKETS} get one bucket
+     *          each; larger values use their highest bit as the exponent and the next
+     *          {@code SUB_BITS} bits as the linear sub-bucket.
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) return BUCKET_COUNT - 1;
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * method: upperBoundOf
+     * parameters: int bucket
+     * return: long
+     * purpose: Returns the largest value that maps to the bucket.
+     */
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BITS);
+        return (1L << exponent) + (sub + 1) * width - 1;
+    }
+}
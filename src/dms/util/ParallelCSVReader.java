@@ -0,0 +1,349 @@
+package dms.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * class: ParallelCSVReader
+ * purpose: Reads large CSV files by memory-mapping them, splitting them into chunks that
+ *          start and end on record boundaries, and parsing the chunks in parallel on a
+ *          {@link ForkJoinPool}. Parsed chunks are handed to a single consumer in file order,
+ *          so the caller can write them sequentially (e.g. into a database).
+ *
+ * <p>Parsing follows RFC 4180: fields may be enclosed in double quotes, a quoted field
+ * may contain commas, line breaks and doubled quotes ({@code ""}), and records may end
+ * with LF or CRLF.</p>
+ *
+ * <p>Chunk boundaries are found without a sequential pass. The parser's quoting rules are
+ * tracked by a small state machine: a quote opens a quoted field only at the start of a
+ * field, and is plain text anywhere else. For every chunk, the state it ends in from each
+ * possible start state is computed in parallel; composing these in file order gives the
+ * state every chunk starts in, and each chunk then moves its start forward to the first
+ * line break that ends a record in that state.</p>
+ *
+ * <p><b>Usage Example:</b></p>
+ * <pre>
+ *     new ParallelCSVReader(Path.of("dvds.csv")).read(
+ *             records -&gt; records.size(),
+ *             count -&gt; total += count);
+ * </pre>
+ */
+public class ParallelCSVReader {
+
+    /** Default target size of a parse chunk in bytes. */
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private static final byte QUOTE = '"';
+    private static final byte COMMA = ',';
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    // States of the boundary scan, mirroring parse(). QUOTE_SEEN follows a quote inside a
+    // quoted field, which either escapes the next quote or closes the field; AFTER_CLOSE is
+    // the lenient text after the closing quote; AFTER_CR follows a CR after a quoted field,
+    // where parse() takes the next byte as the delimiter, whatever it is.
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_SEEN = 3;
+    private static final int AFTER_CLOSE = 4;
+    private static final int AFTER_CR = 5;
+    private static final int STATES = 6;
+
+    /** Next state by state and byte class: quote, comma, LF, CR, other. */
+    private static final int[][] TRANSITIONS = {
+            {QUOTED, FIELD_START, FIELD_START, UNQUOTED, UNQUOTED},
+            {UNQUOTED, FIELD_START, FIELD_START, UNQUOTED, UNQUOTED},
+            {QUOTE_SEEN, QUOTED, QUOTED, QUOTED, QUOTED},
+            {QUOTED, FIELD_START, FIELD_START, AFTER_CR, AFTER_CLOSE},
+            {AFTER_CLOSE, FIELD_START, FIELD_START, AFTER_CR, AFTER_CLOSE},
+            {FIELD_START, FIELD_START, FIELD_START, FIELD_START, FIELD_START},
+    };
+
+    private final Path file;
+    private final int chunkSize;
+    private final ForkJoinPool pool;
+
+    /**
+     * Receives parsed chunks in file order.
+     *
+     * @param <R> the per-chunk result type
+     * @param <X> the exception type the consumer may throw
+     */
+    @FunctionalInterface
+    public interface ChunkConsumer<R, X extends Exception> {
+        void accept(R chunk) throws X;
+    }
+
+    /**
+     * method: ParallelCSVReader (constructor)
+     * parameters: Path file
+     * purpose: Creates a reader using the default chunk size and the common fork-join pool.
+     *
+     * @param file the CSV file to read
+     */
+    public ParallelCSVReader(Path file) {
+        this(file, DEFAULT_CHUNK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * method: ParallelCSVReader (constructor)
+     * parameters: Path file, int chunkSize, ForkJoinPool pool
+     * purpose: Creates a reader with an explicit chunk size and worker pool.
+     *
+     * @param file      the CSV file to read
+     * @param chunkSize target chunk size in bytes
+     * @param pool      the pool that parses chunks
+     */
+    public ParallelCSVReader(Path file, int chunkSize, ForkJoinPool pool) {
+        if (chunkSize < 1) throw new IllegalArgumentException("Chunk size must be positive.");
+        this.file = file;
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+    }
+
+    /**
+     * method: read
+     * parameters: Function mapper, ChunkConsumer consumer
+     * return: void
+     * purpose: Parses the file chunk by chunk. {@code mapper} runs on pool threads and turns
+     *          the records of one chunk into a result; {@code consumer} runs on the calling
+     *          thread and receives the results strictly in file order. Only a bounded number
+     *          of chunks is in flight at once, so memory use does not grow with file size.
+     *
+     * @param mapper   converts a chunk's records into a result (runs in parallel)
+     * @param consumer receives results in file order (runs sequentially)
+     * @param <R>      the per-chunk result type
+     * @param <X>      the exception type the consumer may throw
+     * @throws IOException if the file cannot be read
+     * @throws X           if the consumer fails; remaining chunks are cancelled
+     */
+    public <R, X extends Exception> void read(Function<List<CSVRecord>, R> mapper,
+                                              ChunkConsumer<R, X> consumer) throws IOException, X {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = findChunkBoundaries(channel);
+            int window = Math.max(2, pool.getParallelism() * 2);
+            Deque<ForkJoinTask<R>> inFlight = new ArrayDeque<>();
+            int next = 0;
+            try {
+                while (next < bounds.length - 1 || !inFlight.isEmpty()) {
+                    while (next < bounds.length - 1 && inFlight.size() < window) {
+                        long start = bounds[next];
+                        long end = bounds[next + 1];
+                        next++;
+                        if (start == end) continue;
+                        inFlight.add(pool.submit(() -> mapper.apply(parse(map(channel, start, end)))));
+                    }
+                    if (!inFlight.isEmpty()) consumer.accept(inFlight.poll().join());
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                inFlight.forEach(task -> task.cancel(true));
+            }
+        }
+    }
+
+    /**
+     * method: parse
+     * parameters: ByteBuffer buffer
+     * return: List of CSVRecord
+     * purpose: Parses every record in the buffer, from position 0 to its limit.
+     *          The buffer must start at a record boundary.
+     *
+     * @param buffer UTF-8 encoded CSV data
+     * @return the parsed records in order
+     */
+    public static List<CSVRecord> parse(ByteBuffer buffer) {
+        List<CSVRecord> records = new ArrayList<>();
+        List<String> fields = new ArrayList<>(8);
+        byte[] scratch = new byte[256];
+        int limit = buffer.limit();
+        int pos = 0;
+
+        while (pos < limit) {
+            int recordStart = pos;
+            int recordEnd;
+            fields.clear();
+
+            while (true) {
+                int len = 0;
+                if (buffer.get(pos) == QUOTE) {
+                    pos++;
+                    while (pos < limit) {
+                        byte b = buffer.get(pos++);
+                        if (b == QUOTE) {
+                            if (pos < limit && buffer.get(pos) == QUOTE) {
+                                pos++;
+                            } else {
+                                break;
+                            }
+                        }
+                        if (len == scratch.length) scratch = Arrays.copyOf(scratch, len * 2);
+                        scratch[len++] = b;
+                    }
+                    // Be lenient about characters between the closing quote and the delimiter.
+                    while (pos < limit) {
+                        byte b = buffer.get(pos);
+                        if (b == COMMA || b == LF || b == CR) break;
+                        if (len == scratch.length) scratch = Arrays.copyOf(scratch, len * 2);
+                        scratch[len++] = b;
+                        pos++;
+                    }
+                } else {
+                    while (pos < limit) {
+                        byte b = buffer.get(pos);
+                        if (b == COMMA || b == LF) break;
+                        if (len == scratch.length) scratch = Arrays.copyOf(scratch, len * 2);
+                        scratch[len++] = b;
+                        pos++;
+                    }
+                    if (len > 0 && scratch[len - 1] == CR && (pos == limit || buffer.get(pos) == LF)) len--;
+                }
+                fields.add(new String(scratch, 0, len, StandardCharsets.UTF_8));
+
+                if (pos < limit && buffer.get(pos) == CR) pos++;
+                if (pos >= limit) {
+                    recordEnd = trimLineEnd(buffer, recordStart, limit);
+                    break;
+                }
+                byte delimiter = buffer.get(pos++);
+                if (delimiter == LF) {
+                    recordEnd = trimLineEnd(buffer, recordStart, pos - 1);
+                    break;
+                }
+                if (pos >= limit) {
+                    // A trailing comma at the very end of the data still opens an empty field.
+                    fields.add("");
+                    recordEnd = limit;
+                    break;
+                }
+            }
+            records.add(new CSVRecord(fields.toArray(new String[0]), buffer, recordStart, recordEnd));
+        }
+        return records;
+    }
+
+    /**
+     * Computes chunk boundaries so that every chunk starts at the beginning of a record.
+     * The returned array starts with 0 and ends with the file size; adjacent entries may be
+     * equal when a single record spans several chunks.
+     */
+    private long[] findChunkBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int segments = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+        if (size == 0) return new long[] {0, 0};
+
+        // Pass 1: the end state of every segment for each start state, in parallel.
+        List<ForkJoinTask<int[]>> stateTasks = new ArrayList<>(segments);
+        for (int i = 0; i < segments; i++) {
+            long start = (long) i * chunkSize;
+            long end = Math.min(size, start + chunkSize);
+            stateTasks.add(pool.submit(() -> endStates(map(channel, start, end))));
+        }
+        int[] startStates = new int[segments];
+        int state = FIELD_START;
+        for (int i = 0; i < segments; i++) {
+            startStates[i] = state;
+            state = join(stateTasks.get(i))[state];
+        }
+
+        // Pass 2: move every segment start forward to the next record boundary, in parallel.
+        List<ForkJoinTask<Long>> boundaryTasks = new ArrayList<>(segments);
+        for (int i = 1; i < segments; i++) {
+            long start = (long) i * chunkSize;
+            int startState = startStates[i];
+            boundaryTasks.add(pool.submit(() -> nextRecordStart(channel, start, startState, size)));
+        }
+        long[] bounds = new long[segments + 1];
+        for (int i = 1; i < segments; i++) {
+            bounds[i] = Math.max(bounds[i - 1], join(boundaryTasks.get(i - 1)));
+        }
+        bounds[segments] = size;
+        return bounds;
+    }
+
+    private long nextRecordStart(FileChannel channel, long start, int state, long size) {
+        long windowStart = start;
+        while (windowStart < size) {
+            long windowEnd = Math.min(size, windowStart + chunkSize);
+            ByteBuffer window = map(channel, windowStart, windowEnd);
+            int limit = window.limit();
+            for (int i = 0; i < limit; i++) {
+                byte b = window.get(i);
+                if (b == LF && state != QUOTED) return windowStart + i + 1;
+                state = TRANSITIONS[state][byteClass(b)];
+            }
+            windowStart = windowEnd;
+        }
+        return size;
+    }
+
+    /**
+     * Runs the boundary scan over a buffer from every start state at once.
+     *
+     * @return the end state for each start state
+     */
+    private static int[] endStates(ByteBuffer buffer) {
+        int[] states = new int[STATES];
+        for (int s = 0; s < STATES; s++) {
+            states[s] = s;
+        }
+        int limit = buffer.limit();
+        for (int i = 0; i < limit; i++) {
+            int cls = byteClass(buffer.get(i));
+            for (int s = 0; s < STATES; s++) {
+                states[s] = TRANSITIONS[states[s]][cls];
+            }
+        }
+        return states;
+    }
+
+    private static int byteClass(byte b) {
+        return switch (b) {
+            case QUOTE -> 0;
+            case COMMA -> 1;
+            case LF -> 2;
+            case CR -> 3;
+            default -> 4;
+        };
+    }
+
+    private static int trimLineEnd(ByteBuffer buffer, int start, int end) {
+        return end > start && buffer.get(end - 1) == CR ? end - 1 : end;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long start, long end) {
+        if (end - start > Integer.MAX_VALUE) {
+            throw new UncheckedIOException(new IOException("CSV record too large to map at offset " + start));
+        }
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static <T> T join(ForkJoinTask<T> task) throws IOException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package dms.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * class: PooledConnection
+ * purpose: A connection borrowed from a {@link ConnectionPool}. It wraps the physical
+ *          JDBC connection together with a small LRU cache of prepared statements, so
+ *          the same SQL is only parsed once per connection.
+ *          Closing a {@code PooledConnection} returns it to the pool instead of closing it.
+ *
+ * <p>Statements returned by {@link #prepare(String)} belong to the cache and must not be
+ * closed by the caller. Result sets obtained from them should still be closed.</p>
+ */
+public class PooledConnection implements AutoCloseable {
+
+    /** Maximum number of prepared statements kept open per connection. */
+    static final int STATEMENT_CACHE_SIZE = 32;
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private long lastUsedNanos = System.nanoTime();
+    private boolean inUse;
+
+    PooledConnection(ConnectionPool pool, Connection connection) {
+        this.pool = pool;
+        this.connection = connection;
+    }
+
+    /**
+     * method: getConnection
+     * return: Connection
+     * purpose: Returns the underlying JDBC connection, e.g. for transaction control.
+     *          Do not close it directly; close this {@code PooledConnection} instead.
+     *
+     * @return the physical connection
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * method: prepare
+     * parameters: String sql
+     * return: PreparedStatement
+     * purpose: Returns a cached prepared statement for the SQL text, preparing it on first use.
+     *          Parameters left over from a previous use are cleared. If the pool has a
+     *          {@link SlowQueryLog}, the statement is returned wrapped for timing.
+     *
+     * @param sql the SQL to prepare
+     * @return a ready-to-bind prepared statement owned by this connection
+     * @throws SQLException if the statement cannot be prepared
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement stmt = statements.get(sql);
+        if (stmt != null && !stmt.isClosed()) {
+            pool.recordStatementCacheHit();
+            stmt.clearParameters();
+        } else {
+            pool.recordStatementCacheMiss();
+            stmt = connection.prepareStatement(sql);
+            statements.put(sql, stmt);
+            evictIfNeeded();
+        }
+        SlowQueryLog slowQueryLog = pool.getSlowQueryLog();
+        return slowQueryLog == null ? stmt : slowQueryLog.wrap(stmt, sql, connection);
+    }
+
+    /**
+     * method: close
+     * parameters: none
+     * return: void
+     * purpose: Gives the connection back to its pool.
+     */
+    @Override
+    public void close() {
+        if (!inUse) return;
+        inUse = false;
+        pool.release(this);
+    }
+
+    void markInUse() {
+        inUse = true;
+    }
+
+    void markIdle() {
+        lastUsedNanos = System.nanoTime();
+    }
+
+    long getLastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    void closeQuietly() {
+        for (PreparedStatement stmt : statements.values()) {
+            try {
+                stmt.close();
+            } catch (SQLException ignored) {
+                // closing anyway
+            }
+        }
+        statements.clear();
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // closing anyway
+        }
+    }
+
+    private void evictIfNeeded() {
+        if (statements.size() <= STATEMENT_CACHE_SIZE) return;
+        Iterator<PreparedStatement> eldest = statements.values().iterator();
+        PreparedStatement stmt = eldest.next();
+        eldest.remove();
+        try {
+            stmt.close();
+        } catch (SQLException ignored) {
+            // evicted statement is no longer needed
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package dms.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ * class: SlowQueryLog
+ * purpose: Logs statements that take longer than a threshold through SLF4J, with their SQL,
+ *          bound parameters, elapsed time and {@code EXPLAIN QUERY PLAN} output.
+ *
+ * <p>When a pool has a slow-query log (see {@link ConnectionPool#setSlowQueryLog}),
+ * {@link PooledConnection#prepare(String)} returns statements wrapped in a proxy that records
+ * bound parameters and times each execute call. Without one, statements are not wrapped
+ * and cost nothing extra. For queries the result set is wrapped as well, and the time
+ * covers executing the statement and reading its rows, up to closing the result set; a
+ * result set that is never closed is never reported.</p>
+ *
+ * <p>The query plan is captured on the first slow execution of each distinct SQL text and
+ * cached. Log lines are rate-limited by a token bucket; slow queries that are not logged
+ * are counted and the count is reported with the next line that is.</p>
+ */
+public class SlowQueryLog {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    /** Default number of log lines allowed per minute. */
+    public static final int DEFAULT_MAX_PER_MINUTE = 10;
+
+    /** Plans kept at most; SQL beyond this is explained each time it is logged. */
+    private static final int MAX_CACHED_PLANS = 256;
+
+    private final long thresholdNanos;
+    private final int maxPerMinute;
+    private final Map<String, String> plans = new ConcurrentHashMap<>();
+    private final AtomicLong slowCount = new AtomicLong();
+    private final AtomicLong suppressedCount = new AtomicLong();
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    /**
+     * method: SlowQueryLog
+     * parameters: Duration threshold
+     * return: none
+     * purpose: Creates a log for statements slower than the threshold,
+     *          with at most {@link #DEFAULT_MAX_PER_MINUTE} lines per minute.
+     */
+    public SlowQueryLog(Duration threshold) {
+        this(threshold, DEFAULT_MAX_PER_MINUTE);
+    }
+
+    /**
+     * method: SlowQueryLog
+     * parameters: Duration threshold, int maxPerMinute
+     * return: none
+     * purpose: Creates a log for statements slower than the threshold. Up to
+     *          {@code maxPerMinute} lines may be written in a burst; after that, one line
+     *          is allowed every {@code 60 / maxPerMinute} seconds.
+     */
+    public SlowQueryLog(Duration threshold, int maxPerMinute) {
+        if (maxPerMinute < 1) throw new IllegalArgumentException("Rate limit must be at least 1 per minute.");
+        this.thresholdNanos = threshold.toNanos();
+        this.maxPerMinute = maxPerMinute;
+        this.tokens = maxPerMinute;
+    }
+
+    /**
+     * method: getThreshold
+     * parameters: none
+     * return: Duration
+     * purpose: Returns the duration above which statements are logged.
+     */
+    public Duration getThreshold() {
+        return Duration.ofNanos(thresholdNanos);
+    }
+
+    /**
+     * method: getSlowCount
+     * parameters: none
+     * return: long
+     * purpose: Returns how many statements exceeded the threshold, logged or not.
+     */
+    public long getSlowCount() {
+        return slowCount.get();
+    }
+
+    /**
+     * method: getSuppressedCount
+     * parameters: none
+     * return: long
+     * purpose: Returns how many slow statements were not logged because of the rate limit.
+     */
+    public long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    /**
+     * method: wrap
+     * parameters: PreparedStatement stmt, String sql, Connection connection
+     * return: PreparedStatement
+     * purpose: Returns a proxy of the statement that times its execute calls.
+     *          The proxy records parameters bound through it, so wrap a statement
+     *          before binding parameters.
+     */
+    PreparedStatement wrap(PreparedStatement stmt, String sql, Connection connection) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, new TimingHandler(stmt, sql, connection));
+    }
+
+    /**
+     * method: report
+     * parameters: String sql, String params, long elapsedNanos, Connection connection
+     * return: void
+     * purpose: Logs one slow statement if the rate limit allows it.
+     */
+    void report(String sql, String params, long elapsedNanos, Connection connection) {
+        slowCount.incrementAndGet();
+        if (!log.isWarnEnabled()) return;
+        if (!tryAcquire()) {
+            suppressedCount.incrementAndGet();
+            return;
+        }
+        String plan = plans.get(sql);
+        if (plan == null) {
+            plan = explain(sql, connection);
+            if (plans.size() < MAX_CACHED_PLANS) plans.putIfAbsent(sql, plan);
+        }
+        long suppressed = suppressedCount.getAndSet(0);
+        log.warn("Slow query ({} ms): {} params={} plan={}{}", elapsedNanos / 1_000_000, sql, params, plan,
+                suppressed > 0 ? " (" + suppressed + " slow queries not logged since the last one)" : "");
+    }
+
+    private synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        tokens = Math.min(maxPerMinute, tokens + (now - lastRefillNanos) * maxPerMinute / 60e9);
+        lastRefillNanos = now;
+        if (tokens < 1) return false;
+        tokens -= 1;
+        return true;
+    }
+
+    private static String explain(String sql, Connection connection) {
+        List<String> plan = new ArrayList<>();
+        // Parameters are left unbound (NULL); the plan does not depend on their values.
+        try (PreparedStatement stmt = connection.prepareStatement("EXPLAIN QUERY PLAN " + sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                plan.add(rs.getString("detail"));
+            }
+        } catch (SQLException e) {
+            return "(unavailable: " + e.getMessage() + ")";
+        }
+        return plan.toString();
+    }
+
+    /**
+     * Forwards every call to the real statement, remembering bound parameters and timing
+     * the execute methods.
+     */
+    private class TimingHandler implements InvocationHandler {
+        private final PreparedStatement target;
+        private final String sql;
+        private final Connection connection;
+        private final Map<Integer, Object> params = new TreeMap<>();
+        private int batchSize;
+
+        TimingHandler(PreparedStatement target, String sql, Connection connection) {
+            this.target = target;
+            this.sql = sql;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                params.put(index, args[1]);
+            } else if (name.equals("clearParameters")) {
+                params.clear();
+            } else if (name.equals("addBatch") && args == null) {
+                batchSize++;
+            } else if (name.equals("clearBatch")) {
+                batchSize = 0;
+            }
+
+            if (!name.startsWith("execute")) return call(method, args);
+
+            long start = System.nanoTime();
+            String described = name.equals("executeBatch") ? "batch of " + batchSize + " rows" : params.toString();
+            if (name.equals("executeBatch")) batchSize = 0;
+            Object result;
+            try {
+                result = call(method, args);
+            } catch (Throwable t) {
+                finish(described, start);
+                throw t;
+            }
+            if (result instanceof ResultSet rs) {
+                // Most of a query's cost can be in stepping through its rows.
+                return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+                        new ResultSetHandler(rs, described, start));
+            }
+            finish(described, start);
+            return result;
+        }
+
+        private void finish(String described, long start) {
+            long elapsed = System.nanoTime() - start;
+            if (elapsed >= thresholdNanos) report(sql, described, elapsed, connection);
+        }
+
+        private Object call(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Forwards every call to the real result set and finishes timing its query when
+         * it is first closed.
+         */
+        private class ResultSetHandler implements InvocationHandler {
+            private final ResultSet target;
+            private final String described;
+            private final long start;
+            private boolean finished;
+
+            ResultSetHandler(ResultSet target, String described, long start) {
+                this.target = target;
+                this.described = described;
+                this.start = start;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                } finally {
+                    if (method.getName().equals("close") && !finished) {
+                        finished = true;
+                        finish(described, start);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package dms.service;
+
+import dms.model.DVD;
+import dms.util.DBUtil;
+import dms.util.PooledConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code AsyncDVDCollectionTest} class verifies that an {@link AsyncDVDCollection}
+ * returns the same results as the collection it wraps, and that no more than the
+ * configured number of calls reach the database at once.
+ *
+ * <p>This class uses the JUnit 5 testing framework to validate functionality.</p>
+ */
+class AsyncDVDCollectionTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String dbPath;
+    private DVDCollection collection;
+    private AsyncDVDCollection async;
+
+    /**
+     * Creates a collection on a fresh database file with three DVDs, and a facade that
+     * allows two concurrent calls.
+     */
+    @BeforeEach
+    void setup() {
+        dbPath = tempDir.resolve("dvds.db").toString();
+        collection = new DVDCollection(dbPath);
+        collection.addDVD(new DVD(0, "The Matrix", "Wachowski", 1999, "Sci-Fi", 8.7));
+        collection.addDVD(new DVD(0, "Inception", "Nolan", 2010, "Sci-Fi", 9.0));
+        collection.addDVD(new DVD(0, "Titanic", "Cameron", 1997, "Drama", 7.8));
+        async = new AsyncDVDCollection(collection, 2);
+    }
+
+    /**
+     * Stops the facade and closes the database's pools so the temporary file can be deleted.
+     */
+    @AfterEach
+    void tearDown() {
+        async.close();
+        DBUtil.closePool(dbPath);
+    }
+
+    /**
+     * Tests that each asynchronous call completes with the result of the matching
+     * {@link DVDCollection} call.
+     */
+    @Test
+    void testResultsMatchCollection() {
+        List<Integer> ids = collection.listAll().stream().map(DVD::getId).toList();
+        assertEquals("Inception", async.findById(ids.get(1)).join().orElseThrow().getTitle());
+        assertTrue(async.findById(-1).join().isEmpty());
+        assertEquals(ids, async.findAllById(List.of(ids.get(2), -1, ids.get(0), ids.get(1))).join()
+                .stream().map(DVD::getId).toList());
+        assertEquals(ids.subList(1, 3), async.page(ids.get(0), 10).join().stream().map(DVD::getId).toList());
+        assertEquals(8.85, async.computeAverageRatingByGenre("Sci-Fi").join(), 1e-9);
+
+        async.addDVD(new DVD(0, "Heat", "Mann", 1995, "Crime", 8.3)).join();
+        assertEquals(4, async.listAll().join().size());
+        assertTrue(async.updateDVD(ids.get(2), new DVD(ids.get(2), "Titanic", "Cameron", 1997, "Drama", 6.0)).join());
+        assertEquals(6.0, collection.findById(ids.get(2)).orElseThrow().getRating());
+        assertTrue(async.removeDVDById(ids.get(2)).join());
+        assertFalse(async.removeDVDById(ids.get(2)).join());
+    }
+
+    /**
+     * Tests that while the writer connection is held, two calls wait inside the collection
+     * and the rest wait on the facade's semaphore, and that all of them complete once the
+     * connection is given back.
+     */
+    @Test
+    void testConcurrencyIsBounded() throws Exception {
+        List<CompletableFuture<Void>> adds = new ArrayList<>();
+        PooledConnection writer = collection.getWriterPool().borrow();
+        try {
+            for (int i = 0; i < 5; i++) {
+                adds.add(async.addDVD(new DVD(0, "Movie " + i, "Director", 2000, "Drama", 5.0)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (async.getQueueLength() < 3 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(3, async.getQueueLength());
+            Thread.sleep(100);
+            assertEquals(3, async.getQueueLength(), "no third call gets past the semaphore");
+            assertEquals(3, collection.count());
+        } finally {
+            writer.close();
+        }
+        for (CompletableFuture<Void> add : adds) {
+            add.get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(0, async.getQueueLength());
+        assertEquals(8, collection.count());
+    }
+}
@@ -0,0 +1,169 @@
+package dms.service;
+
+import dms.model.DVD;
+import dms.util.DBUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code ChangeFeedTest} class verifies the {@code dvd_changes} log and the
+ * {@link ChangeFeed}: every add, update and removal is logged in commit order, listeners
+ * receive changes made through the collection and by another connection to the same
+ * file, the lookup cache drops DVDs changed elsewhere, and the log trims itself.
+ *
+ * <p>This class uses the JUnit 5 testing framework to validate functionality.</p>
+ */
+class ChangeFeedTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String dbPath;
+    private DVDCollection collection;
+
+    /**
+     * Creates a collection on a fresh database file with one DVD in it.
+     */
+    @BeforeEach
+    void setup() {
+        dbPath = tempDir.resolve("dvds.db").toString();
+        collection = new DVDCollection(dbPath);
+        collection.addDVD(new DVD(0, "The Matrix", "Wachowski", 1999, "Sci-Fi", 8.7));
+    }
+
+    /**
+     * Stops the feed and closes the database's pools so the temporary file can be deleted.
+     */
+    @AfterEach
+    void tearDown() {
+        collection.disableChangeFeed();
+        DBUtil.closePool(dbPath);
+    }
+
+    /**
+     * Tests that adds, updates and removals are logged in order with the DVDs' current
+     * values, that the limit is honoured, and that a reader behind trimmed entries is told
+     * to reload.
+     */
+    @Test
+    void testChangesSince() {
+        long start = collection.getLatestChangeSeq();
+        assertTrue(start > 0, "the setup insert is logged");
+
+        BulkResult added = collection.addAll(List.of(
+                new DVD(0, "Heat", "Mann", 1995, "Crime", 8.3),
+                new DVD(0, "Bound", "Wachowski", 1996, "Crime", 7.3)));
+        int heatId = added.getIds().get(0);
+        int boundId = added.getIds().get(1);
+        assertTrue(collection.updateDVD(heatId, new DVD(heatId, "Heat", "Mann", 1995, "Thriller", 9.0)));
+        assertTrue(collection.removeDVDById(boundId));
+
+        List<DVDChange> changes = collection.changesSince(start, 10);
+        assertEquals(4, changes.size());
+        assertEquals(DVDChange.Type.ADDED, changes.get(0).getType());
+        assertEquals("Thriller", changes.get(0).getDvd().getGenre(), "values are read when the change is");
+        assertEquals(boundId, changes.get(1).getDvdId());
+        assertNull(changes.get(1).getDvd(), "Bound has been removed since");
+        assertEquals(DVDChange.Type.UPDATED, changes.get(2).getType());
+        assertEquals(DVDChange.Type.REMOVED, changes.get(3).getType());
+        for (int i = 1; i < changes.size(); i++) {
+            assertTrue(changes.get(i).getSeq() > changes.get(i - 1).getSeq());
+        }
+        assertEquals(changes.get(3).getSeq(), collection.getLatestChangeSeq());
+
+        assertEquals(2, collection.changesSince(start, 2).size());
+        assertEquals(1, collection.changesSince(changes.get(2).getSeq(), 10).size());
+
+        assertEquals(3, collection.trimChanges(changes.get(1).getSeq()));
+        assertEquals(2, collection.changesSince(changes.get(1).getSeq(), 10).size());
+        List<DVDChange> trimmed = collection.changesSince(start, 10);
+        assertEquals(1, trimmed.size());
+        assertEquals(DVDChange.Type.TRIMMED, trimmed.get(0).getType());
+        assertEquals(collection.getLatestChangeSeq(), trimmed.get(0).getSeq());
+
+        assertEquals(2, collection.trimChanges(collection.getLatestChangeSeq()));
+        assertEquals(changes.get(3).getSeq(), collection.getLatestChangeSeq(), "kept after trimming all");
+        assertTrue(collection.changesSince(changes.get(3).getSeq(), 10).isEmpty());
+    }
+
+    /**
+     * Tests that the log trims itself to its newest entries as changes are logged, and
+     * that a reader whose next change was trimmed is told to reload.
+     */
+    @Test
+    void testLogTrimsItself() throws Exception {
+        long start = collection.getLatestChangeSeq();
+        List<DVD> dvds = new ArrayList<>();
+        for (int i = 0; i < SchemaMigrator.RETAINED_CHANGES + 2 * SchemaMigrator.TRIM_CHANGES_EVERY; i++) {
+            dvds.add(new DVD(0, "Movie " + i, "Director", 2000, "Drama", 5.0));
+        }
+        assertTrue(collection.addAll(dvds).isCommitted());
+        long latest = collection.getLatestChangeSeq();
+
+        try (Connection conn = DriverManager.getConnection(DBUtil.toJdbcUrl(dbPath));
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*), MIN(seq) FROM dvd_changes")) {
+            assertTrue(rs.next());
+            assertTrue(rs.getInt(1) >= SchemaMigrator.RETAINED_CHANGES, "newest entries are kept");
+            assertTrue(rs.getInt(1) < SchemaMigrator.RETAINED_CHANGES + SchemaMigrator.TRIM_CHANGES_EVERY);
+            assertEquals(latest - rs.getInt(1) + 1, rs.getLong(2));
+        }
+        List<DVDChange> changes = collection.changesSince(start, 10);
+        assertEquals(List.of(DVDChange.Type.TRIMMED), changes.stream().map(DVDChange::getType).toList());
+        assertEquals(latest, changes.get(0).getSeq());
+        assertEquals(5, collection.changesSince(latest - 5, 10).size());
+    }
+
+    /**
+     * Tests that listeners receive a change made through the collection, and a change made
+     * by a separate connection within the poll interval, after which the cache no longer
+     * returns the old values.
+     */
+    @Test
+    void testFeedDeliversLocalAndExternalChanges() throws Exception {
+        collection.enableCache(100, null);
+        int matrixId = collection.listAll().get(0).getId();
+        assertEquals(8.7, collection.findById(matrixId).orElseThrow().getRating());
+
+        BlockingQueue<DVDChange> received = new LinkedBlockingQueue<>();
+        ChangeFeed feed = collection.enableChangeFeed(Duration.ofMillis(100));
+        feed.addListener(received::addAll);
+
+        collection.addDVD(new DVD(0, "Heat", "Mann", 1995, "Crime", 8.3));
+        DVDChange local = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(local);
+        assertEquals(DVDChange.Type.ADDED, local.getType());
+        assertEquals("Heat", local.getDvd().getTitle());
+
+        try (Connection other = DriverManager.getConnection(DBUtil.toJdbcUrl(dbPath));
+             Statement stmt = other.createStatement()) {
+            stmt.executeUpdate("UPDATE dvd SET rating = 9.5 WHERE id = " + matrixId);
+        }
+        DVDChange external = received.poll(5, TimeUnit.SECONDS);
+        assertNotNull(external, "the poller picks up writes by other connections");
+        assertEquals(DVDChange.Type.UPDATED, external.getType());
+        assertEquals(matrixId, external.getDvdId());
+        assertEquals(9.5, collection.findById(matrixId).orElseThrow().getRating());
+        assertEquals(external.getSeq(), feed.getLastSeq(), "published before the listeners run");
+        assertTrue(feed.awaitDelivered(external.getSeq(), Duration.ofSeconds(5)));
+        assertEquals(external.getSeq(), feed.getDeliveredSeq());
+    }
+}
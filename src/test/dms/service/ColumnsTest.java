@@ -0,0 +1,42 @@
+package dms.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code ColumnsTest} class verifies that {@link Columns} projections build the
+ * expected select list and that {@link DVDRow} only exposes the selected columns.
+ *
+ * <p>This class uses the JUnit 5 testing framework to validate functionality.</p>
+ */
+class ColumnsTest {
+
+    /**
+     * Tests that columns keep their given order, repeats are dropped and membership is tracked.
+     */
+    @Test
+    void testSelectList() {
+        Columns columns = Columns.of(DVDColumn.RATING, DVDColumn.GENRE, DVDColumn.RATING);
+        assertEquals("rating, genre", columns.selectList());
+        assertEquals(2, columns.size());
+        assertTrue(columns.contains(DVDColumn.GENRE));
+        assertFalse(columns.contains(DVDColumn.TITLE));
+        assertEquals("id, title, director, release_year, genre, rating", Columns.ALL.selectList());
+        assertThrows(IllegalArgumentException.class, () -> Columns.of());
+    }
+
+    /**
+     * Tests that reading a column outside the projection fails instead of returning stale data.
+     */
+    @Test
+    void testRowRejectsUnselectedColumn() {
+        DVDRow row = new DVDRow(Columns.of(DVDColumn.ID, DVDColumn.RATING));
+        assertEquals(0, row.getId());
+        assertThrows(IllegalStateException.class, row::getTitle);
+        assertThrows(IllegalStateException.class, () -> row.isNull(DVDColumn.GENRE));
+        assertNull(row.toDVD().getTitle());
+    }
+}
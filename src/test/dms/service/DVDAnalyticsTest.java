@@ -0,0 +1,207 @@
+package dms.service;
+
+import dms.model.DVD;
+import dms.util.DBUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code DVDAnalyticsTest} class verifies that every aggregate of {@link DVDAnalytics}
+ * matches the same aggregate computed by SQL, on a table large enough to be scanned by
+ * several tasks, after adds, updates and removals, and after a snapshot restore.
+ *
+ * <p>This class uses the JUnit 5 testing framework to validate functionality.</p>
+ */
+class DVDAnalyticsTest {
+
+    /** Enough rows for the scans to be split into several tasks. */
+    private static final int ROWS = 70_000;
+    private static final String[] GENRES = {"Drama", "Comedy", "Horror", "Sci-Fi", "Crime"};
+
+    @TempDir
+    Path tempDir;
+
+    private String dbPath;
+    private DVDCollection collection;
+    private DVDAnalytics analytics;
+
+    /**
+     * Creates a collection on a fresh database file.
+     */
+    @BeforeEach
+    void setup() {
+        dbPath = tempDir.resolve("dvds.db").toString();
+        collection = new DVDCollection(dbPath);
+    }
+
+    /**
+     * Closes the database's pools so the temporary file can be deleted.
+     */
+    @AfterEach
+    void tearDown() {
+        DBUtil.closePool(dbPath);
+    }
+
+    /**
+     * Tests that the aggregates of the initial load match SQL, and that they follow single
+     * and bulk inserts, which are loaded incrementally, and updates and removals, which
+     * are applied in place.
+     */
+    @Test
+    void testAggregatesMatchSqlAfterWrites() throws SQLException {
+        fill(ROWS);
+        assertEquals(ROWS, analytics.size());
+        assertMatchesSql();
+
+        collection.addDVD(new DVD(0, "Brazil", "Gilliam", 1985, "Satire", 8.0));
+        collection.addAll(List.of(new DVD(0, "Metropolis", "Lang", 1927, "Sci-Fi", 8.3),
+                new DVD(0, "Nosferatu", "Murnau", 1922, "Horror", -1)));
+        assertMatchesSql();
+
+        List<DVD> firstRows = collection.listPage(DVDCollection.SortColumn.ID, true, 0, 3);
+        DVD moved = firstRows.get(0);
+        assertTrue(collection.updateDVD(moved.getId(), new DVD(moved.getId(), moved.getTitle(),
+                "Gilliam", 2030, "Satire", -1)));
+        DVD rated = firstRows.get(1);
+        assertTrue(collection.updateDVD(rated.getId(), new DVD(rated.getId(), rated.getTitle(),
+                rated.getDirector(), rated.getReleaseYear(), rated.getGenre(), 10.0)));
+        assertTrue(collection.removeDVDById(firstRows.get(2).getId()));
+        assertMatchesSql();
+        assertEquals(2030, analytics.releaseYearRange()[1]);
+        assertEquals(ROWS + 2, analytics.size());
+    }
+
+    /**
+     * Tests that a restored snapshot is loaded into the analytics without querying the
+     * table, and that rows added after the restore are still loaded incrementally.
+     */
+    @Test
+    void testRestoreLoadsSnapshot() throws SQLException {
+        fill(2_000);
+        Path file = tempDir.resolve("dvds.snap");
+        assertTrue(collection.saveSnapshot(file));
+        collection.addDVD(new DVD(0, "Brazil", "Gilliam", 1985, "Satire", 8.0));
+        DVD first = collection.listPage(DVDCollection.SortColumn.ID, true, 0, 1).get(0);
+        assertTrue(collection.removeDVDById(first.getId()));
+
+        assertTrue(collection.restoreSnapshot(file));
+        assertEquals(0, analytics.statsForGenre("Satire").getCount(), "restored without the later add");
+        assertMatchesSql();
+
+        collection.addDVD(new DVD(0, "Metropolis", "Lang", 1927, "Silent", 8.3));
+        assertMatchesSql();
+    }
+
+    /**
+     * Adds DVDs with many directors and some unknown ratings, then enables analytics.
+     */
+    private void fill(int rows) {
+        List<DVD> dvds = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            dvds.add(new DVD(0, "Movie " + i, "Director " + i % (rows / 4), 1950 + i % 70,
+                    GENRES[i % GENRES.length], i % 12 - 1));
+        }
+        assertTrue(collection.addAll(dvds).isCommitted());
+        analytics = collection.enableAnalytics();
+    }
+
+    /**
+     * Compares every aggregate of the analytics engine with SQL over the {@code dvd} table.
+     */
+    private void assertMatchesSql() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(DBUtil.toJdbcUrl(dbPath))) {
+            Map<String, GroupStats> byGenre = analytics.statsByGenre();
+            Map<String, GroupStats> expectedByGenre = groupsFromSql(conn, "genre");
+            assertEquals(expectedByGenre.keySet(), byGenre.keySet());
+            for (Map.Entry<String, GroupStats> e : expectedByGenre.entrySet()) {
+                assertStats(e.getValue(), byGenre.get(e.getKey()), "genre " + e.getKey());
+                assertStats(e.getValue(), analytics.statsForGenre(e.getKey()), "single genre " + e.getKey());
+            }
+            assertEquals(0, analytics.statsForGenre("Western").getCount());
+
+            Map<String, GroupStats> byDirector = analytics.statsByDirector();
+            Map<String, GroupStats> expectedByDirector = groupsFromSql(conn, "director");
+            assertEquals(expectedByDirector.keySet(), byDirector.keySet());
+            for (Map.Entry<String, GroupStats> e : expectedByDirector.entrySet()) {
+                assertStats(e.getValue(), byDirector.get(e.getKey()), "director " + e.getKey());
+            }
+
+            Map<Integer, GroupStats> byYear = analytics.statsByReleaseYear();
+            Map<String, GroupStats> expectedByYear = groupsFromSql(conn, "release_year");
+            assertEquals(expectedByYear.size(), byYear.size());
+            for (Map.Entry<String, GroupStats> e : expectedByYear.entrySet()) {
+                assertStats(e.getValue(), byYear.get(Integer.parseInt(e.getKey())), "year " + e.getKey());
+            }
+
+            for (int buckets : new int[]{1, 7, 10}) {
+                long[] expected = new long[buckets];
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT MIN(? - 1, CAST(rating / 10.0 * ? AS INTEGER)), COUNT(*) FROM dvd " +
+                                "WHERE rating >= 0 GROUP BY 1")) {
+                    stmt.setInt(1, buckets);
+                    stmt.setInt(2, buckets);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) expected[rs.getInt(1)] = rs.getLong(2);
+                    }
+                }
+                assertArrayEquals(expected, analytics.ratingHistogram(buckets), buckets + " buckets");
+            }
+
+            assertArrayEquals(new int[]{queryInt(conn, "SELECT MIN(release_year) FROM dvd"),
+                    queryInt(conn, "SELECT MAX(release_year) FROM dvd")}, analytics.releaseYearRange());
+            assertEquals(queryInt(conn, "SELECT COUNT(*) FROM dvd WHERE release_year BETWEEN 1960 AND 1979"),
+                    analytics.countReleasedBetween(1960, 1979));
+            assertEquals(queryInt(conn, "SELECT COUNT(*) FROM dvd"), analytics.size());
+        }
+    }
+
+    /**
+     * Computes the aggregates of every group of a column with SQL, keyed by the column's text.
+     */
+    private static Map<String, GroupStats> groupsFromSql(Connection conn, String column) throws SQLException {
+        Map<String, GroupStats> groups = new HashMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT " + column + ", COUNT(*), " +
+                "SUM(rating >= 0), TOTAL(CASE WHEN rating >= 0 THEN rating END), " +
+                "MIN(release_year), MAX(release_year) FROM dvd GROUP BY " + column);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                groups.put(rs.getString(1), new GroupStats(rs.getLong(2), rs.getLong(3), rs.getDouble(4),
+                        rs.getInt(5), rs.getInt(6)));
+            }
+        }
+        return groups;
+    }
+
+    private static void assertStats(GroupStats expected, GroupStats actual, String group) {
+        assertNotNull(actual, group);
+        assertEquals(expected.getCount(), actual.getCount(), group);
+        assertEquals(expected.getRatedCount(), actual.getRatedCount(), group);
+        assertEquals(expected.getAverageRating(), actual.getAverageRating(), 1e-9, group);
+        assertEquals(expected.getMinYear(), actual.getMinYear(), group);
+        assertEquals(expected.getMaxYear(), actual.getMaxYear(), group);
+    }
+
+    private static int queryInt(Connection conn, String sql) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
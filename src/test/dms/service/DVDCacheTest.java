@@ -0,0 +1,57 @@
+package dms.service;
+
+import dms.model.DVD;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code DVDCacheTest} class verifies the LRU eviction, invalidation and
+ * copy-on-read behaviour of {@link DVDCache}.
+ *
+ * <p>This class uses the JUnit 5 testing framework to validate functionality.</p>
+ */
+class DVDCacheTest {
+
+    /**
+     * Tests that the least recently used entry is evicted when the cache is full.
+     */
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        DVDCache cache = new DVDCache(2, null);
+        cache.put(new DVD(1, "The Matrix", "Wachowski", 1999, "Sci-Fi", 8.7), cache.stamp());
+        cache.put(new DVD(2, "Inception", "Nolan", 2010, "Sci-Fi", 9.0), cache.stamp());
+        cache.get(1);
+        cache.put(new DVD(3, "Titanic", "Cameron", 1997, "Drama", 7.8), cache.stamp());
+
+        assertTrue(cache.get(1).isPresent());
+        assertTrue(cache.get(2).isEmpty());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    /**
+     * Tests that a value loaded before an invalidation is not cached, and that
+     * modifying a returned DVD does not change the cached copy.
+     */
+    @Test
+    void testInvalidationAndCopies() {
+        DVDCache cache = new DVDCache(10, Duration.ofMinutes(1));
+        long stamp = cache.stamp();
+        cache.invalidate(1);
+        cache.put(new DVD(1, "The Matrix", "Wachowski", 1999, "Sci-Fi", 8.7), stamp);
+        assertTrue(cache.get(1).isEmpty());
+
+        cache.put(new DVD(1, "The Matrix", "Wachowski", 1999, "Sci-Fi", 8.7), cache.stamp());
+        Optional<DVD> dvd = cache.get(1);
+        assertTrue(dvd.isPresent());
+        dvd.get().setTitle("Changed");
+        assertEquals("The Matrix", cache.get(1).get().getTitle());
+    }
+}
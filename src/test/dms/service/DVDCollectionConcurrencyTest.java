@@ -0,0 +1,210 @@
+package dms.service;
+
+import dms.model.DVD;
+import dms.util.DBUtil;
+import dms.util.PooledConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code DVDCollectionConcurrencyTest} class verifies the concurrency contract of
+ * {@link DVDCollection}: the database runs in WAL mode, reads are served by read-only
+ * connections and are not blocked by an open write transaction, and many threads can
+ * read and write one collection at once without errors or lost writes, also while a bulk
+ * session is open.
+ *
+ * <p>This class uses the JUnit 5 testing framework to validate functionality.</p>
+ */
+class DVDCollectionConcurrencyTest {
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int WRITES_PER_THREAD = 250;
+
+    @TempDir
+    Path tempDir;
+
+    private String dbPath;
+    private DVDCollection collection;
+
+    /**
+     * Creates a collection on a fresh database file with a few DVDs in it.
+     */
+    @BeforeEach
+    void setup() {
+        dbPath = tempDir.resolve("dvds.db").toString();
+        collection = new DVDCollection(dbPath);
+        collection.addDVD(new DVD(0, "The Matrix", "Wachowski", 1999, "Sci-Fi", 8.7));
+        collection.addDVD(new DVD(0, "Inception", "Nolan", 2010, "Sci-Fi", 9.0));
+        collection.addDVD(new DVD(0, "Titanic", "Cameron", 1997, "Drama", 7.8));
+    }
+
+    /**
+     * Closes the database's pools so the temporary file can be deleted.
+     */
+    @AfterEach
+    void tearDown() {
+        DBUtil.closePool(dbPath);
+    }
+
+    /**
+     * Tests that the database is in WAL mode and that the read pool refuses writes.
+     */
+    @Test
+    void testWalModeAndReadOnlyPool() throws SQLException {
+        try (PooledConnection conn = collection.getPool().borrow()) {
+            try (ResultSet rs = conn.prepare("PRAGMA journal_mode").executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals("wal", rs.getString(1).toLowerCase());
+            }
+            assertThrows(SQLException.class, () -> collection.insert(conn, new DVD(0, "Heat", "Mann", 1995, "Crime", 8.3)));
+        }
+        assertTrue(collection.getPool().isReadOnly());
+        assertFalse(collection.getWriterPool().isReadOnly());
+        assertEquals(1, collection.getWriterPool().getMaxSize());
+    }
+
+    /**
+     * Tests that reads complete while a write transaction is open, see only committed data,
+     * and see the new row once it commits.
+     */
+    @Test
+    void testReadsDoNotWaitForOpenWrite() throws Exception {
+        int before = collection.count();
+        try (PooledConnection conn = collection.getWriterPool().borrow()) {
+            Connection raw = conn.getConnection();
+            raw.setAutoCommit(false);
+            collection.insert(conn, new DVD(0, "Heat", "Mann", 1995, "Crime", 8.3));
+
+            int during = assertTimeoutPreemptively(Duration.ofSeconds(2), () -> collection.count());
+            assertEquals(before, during);
+            assertTrue(collection.search("Heat", 10).isEmpty());
+
+            raw.commit();
+            raw.setAutoCommit(true);
+        }
+        assertEquals(before + 1, collection.count());
+    }
+
+    /**
+     * Tests that a bulk session holds the writer connection only while it writes a batch,
+     * so other writes run between batches, and that a key another write added behind the
+     * session's key filter is upserted rather than skipped.
+     */
+    @Test
+    void testWritesRunBetweenBulkBatches() throws Exception {
+        try (BulkInserter inserter = collection.openBulkUpsert(2)) {
+            inserter.add(new DVD(0, "Heat", "Mann", 1995, "Crime", 8.3));
+            inserter.add(new DVD(0, "Alien", "Scott", 1979, "Horror", 8.5));
+            assertEquals(2, inserter.getRowsWritten());
+
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+                    executor.submit(() -> collection.addDVD(new DVD(0, "Bound", "Wachowski", 1996, "Crime", 7.3))).get();
+                }
+            });
+            collection.addDVD(new DVD(0, "Ronin", "Frankenheimer", 1998, "Crime", 7.2));
+            int boundId = collection.search("bound", 1).get(0).getId();
+
+            inserter.add(new DVD(0, "Bound", "Wachowski", 1996, "Thriller", 9.0));
+            inserter.add(new DVD(0, "Brazil", "Gilliam", 1985, "Satire", 8.0));
+            assertEquals(4, inserter.getRowsWritten());
+            assertEquals(0, inserter.getRowsSkipped());
+            assertEquals("Thriller", collection.findById(boundId).orElseThrow().getGenre());
+        }
+        assertEquals(8, collection.count());
+    }
+
+    /**
+     * Runs writer threads that add, update and remove DVDs while reader threads count,
+     * page and look up DVDs, and checks that no call failed, that readers never saw the
+     * collection shrink below its committed size, and that no write was lost.
+     */
+    @Test
+    void testConcurrentReadersAndWriters() throws Exception {
+        int before = collection.count();
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        AtomicInteger removed = new AtomicInteger();
+        CountDownLatch writersDone = new CountDownLatch(WRITERS);
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS)) {
+            for (int w = 0; w < WRITERS; w++) {
+                int writer = w;
+                executor.submit(() -> {
+                    try {
+                        for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                            String title = "Stress " + writer + "-" + i;
+                            DVD dvd = new DVD(0, title, "Director " + writer, 2000 + i % 20, "Drama", 5.0);
+                            if (i % 10 != 0) {
+                                collection.addDVD(dvd);
+                                continue;
+                            }
+                            BulkResult added = collection.addAll(List.of(dvd));
+                            if (!added.isCommitted()) {
+                                failures.add("Add failed: " + added.getError());
+                                continue;
+                            }
+                            int id = added.getIds().get(0);
+                            if (collection.findById(id).isEmpty()) failures.add("Own write not visible: " + id);
+                            if (!collection.updateDVD(id, new DVD(id, title, "Director " + writer, 2001, "Drama", 9.0))) {
+                                failures.add("Update failed for " + id);
+                            }
+                            if (i % 20 == 0) {
+                                if (collection.removeDVDById(id)) removed.incrementAndGet();
+                                else failures.add("Remove failed for " + id);
+                            }
+                        }
+                    } finally {
+                        writersDone.countDown();
+                    }
+                });
+            }
+            for (int r = 0; r < READERS; r++) {
+                executor.submit(() -> {
+                    int lastCount = 0;
+                    while (writing.get()) {
+                        int count = collection.count();
+                        // Every removal is of a DVD the same writer added first, so the
+                        // committed size can dip by at most one per writer.
+                        if (count < lastCount - WRITERS) failures.add("Count went from " + lastCount + " to " + count);
+                        lastCount = Math.max(lastCount, count);
+                        for (DVD dvd : collection.listPage(DVDCollection.SortColumn.TITLE, true, 0, 50)) {
+                            if (dvd.getTitle() == null) failures.add("Incomplete row " + dvd.getId());
+                        }
+                        collection.findById(1);
+                        collection.computeAverageRatingByGenre("Drama");
+                    }
+                });
+            }
+            writersDone.await();
+            writing.set(false);
+        }
+
+        assertTrue(failures.isEmpty(), () -> String.join("\n", failures));
+        for (OperationSnapshot op : collection.getMetrics().getOperations()) {
+            assertEquals(0, op.getErrors(), "errors in " + op.getOperation());
+        }
+        assertEquals(before + WRITERS * WRITES_PER_THREAD - removed.get(), collection.count());
+    }
+}
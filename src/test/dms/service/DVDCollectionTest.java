@@ -1,10 +1,26 @@
 package dms.service;
 
 import dms.model.DVD;
+import dms.util.ConnectionPool;
+import dms.util.DBUtil;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -33,20 +49,33 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 class DVDCollectionTest {
 
+    @TempDir
+    Path tempDir;
+
+    private String dbPath;
     private DVDCollection collection;
 
     /**
      * Initializes the test environment by creating a new {@link DVDCollection}
-     * instance and populating it with sample data.
+     * on a fresh database file and populating it with sample data.
      */
     @BeforeEach
     void setup() {
-        collection = new DVDCollection();
+        dbPath = tempDir.resolve("dvds.db").toString();
+        collection = new DVDCollection(dbPath);
         collection.addDVD(new DVD(0, "The Matrix", "Wachowski", 1999, "Sci-Fi", 8.7));
         collection.addDVD(new DVD(0, "Inception", "Nolan", 2010, "Sci-Fi", 9.0));
         collection.addDVD(new DVD(0, "Titanic", "Cameron", 1997, "Drama", 7.8));
     }
 
+    /**
+     * Closes the database's pools so the temporary file can be deleted.
+     */
+    @AfterEach
+    void tearDown() {
+        DBUtil.closePool(dbPath);
+    }
+
     /**
      * Tests the {@link DVDCollection#addDVD(DVD)} method to ensure that a new
      * DVD can be successfully added to the collection.
@@ -105,4 +134,219 @@ class DVDCollectionTest {
         double avg = collection.computeAverageRatingByGenre("Sci-Fi");
         assertEquals((8.7 + 9.0) / 2, avg);
     }
+
+    /**
+     * Tests that the running totals in {@code genre_stats} follow inserts, updates (including
+     * a change of genre and a change between rated and unrated) and deletes, and that
+     * {@link DVDCollection#rebuildGenreStats()} recomputes them to match {@code AVG(rating)}.
+     */
+    @Test
+    void testGenreStatsFollowWrites() throws SQLException {
+        collection.addDVD(new DVD(0, "Heat", "Mann", 1995, "Crime", 8.3));
+        collection.addDVD(new DVD(0, "Ronin", "Frankenheimer", 1998, "Crime", -1));
+        assertGenreStatsMatchTable();
+        assertEquals(8.3, collection.computeAverageRatingByGenre("Crime"), 1e-9);
+
+        DVD titanic = collection.search("titanic", 1).get(0);
+        assertTrue(collection.updateDVD(titanic.getId(), new DVD(titanic.getId(), "Titanic", "Cameron", 1997, "Crime", 7.8)));
+        DVD ronin = collection.search("ronin", 1).get(0);
+        assertTrue(collection.updateDVD(ronin.getId(), new DVD(ronin.getId(), "Ronin", "Frankenheimer", 1998, "Crime", 7.2)));
+        DVD matrix = collection.search("matrix", 1).get(0);
+        assertTrue(collection.updateDVD(matrix.getId(), new DVD(matrix.getId(), "The Matrix", "Wachowski", 1999, "Sci-Fi", -1)));
+        assertGenreStatsMatchTable();
+        assertEquals(0.0, collection.computeAverageRatingByGenre("Drama"), "no rated Drama DVD is left");
+        assertEquals(9.0, collection.computeAverageRatingByGenre("Sci-Fi"), 1e-9);
+
+        assertTrue(collection.removeDVDById(titanic.getId()));
+        collection.removeByIds(ronin.getId());
+        assertGenreStatsMatchTable();
+        assertEquals(8.3, collection.computeAverageRatingByGenre("Crime"), 1e-9);
+
+        try (Connection conn = DriverManager.getConnection(DBUtil.toJdbcUrl(dbPath));
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("UPDATE genre_stats SET rating_sum = 100, rating_count = 1");
+        }
+        assertTrue(collection.rebuildGenreStats());
+        assertGenreStatsMatchTable();
+    }
+
+    /**
+     * Asserts that for every genre in {@code genre_stats} or the {@code dvd} table, the
+     * running rating sum and count equal those of the table, and the average equals
+     * {@code AVG(rating)} over its rated DVDs.
+     */
+    private void assertGenreStatsMatchTable() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(DBUtil.toJdbcUrl(dbPath));
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT g.genre, TOTAL(d.rating), COUNT(d.rating), AVG(d.rating) " +
+                     "FROM (SELECT genre FROM genre_stats UNION SELECT genre FROM dvd WHERE genre IS NOT NULL) g " +
+                     "LEFT JOIN dvd d ON d.genre = g.genre AND d.rating >= 0 GROUP BY g.genre")) {
+            while (rs.next()) {
+                String genre = rs.getString(1);
+                double[] totals = collection.genreRatingTotals(genre);
+                if (rs.getLong(3) > 0) assertNotNull(totals, genre);
+                if (totals == null) continue;
+                assertEquals(rs.getDouble(2), totals[0], 1e-9, genre + " rating sum");
+                assertEquals(rs.getLong(3), (long) totals[1], genre + " rating count");
+                assertEquals(rs.getDouble(4), collection.computeAverageRatingByGenre(genre), 1e-9, genre + " average");
+            }
+        }
+    }
+
+    /**
+     * Tests {@link DVDCollection#addAll}, {@link DVDCollection#updateAll} and
+     * {@link DVDCollection#removeByIds} to verify that generated IDs are returned in input
+     * order, that missing IDs are reported as not affected, and that a failed insert is
+     * rolled back and reported with its position.
+     */
+    @Test
+    void testBulkOperations() {
+        BulkResult added = collection.addAll(List.of(
+                new DVD(0, "Alien", "Scott", 1979, "Horror", 8.5),
+                new DVD(0, "Heat", "Mann", 1995, "Crime", 8.3)));
+        assertTrue(added.isCommitted());
+        assertEquals(2, added.getAffectedCount());
+        int alienId = added.getIds().get(0);
+        int heatId = added.getIds().get(1);
+        assertEquals("Alien", collection.findById(alienId).orElseThrow().getTitle());
+        assertEquals("Heat", collection.findById(heatId).orElseThrow().getTitle());
+
+        BulkResult updated = collection.updateAll(Map.of(alienId, new DVD(alienId, "Alien", "Scott", 1979, "Horror", 9.1)));
+        assertTrue(updated.isCommitted());
+        assertEquals(9.1, collection.findById(alienId).orElseThrow().getRating());
+
+        BulkResult removed = collection.removeByIds(alienId, heatId, -1);
+        assertTrue(removed.isCommitted());
+        assertEquals(2, removed.getAffectedCount());
+        assertEquals(List.of(-1), removed.getUnaffectedIds());
+        assertTrue(collection.findById(heatId).isEmpty());
+
+        BulkResult duplicate = collection.addAll(List.of(
+                new DVD(0, "Ronin", "Frankenheimer", 1998, "Action", 7.2),
+                new DVD(0, "Heat", "Mann", 1995, "Crime", 8.3),
+                new DVD(0, "Titanic", "Cameron", 1997, "Drama", 7.8),
+                new DVD(0, "Bound", "Wachowski", 1996, "Crime", 7.3)));
+        assertFalse(duplicate.isCommitted());
+        assertEquals(2, duplicate.getFailedIndex(), "Titanic is already in the collection");
+        assertEquals(3, collection.count());
+        assertEquals(-1, added.getFailedIndex());
+    }
+
+    /**
+     * Tests {@link DVDCollection#findAllById} to verify that results are ordered by ID without
+     * duplicates or unknown IDs, that placeholder lists are padded to a power of two so few
+     * statements are prepared, that long requests are split into chunks of
+     * {@link DVDCollection#MAX_IN_LIST} IDs, and that only cache misses are queried.
+     */
+    @Test
+    void testFindAllById() {
+        List<DVD> dvds = new ArrayList<>();
+        for (int i = 0; i < 1100; i++) {
+            dvds.add(new DVD(0, "Movie " + i, "Director", 2000, "Drama", 5.0));
+        }
+        List<Integer> ids = collection.addAll(dvds).getIds();
+        ConnectionPool pool = collection.getPool();
+
+        long misses = pool.getStatementCacheMisses();
+        assertEquals(List.of(ids.get(0), ids.get(1), ids.get(2)),
+                ids(collection.findAllById(List.of(ids.get(2), ids.get(0), ids.get(1), ids.get(0)))));
+        assertEquals(misses + 1, pool.getStatementCacheMisses(), "3 IDs prepare 4 placeholders");
+        assertEquals(List.of(ids.get(0), ids.get(1), ids.get(2)),
+                ids(collection.findAllById(List.of(ids.get(0), ids.get(1), ids.get(2), -1))));
+        assertEquals(misses + 1, pool.getStatementCacheMisses(), "4 IDs reuse the statement");
+        assertEquals(5, collection.findAllById(ids.subList(0, 5)).size());
+        assertEquals(misses + 2, pool.getStatementCacheMisses(), "5 IDs prepare 8 placeholders");
+
+        List<Integer> all = new ArrayList<>(ids);
+        all.add(-1);
+        assertEquals(ids, ids(collection.findAllById(all)));
+        assertEquals(misses + 4, pool.getStatementCacheMisses(), "chunks of 512, 512 and 128 placeholders");
+        assertTrue(collection.findAllById(List.of()).isEmpty());
+
+        collection.enableCache(100, null);
+        DVDCache cache = collection.getCache();
+        collection.findById(ids.get(0));
+        collection.findById(ids.get(1));
+        long queried = collection.getMetrics().snapshot(DVDMetrics.Operation.FIND_ALL_BY_ID).getRowsScanned();
+        List<DVD> mixed = collection.findAllById(ids.subList(0, 4));
+        assertEquals(ids.subList(0, 4), ids(mixed));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(queried + 2, collection.getMetrics().snapshot(DVDMetrics.Operation.FIND_ALL_BY_ID).getRowsScanned(),
+                "only the two misses are queried");
+
+        long statements = pool.getStatementCacheHits() + pool.getStatementCacheMisses();
+        assertEquals(ids.subList(0, 4), ids(collection.findAllById(ids.subList(0, 4))));
+        assertEquals(statements, pool.getStatementCacheHits() + pool.getStatementCacheMisses(),
+                "all four are cached now");
+        assertEquals(6, cache.getHitCount());
+    }
+
+    /**
+     * Tests that with a private in-memory database, whose only connection is held by an
+     * open stream, another call from the same thread fails at once instead of waiting for
+     * the connection, and succeeds again once the stream is closed.
+     */
+    @Test
+    void testInMemoryCallDuringStreamFailsFast() {
+        String url = "jdbc:sqlite::memory:";
+        try {
+            DVDCollection memory = new DVDCollection(url);
+            memory.addDVD(new DVD(0, "Heat", "Mann", 1995, "Crime", 8.3));
+            long start = System.nanoTime();
+            try (Stream<DVD> dvds = memory.stream()) {
+                assertEquals(0, memory.count(), "the connection is in use");
+                assertEquals(List.of("Heat"), dvds.map(DVD::getTitle).toList());
+            }
+            assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos(), "did not wait for the connection");
+            assertEquals(1, memory.count());
+        } finally {
+            DBUtil.closePool(url);
+        }
+    }
+
+    /**
+     * Tests write-behind mode to verify that writes from many threads are all committed
+     * and that queued adds complete with their generated IDs.
+     */
+    @Test
+    void testWriteBehind() throws Exception {
+        WriteBehindQueue queue = collection.enableWriteBehind(64, Duration.ofMillis(5));
+        int before = collection.count();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 200; i++) {
+                int n = i;
+                executor.submit(() -> collection.addDVD(new DVD(0, "Queued " + n, "Director", 2000, "Drama", 7.0)));
+            }
+        }
+        int id = queue.add(new DVD(0, "Queued last", "Director", 2001, "Drama", 7.5)).get();
+        assertTrue(queue.update(id, new DVD(id, "Queued last", "Director", 2001, "Drama", 8.0)).get());
+        collection.disableWriteBehind();
+
+        assertEquals(before + 201, collection.count());
+        assertEquals(8.0, collection.findById(id).orElseThrow().getRating());
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    /**
+     * Tests {@link DVDCollection#scan(Columns, DVDRowVisitor)} to verify that every row is
+     * visited in ID order with the selected columns.
+     */
+    @Test
+    void testScan() {
+        double[] ratingSum = new double[1];
+        int[] lastId = new int[1];
+        long rows = collection.scan(Columns.of(DVDColumn.ID, DVDColumn.RATING), row -> {
+            assertTrue(row.getId() > lastId[0]);
+            lastId[0] = row.getId();
+            ratingSum[0] += row.getRating();
+        });
+
+        List<DVD> all = collection.listAll();
+        assertEquals(all.size(), rows);
+        assertEquals(all.stream().mapToDouble(DVD::getRating).sum(), ratingSum[0], 1e-9);
+    }
+
+    private static List<Integer> ids(List<DVD> dvds) {
+        return dvds.stream().map(DVD::getId).toList();
+    }
 }
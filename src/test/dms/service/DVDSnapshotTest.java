@@ -0,0 +1,169 @@
+package dms.service;
+
+import dms.model.DVD;
+import dms.util.DBUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code DVDSnapshotTest} class verifies that a collection saved to a binary
+ * {@link DVDSnapshot} is restored with the same IDs and values, that the in-memory
+ * structures follow the restore, that a new collection starts them from a current
+ * snapshot, and that damaged files are rejected.
+ *
+ * <p>This class uses the JUnit 5 testing framework to validate functionality.</p>
+ */
+class DVDSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String dbPath;
+    private DVDCollection collection;
+
+    /**
+     * Creates a collection on a fresh database file with a few DVDs in it.
+     */
+    @BeforeEach
+    void setup() {
+        dbPath = tempDir.resolve("dvds.db").toString();
+        collection = new DVDCollection(dbPath);
+        collection.addDVD(new DVD(0, "The Matrix", "Wachowski", 1999, "Sci-Fi", 8.7));
+        collection.addDVD(new DVD(0, "Amélie", "Jeunet", 2001, "Comedy", 8.3));
+        collection.addDVD(new DVD(0, "Bound", "Wachowski", 1996, "Crime", 7.3));
+    }
+
+    /**
+     * Closes the database's pools so the temporary file can be deleted.
+     */
+    @AfterEach
+    void tearDown() {
+        DBUtil.closePool(dbPath);
+    }
+
+    /**
+     * Tests that saving, changing the collection and restoring brings back exactly the
+     * saved DVDs, and that analytics and the title index reflect the restored contents.
+     */
+    @Test
+    void testSaveAndRestore() throws IOException {
+        Path file = tempDir.resolve("dvds.snap");
+        assertTrue(collection.saveSnapshot(file));
+
+        DVDSnapshot snapshot = DVDSnapshot.readFrom(file);
+        assertEquals(3, snapshot.size());
+        assertEquals(8, snapshot.getStringCount(), "the shared director is stored once");
+
+        DVDAnalytics analytics = collection.enableAnalytics();
+        TitleIndex index = collection.enableTitleIndex();
+        index.whenReady().join();
+        int matrixId = snapshot.get(0).getId();
+        collection.removeDVDById(matrixId);
+        collection.addDVD(new DVD(0, "Heat", "Mann", 1995, "Crime", 8.3));
+
+        assertTrue(collection.restoreSnapshot(file));
+        assertEquals(3, collection.count());
+        assertEquals("The Matrix", collection.findById(matrixId).orElseThrow().getTitle());
+        assertTrue(collection.search("Heat", 10).isEmpty());
+        assertEquals(3, analytics.size());
+        assertEquals(1, analytics.statsForGenre("Crime").getCount());
+        assertEquals(1, index.search("amelie", 10).size());
+        assertTrue(index.search("heat", 10).isEmpty());
+        assertEquals(8.7, collection.computeAverageRatingByGenre("Sci-Fi"));
+    }
+
+    /**
+     * Tests that a snapshot with a flipped byte is rejected and leaves the collection unchanged.
+     */
+    @Test
+    void testDamagedSnapshotIsRejected() throws IOException {
+        Path file = tempDir.resolve("dvds.snap");
+        assertTrue(collection.saveSnapshot(file));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> DVDSnapshot.readFrom(file));
+        collection.addDVD(new DVD(0, "Heat", "Mann", 1995, "Crime", 8.3));
+        assertFalse(collection.restoreSnapshot(file));
+        assertEquals(4, collection.count());
+    }
+
+    /**
+     * Tests that a new collection on an unchanged database loads its analytics and title
+     * index from a current snapshot rather than the table, and that both follow later writes.
+     */
+    @Test
+    void testStartupLoadsCurrentSnapshot() throws Exception {
+        Path file = tempDir.resolve("dvds.snap");
+        assertTrue(collection.saveSnapshot(file));
+        // Same row count and largest ID, so only a load from the file still sees "Bound".
+        rename("Bound", "Heat");
+
+        DVDCollection restarted = new DVDCollection(dbPath);
+        DVDAnalytics analytics = restarted.enableAnalytics(file);
+        TitleIndex index = restarted.enableTitleIndex(file);
+        index.whenReady().get(10, TimeUnit.SECONDS);
+        assertEquals(3, analytics.size());
+        assertEquals(1, index.search("bound", 10).size());
+        assertTrue(index.search("heat", 10).isEmpty());
+
+        restarted.addDVD(new DVD(0, "Alien", "Scott", 1979, "Horror", 8.5));
+        assertEquals(4, analytics.size());
+        assertEquals(1, analytics.statsForGenre("Horror").getCount());
+        index.awaitBackgroundTasks();
+        assertEquals(1, index.search("alien", 10).size());
+    }
+
+    /**
+     * Tests that a snapshot older than the table, or a missing file, makes a new collection
+     * read the table instead.
+     */
+    @Test
+    void testStartupReadsTableWhenSnapshotIsStale() throws Exception {
+        Path file = tempDir.resolve("dvds.snap");
+        assertTrue(collection.saveSnapshot(file));
+        collection.addDVD(new DVD(0, "Heat", "Mann", 1995, "Crime", 8.3));
+
+        DVDCollection restarted = new DVDCollection(dbPath);
+        DVDAnalytics analytics = restarted.enableAnalytics(file);
+        TitleIndex index = restarted.enableTitleIndex(file);
+        index.whenReady().get(10, TimeUnit.SECONDS);
+        assertEquals(4, analytics.size());
+        assertEquals(2, analytics.statsForGenre("Crime").getCount());
+        assertEquals(1, index.search("heat", 10).size());
+
+        DVDCollection missing = new DVDCollection(dbPath);
+        assertEquals(4, missing.enableAnalytics(tempDir.resolve("missing.snap")).size());
+        TitleIndex missingIndex = missing.enableTitleIndex(tempDir.resolve("missing.snap"));
+        missingIndex.whenReady().get(10, TimeUnit.SECONDS);
+        assertEquals(1, missingIndex.search("heat", 10).size());
+    }
+
+    /**
+     * Changes a title directly in the database, without telling the collection.
+     */
+    private void rename(String from, String to) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(DBUtil.toJdbcUrl(dbPath));
+             PreparedStatement stmt = conn.prepareStatement("UPDATE dvd SET title = ? WHERE title = ?")) {
+            stmt.setString(1, to);
+            stmt.setString(2, from);
+            assertEquals(1, stmt.executeUpdate());
+        }
+    }
+}
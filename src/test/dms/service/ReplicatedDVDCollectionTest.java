@@ -0,0 +1,162 @@
+package dms.service;
+
+import dms.model.DVD;
+import dms.util.DBUtil;
+import dms.util.PooledConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code ReplicatedDVDCollectionTest} class verifies that a {@link ReplicatedDVDCollection}
+ * starts with a copy of the file, reads its own writes, picks up writes made by another
+ * connection, reloads when the file's log was trimmed past it, and repairs a replica that
+ * no longer matches the file.
+ *
+ * <p>This class uses the JUnit 5 testing framework to validate functionality.</p>
+ */
+class ReplicatedDVDCollectionTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String dbPath;
+    private DVDCollection disk;
+    private ReplicatedDVDCollection collection;
+
+    /**
+     * Creates a database file with two DVDs and opens a replica of it. The background
+     * thread is slowed down so that the tests decide when the replica catches up.
+     */
+    @BeforeEach
+    void setup() {
+        dbPath = tempDir.resolve("dvds.db").toString();
+        disk = new DVDCollection(dbPath);
+        disk.addDVD(new DVD(0, "The Matrix", "Wachowski", 1999, "Sci-Fi", 8.7));
+        disk.addDVD(new DVD(0, "Heat", "Mann", 1995, "Crime", 8.3));
+        collection = new ReplicatedDVDCollection(dbPath, Duration.ofHours(1), Duration.ofHours(1));
+    }
+
+    /**
+     * Discards the replica and closes the file's pools so the temporary file can be deleted.
+     */
+    @AfterEach
+    void tearDown() {
+        collection.close();
+        DBUtil.closePool(dbPath);
+    }
+
+    /**
+     * Tests that the replica starts with the file's DVDs and IDs, and that adds, updates
+     * and removals are visible in it, and in its statistics, as soon as the call returns.
+     */
+    @Test
+    void testReadsOwnWrites() {
+        assertEquals(ids(disk.listAll()), ids(collection.listAll()));
+        assertEquals(8.3, collection.computeAverageRatingByGenre("Crime"));
+
+        collection.addDVD(new DVD(0, "Bound", "Wachowski", 1996, "Crime", 7.3));
+        assertEquals(3, collection.count());
+        DVD bound = collection.search("bound", 5).get(0);
+        assertEquals("Bound", bound.getTitle());
+        assertEquals(7.8, collection.computeAverageRatingByGenre("Crime"), 1e-9);
+
+        assertTrue(collection.updateDVD(bound.getId(),
+                new DVD(bound.getId(), "Bound", "Wachowski", 1996, "Thriller", 7.5)));
+        assertEquals("Thriller", collection.findById(bound.getId()).orElseThrow().getGenre());
+        assertEquals(8.3, collection.computeAverageRatingByGenre("Crime"), 1e-9);
+
+        assertTrue(collection.removeDVDById(bound.getId()));
+        assertTrue(collection.findById(bound.getId()).isEmpty());
+        assertEquals(ids(disk.listAll()), ids(collection.listAll()));
+        assertTrue(collection.verify());
+    }
+
+    /**
+     * Tests that a write made by another connection reaches the replica and the listeners
+     * on the next sync, and that the lookup cache does not keep the old values.
+     */
+    @Test
+    void testSyncPicksUpExternalWrites() throws SQLException {
+        collection.enableCache(100, null);
+        int matrixId = disk.listAll().get(0).getId();
+        assertEquals(8.7, collection.findById(matrixId).orElseThrow().getRating());
+        List<DVDChange> received = new ArrayList<>();
+        collection.addChangeListener(received::addAll);
+
+        try (Connection other = DriverManager.getConnection(DBUtil.toJdbcUrl(dbPath));
+             Statement stmt = other.createStatement()) {
+            stmt.executeUpdate("UPDATE dvd SET rating = 9.5 WHERE id = " + matrixId);
+        }
+        assertEquals(8.7, collection.findById(matrixId).orElseThrow().getRating(), "not synced yet");
+
+        assertEquals(1, collection.sync());
+        assertEquals(9.5, collection.findById(matrixId).orElseThrow().getRating());
+        assertEquals(1, received.size());
+        assertEquals(DVDChange.Type.UPDATED, received.get(0).getType());
+        assertEquals(disk.getLatestChangeSeq(), collection.getAppliedSeq());
+        assertEquals(0, collection.sync());
+    }
+
+    /**
+     * Tests that a replica whose next change was trimmed from the file's log is loaded
+     * again, that its listeners are told, and that it then follows the log as before.
+     */
+    @Test
+    void testSyncReloadsAfterTrimmedLog() throws SQLException {
+        List<DVDChange> received = new ArrayList<>();
+        collection.addChangeListener(received::addAll);
+        try (Connection other = DriverManager.getConnection(DBUtil.toJdbcUrl(dbPath));
+             Statement stmt = other.createStatement()) {
+            stmt.executeUpdate("INSERT INTO dvd (title, director, release_year, genre, rating) " +
+                    "VALUES ('Bound', 'Wachowski', 1996, 'Crime', 7.3)");
+        }
+        disk.trimChanges(disk.getLatestChangeSeq());
+
+        assertEquals(1, collection.sync());
+        assertEquals(DVDChange.Type.TRIMMED, received.get(0).getType());
+        assertEquals(3, collection.count());
+        assertEquals(disk.getLatestChangeSeq(), collection.getAppliedSeq());
+
+        collection.addDVD(new DVD(0, "Ronin", "Frankenheimer", 1998, "Crime", 7.2));
+        assertEquals(DVDChange.Type.ADDED, received.get(1).getType());
+        assertEquals(ids(disk.listAll()), ids(collection.listAll()));
+    }
+
+    /**
+     * Tests that verification finds a replica row that differs from the file and reloads
+     * the replica, after which it matches again.
+     */
+    @Test
+    void testVerifyRepairsDivergedReplica() throws SQLException {
+        assertTrue(collection.verify());
+        try (PooledConnection conn = collection.getReplica().getWriterPool().borrow();
+             Statement stmt = conn.getConnection().createStatement()) {
+            stmt.executeUpdate("UPDATE dvd SET title = 'Wrong' WHERE title = 'Heat'");
+        }
+        assertEquals(1, collection.search("wrong", 5).size());
+
+        assertFalse(collection.verify());
+        assertTrue(collection.search("wrong", 5).isEmpty());
+        assertEquals(1, collection.search("heat", 5).size());
+        assertTrue(collection.verify());
+    }
+
+    private static List<Integer> ids(List<DVD> dvds) {
+        return dvds.stream().map(DVD::getId).toList();
+    }
+}
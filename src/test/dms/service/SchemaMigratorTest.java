@@ -0,0 +1,142 @@
+package dms.service;
+
+import dms.util.CSVImporter;
+import dms.util.DBUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code SchemaMigratorTest} class verifies that a database created before migrations
+ * existed is upgraded without losing data, and that duplicate DVDs stop the natural key
+ * migration, but not the later ones, instead of being deleted.
+ *
+ * <p>This class uses the JUnit 5 testing framework to validate functionality.</p>
+ */
+class SchemaMigratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String dbPath;
+
+    /**
+     * Creates a database file with the original {@code dvd} table and no version table.
+     */
+    @BeforeEach
+    void setup() throws SQLException {
+        dbPath = tempDir.resolve("dvds.db").toString();
+        execute("CREATE TABLE dvd (id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT NOT NULL, " +
+                "director TEXT, release_year INTEGER, genre TEXT, rating REAL)",
+                "INSERT INTO dvd (title, director, release_year, genre, rating) VALUES " +
+                        "('Heat', 'Mann', 1995, 'Crime', 8.3), ('Alien', 'Scott', 1979, 'Horror', 8.5)");
+    }
+
+    /**
+     * Closes the database's pools so the temporary file can be deleted.
+     */
+    @AfterEach
+    void tearDown() {
+        DBUtil.closePool(dbPath);
+    }
+
+    /**
+     * Tests that an old database is brought to the latest version with its rows intact,
+     * and that a second run applies nothing.
+     */
+    @Test
+    void testUpgradesOldDatabase() throws SQLException {
+        SchemaMigrator migrator = new SchemaMigrator(DBUtil.getWriterPool(dbPath));
+        assertEquals(SchemaMigrator.MIGRATIONS.size(), migrator.migrate());
+        assertEquals(0, migrator.migrate());
+        assertEquals(2, queryInt("SELECT COUNT(*) FROM dvd"));
+        assertEquals(2, queryInt("SELECT SUM(rating_count) FROM genre_stats"));
+    }
+
+    /**
+     * Tests that duplicate DVDs make the natural key migration fail with their IDs, that
+     * no row is deleted and the other migrations are still applied, and that the migration
+     * succeeds once the duplicates are merged.
+     */
+    @Test
+    void testDuplicateKeysStopNaturalKeyMigration() throws SQLException {
+        insertDuplicates();
+        SchemaMigrator migrator = new SchemaMigrator(DBUtil.getWriterPool(dbPath));
+
+        SQLException e = assertThrows(SQLException.class, migrator::migrate);
+        assertTrue(e.getMessage().contains("Schema migration 5"), e.getMessage());
+        assertTrue(e.getMessage().contains("'Heat' (Mann, 1995) IDs 1, 3"), e.getMessage());
+        assertFalse(e.getMessage().contains("Untitled"), "rows with a NULL key are not duplicates");
+        assertEquals(5, queryInt("SELECT COUNT(*) FROM dvd"));
+        assertEquals(SchemaMigrator.MIGRATIONS.size() - 1, queryInt("SELECT COUNT(*) FROM schema_version"));
+        assertEquals(0, queryInt("SELECT COUNT(*) FROM schema_version WHERE version = 5"));
+        assertEquals(0, queryInt("SELECT COUNT(*) FROM dvd_changes"), "later migrations are applied");
+
+        execute("DELETE FROM dvd WHERE id = 3");
+        assertEquals(1, migrator.migrate());
+        assertEquals(4, queryInt("SELECT COUNT(*) FROM dvd"));
+        assertEquals(0, migrator.migrate());
+    }
+
+    /**
+     * Tests that a collection on a database with duplicates reports the migration error,
+     * still works where it does not need the natural key, and refuses to import in upsert
+     * mode with a message that lists the duplicates.
+     */
+    @Test
+    void testCollectionReportsSkippedMigration() throws Exception {
+        insertDuplicates();
+        DVDCollection collection = new DVDCollection(dbPath);
+        assertTrue(collection.getSchemaError().contains("IDs 1, 3"), collection.getSchemaError());
+        assertEquals(0, collection.getLatestChangeSeq());
+        assertEquals("value", collection.putMetadataIfAbsent("key", "value"));
+
+        SQLException e = assertThrows(SQLException.class, () -> collection.openBulkUpsert(10));
+        assertTrue(e.getMessage().contains("'Heat' (Mann, 1995) IDs 1, 3"), e.getMessage());
+        Path csv = tempDir.resolve("dvds.csv");
+        Files.writeString(csv, "0,Alien,Scott,1979,Horror,9.0\n");
+        assertEquals(0, CSVImporter.importFromCSV(csv.toString(), collection));
+        assertEquals(5, collection.count());
+
+        execute("DELETE FROM dvd WHERE id = 3");
+        assertNull(new DVDCollection(dbPath).getSchemaError());
+        assertEquals(1, CSVImporter.importFromCSV(csv.toString(), collection));
+        assertEquals(9.0, collection.search("alien", 1).get(0).getRating());
+    }
+
+    private void insertDuplicates() throws SQLException {
+        execute("INSERT INTO dvd (title, director, release_year, genre, rating) VALUES " +
+                "('Heat', 'Mann', 1995, 'Thriller', 9.0), ('Untitled', NULL, NULL, NULL, 0)," +
+                "('Untitled', NULL, NULL, NULL, 0)");
+    }
+
+    private void execute(String... statements) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(DBUtil.toJdbcUrl(dbPath));
+             Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    private int queryInt(String sql) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(DBUtil.toJdbcUrl(dbPath));
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
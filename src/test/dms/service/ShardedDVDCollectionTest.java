@@ -0,0 +1,241 @@
+package dms.service;
+
+import dms.model.DVD;
+import dms.service.DVDCollection.SortColumn;
+import dms.util.CSVImporter;
+import dms.util.DBUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code ShardedDVDCollectionTest} class verifies that a {@link ShardedDVDCollection}
+ * behaves like one collection: IDs are unique and route back to their shard, pages and
+ * averages merged from all shards match what a single database would return, and
+ * re-importing a CSV file adds no duplicates across shards.
+ *
+ * <p>This class uses the JUnit 5 testing framework to validate functionality.</p>
+ */
+class ShardedDVDCollectionTest {
+
+    private static final int SHARDS = 3;
+
+    @TempDir
+    Path tempDir;
+
+    private String dbPath;
+    private ShardedDVDCollection collection;
+
+    /**
+     * Creates a sharded collection on fresh database files and adds twenty DVDs with
+     * repeating titles, genres and ratings.
+     */
+    @BeforeEach
+    void setup() {
+        dbPath = tempDir.resolve("dvds.db").toString();
+        collection = new ShardedDVDCollection(dbPath, SHARDS);
+        for (int i = 0; i < 20; i++) {
+            collection.addDVD(new DVD(0, (i % 2 == 0 ? "movie " : "Movie ") + (char) ('a' + i % 5),
+                    "Director " + i, 1990 + i, i % 3 == 0 ? "Drama" : "Comedy", i % 10));
+        }
+    }
+
+    /**
+     * Closes every shard's pools so the temporary files can be deleted.
+     */
+    @AfterEach
+    void tearDown() {
+        for (int i = 0; i < SHARDS; i++) {
+            DBUtil.closePool(ShardedDVDCollection.shardPath(dbPath, i));
+        }
+    }
+
+    /**
+     * Tests the shard file names.
+     */
+    @Test
+    void testShardPath() {
+        assertEquals("db/dvds-shard2.db", ShardedDVDCollection.shardPath("db/dvds.db", 2));
+        assertEquals("db.d/dvds-shard0", ShardedDVDCollection.shardPath("db.d/dvds", 0));
+        assertEquals("C:\\db\\.dvds-shard1", ShardedDVDCollection.shardPath("C:\\db\\.dvds", 1));
+    }
+
+    /**
+     * Tests that the DVDs are spread over the shards with distinct IDs, each of which finds,
+     * updates and removes the right DVD.
+     */
+    @Test
+    void testIdsRouteToTheirShard() {
+        List<DVD> all = collection.listAll();
+        assertEquals(20, all.size());
+        assertEquals(20, collection.count());
+        Set<Integer> ids = new HashSet<>();
+        Set<Integer> usedShards = new HashSet<>();
+        for (DVD dvd : all) {
+            assertTrue(ids.add(dvd.getId()));
+            usedShards.add(dvd.getId() % SHARDS);
+            assertEquals(dvd.getTitle(), collection.findById(dvd.getId()).orElseThrow().getTitle());
+        }
+        assertEquals(SHARDS, usedShards.size(), "every shard holds some DVDs");
+        assertTrue(collection.getShard(0).count() < 20);
+
+        DVD first = all.get(0);
+        assertTrue(collection.updateDVD(first.getId(), new DVD(first.getId(), first.getTitle(),
+                first.getDirector(), first.getReleaseYear(), "Horror", 1.0)));
+        assertEquals("Horror", collection.findById(first.getId()).orElseThrow().getGenre());
+        assertTrue(collection.removeDVDById(first.getId()));
+        assertTrue(collection.findById(first.getId()).isEmpty());
+        assertFalse(collection.removeDVDById(first.getId()));
+        assertEquals(19, collection.count());
+    }
+
+    /**
+     * Tests that an update whose new natural key belongs to another shard is refused and
+     * leaves the DVD as it was, and that one whose key stays in the shard is applied.
+     */
+    @Test
+    void testUpdateKeepsKeyInItsShard() {
+        DVD dvd = collection.listAll().get(0);
+        int shard = dvd.getId() % SHARDS;
+        DVD moved = null;
+        DVD kept = null;
+        for (int i = 0; moved == null || kept == null; i++) {
+            DVD candidate = new DVD(dvd.getId(), "Retitled " + i, dvd.getDirector(), dvd.getReleaseYear(),
+                    dvd.getGenre(), dvd.getRating());
+            if (collection.shardFor(candidate) == shard) kept = candidate;
+            else moved = candidate;
+        }
+
+        assertFalse(collection.updateDVD(dvd.getId(), moved));
+        assertEquals(dvd.getTitle(), collection.findById(dvd.getId()).orElseThrow().getTitle());
+        assertTrue(collection.search(moved.getTitle(), 5).isEmpty());
+
+        assertTrue(collection.updateDVD(dvd.getId(), kept));
+        assertEquals(kept.getTitle(), collection.findById(dvd.getId()).orElseThrow().getTitle());
+        collection.addDVD(new DVD(0, kept.getTitle(), kept.getDirector(), kept.getReleaseYear(), "Drama", 1.0));
+        assertEquals(20, collection.count(), "the unique index still sees the updated key");
+    }
+
+    /**
+     * Tests that merged pages, for every sort column and direction, are the slices of the
+     * fully sorted collection that a single database would return.
+     */
+    @Test
+    void testListPageMatchesSingleDatabaseOrder() {
+        for (SortColumn column : SortColumn.values()) {
+            for (boolean ascending : new boolean[]{true, false}) {
+                List<DVD> whole = collection.listPage(column, ascending, 0, 100);
+                assertEquals(20, whole.size());
+                List<DVD> paged = new ArrayList<>();
+                for (int offset = 0; offset < 20; offset += 7) {
+                    paged.addAll(collection.listPage(column, ascending, offset, 7));
+                }
+                assertEquals(ids(whole), ids(paged), column + (ascending ? " ASC" : " DESC"));
+            }
+        }
+        List<DVD> byTitle = collection.listPage(SortColumn.TITLE, true, 0, 20);
+        for (int i = 1; i < byTitle.size(); i++) {
+            int cmp = byTitle.get(i - 1).getTitle().compareToIgnoreCase(byTitle.get(i).getTitle());
+            assertTrue(cmp < 0 || cmp == 0 && byTitle.get(i - 1).getId() < byTitle.get(i).getId(),
+                    "titles ignore case and ties are broken by ID");
+        }
+        assertTrue(collection.listPage(SortColumn.ID, true, 20, 10).isEmpty());
+    }
+
+    /**
+     * Tests that pages far apart are reached in small merge steps, and that a write to a
+     * shard discards the remembered positions so later pages reflect it.
+     */
+    @Test
+    void testDeepPagesMergeInSteps() {
+        ShardedDVDCollection stepped = new ShardedDVDCollection(dbPath, SHARDS, 3);
+        List<DVD> whole = collection.listPage(SortColumn.RATING, false, 0, 100);
+        for (int offset : new int[]{17, 4, 11, 0, 19, 25}) {
+            assertEquals(ids(whole.subList(Math.min(offset, 20), Math.min(offset + 2, 20))),
+                    ids(stepped.listPage(SortColumn.RATING, false, offset, 2)), "offset " + offset);
+        }
+
+        collection.addDVD(new DVD(0, "Top", "Someone", 2020, "Drama", 10.0));
+        List<DVD> afterAdd = stepped.listPage(SortColumn.RATING, false, 0, 100);
+        assertEquals("Top", afterAdd.get(0).getTitle());
+        assertEquals(ids(afterAdd.subList(17, 19)), ids(stepped.listPage(SortColumn.RATING, false, 17, 2)));
+    }
+
+    /**
+     * Tests that shard files cannot be reopened with a different shard count, which would
+     * route IDs to the wrong files.
+     */
+    @Test
+    void testShardCountIsStoredInEachFile() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new ShardedDVDCollection(dbPath, SHARDS - 1));
+        assertTrue(e.getMessage().contains("of " + SHARDS + " shards"), e.getMessage());
+        assertEquals(20, new ShardedDVDCollection(dbPath, SHARDS).count());
+    }
+
+    /**
+     * Tests that the genre average combines the rating totals of all shards.
+     */
+    @Test
+    void testAverageAcrossShards() {
+        double dramaSum = 0;
+        int dramaCount = 0;
+        for (int i = 0; i < 20; i += 3) {
+            dramaSum += i % 10;
+            dramaCount++;
+        }
+        assertEquals(dramaSum / dramaCount, collection.computeAverageRatingByGenre("Drama"), 1e-9);
+        assertEquals(0.0, collection.computeAverageRatingByGenre("Western"));
+        assertTrue(collection.rebuildGenreStats());
+        assertEquals(dramaSum / dramaCount, collection.computeAverageRatingByGenre("Drama"), 1e-9);
+    }
+
+    /**
+     * Tests that a search returns matches from every shard, up to the limit.
+     */
+    @Test
+    void testSearchScattersToAllShards() {
+        List<DVD> results = collection.search("director", 50);
+        assertEquals(20, results.size());
+        assertEquals(20, new HashSet<>(ids(results)).size());
+        assertEquals(5, collection.search("director", 5).size());
+        assertTrue(collection.search("nothing", 5).isEmpty());
+    }
+
+    /**
+     * Tests that importing a file twice leaves one copy of every DVD, because each natural
+     * key always goes to the same shard.
+     */
+    @Test
+    void testCsvReimportIsIdempotent() throws IOException {
+        Path file = tempDir.resolve("dvds.csv");
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            csv.append(i).append(",Imported ").append(i).append(",Someone,2001,Action,5\n");
+        }
+        Files.writeString(file, csv);
+
+        assertEquals(30, CSVImporter.importFromCSV(file.toString(), collection));
+        List<Integer> before = ids(collection.listAll());
+        assertEquals(0, CSVImporter.importFromCSV(file.toString(), collection));
+        assertEquals(before, ids(collection.listAll()));
+        assertEquals(50, collection.count());
+    }
+
+    private static List<Integer> ids(List<DVD> dvds) {
+        return dvds.stream().map(DVD::getId).toList();
+    }
+}
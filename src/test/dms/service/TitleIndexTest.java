@@ -0,0 +1,134 @@
+package dms.service;
+
+import dms.model.DVD;
+import dms.util.DBUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code TitleIndexTest} class verifies that a {@link TitleIndex} answers word-prefix
+ * and substring queries, follows updates and removals, loads new rows in the background,
+ * and reclaims the slots of old versions.
+ *
+ * <p>This class uses the JUnit 5 testing framework to validate functionality.</p>
+ */
+class TitleIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String dbPath;
+    private DVDCollection collection;
+    private TitleIndex index;
+
+    /**
+     * Creates a collection on a fresh database file with four DVDs and waits for its
+     * title index to be built.
+     */
+    @BeforeEach
+    void setup() throws Exception {
+        dbPath = tempDir.resolve("dvds.db").toString();
+        collection = new DVDCollection(dbPath);
+        collection.addDVD(new DVD(0, "The Matrix", "Wachowski", 1999, "Sci-Fi", 8.7));
+        collection.addDVD(new DVD(0, "Matrimony", "Zhang", 2007, "Drama", 6.1));
+        collection.addDVD(new DVD(0, "Heat", "Mann", 1995, "Crime", 8.3));
+        collection.addDVD(new DVD(0, "Amélie", "Jeunet", 2001, "Comedy", 8.3));
+        index = collection.enableTitleIndex().whenReady().get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Closes the database's pools so the temporary file can be deleted.
+     */
+    @AfterEach
+    void tearDown() {
+        DBUtil.closePool(dbPath);
+    }
+
+    /**
+     * Tests that short words match the start of a word in the title or director, longer
+     * words match anywhere, every word of a query must match, and accents are ignored.
+     */
+    @Test
+    void testPrefixAndTrigramMatches() {
+        assertEquals(List.of("The Matrix", "Matrimony", "Heat"), titles(index.search("ma", 10)));
+        assertEquals(List.of("The Matrix", "Matrimony"), titles(index.search("ATRI", 10)));
+        assertTrue(index.search("at", 10).isEmpty(), "two characters only match a word start");
+        assertEquals(List.of("The Matrix"), titles(index.search("matrix wach", 10)));
+        assertEquals(List.of("Amélie"), titles(index.search("amelie", 10)));
+        assertEquals(List.of("The Matrix"), titles(index.search("ma", 1)));
+        assertTrue(index.search("matrix zhang", 10).isEmpty());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    /**
+     * Tests that an updated DVD is found by its new text only, and a removed one not at all.
+     */
+    @Test
+    void testUpdateAndRemove() {
+        DVD heat = index.search("heat", 10).get(0);
+        assertTrue(collection.updateDVD(heat.getId(),
+                new DVD(heat.getId(), "Heatwave", "Mann", 1995, "Crime", 8.3)));
+        assertEquals(List.of("Heatwave"), titles(index.search("heatw", 10)));
+        assertEquals(1, index.search("heat", 10).size());
+        assertEquals(1, index.deadSlotCount());
+
+        assertTrue(collection.removeDVDById(heat.getId()));
+        assertTrue(index.search("heat", 10).isEmpty());
+        assertEquals(3, index.size());
+    }
+
+    /**
+     * Tests that rows added by single and bulk inserts are loaded by the background catch-up,
+     * and that a row updated before the catch-up loaded it is indexed with its new values.
+     */
+    @Test
+    void testCatchUpLoadsNewRows() throws Exception {
+        collection.addDVD(new DVD(0, "Ronin", "Frankenheimer", 1998, "Action", 7.2));
+        BulkResult added = collection.addAll(List.of(new DVD(0, "Alien", "Scott", 1979, "Horror", 8.5)));
+        index.awaitBackgroundTasks();
+        assertEquals(List.of("Ronin"), titles(index.search("ron", 10)));
+        assertEquals(List.of("Alien"), titles(index.search("alien", 10)));
+        assertEquals(6, index.size());
+
+        int ahead = added.getIds().get(0) + 1;
+        index.dvdUpdated(ahead, new DVD(ahead, "Aliens", "Cameron", 1986, "Action", 8.4));
+        collection.addDVD(new DVD(0, "Aliens draft", "Cameron", 1986, "Action", 8.4));
+        index.awaitBackgroundTasks();
+        assertEquals(List.of("Aliens"), titles(index.search("aliens", 10)));
+    }
+
+    /**
+     * Tests that once dead slots outnumber live ones, the index is compacted and still
+     * returns the current version of every DVD.
+     */
+    @Test
+    void testCompactionReclaimsDeadSlots() throws InterruptedException {
+        DVD matrix = index.search("matrix", 10).get(0);
+        for (int i = 0; i <= TitleIndex.MIN_DEAD_SLOTS_TO_COMPACT; i++) {
+            index.dvdUpdated(matrix.getId(), new DVD(matrix.getId(), "The Matrix " + i, "Wachowski", 1999, "Sci-Fi", 8.7));
+        }
+        index.awaitBackgroundTasks();
+
+        // Updates that arrive while the compaction runs leave a few dead slots behind it.
+        assertTrue(index.deadSlotCount() < TitleIndex.MIN_DEAD_SLOTS_TO_COMPACT, "compacted");
+        assertEquals(4, index.size());
+        assertEquals(List.of("The Matrix " + TitleIndex.MIN_DEAD_SLOTS_TO_COMPACT),
+                titles(index.search("matrix wachowski", 10)));
+        assertEquals(List.of("Matrimony", "Heat", "The Matrix " + TitleIndex.MIN_DEAD_SLOTS_TO_COMPACT),
+                titles(index.search("ma", 10)), "live entries keep their order");
+    }
+
+    private static List<String> titles(List<DVD> dvds) {
+        return dvds.stream().map(DVD::getTitle).toList();
+    }
+}
@@ -0,0 +1,63 @@
+package dms.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code BloomFilterTest} class verifies that {@link BloomFilter} never forgets an
+ * added string and keeps its false-positive rate near the rate it was sized for.
+ *
+ * <p>This class uses the JUnit 5 testing framework to validate functionality.</p>
+ */
+class BloomFilterTest {
+
+    private static final int KEYS = 100_000;
+
+    /**
+     * Tests that every added key is reported as present, and that keys never added are
+     * reported as present at no more than twice the configured 1% rate.
+     */
+    @Test
+    void testNoFalseNegativesAndBoundedFalsePositives() {
+        BloomFilter filter = new BloomFilter(KEYS, 0.01);
+        for (int i = 0; i < KEYS; i++) {
+            filter.add("Title " + i + "\u0000Director " + i % 500 + "\u0000" + (1950 + i % 70));
+        }
+
+        for (int i = 0; i < KEYS; i++) {
+            assertTrue(filter.mightContain("Title " + i + "\u0000Director " + i % 500 + "\u0000" + (1950 + i % 70)),
+                    "false negative for key " + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = KEYS; i < 2 * KEYS; i++) {
+            if (filter.mightContain("Title " + i + "\u0000Director " + i % 500 + "\u0000" + (1950 + i % 70))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < KEYS * 0.02, "false positives: " + falsePositives);
+        assertEquals(0.01, filter.getExpectedFalsePositiveRate(), 0.005);
+    }
+
+    /**
+     * Tests that adding reports whether the key was new and that sizing follows the
+     * standard formulas.
+     */
+    @Test
+    void testAddAndSizing() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        assertEquals(7, filter.getHashCount());
+        assertTrue(filter.getBitCount() >= 9586);
+
+        assertFalse(filter.mightContain("Heat"));
+        assertTrue(filter.add("Heat"));
+        assertFalse(filter.add("Heat"));
+        assertTrue(filter.mightContain("Heat"));
+        assertEquals(1, filter.getInsertions());
+
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(10, 0));
+    }
+}
@@ -0,0 +1,106 @@
+package dms.util;
+
+import dms.model.DVD;
+import dms.service.DVDCollection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code CSVImporterTest} class verifies that {@link CSVImporter} imports are
+ * idempotent: re-importing a file adds no duplicates, changed ratings and genres are
+ * applied to the existing DVDs, and a file that repeats a DVD stores it once.
+ *
+ * <p>This class uses the JUnit 5 testing framework to validate functionality.</p>
+ */
+class CSVImporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String dbPath;
+    private DVDCollection collection;
+
+    /**
+     * Creates a collection on a fresh database file holding one DVD.
+     */
+    @BeforeEach
+    void setup() {
+        dbPath = tempDir.resolve("dvds.db").toString();
+        collection = new DVDCollection(dbPath);
+        collection.addDVD(new DVD(0, "Heat", "Mann", 1995, "Crime", 8.3));
+    }
+
+    /**
+     * Closes the database's pools so the temporary file can be deleted.
+     */
+    @AfterEach
+    void tearDown() {
+        DBUtil.closePool(dbPath);
+    }
+
+    /**
+     * Tests that importing the same file twice leaves one copy of every DVD with the same
+     * IDs, that a changed row in a later import updates the existing DVD in place, and that
+     * only rows that added or changed a DVD are counted.
+     */
+    @Test
+    void testReimportUpdatesInsteadOfDuplicating() throws IOException {
+        Path file = tempDir.resolve("dvds.csv");
+        Files.writeString(file, "1,Heat,Mann,1995,Crime,8.3\n"
+                + "2,\"Crouching Tiger, Hidden Dragon\",Ang Lee,2000,Action,7.9\n"
+                + "3,Alien,Scott,1979,Horror,8.5\n"
+                + "4,Alien,Scott,1979,Horror,8.6\n");
+
+        assertEquals(3, CSVImporter.importFromCSV(file.toString(), collection), "Heat is already up to date");
+        List<DVD> first = collection.listAll();
+        assertEquals(3, first.size());
+        DVD alien = collection.search("Alien", 10).get(0);
+        assertEquals(8.6, alien.getRating(), "a repeated row updates the copy added before it");
+
+        assertEquals(2, CSVImporter.importFromCSV(file.toString(), collection),
+                "only the two Alien rows change anything");
+        assertEquals(first.size(), collection.count());
+
+        Files.writeString(file, "1,Heat,Mann,1995,Thriller,9.0\n5,Bound,Wachowski,1996,Crime,7.3\n");
+        assertEquals(2, CSVImporter.importFromCSV(file.toString(), collection));
+        assertEquals(4, collection.count());
+        DVD heat = collection.search("Heat", 10).get(0);
+        assertEquals(first.get(0).getId(), heat.getId());
+        assertEquals("Thriller", heat.getGenre());
+        assertEquals(9.0, heat.getRating());
+        assertEquals(9.0, collection.computeAverageRatingByGenre("Thriller"));
+    }
+
+    /**
+     * Tests that {@link CSVImporter.Mode#INSERT} skips rows that repeat an existing DVD,
+     * or one added earlier in the same file, and still imports the rest of the file.
+     */
+    @Test
+    void testInsertModeSkipsExistingKeys() throws IOException {
+        Path file = tempDir.resolve("dvds.csv");
+        Files.writeString(file, "1,Alien,Scott,1979,Horror,8.5\n"
+                + "2,Heat,Mann,1995,Thriller,9.0\n"
+                + "3,Bound,Wachowski,1996,Crime,7.3\n"
+                + "4,Alien,Scott,1979,Horror,8.6\n"
+                + "5,Ronin,Frankenheimer,1998,Action,7.2\n");
+
+        assertEquals(3, CSVImporter.importFromCSV(file.toString(), collection,
+                2, ImportMonitor.NONE, CSVImporter.Mode.INSERT));
+        assertEquals(4, collection.count());
+        DVD heat = collection.search("Heat", 10).get(0);
+        assertEquals("Crime", heat.getGenre(), "an existing DVD is not overwritten");
+        assertEquals(8.5, collection.search("Alien", 10).get(0).getRating());
+        assertEquals(1, collection.search("Ronin", 10).size());
+    }
+}
@@ -0,0 +1,55 @@
+package dms.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code LatencyHistogramTest} class verifies that {@link LatencyHistogram}
+ * places values in the right buckets and reports percentiles within its stated precision.
+ *
+ * <p>This class uses the JUnit 5 testing framework to validate functionality.</p>
+ */
+class LatencyHistogramTest {
+
+    /**
+     * Tests that every value maps to a bucket whose upper bound is at least the value and
+     * at most 12.5% above it, and that bucket numbers never decrease as values grow.
+     */
+    @Test
+    void testBucketBounds() {
+        int previous = 0;
+        for (long value = 0; value < 1_000_000; value += 1 + value / 50) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket >= previous, "bucket order at " + value);
+            long upper = LatencyHistogram.upperBoundOf(bucket);
+            assertTrue(upper >= value, "upper bound below value " + value);
+            assertTrue(upper <= value + value / LatencyHistogram.SUB_BUCKETS, "bucket too wide at " + value);
+            previous = bucket;
+        }
+    }
+
+    /**
+     * Tests percentiles, mean, max and reset on a uniform spread of 1 to 10,000 microseconds.
+     */
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1000L);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(5_000_500.0, histogram.getMeanNanos(), 0.001);
+        assertEquals(10_000_000, histogram.getMaxNanos());
+        assertEquals(5_000_000, histogram.getPercentileNanos(50), 5_000_000 * 0.125);
+        assertEquals(9_900_000, histogram.getPercentileNanos(99), 9_900_000 * 0.125);
+        assertEquals(10_000_000, histogram.getPercentileNanos(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(99));
+    }
+}
@@ -0,0 +1,110 @@
+package dms.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code ParallelCSVReaderTest} class verifies that {@link ParallelCSVReader}
+ * parses RFC 4180 CSV data correctly and that splitting a file into parallel chunks
+ * keeps every record intact and in file order, also around quotes the parser treats as text.
+ *
+ * <p>This class uses the JUnit 5 testing framework to validate functionality.</p>
+ */
+class ParallelCSVReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Tests that quoted fields may contain commas, doubled quotes and line breaks,
+     * and that CRLF line endings are removed.
+     */
+    @Test
+    void testParseQuotedFields() {
+        String csv = "1,\"Crouching Tiger, Hidden Dragon\",Ang Lee,2000,Action,7.9\r\n"
+                + "2,\"The \"\"Best\"\" Movie\",\"Line\nBreak\",1999,Drama,5.0\n";
+        List<CSVRecord> records = ParallelCSVReader.parse(
+                ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, records.size());
+        assertEquals("Crouching Tiger, Hidden Dragon", records.get(0).get(1));
+        assertEquals("7.9", records.get(0).get(5));
+        assertEquals("The \"Best\" Movie", records.get(1).get(1));
+        assertEquals("Line\nBreak", records.get(1).get(2));
+        assertEquals(6, records.get(1).size());
+    }
+
+    /**
+     * Tests that a file read with a very small chunk size, so that quoted line breaks
+     * fall on chunk edges, yields every record exactly once and in order.
+     */
+    @Test
+    void testChunkedReadKeepsRecordsInOrder() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            if (i % 5 == 0) {
+                csv.append(i).append(",\"Title, with \"\"quotes\"\"\nand a break\",Director,2000,Drama,8.0\r\n");
+            } else {
+                csv.append(i).append(",Title ").append(i).append(",Director,2000,Drama,8.0\n");
+            }
+        }
+        Path file = tempDir.resolve("dvds.csv");
+        Files.writeString(file, csv.toString());
+
+        List<CSVRecord> records = new ArrayList<>();
+        new ParallelCSVReader(file, 512, new ForkJoinPool(4)).read(chunk -> chunk, records::addAll);
+
+        assertEquals(5000, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(String.valueOf(i), records.get(i).get(0));
+            assertEquals(6, records.get(i).size());
+        }
+        assertEquals("Title, with \"quotes\"\nand a break", records.get(0).get(1));
+    }
+
+    /**
+     * Tests that a quote inside an unquoted field, which the parser keeps as text, does not
+     * throw off the chunk boundaries of the quoted multi-line fields after it: every chunk
+     * size yields the records of a sequential parse.
+     */
+    @Test
+    void testStrayQuoteKeepsChunkBoundaries() throws IOException {
+        StringBuilder csv = new StringBuilder("0,12\" Single,Director,2000,Music,8.0\n");
+        for (int i = 1; i <= 200; i++) {
+            csv.append(i).append(",\"Title\nwith, a \"\"break\"\"\",Director,2000,Drama,8.0")
+                    .append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+        Path file = tempDir.resolve("dvds.csv");
+        Files.write(file, bytes);
+        List<CSVRecord> expected = ParallelCSVReader.parse(ByteBuffer.wrap(bytes));
+        assertEquals(201, expected.size());
+        assertEquals("12\" Single", expected.get(0).get(1));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int chunkSize : new int[] {16, 25, 37, 64, 100}) {
+            List<CSVRecord> records = new ArrayList<>();
+            new ParallelCSVReader(file, chunkSize, pool).read(chunk -> chunk, records::addAll);
+            assertEquals(expected.size(), records.size(), "chunk size " + chunkSize);
+            for (int i = 0; i < records.size(); i++) {
+                assertEquals(String.valueOf(i), records.get(i).get(0), "chunk size " + chunkSize);
+                assertEquals(expected.get(i).get(1), records.get(i).get(1), "chunk size " + chunkSize);
+                assertEquals(6, records.get(i).size(), "chunk size " + chunkSize);
+            }
+        }
+        pool.shutdown();
+    }
+}
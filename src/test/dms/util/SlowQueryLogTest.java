@@ -0,0 +1,166 @@
+package dms.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Irene Duett, CEN 3024c, 11/12/2025
+ *
+ * The {@code SlowQueryLogTest} class verifies that a {@link SlowQueryLog} times every
+ * execute call of the statements a pool hands out, including reading the rows of a query,
+ * explains each distinct statement only once, and drops log lines beyond its rate limit.
+ *
+ * <p>This class uses the JUnit 5 testing framework to validate functionality.</p>
+ */
+class SlowQueryLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String url;
+    private Connection connection;
+    private AtomicInteger explains;
+
+    /**
+     * Creates a database file with one table and opens a connection to it that counts the
+     * {@code EXPLAIN QUERY PLAN} statements prepared on it.
+     */
+    @BeforeEach
+    void setup() throws SQLException {
+        url = DBUtil.toJdbcUrl(tempDir.resolve("dvds.db").toString());
+        Connection raw = DriverManager.getConnection(url);
+        try (Statement stmt = raw.createStatement()) {
+            stmt.execute("CREATE TABLE dvd (id INTEGER PRIMARY KEY, title TEXT)");
+        }
+        explains = new AtomicInteger();
+        connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement") && args[0].toString().startsWith("EXPLAIN")) {
+                        explains.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(raw, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * Closes the counting connection.
+     */
+    @AfterEach
+    void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    /**
+     * Tests that with a threshold of zero every execute call of a pooled statement is
+     * reported, including batches, and that nothing is suppressed below the rate limit.
+     */
+    @Test
+    void testThresholdZeroReportsEveryExecution() throws SQLException {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(Duration.ZERO, 100);
+        try (ConnectionPool pool = new ConnectionPool(url, 1)) {
+            pool.setSlowQueryLog(slowQueryLog);
+            try (PooledConnection conn = pool.borrow()) {
+                PreparedStatement insert = conn.prepare("INSERT INTO dvd (title) VALUES (?)");
+                insert.setString(1, "Heat");
+                insert.executeUpdate();
+                insert.setString(1, "Alien");
+                insert.addBatch();
+                insert.setString(1, "Ronin");
+                insert.addBatch();
+                insert.executeBatch();
+
+                for (int i = 0; i < 3; i++) {
+                    PreparedStatement select = conn.prepare("SELECT title FROM dvd WHERE id = ?");
+                    select.setInt(1, i);
+                    try (ResultSet rs = select.executeQuery()) {
+                        assertEquals(i > 0, rs.next());
+                    }
+                }
+            }
+        }
+        assertEquals(Duration.ZERO, slowQueryLog.getThreshold());
+        assertEquals(5, slowQueryLog.getSlowCount());
+        assertEquals(0, slowQueryLog.getSuppressedCount());
+    }
+
+    /**
+     * Tests that a query is reported when its result set is closed, with the time spent
+     * reading its rows, so a query that is slow only after its first row is caught too.
+     */
+    @Test
+    void testQueryTimeIncludesReadingRows() throws Exception {
+        SlowQueryLog slowQueryLog = new SlowQueryLog(Duration.ofMillis(100), 100);
+        try (ConnectionPool pool = new ConnectionPool(url, 1)) {
+            pool.setSlowQueryLog(slowQueryLog);
+            try (PooledConnection conn = pool.borrow()) {
+                PreparedStatement select = conn.prepare(
+                        "WITH RECURSIVE n(x) AS (SELECT 1 UNION ALL SELECT x + 1 FROM n WHERE x < 3) SELECT x FROM n");
+                try (ResultSet rs = select.executeQuery()) {
+                    assertTrue(rs.next());
+                    Thread.sleep(150);
+                    int rows = 1;
+                    while (rs.next()) rows++;
+                    assertEquals(3, rows);
+                    assertEquals(0, slowQueryLog.getSlowCount(), "reported only once the rows are read");
+                }
+                assertEquals(1, slowQueryLog.getSlowCount());
+            }
+        }
+    }
+
+    /**
+     * Tests that the query plan of a statement is looked up on its first logged execution
+     * only, and once more for each other statement.
+     */
+    @Test
+    void testPlanIsExplainedOncePerStatement() {
+        assumeTrue(LoggerFactory.getLogger(SlowQueryLog.class).isWarnEnabled(), "slow queries are logged");
+        SlowQueryLog slowQueryLog = new SlowQueryLog(Duration.ZERO, 100);
+        for (int i = 0; i < 4; i++) {
+            slowQueryLog.report("SELECT title FROM dvd WHERE id = ?", "{1=" + i + "}", 1_000_000, connection);
+        }
+        assertEquals(1, explains.get());
+        slowQueryLog.report("SELECT COUNT(*) FROM dvd", "{}", 1_000_000, connection);
+        slowQueryLog.report("SELECT COUNT(*) FROM dvd", "{}", 1_000_000, connection);
+        assertEquals(2, explains.get());
+        assertEquals(6, slowQueryLog.getSlowCount());
+    }
+
+    /**
+     * Tests that a burst beyond the rate limit is counted but not logged, and that the
+     * statements dropped are not explained either.
+     */
+    @Test
+    void testRateLimitSuppressesBurst() {
+        assumeTrue(LoggerFactory.getLogger(SlowQueryLog.class).isWarnEnabled(), "slow queries are logged");
+        SlowQueryLog slowQueryLog = new SlowQueryLog(Duration.ZERO, 3);
+        for (int i = 0; i < 10; i++) {
+            slowQueryLog.report("SELECT title FROM dvd WHERE id = " + i, "{}", 1_000_000, connection);
+        }
+        assertEquals(10, slowQueryLog.getSlowCount());
+        assertEquals(7, slowQueryLog.getSuppressedCount());
+        assertEquals(3, explains.get(), "only the logged statements are explained");
+    }
+}